@@ -74,7 +74,10 @@ public class MockDataConfig {
         }
     }
 
-    private static class MockClientHttpResponse implements ClientHttpResponse {
+    /**
+     * Canned 200 JSON response; also used by SyntheticDataConfig
+     */
+    static class MockClientHttpResponse implements ClientHttpResponse {
         private final byte[] responseBody;
         private final HttpStatus status;
 
@@ -150,7 +153,10 @@ public class MockDataConfig {
         return drone;
     }
 
-    private ServicePoint[] getMockServicePoints() {
+    /**
+     * Also used by the availability benchmark, which bases its synthetic fleet here
+     */
+    public static ServicePoint[] getMockServicePoints() {
         List<ServicePoint> servicePoints = new ArrayList<>();
         ServicePoint sp1 = new ServicePoint();
         sp1.setId(1);
@@ -172,7 +178,10 @@ public class MockDataConfig {
         return servicePoints.toArray(new ServicePoint[0]);
     }
 
-    private RestrictedArea[] getMockRestrictedAreas() {
+    /**
+     * Also used by the pathfinding benchmarks so they run against the same no-fly zones
+     */
+    public static RestrictedArea[] getMockRestrictedAreas() {
         List<RestrictedArea> areas = new ArrayList<>();
         RestrictedArea area1 = new RestrictedArea();
         area1.setId(1);
@@ -233,7 +242,7 @@ public class MockDataConfig {
         return areas.toArray(new RestrictedArea[0]);
     }
 
-    private RestrictedArea.Vertex createVertex(double lng, double lat) {
+    private static RestrictedArea.Vertex createVertex(double lng, double lat) {
         RestrictedArea.Vertex vertex = new RestrictedArea.Vertex();
         vertex.setLng(lng);
         vertex.setLat(lat);
@@ -0,0 +1,106 @@
+package uk.ac.ed.acp.cw2.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+
+/**
+ * Fleet-scale synthetic data for load tests and benchmarks without network access.
+ * Enable with: spring.profiles.active=synthetic (sizes and seed in application-synthetic.properties)
+ * <p>
+ * Works like the mock profile: an interceptor answers the four ILP endpoints, here from a
+ * {@link SyntheticDataset} generated once at startup and serialised once, so every request
+ * pays only for deserialisation as it would with the real service.
+ */
+@Configuration
+@Profile("synthetic")
+public class SyntheticDataConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataConfig.class);
+
+    @Value("${synthetic.seed:42}")
+    private long seed;
+
+    @Value("${synthetic.drones:1000}")
+    private int drones;
+
+    @Value("${synthetic.service-points:20}")
+    private int servicePoints;
+
+    @Value("${synthetic.restricted-areas:50}")
+    private int restrictedAreas;
+
+    @Value("${synthetic.polygon-vertices:8}")
+    private int polygonVertices;
+
+    @Bean
+    @Primary
+    public RestTemplate syntheticRestTemplate() throws IOException {
+        long start = System.nanoTime();
+        SyntheticDataset dataset = SyntheticDataset.generate(seed, drones, servicePoints, restrictedAreas, polygonVertices);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+        SyntheticDataInterceptor interceptor = new SyntheticDataInterceptor(
+                objectMapper.writeValueAsBytes(dataset.getDrones()),
+                objectMapper.writeValueAsBytes(dataset.getServicePoints()),
+                objectMapper.writeValueAsBytes(dataset.getRestrictedAreas()),
+                objectMapper.writeValueAsBytes(dataset.getDroneAvailability()));
+
+        logger.info("Synthetic ILP data (seed {}): {} drones, {} service points, {} restricted areas x {} vertices, built in {} ms",
+                seed, drones, servicePoints, restrictedAreas, polygonVertices, (System.nanoTime() - start) / 1_000_000);
+
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(interceptor);
+        return restTemplate;
+    }
+
+    private static class SyntheticDataInterceptor implements ClientHttpRequestInterceptor {
+        private final byte[] drones;
+        private final byte[] servicePoints;
+        private final byte[] restrictedAreas;
+        private final byte[] droneAvailability;
+
+        SyntheticDataInterceptor(byte[] drones, byte[] servicePoints, byte[] restrictedAreas, byte[] droneAvailability) {
+            this.drones = drones;
+            this.servicePoints = servicePoints;
+            this.restrictedAreas = restrictedAreas;
+            this.droneAvailability = droneAvailability;
+        }
+
+        @Override
+        public @org.springframework.lang.NonNull ClientHttpResponse intercept(@org.springframework.lang.NonNull HttpRequest request, @org.springframework.lang.NonNull byte[] body,
+                                                                             @org.springframework.lang.NonNull ClientHttpRequestExecution execution) throws IOException {
+            String url = request.getURI().toString();
+
+            byte[] responseBody;
+            // Check more specific URLs first to avoid partial matches
+            if (url.contains("/drones-for-service-points")) {
+                responseBody = droneAvailability;
+            } else if (url.contains("/service-points")) {
+                responseBody = servicePoints;
+            } else if (url.contains("/restricted-areas")) {
+                responseBody = restrictedAreas;
+            } else if (url.contains("/drones")) {
+                responseBody = drones;
+            } else {
+                return execution.execute(request, body);
+            }
+
+            return new MockDataConfig.MockClientHttpResponse(responseBody, HttpStatus.OK);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package uk.ac.ed.acp.cw2.configuration;
+
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic ILP-shaped reference data at any scale, generated from a seed.
+ * <p>
+ * Everything lies in a square of SPAN degrees around central Edinburgh:
+ * - Service points at random positions.
+ * - Restricted areas as closed star-shaped polygons with the requested number of corners,
+ *   placed so that no service point lies inside or within the move buffer of one.
+ * - Drones with capabilities drawn from the same ranges as the real fleet.
+ * - Each drone based at one service point (one in ten at a second), with a weekly schedule of
+ *   whole-day, morning (00:00-11:59:59) or afternoon (12:00-23:59:59) slots like the ILP data.
+ * <p>
+ * The same seed and sizes always give equal datasets.
+ */
+public final class SyntheticDataset {
+
+    public static final double CENTRE_LNG = -3.1883;
+    public static final double CENTRE_LAT = 55.9445;
+    public static final double SPAN = 0.08;
+
+    private static final double MIN_AREA_RADIUS = 0.0004;
+    private static final double MAX_AREA_RADIUS = 0.0025;
+    private static final double[] CAPACITIES = {4.0, 8.0, 12.0, 20.0};
+    private static final int[] MAX_MOVES = {1000, 1500, 2000, 4000};
+    private static final LocalTime MIDNIGHT = LocalTime.MIDNIGHT;
+    private static final LocalTime NOON = LocalTime.NOON;
+    private static final LocalTime BEFORE_NOON = LocalTime.parse("11:59:59");
+    private static final LocalTime END_OF_DAY = LocalTime.parse("23:59:59");
+
+    private final Drone[] drones;
+    private final ServicePoint[] servicePoints;
+    private final RestrictedArea[] restrictedAreas;
+    private final DroneServicePointAvailability[] droneAvailability;
+
+    private SyntheticDataset(Drone[] drones, ServicePoint[] servicePoints,
+                             RestrictedArea[] restrictedAreas, DroneServicePointAvailability[] droneAvailability) {
+        this.drones = drones;
+        this.servicePoints = servicePoints;
+        this.restrictedAreas = restrictedAreas;
+        this.droneAvailability = droneAvailability;
+    }
+
+    /**
+     * @param polygonVertices corners per restricted area (at least 3)
+     */
+    public static SyntheticDataset generate(long seed, int droneCount, int servicePointCount,
+                                            int restrictedAreaCount, int polygonVertices) {
+        if (servicePointCount < 1 || polygonVertices < 3) {
+            throw new IllegalArgumentException("Need at least one service point and three corners per area");
+        }
+        Random random = new Random(seed);
+
+        ServicePoint[] servicePoints = new ServicePoint[servicePointCount];
+        for (int s = 0; s < servicePointCount; s++) {
+            servicePoints[s] = new ServicePoint("Synthetic Service Point " + (s + 1), s + 1,
+                    new ServicePoint.Location(round(randomLng(random), 8), round(randomLat(random), 8), null));
+        }
+
+        RestrictedArea[] restrictedAreas = new RestrictedArea[restrictedAreaCount];
+        for (int a = 0; a < restrictedAreaCount; a++) {
+            restrictedAreas[a] = restrictedArea(random, a + 1, polygonVertices, servicePoints);
+        }
+
+        Drone[] drones = new Drone[droneCount];
+        List<List<DroneServicePointAvailability.DroneAvailability>> based = new ArrayList<>();
+        for (int s = 0; s < servicePointCount; s++) {
+            based.add(new ArrayList<>());
+        }
+        for (int d = 0; d < droneCount; d++) {
+            int id = d + 1;
+            drones[d] = new Drone("Drone " + id, id, new Drone.Capability(
+                    random.nextDouble() < 0.4,
+                    random.nextDouble() < 0.5,
+                    CAPACITIES[random.nextInt(CAPACITIES.length)],
+                    MAX_MOVES[random.nextInt(MAX_MOVES.length)],
+                    round(0.01 + random.nextDouble() * 0.06, 3),
+                    round(1.0 + random.nextDouble() * 9.0, 1),
+                    round(1.0 + random.nextDouble() * 12.0, 1)));
+
+            int home = random.nextInt(servicePointCount);
+            based.get(home).add(new DroneServicePointAvailability.DroneAvailability(String.valueOf(id), schedule(random)));
+            if (servicePointCount > 1 && random.nextInt(10) == 0) {
+                int second = (home + 1 + random.nextInt(servicePointCount - 1)) % servicePointCount;
+                based.get(second).add(new DroneServicePointAvailability.DroneAvailability(String.valueOf(id), schedule(random)));
+            }
+        }
+
+        DroneServicePointAvailability[] availability = new DroneServicePointAvailability[servicePointCount];
+        for (int s = 0; s < servicePointCount; s++) {
+            availability[s] = new DroneServicePointAvailability(s + 1, based.get(s));
+        }
+        return new SyntheticDataset(drones, servicePoints, restrictedAreas, availability);
+    }
+
+    /**
+     * A closed star-shaped polygon: corners at increasing angles around a centre, each at its own
+     * radius. Centres are redrawn until the polygon's outer circle (plus buffer) misses every service point.
+     */
+    private static RestrictedArea restrictedArea(Random random, int id, int corners, ServicePoint[] servicePoints) {
+        double radius = MIN_AREA_RADIUS + random.nextDouble() * (MAX_AREA_RADIUS - MIN_AREA_RADIUS);
+        double centreLng;
+        double centreLat;
+        int attempts = 0;
+        do {
+            centreLng = randomLng(random);
+            centreLat = randomLat(random);
+        } while (coversServicePoint(centreLng, centreLat, radius, servicePoints) && ++attempts < 100);
+
+        double step = 2 * Math.PI / corners;
+        double start = random.nextDouble() * step;
+        List<RestrictedArea.Vertex> vertices = new ArrayList<>(corners + 1);
+        for (int c = 0; c < corners; c++) {
+            double angle = start + c * step + random.nextDouble() * step * 0.5;
+            double r = radius * (0.5 + random.nextDouble() * 0.5);
+            vertices.add(new RestrictedArea.Vertex(
+                    round(centreLng + r * Math.cos(angle), 10), round(centreLat + r * Math.sin(angle), 10), null));
+        }
+        // ILP polygons repeat the first vertex at the end
+        vertices.add(vertices.get(0));
+        return new RestrictedArea("Synthetic Area " + id, id, null, vertices);
+    }
+
+    private static boolean coversServicePoint(double lng, double lat, double radius, ServicePoint[] servicePoints) {
+        for (ServicePoint sp : servicePoints) {
+            double distance = GeoMath.distance(lng, lat, sp.getLocation().getLng(), sp.getLocation().getLat());
+            if (distance <= radius + 2 * GeoMath.MOVE_DISTANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One slot on most days: the whole day, the morning or the afternoon
+     */
+    private static List<DroneServicePointAvailability.TimeSlot> schedule(Random random) {
+        List<DroneServicePointAvailability.TimeSlot> slots = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (random.nextDouble() >= 0.7) {
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0 -> slots.add(new DroneServicePointAvailability.TimeSlot(day.name(), MIDNIGHT, END_OF_DAY));
+                case 1 -> slots.add(new DroneServicePointAvailability.TimeSlot(day.name(), MIDNIGHT, BEFORE_NOON));
+                default -> slots.add(new DroneServicePointAvailability.TimeSlot(day.name(), NOON, END_OF_DAY));
+            }
+        }
+        return slots;
+    }
+
+    private static double randomLng(Random random) {
+        return CENTRE_LNG - SPAN / 2 + random.nextDouble() * SPAN;
+    }
+
+    private static double randomLat(Random random) {
+        return CENTRE_LAT - SPAN / 2 + random.nextDouble() * SPAN;
+    }
+
+    private static double round(double value, int places) {
+        double scale = Math.pow(10, places);
+        return Math.round(value * scale) / scale;
+    }
+
+    public Drone[] getDrones() {
+        return drones;
+    }
+
+    public ServicePoint[] getServicePoints() {
+        return servicePoints;
+    }
+
+    public RestrictedArea[] getRestrictedAreas() {
+        return restrictedAreas;
+    }
+
+    public DroneServicePointAvailability[] getDroneAvailability() {
+        return droneAvailability;
+    }
+}
@@ -0,0 +1,104 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uk.ac.ed.acp.cw2.dto.DeliveryJobStatus;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.service.DeliveryJobService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous version of /calcDeliveryPath for large batches:
+ * submit the dispatches, poll (or long-poll) the job, then fetch the plan
+ */
+@RestController
+@RequestMapping("/api/v1/deliveryJobs")
+public class DeliveryJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryJobController.class);
+
+    // Longest a status request may wait for the job to finish
+    private static final long MAX_WAIT_MILLIS = 30000;
+
+    // Seconds a client should back off after being turned away by admission control
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    @Autowired
+    private DeliveryJobService deliveryJobService;
+
+    /**
+     * POST /api/v1/deliveryJobs
+     * Queue a delivery path computation; 202 with the job status, or 503 when the queue is full
+     */
+    @PostMapping
+    public ResponseEntity<DeliveryJobStatus> submitJob(
+            @RequestBody @Valid List<@Valid MedDispatchRec> dispatches,
+            @RequestHeader(value = DroneController.PLANNING_BUDGET_HEADER, required = false) Long budgetMillis) {
+
+        logger.info("Request: POST /deliveryJobs with {} dispatches", dispatches.size());
+
+        DeliveryJobStatus status = deliveryJobService.submit(dispatches, budgetMillis);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", RETRY_AFTER_SECONDS)
+                    .build();
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/v1/deliveryJobs/" + status.getJobId())
+                .body(status);
+    }
+
+    /**
+     * GET /api/v1/deliveryJobs/{jobId}?waitMs=...
+     * Job status; with waitMs the response is held (without tying up a servlet thread)
+     * until the job finishes or waitMs passes
+     */
+    @GetMapping("/{jobId}")
+    public CompletableFuture<ResponseEntity<DeliveryJobStatus>> getJobStatus(
+            @PathVariable String jobId,
+            @RequestParam(value = "waitMs", defaultValue = "0") long waitMs) {
+
+        logger.debug("Request: GET /deliveryJobs/{} (waitMs {})", jobId, waitMs);
+
+        return deliveryJobService.awaitStatus(jobId, Math.min(waitMs, MAX_WAIT_MILLIS))
+                .thenApply(status -> status != null
+                        ? ResponseEntity.ok(status)
+                        : ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET /api/v1/deliveryJobs/{jobId}/result
+     * The plan once the job has succeeded; 202 with the status while it is still queued or running
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<?> getJobResult(@PathVariable String jobId) {
+        logger.info("Request: GET /deliveryJobs/{}/result", jobId);
+
+        DeliveryJobStatus status = deliveryJobService.getStatus(jobId);
+        if (status == null) {
+            logger.warn("Delivery job {} not found", jobId);
+            return ResponseEntity.notFound().build();
+        }
+
+        switch (status.getState()) {
+            case SUCCEEDED:
+                DeliveryPathResponse response = deliveryJobService.getResult(jobId);
+                return ResponseEntity.ok()
+                        .header(DroneController.PLAN_STATUS_HEADER, DroneController.planStatus(response))
+                        .body(response);
+            case FAILED:
+                return ResponseEntity.internalServerError().body(status);
+            default:
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        }
+    }
+}
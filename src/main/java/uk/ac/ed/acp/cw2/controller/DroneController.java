@@ -4,14 +4,19 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
 import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.FlightPathVerification;
 import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
 import uk.ac.ed.acp.cw2.dto.QueryCondition;
+import uk.ac.ed.acp.cw2.planner.PlannerTrace;
 import uk.ac.ed.acp.cw2.service.DroneQueryService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -25,6 +30,13 @@ public class DroneController {
 
     private static final Logger logger = LoggerFactory.getLogger(DroneController.class);
 
+    // Optional request header overriding the planning budget, in milliseconds
+    static final String PLANNING_BUDGET_HEADER = "X-Planning-Budget-Ms";
+    // Response header: "complete", or "budget-truncated" when planning stopped at the budget
+    static final String PLAN_STATUS_HEADER = "X-Plan-Status";
+    // Optional request header: "verbose" logs every planner trace event of this request at INFO
+    static final String PLANNER_TRACE_HEADER = "X-Planner-Trace";
+
     @Autowired
     private DroneQueryService droneQueryService;
 
@@ -109,19 +121,74 @@ public class DroneController {
         return ResponseEntity.ok(droneIds);
     }
 
+    /**
+     * 4) POST /api/v1/queryAvailableDrones with an NDJSON body (one dispatch per line)
+     * Same as above, but each dispatch is validated and folded into the request's dispatch table as it
+     * is read, without binding the whole list first; 400 on the first bad dispatch. Not cached: every
+     * streamed query is answered afresh.
+     */
+    @PostMapping(value = "/queryAvailableDrones", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<Integer>> queryAvailableDronesStreamed(InputStream dispatches) throws IOException {
+        logger.info("Request: POST /queryAvailableDrones with streamed dispatches");
+
+        List<Integer> droneIds;
+        try {
+            droneIds = droneQueryService.queryAvailableDronesStreamed(dispatches);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected streamed dispatches: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        logger.info("Found {} available drones for the streamed dispatches", droneIds.size());
+        logger.debug("Available drone IDs: {}", droneIds);
+
+        return ResponseEntity.ok(droneIds);
+    }
+
     /**
      * 5) POST /api/v1/calcDeliveryPath
      * Calculate optimal delivery path for given dispatches
      */
     @PostMapping("/calcDeliveryPath")
     public ResponseEntity<DeliveryPathResponse> calculateDeliveryPath(
-            @RequestBody @Valid List<@Valid MedDispatchRec> dispatches) {
+            @RequestBody @Valid List<@Valid MedDispatchRec> dispatches,
+            @RequestHeader(value = PLANNING_BUDGET_HEADER, required = false) Long budgetMillis,
+            @RequestHeader(value = PLANNER_TRACE_HEADER, required = false) String trace) {
 
         logger.info("Request: POST /calcDeliveryPath with {} dispatches", dispatches.size());
         logger.debug("Dispatches: {}", dispatches);
 
-        DeliveryPathResponse response = droneQueryService.calcDeliveryPath(dispatches);
+        DeliveryPathResponse response = planDeliveryPath(dispatches, budgetMillis, trace);
+        return deliveryPathResult(response);
+    }
+
+    /**
+     * 5) POST /api/v1/calcDeliveryPath with an NDJSON body (one dispatch per line)
+     * Same as above, but each dispatch is validated and added to the request's dispatch table as it is
+     * read, so the availability precheck is done when the body ends; 400 on the first bad one
+     */
+    @PostMapping(value = "/calcDeliveryPath", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<DeliveryPathResponse> calculateDeliveryPathStreamed(
+            InputStream dispatches,
+            @RequestHeader(value = PLANNING_BUDGET_HEADER, required = false) Long budgetMillis,
+            @RequestHeader(value = PLANNER_TRACE_HEADER, required = false) String trace) throws IOException {
+
+        logger.info("Request: POST /calcDeliveryPath with streamed dispatches");
+
+        DeliveryPathResponse response;
+        try {
+            response = planStreamedDeliveryPath(dispatches, budgetMillis, trace);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected streamed dispatches: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return deliveryPathResult(response);
+    }
 
+    /**
+     * 200 with the plan and its X-Plan-Status, or an empty plan if there is none
+     */
+    private ResponseEntity<DeliveryPathResponse> deliveryPathResult(DeliveryPathResponse response) {
         if (response == null) {
             logger.warn("No valid delivery path found - returning empty result");
             // Return empty response with 200 OK (all requests are valid as such)
@@ -129,14 +196,79 @@ public class DroneController {
             emptyResponse.setTotalCost(0.0);
             emptyResponse.setTotalMoves(0);
             emptyResponse.setDronePaths(new ArrayList<>());
-            return ResponseEntity.ok(emptyResponse);
+            return ResponseEntity.ok()
+                    .header(PLAN_STATUS_HEADER, planStatus(null))
+                    .body(emptyResponse);
         }
 
-        logger.info("Successfully calculated delivery path - Cost: {}, Moves: {}, Drones: {}",
+        logger.info("Successfully calculated delivery path - Cost: {}, Moves: {}, Drones: {}, Status: {}",
                 response.getTotalCost(), response.getTotalMoves(),
-                response.getDronePaths() != null ? response.getDronePaths().size() : 0);
+                response.getDronePaths() != null ? response.getDronePaths().size() : 0,
+                planStatus(response));
+
+        return ResponseEntity.ok()
+                .header(PLAN_STATUS_HEADER, planStatus(response))
+                .body(response);
+    }
+
+    /**
+     * Plan with the budget from the request header, or the configured default when it is absent,
+     * tracing in full when the trace header asks for it
+     */
+    private DeliveryPathResponse planDeliveryPath(List<MedDispatchRec> dispatches, Long budgetMillis, String trace) {
+        if (!PlannerTrace.VERBOSE.equalsIgnoreCase(trace)) {
+            return planDeliveryPath(dispatches, budgetMillis);
+        }
+        try (PlannerTrace.Scope ignored = PlannerTrace.requestVerbose()) {
+            return planDeliveryPath(dispatches, budgetMillis);
+        }
+    }
+
+    private DeliveryPathResponse planStreamedDeliveryPath(InputStream dispatches, Long budgetMillis, String trace)
+            throws IOException {
+        if (!PlannerTrace.VERBOSE.equalsIgnoreCase(trace)) {
+            return droneQueryService.calcDeliveryPathStreamed(dispatches, budgetMillis);
+        }
+        try (PlannerTrace.Scope ignored = PlannerTrace.requestVerbose()) {
+            return droneQueryService.calcDeliveryPathStreamed(dispatches, budgetMillis);
+        }
+    }
+
+    private DeliveryPathResponse planDeliveryPath(List<MedDispatchRec> dispatches, Long budgetMillis) {
+        if (budgetMillis == null) {
+            return droneQueryService.calcDeliveryPath(dispatches);
+        }
+        return droneQueryService.calcDeliveryPath(dispatches, budgetMillis);
+    }
+
+    /**
+     * Value of the X-Plan-Status header for a planner result
+     */
+    static String planStatus(DeliveryPathResponse response) {
+        if (response != null && response.getPlanStatus() != null) {
+            return response.getPlanStatus().headerValue();
+        }
+        return DeliveryPathResponse.PlanStatus.COMPLETE.headerValue();
+    }
+
+    /**
+     * POST /api/v1/verifyDeliveryPath
+     * Check a delivery plan (in the calcDeliveryPath response format) against the move rules, the
+     * current restricted areas and the drones' maxMoves; 400 if it has no drone paths to check
+     */
+    @PostMapping("/verifyDeliveryPath")
+    public ResponseEntity<FlightPathVerification> verifyDeliveryPath(@RequestBody DeliveryPathResponse plan) {
+        if (plan == null || plan.getDronePaths() == null || plan.getDronePaths().contains(null)) {
+            logger.warn("Request: POST /verifyDeliveryPath without drone paths");
+            return ResponseEntity.badRequest().build(); // 400 status
+        }
 
-        return ResponseEntity.ok(response);
+        logger.info("Request: POST /verifyDeliveryPath with {} drone paths", plan.getDronePaths().size());
+        FlightPathVerification verification = droneQueryService.verifyDeliveryPath(plan);
+        logger.info("Delivery path is {}: {} moves checked, {} violations",
+                verification.getValid() ? "valid" : "invalid",
+                verification.getCheckedMoves(), verification.getViolations().size());
+        return ResponseEntity.ok(verification);
     }
 
     /**
@@ -145,12 +277,14 @@ public class DroneController {
      */
     @PostMapping("/calcDeliveryPathAsGeoJson")
     public ResponseEntity<String> calcDeliveryPathAsGeoJson(
-            @RequestBody @Valid List<@Valid MedDispatchRec> dispatches) {
+            @RequestBody @Valid List<@Valid MedDispatchRec> dispatches,
+            @RequestHeader(value = PLANNING_BUDGET_HEADER, required = false) Long budgetMillis,
+            @RequestHeader(value = PLANNER_TRACE_HEADER, required = false) String trace) {
 
         logger.info("Request: POST /calcDeliveryPathAsGeoJson with {} dispatches", dispatches.size());
         logger.debug("Dispatches: {}", dispatches);
 
-        DeliveryPathResponse response = droneQueryService.calcDeliveryPath(dispatches);
+        DeliveryPathResponse response = planDeliveryPath(dispatches, budgetMillis, trace);
 
         if (response == null || response.getDronePaths() == null || response.getDronePaths().isEmpty()) {
             logger.warn("No valid delivery path found for GeoJSON - returning empty FeatureCollection");
@@ -162,7 +296,9 @@ public class DroneController {
 
                 ObjectMapper mapper = new ObjectMapper();
                 String geoJsonString = mapper.writeValueAsString(emptyGeoJson);
-                return ResponseEntity.ok(geoJsonString);
+                return ResponseEntity.ok()
+                        .header(PLAN_STATUS_HEADER, planStatus(response))
+                        .body(geoJsonString);
             } catch (Exception e) {
                 logger.error("Error generating empty GeoJSON", e);
                 return ResponseEntity.status(500).build();
@@ -213,7 +349,9 @@ public class DroneController {
             String geoJsonString = mapper.writeValueAsString(geoJson);
 
             logger.info("Successfully generated GeoJSON delivery path with service point");
-            return ResponseEntity.ok(geoJsonString);
+            return ResponseEntity.ok()
+                    .header(PLAN_STATUS_HEADER, planStatus(response))
+                    .body(geoJsonString);
         } catch (Exception e) {
             logger.error("Error generating GeoJSON", e);
             return ResponseEntity.status(500).build();
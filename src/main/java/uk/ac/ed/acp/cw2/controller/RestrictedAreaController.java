@@ -0,0 +1,89 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uk.ac.ed.acp.cw2.dto.TemporaryRestrictedArea;
+import uk.ac.ed.acp.cw2.service.RestrictedAreaRegistry;
+
+import java.util.List;
+
+/**
+ * Temporary no-fly zones on top of the ILP restricted areas. Plans already cached are repaired
+ * against a change straight away; new requests see it on their next fetch of the areas.
+ */
+@RestController
+@RequestMapping("/api/v1/restrictedAreas/temporary")
+public class RestrictedAreaController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestrictedAreaController.class);
+
+    @Autowired
+    private RestrictedAreaRegistry restrictedAreaRegistry;
+
+    /**
+     * GET /api/v1/restrictedAreas/temporary
+     * The temporary areas in force now
+     */
+    @GetMapping
+    public ResponseEntity<List<TemporaryRestrictedArea>> listAreas() {
+        logger.debug("Request: GET /restrictedAreas/temporary");
+        return ResponseEntity.ok(restrictedAreaRegistry.list());
+    }
+
+    /**
+     * POST /api/v1/restrictedAreas/temporary
+     * Register an area, replacing any with the same id; 201, or 400 if the area is incomplete
+     */
+    @PostMapping
+    public ResponseEntity<TemporaryRestrictedArea> registerArea(@RequestBody TemporaryRestrictedArea area) {
+        logger.info("Request: POST /restrictedAreas/temporary");
+
+        try {
+            restrictedAreaRegistry.register(area);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected temporary restricted area: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Location", "/api/v1/restrictedAreas/temporary/" + area.getArea().getId())
+                .body(area);
+    }
+
+    /**
+     * PUT /api/v1/restrictedAreas/temporary/{id}
+     * Move, reshape or extend the area with this id (registering it if it is new); 400 if incomplete
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<TemporaryRestrictedArea> updateArea(@PathVariable Integer id,
+                                                              @RequestBody TemporaryRestrictedArea area) {
+        logger.info("Request: PUT /restrictedAreas/temporary/{}", id);
+
+        if (area == null || area.getArea() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        area.getArea().setId(id);
+        try {
+            restrictedAreaRegistry.register(area);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected temporary restricted area {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(area);
+    }
+
+    /**
+     * DELETE /api/v1/restrictedAreas/temporary/{id}
+     * Expire the area now; 404 if there is no such area in force
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<TemporaryRestrictedArea> expireArea(@PathVariable Integer id) {
+        logger.info("Request: DELETE /restrictedAreas/temporary/{}", id);
+
+        TemporaryRestrictedArea removed = restrictedAreaRegistry.expire(id);
+        return removed != null ? ResponseEntity.ok(removed) : ResponseEntity.notFound().build();
+    }
+}
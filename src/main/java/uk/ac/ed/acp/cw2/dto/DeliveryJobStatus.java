@@ -0,0 +1,51 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot of an asynchronous delivery path job, returned by the /deliveryJobs endpoints
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryJobStatus {
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("state")
+    private State state;
+
+    @JsonProperty("dispatchCount")
+    private Integer dispatchCount;
+
+    // "complete" or "budget-truncated" once the job has succeeded, same as the X-Plan-Status header
+    @JsonProperty("planStatus")
+    private String planStatus;
+
+    @JsonProperty("error")
+    private String error;
+
+    // Epoch milliseconds, null until the job reaches that stage
+    @JsonProperty("submittedAt")
+    private Long submittedAt;
+
+    @JsonProperty("startedAt")
+    private Long startedAt;
+
+    @JsonProperty("finishedAt")
+    private Long finishedAt;
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED;
+        }
+    }
+}
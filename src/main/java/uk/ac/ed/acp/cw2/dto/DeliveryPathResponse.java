@@ -1,5 +1,6 @@
 package uk.ac.ed.acp.cw2.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -22,6 +23,40 @@ public class DeliveryPathResponse {
     @JsonProperty("dronePaths")
     private List<DronePath> dronePaths;
 
+    // Not serialised: the controller reports it in the X-Plan-Status header
+    @JsonIgnore
+    private PlanStatus planStatus;
+
+    public DeliveryPathResponse(Double totalCost, Integer totalMoves, List<DronePath> dronePaths) {
+        this.totalCost = totalCost;
+        this.totalMoves = totalMoves;
+        this.dronePaths = dronePaths;
+    }
+
+    /**
+     * Whether the planner finished its search, returned the best plan found before its budget ran out,
+     * or failed with an error
+     */
+    public enum PlanStatus {
+        COMPLETE("complete"),
+        BUDGET_TRUNCATED("budget-truncated"),
+        // The planner stopped on an unexpected error; the empty plan is no proof that none exists
+        FAILED("failed");
+
+        private final String headerValue;
+
+        PlanStatus(String headerValue) {
+            this.headerValue = headerValue;
+        }
+
+        /**
+         * Value reported in the X-Plan-Status response header
+         */
+        public String headerValue() {
+            return headerValue;
+        }
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,74 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of checking a delivery plan against the move rules and the current restricted areas,
+ * returned by /verifyDeliveryPath
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightPathVerification {
+    @JsonProperty("valid")
+    private Boolean valid;
+
+    // Moves checked over all drone paths, hovers included
+    @JsonProperty("checkedMoves")
+    private Integer checkedMoves;
+
+    @JsonProperty("violations")
+    private List<Violation> violations;
+
+    public enum ViolationType {
+        // Position with a missing coordinate, or a delivery without a flight path
+        MISSING_POSITION,
+        // Move that is not 0.00015 degrees along one of the 16 compass directions
+        INVALID_STEP,
+        // Move ending in or near a restricted area or crossing one, or a hover in one
+        RESTRICTED_AREA,
+        // Delivery whose flight path does not hover exactly once
+        HOVER,
+        // Delivery not starting where the previous one hovered or ended
+        DISCONTINUOUS,
+        // Drone not known to the ILP service
+        UNKNOWN_DRONE,
+        // Drone path with more moves than the drone's maxMoves
+        MAX_MOVES,
+        // Plan whose totalMoves is not the number of moves in its paths
+        TOTAL_MOVES
+    }
+
+    /**
+     * One broken rule. Indices are positions in the request: deliveryIndex within the drone path and
+     * pointIndex within that delivery's flight path (the end point of a bad move); the ones that do
+     * not apply to the rule are null.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Violation {
+        @JsonProperty("type")
+        private ViolationType type;
+
+        @JsonProperty("droneId")
+        private Integer droneId;
+
+        @JsonProperty("deliveryIndex")
+        private Integer deliveryIndex;
+
+        @JsonProperty("deliveryId")
+        private Integer deliveryId;
+
+        @JsonProperty("pointIndex")
+        private Integer pointIndex;
+
+        @JsonProperty("message")
+        private String message;
+    }
+}
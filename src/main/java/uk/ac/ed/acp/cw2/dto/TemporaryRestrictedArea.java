@@ -0,0 +1,24 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A no-fly zone registered at runtime on top of the ILP restricted areas, used by the
+ * /restrictedAreas/temporary endpoints
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemporaryRestrictedArea {
+
+    // The area's id identifies it for updates and removal
+    @JsonProperty("area")
+    private RestrictedArea area;
+
+    // Epoch milliseconds after which the area no longer applies, null to keep it until it is removed
+    @JsonProperty("expiresAt")
+    private Long expiresAt;
+}
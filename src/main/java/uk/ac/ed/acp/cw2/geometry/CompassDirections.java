@@ -0,0 +1,79 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+/**
+ * Immutable step table for the 16 compass directions a drone may move in.
+ * Convention: direction 0 = East (0°), 4 = North (90°), 8 = West (180°), 12 = South (270°),
+ * each index adding 22.5°. Offsets are precomputed once at MOVE_DISTANCE scale so that
+ * hot loops never call Math.toRadians / cos / sin.
+ */
+public final class CompassDirections {
+
+    public static final int COUNT = 16;
+    public static final double ANGLE_STEP = 22.5;
+
+    private static final double[] DX = new double[COUNT];
+    private static final double[] DY = new double[COUNT];
+
+    static {
+        for (int i = 0; i < COUNT; i++) {
+            double radians = Math.toRadians(i * ANGLE_STEP);
+            DX[i] = GeoMath.MOVE_DISTANCE * Math.cos(radians);
+            DY[i] = GeoMath.MOVE_DISTANCE * Math.sin(radians);
+        }
+    }
+
+    private CompassDirections() {
+    }
+
+    /**
+     * Longitude offset of one move in the given direction
+     */
+    public static double dx(int direction) {
+        return DX[direction];
+    }
+
+    /**
+     * Latitude offset of one move in the given direction
+     */
+    public static double dy(int direction) {
+        return DY[direction];
+    }
+
+    /**
+     * Angle in degrees of the given direction
+     */
+    public static double angle(int direction) {
+        return direction * ANGLE_STEP;
+    }
+
+    /**
+     * Direction index for an angle that is an exact multiple of 22.5 in [0, 360), or -1 otherwise
+     */
+    public static int exactDirection(double angle) {
+        if (angle < 0.0 || angle >= 360.0) {
+            return -1;
+        }
+        double steps = angle / ANGLE_STEP;
+        if (steps != Math.rint(steps)) {
+            return -1;
+        }
+        return (int) steps;
+    }
+
+    /**
+     * Snap a displacement vector to the compass direction it points closest to,
+     * by picking the largest dot product (no atan2 needed)
+     */
+    public static int snapVector(double dx, double dy) {
+        int best = 0;
+        double bestDot = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < COUNT; i++) {
+            double dot = DX[i] * dx + DY[i] * dy;
+            if (dot > bestDot) {
+                bestDot = dot;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,104 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+/**
+ * Allocation-free geometry kernel shared by GeoService and the drone planner.
+ * All methods work on primitive (lng, lat) doubles so they can be called from
+ * hot loops without boxing or creating position objects.
+ */
+public final class GeoMath {
+
+    // Length of a single drone move and the "close to" threshold (degrees)
+    public static final double MOVE_DISTANCE = 0.00015;
+    public static final double CLOSE_THRESHOLD = 0.00015;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Euclidean distance between two positions
+     */
+    public static double distance(double lng1, double lat1, double lng2, double lat2) {
+        double deltaLng = lng1 - lng2;
+        double deltaLat = lat1 - lat2;
+        return Math.sqrt(deltaLng * deltaLng + deltaLat * deltaLat);
+    }
+
+    /**
+     * Check if two positions are close to each other (distance < 0.00015)
+     */
+    public static boolean isCloseTo(double lng1, double lat1, double lng2, double lat2) {
+        return distance(lng1, lat1, lng2, lat2) < CLOSE_THRESHOLD;
+    }
+
+    /**
+     * Write the position one move away from (lng, lat) at the given angle into out[0] (lng) and out[1] (lat).
+     * Compass angles use the precomputed step table; any other angle falls back to trigonometry.
+     */
+    public static void nextPosition(double lng, double lat, double angle, double[] out) {
+        int direction = CompassDirections.exactDirection(angle);
+        if (direction >= 0) {
+            out[0] = lng + CompassDirections.dx(direction);
+            out[1] = lat + CompassDirections.dy(direction);
+            return;
+        }
+        double radians = Math.toRadians(angle);
+        out[0] = lng + MOVE_DISTANCE * Math.cos(radians);
+        out[1] = lat + MOVE_DISTANCE * Math.sin(radians);
+    }
+
+    /**
+     * Shortest distance from point (px, py) to the segment (x1, y1) - (x2, y2)
+     */
+    public static double pointToSegmentDistance(
+            double px, double py,
+            double x1, double y1,
+            double x2, double y2) {
+
+        double a = px - x1;
+        double b = py - y1;
+        double c = x2 - x1;
+        double d = y2 - y1;
+
+        double dot = a * c + b * d;
+        double lenSq = c * c + d * d;
+
+        double param = (lenSq != 0) ? (dot / lenSq) : -1;
+
+        double xx, yy;
+
+        if (param < 0) {
+            xx = x1;
+            yy = y1;
+        } else if (param > 1) {
+            xx = x2;
+            yy = y2;
+        } else {
+            xx = x1 + param * c;
+            yy = y1 + param * d;
+        }
+
+        double dx = px - xx;
+        double dy = py - yy;
+
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Check if two line segments intersect using the cross product method
+     */
+    public static boolean segmentsIntersect(
+            double x1, double y1, double x2, double y2,
+            double x3, double y3, double x4, double y4) {
+
+        double d = (x1 - x2) * (y3 - y4) - (y1 - y2) * (x3 - x4);
+
+        if (Math.abs(d) < 1e-10) {
+            return false; // Parallel lines
+        }
+
+        double t = ((x1 - x3) * (y3 - y4) - (y1 - y3) * (x3 - x4)) / d;
+        double u = -((x1 - x2) * (y1 - y3) - (y1 - y2) * (x1 - x3)) / d;
+
+        return (t >= 0 && t <= 1 && u >= 0 && u <= 1);
+    }
+}
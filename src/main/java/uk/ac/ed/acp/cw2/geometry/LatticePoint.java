@@ -0,0 +1,135 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+/**
+ * Exact position on the 16-direction move lattice, relative to the position the moves started from.
+ * <p>
+ * Every compass offset is plus or minus one move times one of cos 0°, cos 22.5°, cos 45° and
+ * cos 67.5° along each axis, so a position is four whole counts of those per axis. The counts
+ * are what the planner adds up and compares; degrees are only worked out, always by the same
+ * sum, when a position is validated or returned. Two move sequences reaching the same point
+ * therefore give equal points with equal degrees, on every run and machine, where adding
+ * doubles would drift apart in the last bits.
+ * <p>
+ * Counts are packed 16 bits apiece into one long per axis, which keeps equality and hashing to
+ * two long comparisons. They stay exact up to 32767 moves from the start on each count, far
+ * more than any one leg.
+ */
+public final class LatticePoint {
+
+    public static final LatticePoint ORIGIN = new LatticePoint(0L, 0L);
+
+    private static final int BITS = 16;
+
+    // cos 0°, cos 22.5°, cos 45°, cos 67.5°, each a whole number of times in every coordinate
+    private static final double[] BASIS = {
+            1.0, Math.cos(Math.toRadians(22.5)), Math.cos(Math.toRadians(45.0)), Math.cos(Math.toRadians(67.5))};
+
+    // Packed change of the counts per move in each direction
+    private static final long[] X_STEP = new long[CompassDirections.COUNT];
+    private static final long[] Y_STEP = new long[CompassDirections.COUNT];
+
+    static {
+        for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+            X_STEP[direction] = cosineStep(direction);
+            // sin θ = cos(θ - 90°)
+            Y_STEP[direction] = cosineStep(direction - CompassDirections.COUNT / 4);
+        }
+    }
+
+    private final long x;
+    private final long y;
+
+    private LatticePoint(long x, long y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * The point one move away in the direction
+     */
+    public LatticePoint step(int direction) {
+        return new LatticePoint(x + X_STEP[direction], y + Y_STEP[direction]);
+    }
+
+    /**
+     * The point the given number of moves away in the direction
+     */
+    public LatticePoint step(int direction, int moves) {
+        return new LatticePoint(x + moves * X_STEP[direction], y + moves * Y_STEP[direction]);
+    }
+
+    /**
+     * The point one move back against the direction, i.e. the one a move in the direction comes from
+     */
+    public LatticePoint back(int direction) {
+        return new LatticePoint(x - X_STEP[direction], y - Y_STEP[direction]);
+    }
+
+    /**
+     * Longitude of the point for moves started at originLng
+     */
+    public double lng(double originLng) {
+        return originLng + GeoMath.MOVE_DISTANCE * moves(x);
+    }
+
+    /**
+     * Latitude of the point for moves started at originLat
+     */
+    public double lat(double originLat) {
+        return originLat + GeoMath.MOVE_DISTANCE * moves(y);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof LatticePoint point && point.x == x && point.y == y;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(x * 31 + y);
+    }
+
+    @Override
+    public String toString() {
+        return "LatticePoint" + counts(x) + counts(y);
+    }
+
+    /**
+     * Packed change of the cosine counts for a move at direction × 22.5°
+     */
+    private static long cosineStep(int direction) {
+        // Fold onto 0° - 180°, where cosine falls from 1 to -1
+        int folded = Math.floorMod(direction, CompassDirections.COUNT);
+        folded = Math.min(folded, CompassDirections.COUNT - folded);
+        int quarter = CompassDirections.COUNT / 4;
+        if (folded == quarter) {
+            return 0L;
+        }
+        return folded < quarter ? 1L << (BITS * folded) : -(1L << (BITS * (2 * quarter - folded)));
+    }
+
+    /**
+     * The packed counts' sum of the basis values, in moves
+     */
+    private static double moves(long packed) {
+        double sum = 0.0;
+        long rest = packed;
+        for (int i = 0; i < BASIS.length; i++) {
+            short count = (short) rest;
+            sum += count * BASIS[i];
+            rest = (rest - count) >> BITS;
+        }
+        return sum;
+    }
+
+    private static String counts(long packed) {
+        StringBuilder text = new StringBuilder("[");
+        long rest = packed;
+        for (int i = 0; i < BASIS.length; i++) {
+            short count = (short) rest;
+            text.append(i == 0 ? "" : ", ").append(count);
+            rest = (rest - count) >> BITS;
+        }
+        return text.append(']').toString();
+    }
+}
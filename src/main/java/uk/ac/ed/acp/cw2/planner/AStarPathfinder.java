@@ -0,0 +1,164 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Weighted A* (epsilon 1.5) over the 16-direction lattice, expanding one move at a time.
+ * Sacrifices optimality for speed; gives up after a fixed number of expansions.
+ */
+public class AStarPathfinder implements LatticePathfinder {
+
+    public static final int DEFAULT_MAX_ITERATIONS = 10000;
+    static final double HEURISTIC_WEIGHT = 1.5;
+    // Pathfinders look at the planning deadline every 256 expansions
+    static final int DEADLINE_CHECK_MASK = 0xff;
+
+    private static final Logger logger = LoggerFactory.getLogger(AStarPathfinder.class);
+
+    private final int maxIterations;
+
+    public AStarPathfinder() {
+        this(DEFAULT_MAX_ITERATIONS);
+    }
+
+    public AStarPathfinder(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public PathSearchResult search(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator,
+            PlanningDeadline deadline) {
+
+        logger.debug("Starting A* pathfinding from ({}, {}) to ({}, {})",
+                from.getLng(), from.getLat(), to.getLng(), to.getLat());
+
+        // Priority queue ordered by f(n) = g(n) + h(n)
+        PriorityQueue<Node> openSet = new PriorityQueue<>(
+                Comparator.comparingDouble(n -> n.f)
+        );
+
+        Set<LatticePoint> closedSet = new HashSet<>();
+        Map<LatticePoint, Node> allNodes = new HashMap<>();
+
+        // Initialize start node
+        Node startNode = new Node(LatticePoint.ORIGIN, from.getLng(), from.getLat());
+        startNode.g = 0;
+        startNode.h = GeoMath.distance(from.getLng(), from.getLat(), to.getLng(), to.getLat());
+        startNode.f = startNode.g + startNode.h;
+
+        openSet.add(startNode);
+        allNodes.put(startNode.point, startNode);
+
+        int iterations = 0;
+
+        while (!openSet.isEmpty() && iterations < maxIterations) {
+            iterations++;
+            if ((iterations & DEADLINE_CHECK_MASK) == 0 && deadline.isExpired()) {
+                logger.warn("A* stopped by planning deadline after {} iterations", iterations);
+                return new PathSearchResult(null, iterations);
+            }
+
+            Node current = openSet.poll();
+
+            // Check if goal reached (within 0.00015 degree tolerance)
+            if (GeoMath.isCloseTo(current.lng, current.lat, to.getLng(), to.getLat())) {
+                logger.debug("A* found path in {} iterations", iterations);
+                return new PathSearchResult(current.path(), iterations);
+            }
+
+            closedSet.add(current.point);
+
+            // Explore all 16 compass directions
+            for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                LatticePoint key = current.point.step(direction);
+                if (closedSet.contains(key)) {
+                    continue;
+                }
+
+                Node neighbor = new Node(key, from.getLng(), from.getLat());
+                double newLng = neighbor.lng;
+                double newLat = neighbor.lat;
+                if (!validator.isValidMove(current.lng, current.lat, newLng, newLat)) {
+                    continue;
+                }
+
+                // Each move is 0.00015 degrees
+                double tentativeG = current.g + GeoMath.MOVE_DISTANCE;
+
+                Node existingNode = allNodes.get(key);
+
+                if (existingNode == null || tentativeG < existingNode.g) {
+                    neighbor.g = tentativeG;
+                    neighbor.h = GeoMath.distance(newLng, newLat, to.getLng(), to.getLat());
+                    neighbor.f = neighbor.g + HEURISTIC_WEIGHT * neighbor.h;
+                    neighbor.parent = current;
+
+                    if (existingNode == null) {
+                        openSet.add(neighbor);
+                        allNodes.put(key, neighbor);
+                    } else {
+                        // Update existing node and re-add with its new priority
+                        existingNode.g = neighbor.g;
+                        existingNode.h = neighbor.h;
+                        existingNode.f = neighbor.f;
+                        existingNode.parent = neighbor.parent;
+                        openSet.remove(existingNode);
+                        openSet.add(existingNode);
+                    }
+                }
+            }
+        }
+
+        logger.warn("A* failed to find path after {} iterations", iterations);
+        return new PathSearchResult(null, iterations);
+    }
+
+    /**
+     * Node in the A* search, identified by its exact lattice point relative to the start
+     */
+    static class Node {
+        final LatticePoint point;
+        final double lng;
+        final double lat;
+        double g; // Cost from start
+        double h; // Heuristic to goal
+        double f; // Total cost (g + h)
+        Node parent;
+
+        Node(LatticePoint point, double originLng, double originLat) {
+            this.point = point;
+            this.lng = point.lng(originLng);
+            this.lat = point.lat(originLat);
+        }
+
+        /**
+         * Reconstruct the path from the root to this node by following parent pointers
+         */
+        List<DeliveryPathResponse.LngLat> path() {
+            List<DeliveryPathResponse.LngLat> path = new ArrayList<>();
+            for (Node current = this; current != null; current = current.parent) {
+                path.add(new DeliveryPathResponse.LngLat(current.lng, current.lat));
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Weighted A* run from both ends of the leg at once, alternating expansions and
+ * stopping as soon as one frontier generates a node the other has already reached.
+ * <p>
+ * The lattice is anchored at the start, so the goal itself is usually not a lattice point.
+ * The backward search therefore starts from an anchor: the lattice point that a straight
+ * greedy walk from the start lands on within 0.00015 of the goal. Backward steps subtract
+ * a compass move, so both searches stay on the same lattice (points relative to the start)
+ * and their node keys meet exactly.
+ * If no anchor is clear of restricted areas the search degrades to plain forward A*.
+ */
+public class BidirectionalAStarPathfinder implements LatticePathfinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BidirectionalAStarPathfinder.class);
+
+    private final int maxIterations;
+
+    public BidirectionalAStarPathfinder() {
+        this(AStarPathfinder.DEFAULT_MAX_ITERATIONS);
+    }
+
+    public BidirectionalAStarPathfinder(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public PathSearchResult search(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator,
+            PlanningDeadline deadline) {
+
+        LatticePoint anchor = findGoalAnchor(from, to, validator);
+        if (anchor == null) {
+            logger.debug("No clear lattice anchor near goal ({}, {}), falling back to forward A*",
+                    to.getLng(), to.getLat());
+            return new AStarPathfinder(maxIterations).search(from, to, validator, deadline);
+        }
+
+        Frontier forward = new Frontier(to.getLng(), to.getLat(), true);
+        Frontier backward = new Frontier(from.getLng(), from.getLat(), false);
+        forward.add(new AStarPathfinder.Node(LatticePoint.ORIGIN, from.getLng(), from.getLat()), null);
+        backward.add(new AStarPathfinder.Node(anchor, from.getLng(), from.getLat()), null);
+
+        int iterations = 0;
+        boolean forwardTurn = true;
+
+        while (!forward.open.isEmpty() && !backward.open.isEmpty() && iterations < maxIterations) {
+            iterations++;
+            if ((iterations & AStarPathfinder.DEADLINE_CHECK_MASK) == 0 && deadline.isExpired()) {
+                logger.warn("Bidirectional A* stopped by planning deadline after {} iterations", iterations);
+                return new PathSearchResult(null, iterations);
+            }
+
+            Frontier active = forwardTurn ? forward : backward;
+            Frontier other = forwardTurn ? backward : forward;
+            forwardTurn = !forwardTurn;
+
+            AStarPathfinder.Node current = active.open.poll();
+
+            // The forward search may still reach the goal region on its own
+            if (active == forward && GeoMath.isCloseTo(current.lng, current.lat, to.getLng(), to.getLat())) {
+                logger.debug("Bidirectional A* reached goal from the start side in {} iterations", iterations);
+                return new PathSearchResult(current.path(), iterations);
+            }
+
+            active.closed.add(current.point);
+
+            for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                LatticePoint key = active.forward ? current.point.step(direction) : current.point.back(direction);
+                if (active.closed.contains(key)) {
+                    continue;
+                }
+                AStarPathfinder.Node neighbor = new AStarPathfinder.Node(key, from.getLng(), from.getLat());
+
+                // Backward edges are forward moves from the new node into the current one
+                boolean valid = active == forward
+                        ? validator.isValidMove(current.lng, current.lat, neighbor.lng, neighbor.lat)
+                        : validator.isValidMove(neighbor.lng, neighbor.lat, current.lng, current.lat);
+                if (!valid) {
+                    continue;
+                }
+
+                AStarPathfinder.Node meeting = other.nodes.get(key);
+                if (meeting != null) {
+                    neighbor.parent = current;
+                    AStarPathfinder.Node forwardSide = active == forward ? neighbor : meeting;
+                    AStarPathfinder.Node backwardSide = active == forward ? meeting : neighbor;
+                    logger.debug("Bidirectional A* frontiers met in {} iterations", iterations);
+                    return new PathSearchResult(join(forwardSide, backwardSide), iterations);
+                }
+
+                active.relax(current, neighbor, key);
+            }
+        }
+
+        logger.warn("Bidirectional A* failed to find path after {} iterations", iterations);
+        return new PathSearchResult(null, iterations);
+    }
+
+    /**
+     * Start-to-meeting chain of the forward node followed by the meeting-to-anchor chain
+     * of the backward node (the meeting position itself is taken from the forward side)
+     */
+    private List<DeliveryPathResponse.LngLat> join(AStarPathfinder.Node forwardSide, AStarPathfinder.Node backwardSide) {
+        List<DeliveryPathResponse.LngLat> path = forwardSide.path();
+        for (AStarPathfinder.Node current = backwardSide.parent; current != null; current = current.parent) {
+            path.add(new DeliveryPathResponse.LngLat(current.lng, current.lat));
+        }
+        return path;
+    }
+
+    /**
+     * Lattice point within 0.00015 of the goal reached by greedy compass moves from the start,
+     * ignoring obstacles; if it is not clear, try its neighbours that are also close to the goal
+     */
+    private LatticePoint findGoalAnchor(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator) {
+
+        LatticePoint point = LatticePoint.ORIGIN;
+        double lng = from.getLng();
+        double lat = from.getLat();
+        while (!GeoMath.isCloseTo(lng, lat, to.getLng(), to.getLat())) {
+            point = point.step(CompassDirections.snapVector(to.getLng() - lng, to.getLat() - lat));
+            lng = point.lng(from.getLng());
+            lat = point.lat(from.getLat());
+        }
+
+        if (validator.isValidPosition(lng, lat)) {
+            return point;
+        }
+        for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+            LatticePoint candidate = point.step(direction);
+            double candidateLng = candidate.lng(from.getLng());
+            double candidateLat = candidate.lat(from.getLat());
+            if (GeoMath.isCloseTo(candidateLng, candidateLat, to.getLng(), to.getLat())
+                    && validator.isValidPosition(candidateLng, candidateLat)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Open/closed sets of one search direction, stepping with forward or backward moves
+     */
+    private static class Frontier {
+        final PriorityQueue<AStarPathfinder.Node> open = new PriorityQueue<>(Comparator.comparingDouble(n -> n.f));
+        final Set<LatticePoint> closed = new HashSet<>();
+        final Map<LatticePoint, AStarPathfinder.Node> nodes = new HashMap<>();
+        final double targetLng;
+        final double targetLat;
+        final boolean forward;
+
+        Frontier(double targetLng, double targetLat, boolean forward) {
+            this.targetLng = targetLng;
+            this.targetLat = targetLat;
+            this.forward = forward;
+        }
+
+        void add(AStarPathfinder.Node node, AStarPathfinder.Node parent) {
+            node.parent = parent;
+            node.h = GeoMath.distance(node.lng, node.lat, targetLng, targetLat);
+            node.f = node.g + AStarPathfinder.HEURISTIC_WEIGHT * node.h;
+            open.add(node);
+            nodes.put(node.point, node);
+        }
+
+        void relax(AStarPathfinder.Node current, AStarPathfinder.Node neighbor, LatticePoint key) {
+            double tentativeG = current.g + GeoMath.MOVE_DISTANCE;
+            AStarPathfinder.Node existing = nodes.get(key);
+            if (existing == null) {
+                neighbor.g = tentativeG;
+                add(neighbor, current);
+            } else if (tentativeG < existing.g) {
+                existing.g = tentativeG;
+                existing.f = existing.g + AStarPathfinder.HEURISTIC_WEIGHT * existing.h;
+                existing.parent = current;
+                open.remove(existing);
+                open.add(existing);
+            }
+        }
+    }
+}
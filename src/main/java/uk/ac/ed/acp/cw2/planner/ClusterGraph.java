@@ -0,0 +1,206 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Abstract graph of the hierarchical planner: the plane is cut into square clusters of
+ * CLUSTER_SIZE degrees, every free stretch of a border between two clusters becomes an
+ * entrance, and entrances of the same cluster are joined by edges whose cost is the length
+ * of a flyable route between them inside that cluster.
+ * <p>
+ * The service area is unbounded, so clusters are built the first time the abstract search
+ * touches them and cached for the lifetime of the graph (one graph per restricted area set).
+ * Safe for concurrent searches.
+ */
+class ClusterGraph {
+
+    static final double CLUSTER_SIZE = 0.003;
+
+    // Border samples are one move apart
+    private static final int BORDER_SAMPLES = (int) Math.round(CLUSTER_SIZE / GeoMath.MOVE_DISTANCE);
+    // Expansion cap of the local search between two entrances of an obstructed cluster
+    private static final int LOCAL_SEARCH_ITERATIONS = 2000;
+
+    private final MoveValidator validator;
+    private final Map<Long, List<Entrance>> eastBorders = new ConcurrentHashMap<>();
+    private final Map<Long, List<Entrance>> northBorders = new ConcurrentHashMap<>();
+    private final Map<Long, Cluster> clusters = new ConcurrentHashMap<>();
+
+    ClusterGraph(MoveValidator validator) {
+        this.validator = validator;
+    }
+
+    MoveValidator validator() {
+        return validator;
+    }
+
+    static int cell(double value) {
+        return (int) Math.floor(value / CLUSTER_SIZE);
+    }
+
+    static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    Cluster cluster(int cx, int cy) {
+        long key = key(cx, cy);
+        Cluster cluster = clusters.get(key);
+        if (cluster == null) {
+            cluster = clusters.computeIfAbsent(key, k -> new Cluster(cx, cy));
+        }
+        return cluster;
+    }
+
+    Cluster clusterAt(double lng, double lat) {
+        return cluster(cell(lng), cell(lat));
+    }
+
+    int clusterCount() {
+        return clusters.size();
+    }
+
+    /**
+     * Cost of flying from a to b while staying inside the cluster, or -1 if no such route was found.
+     * A clear straight line costs its length; otherwise a bounded A* confined to the cluster is run.
+     */
+    double routeCost(Cluster cluster, double aLng, double aLat, double bLng, double bLat) {
+        if (isLineClear(aLng, aLat, bLng, bLat)) {
+            return GeoMath.distance(aLng, aLat, bLng, bLat);
+        }
+
+        MoveValidator confined = (lng1, lat1, lng2, lat2) ->
+                cluster.containsWithMargin(lng2, lat2) && validator.isValidMove(lng1, lat1, lng2, lat2);
+        PathSearchResult result = new AStarPathfinder(LOCAL_SEARCH_ITERATIONS).search(
+                new DeliveryPathResponse.LngLat(aLng, aLat),
+                new DeliveryPathResponse.LngLat(bLng, bLat),
+                confined);
+        return result.isFound() ? (result.getPath().size() - 1) * GeoMath.MOVE_DISTANCE : -1;
+    }
+
+    /**
+     * Straight line from a to b does not start or end in a buffered area and crosses no edge
+     */
+    boolean isLineClear(double aLng, double aLat, double bLng, double bLat) {
+        return validator.isValidPosition(aLng, aLat) && validator.isValidMove(aLng, aLat, bLng, bLat);
+    }
+
+    /**
+     * Entrances on the east (side 0) or north (side 1) border of cluster (cx, cy):
+     * the midpoint of every run of border samples that are clear of restricted areas
+     */
+    private List<Entrance> border(int cx, int cy, int side) {
+        Map<Long, List<Entrance>> borders = side == 0 ? eastBorders : northBorders;
+        long key = key(cx, cy);
+        List<Entrance> entrances = borders.get(key);
+        if (entrances == null) {
+            entrances = borders.computeIfAbsent(key, k -> scanBorder(cx, cy, side));
+        }
+        return entrances;
+    }
+
+    private List<Entrance> scanBorder(int cx, int cy, int side) {
+        List<Entrance> entrances = new ArrayList<>(1);
+        double fixed = (side == 0 ? cx + 1 : cy + 1) * CLUSTER_SIZE;
+        double origin = (side == 0 ? cy : cx) * CLUSTER_SIZE;
+
+        int runStart = -1;
+        for (int i = 0; i <= BORDER_SAMPLES; i++) {
+            boolean free = i < BORDER_SAMPLES && isBorderSampleFree(side, fixed, origin + (i + 0.5) * GeoMath.MOVE_DISTANCE);
+            if (free && runStart < 0) {
+                runStart = i;
+            } else if (!free && runStart >= 0) {
+                double along = origin + (runStart + i) * 0.5 * GeoMath.MOVE_DISTANCE;
+                entrances.add(side == 0
+                        ? new Entrance(fixed, along, cx, cy, cx + 1, cy)
+                        : new Entrance(along, fixed, cx, cy, cx, cy + 1));
+                runStart = -1;
+            }
+        }
+        return Collections.unmodifiableList(entrances);
+    }
+
+    private boolean isBorderSampleFree(int side, double fixed, double along) {
+        return side == 0 ? validator.isValidPosition(fixed, along) : validator.isValidPosition(along, fixed);
+    }
+
+    /**
+     * A crossing point on the border between two clusters
+     */
+    static class Entrance {
+        final double lng;
+        final double lat;
+        final int firstCx;
+        final int firstCy;
+        final int secondCx;
+        final int secondCy;
+
+        Entrance(double lng, double lat, int firstCx, int firstCy, int secondCx, int secondCy) {
+            this.lng = lng;
+            this.lat = lat;
+            this.firstCx = firstCx;
+            this.firstCy = firstCy;
+            this.secondCx = secondCx;
+            this.secondCy = secondCy;
+        }
+    }
+
+    /**
+     * One cluster with its entrances and the routes between them
+     */
+    class Cluster {
+        final int cx;
+        final int cy;
+        final List<Entrance> entrances;
+        final Map<Entrance, Map<Entrance, Double>> edges = new IdentityHashMap<>();
+
+        Cluster(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+
+            List<Entrance> all = new ArrayList<>();
+            all.addAll(border(cx, cy, 0));
+            all.addAll(border(cx - 1, cy, 0));
+            all.addAll(border(cx, cy, 1));
+            all.addAll(border(cx, cy - 1, 1));
+            entrances = Collections.unmodifiableList(all);
+
+            for (Entrance entrance : entrances) {
+                edges.put(entrance, new IdentityHashMap<>());
+            }
+            for (int i = 0; i < entrances.size(); i++) {
+                for (int j = i + 1; j < entrances.size(); j++) {
+                    Entrance a = entrances.get(i);
+                    Entrance b = entrances.get(j);
+                    double cost = routeCost(this, a.lng, a.lat, b.lng, b.lat);
+                    if (cost >= 0) {
+                        edges.get(a).put(b, cost);
+                        edges.get(b).put(a, cost);
+                    }
+                }
+            }
+        }
+
+        boolean containsWithMargin(double lng, double lat) {
+            double margin = GeoMath.MOVE_DISTANCE;
+            return lng >= cx * CLUSTER_SIZE - margin && lng <= (cx + 1) * CLUSTER_SIZE + margin
+                    && lat >= cy * CLUSTER_SIZE - margin && lat <= (cy + 1) * CLUSTER_SIZE + margin;
+        }
+
+        /**
+         * Cluster on the other side of a border entrance of this cluster
+         */
+        Cluster across(Entrance entrance) {
+            return entrance.firstCx == cx && entrance.firstCy == cy
+                    ? cluster(entrance.secondCx, entrance.secondCy)
+                    : cluster(entrance.firstCx, entrance.firstCy);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves-to-go field around one service point: a wavefront spreads from the service point over
+ * the 16-direction lattice, one move per ring, never entering or crossing a restricted area,
+ * up to a radius in moves. Positions are binned into square cells of half a move, as the jump
+ * point search does; each cell keeps the ring that first reached it.
+ * <p>
+ * movesFrom is then a lookup, and returnPath flies back downhill through the field without any
+ * search. The field is built from the first position to reach a cell, so a count can be a move or
+ * two off for other positions in it; returnPath checks every move it takes and gives up (null)
+ * rather than wander, leaving the leg to the ordinary search.
+ * <p>
+ * The counts are kept off-heap, two bytes per cell. Immutable once built, so one field can be
+ * shared between threads.
+ */
+public final class DistanceField {
+
+    /** Moves of a position outside the radius or not reachable from the service point */
+    public static final int UNREACHED = -1;
+
+    // Positions closer than this share a cell
+    static final double CELL_SIZE = GeoMath.MOVE_DISTANCE / 2;
+
+    private static final int NOT_SET = 0xffff;
+
+    private final double originLng;
+    private final double originLat;
+    private final int radiusCells;
+    private final int side;
+    private final MoveValidator validator;
+    private final ShortBuffer moves;
+
+    /**
+     * Spread the wavefront from the service point out to radiusMoves moves
+     */
+    public DistanceField(double originLng, double originLat, int radiusMoves, MoveValidator validator) {
+        this.originLng = originLng;
+        this.originLat = originLat;
+        this.radiusCells = (int) Math.ceil(radiusMoves * GeoMath.MOVE_DISTANCE / CELL_SIZE);
+        this.side = 2 * radiusCells + 1;
+        this.validator = validator;
+        this.moves = ByteBuffer.allocateDirect(side * side * Short.BYTES).asShortBuffer();
+        for (int i = 0; i < side * side; i++) {
+            moves.put(i, (short) NOT_SET);
+        }
+
+        // One ring per move; the ring holds the first position to reach each newly reached cell
+        LatticePoint[] ring = {LatticePoint.ORIGIN};
+        int ringSize = 1;
+        moves.put(cell(originLng, originLat), (short) 0);
+        for (int ringMoves = 1; ringSize > 0 && ringMoves <= radiusMoves && ringMoves < NOT_SET; ringMoves++) {
+            LatticePoint[] next = new LatticePoint[Math.max(16, ringSize * 4)];
+            int nextSize = 0;
+            for (int p = 0; p < ringSize; p++) {
+                double lng = ring[p].lng(originLng);
+                double lat = ring[p].lat(originLat);
+                for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                    LatticePoint to = ring[p].step(direction);
+                    double toLng = to.lng(originLng);
+                    double toLat = to.lat(originLat);
+                    int cell = cell(toLng, toLat);
+                    if (cell < 0 || moves.get(cell) != (short) NOT_SET || !validator.isValidMove(lng, lat, toLng, toLat)) {
+                        continue;
+                    }
+                    moves.put(cell, (short) ringMoves);
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, next.length * 2);
+                    }
+                    next[nextSize++] = to;
+                }
+            }
+            ring = next;
+            ringSize = nextSize;
+        }
+    }
+
+    /**
+     * Moves from the position back to within reach of the service point, or UNREACHED
+     */
+    public int movesFrom(double lng, double lat) {
+        int cell = cell(lng, lat);
+        if (cell < 0) {
+            return UNREACHED;
+        }
+        int value = Short.toUnsignedInt(moves.get(cell));
+        return value == NOT_SET ? UNREACHED : value;
+    }
+
+    /**
+     * Path from the position to within 0.00015 of the service point, starting with the position,
+     * or null if the field does not lead there from it.
+     * <p>
+     * The field's downhill route zigzags along the cell grid, so the drone flies straight at the
+     * farthest point of that route it can see and only then looks at the field again; once the
+     * service point itself is in sight it flies straight home.
+     */
+    public List<DeliveryPathResponse.LngLat> returnPath(double lng, double lat) {
+        int toGo = movesFrom(lng, lat);
+        if (toGo == UNREACHED) {
+            return null;
+        }
+
+        // Moves are added up on the lattice from the position the path starts at
+        Route route = new Route(lng, lat);
+        List<DeliveryPathResponse.LngLat> path = new ArrayList<>();
+        path.add(new DeliveryPathResponse.LngLat(lng, lat));
+        // Cell counts can be a move or two off for a given position, so allow some slack before giving up
+        int maxMoves = toGo + 2 + toGo / 8;
+        LatticePoint position = LatticePoint.ORIGIN;
+        while (!GeoMath.isCloseTo(route.lng(position), route.lat(position), originLng, originLat)) {
+            double targetLng = originLng;
+            double targetLat = originLat;
+            if (!validator.isValidMove(route.lng(position), route.lat(position), originLng, originLat)) {
+                LatticePoint[] downhill = descend(route, position);
+                if (downhill == null) {
+                    return null;
+                }
+                // Farthest point of the downhill route in sight; its first step always is
+                int seen = 1;
+                for (int k = downhill.length - 1; k > 1; k--) {
+                    if (validator.isValidMove(route.lng(position), route.lat(position),
+                            route.lng(downhill[k]), route.lat(downhill[k]))) {
+                        seen = k;
+                        break;
+                    }
+                }
+                targetLng = route.lng(downhill[seen]);
+                targetLat = route.lat(downhill[seen]);
+            }
+
+            // Straight at the target until close to it, then look again
+            boolean moved = false;
+            while (!GeoMath.isCloseTo(route.lng(position), route.lat(position), targetLng, targetLat)) {
+                LatticePoint next = stepTowards(route, position, targetLng, targetLat);
+                if (next == null) {
+                    break;
+                }
+                position = next;
+                path.add(new DeliveryPathResponse.LngLat(route.lng(position), route.lat(position)));
+                moved = true;
+                if (path.size() > maxMoves) {
+                    return null;
+                }
+            }
+            if (!moved) {
+                // Close to the target already, or cannot close in: take the field's own next step
+                LatticePoint[] downhill = descend(route, position);
+                if (downhill == null || downhill.length < 2) {
+                    return null;
+                }
+                position = downhill[1];
+                path.add(new DeliveryPathResponse.LngLat(route.lng(position), route.lat(position)));
+                if (path.size() > maxMoves) {
+                    return null;
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Valid move from position that ends closest to the target, if it gets closer; null otherwise
+     */
+    private LatticePoint stepTowards(Route route, LatticePoint position, double targetLng, double targetLat) {
+        double lng = route.lng(position);
+        double lat = route.lat(position);
+        double bestDistance = GeoMath.distance(lng, lat, targetLng, targetLat);
+        LatticePoint best = null;
+        for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+            LatticePoint to = position.step(direction);
+            double toLng = route.lng(to);
+            double toLat = route.lat(to);
+            double distance = GeoMath.distance(toLng, toLat, targetLng, targetLat);
+            if (distance < bestDistance && validator.isValidMove(lng, lat, toLng, toLat)) {
+                bestDistance = distance;
+                best = to;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The field's downhill route from the position, each step a valid move into the neighbouring
+     * cell with the fewest moves to go (closest to the service point among equals), or null if it stalls
+     */
+    private LatticePoint[] descend(Route route, LatticePoint position) {
+        double lng = route.lng(position);
+        double lat = route.lat(position);
+        int toGo = movesFrom(lng, lat);
+        if (toGo == UNREACHED) {
+            return null;
+        }
+        int maxMoves = toGo + 2 + toGo / 8;
+        LatticePoint[] steps = new LatticePoint[maxMoves + 1];
+        steps[0] = position;
+        int length = 1;
+        while (!GeoMath.isCloseTo(lng, lat, originLng, originLat)) {
+            if (length > maxMoves) {
+                return null;
+            }
+            LatticePoint best = null;
+            int bestMoves = Integer.MAX_VALUE;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                LatticePoint to = position.step(direction);
+                double toLng = route.lng(to);
+                double toLat = route.lat(to);
+                int next = movesFrom(toLng, toLat);
+                if (next == UNREACHED || next > bestMoves) {
+                    continue;
+                }
+                double distance = GeoMath.distance(toLng, toLat, originLng, originLat);
+                if ((next < bestMoves || distance < bestDistance) && validator.isValidMove(lng, lat, toLng, toLat)) {
+                    best = to;
+                    bestMoves = next;
+                    bestDistance = distance;
+                }
+            }
+            // Downhill only, allowing a step along a level where the binning makes neighbours equal
+            if (best == null || bestMoves > toGo) {
+                return null;
+            }
+            position = best;
+            lng = route.lng(position);
+            lat = route.lat(position);
+            toGo = bestMoves;
+            steps[length++] = position;
+        }
+        return Arrays.copyOf(steps, length);
+    }
+
+    public double getOriginLng() {
+        return originLng;
+    }
+
+    public double getOriginLat() {
+        return originLat;
+    }
+
+    /**
+     * True if the field's square, grown by a move and the buffer, meets the box. Return paths stay
+     * within that, so a field that does not meet the box is unaffected by restricted area changes in it.
+     */
+    public boolean overlaps(double minLng, double minLat, double maxLng, double maxLat) {
+        double reach = radiusCells * CELL_SIZE + GeoMath.MOVE_DISTANCE + RestrictedAreaIndex.BUFFER;
+        return originLng - reach <= maxLng && originLng + reach >= minLng
+                && originLat - reach <= maxLat && originLat + reach >= minLat;
+    }
+
+    /**
+     * Off-heap bytes held by the field
+     */
+    public long sizeInBytes() {
+        return (long) side * side * Short.BYTES;
+    }
+
+    /**
+     * Index of the cell holding the position, or -1 outside the radius
+     */
+    private int cell(double lng, double lat) {
+        long x = Math.round((lng - originLng) / CELL_SIZE) + radiusCells;
+        long y = Math.round((lat - originLat) / CELL_SIZE) + radiusCells;
+        if (x < 0 || y < 0 || x >= side || y >= side) {
+            return -1;
+        }
+        return (int) (y * side + x);
+    }
+
+    /**
+     * Helper class turning lattice points of one return path into degrees, relative to where it starts
+     */
+    private static final class Route {
+        final double startLng;
+        final double startLat;
+
+        Route(double startLng, double startLat) {
+            this.startLng = startLng;
+            this.startLat = startLat;
+        }
+
+        double lng(LatticePoint point) {
+            return point.lng(startLng);
+        }
+
+        double lat(LatticePoint point) {
+            return point.lat(startLat);
+        }
+    }
+}
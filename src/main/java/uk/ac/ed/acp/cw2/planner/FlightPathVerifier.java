@@ -0,0 +1,201 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.FlightPathVerification;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks drone paths of a delivery plan against the rules the planner flies by:
+ * <p>
+ * 1. Every move is 0.00015 degrees along one of the 16 compass directions, or a hover
+ *    (the same position twice in a row).
+ * 2. No move ends in or within 0.00015 of a restricted area or crosses one, and no hover is in one.
+ * 3. Each delivery's flight path hovers exactly once. A drone path starts at a service point, each
+ *    delivery starts where the previous one hovered, or at a service point once the previous one has
+ *    flown back to one, and the last delivery ends back at a service point.
+ * 4. A drone path has no more moves (hovers included) than the drone's maxMoves.
+ * <p>
+ * Every broken rule is reported, not just the first. Immutable, so one verifier can check the
+ * drone paths of a plan on several threads.
+ */
+public final class FlightPathVerifier {
+
+    // Slack on a move's offsets for rounding in coordinates computed elsewhere
+    static final double STEP_TOLERANCE = 1e-12;
+
+    private final RestrictedAreaIndex areas;
+    private final ServicePointIndex servicePoints;
+
+    public FlightPathVerifier(RestrictedAreaIndex areas, ServicePointIndex servicePoints) {
+        this.areas = areas;
+        this.servicePoints = servicePoints;
+    }
+
+    /**
+     * Check one drone path
+     * @param maxMoves the drone's move limit, or null for none
+     */
+    public DronePathReport verify(DeliveryPathResponse.DronePath dronePath, Integer maxMoves) {
+        Integer droneId = dronePath.getDroneId();
+        List<FlightPathVerification.Violation> violations = new ArrayList<>();
+        List<DeliveryPathResponse.Delivery> deliveries =
+                dronePath.getDeliveries() != null ? dronePath.getDeliveries() : List.of();
+        int moves = 0;
+
+        DeliveryPathResponse.LngLat previousHover = null;
+        DeliveryPathResponse.LngLat previousEnd = null;
+        for (int d = 0; d < deliveries.size(); d++) {
+            DeliveryPathResponse.Delivery delivery = deliveries.get(d);
+            Integer deliveryId = delivery != null ? delivery.getDeliveryId() : null;
+            List<DeliveryPathResponse.LngLat> path = delivery != null ? delivery.getFlightPath() : null;
+            if (path == null || path.isEmpty()) {
+                violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.MISSING_POSITION,
+                        droneId, d, deliveryId, null, "Delivery has no flight path"));
+                previousHover = null;
+                previousEnd = null;
+                continue;
+            }
+            moves += path.size() - 1;
+
+            for (int i = 0; i < path.size(); i++) {
+                if (!isLocated(path.get(i))) {
+                    violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.MISSING_POSITION,
+                            droneId, d, deliveryId, i, "Position has no lng or lat"));
+                }
+            }
+
+            DeliveryPathResponse.LngLat start = path.get(0);
+            if (isLocated(start)) {
+                String discontinuity = startProblem(d, start, previousHover, previousEnd);
+                if (discontinuity != null) {
+                    violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.DISCONTINUOUS,
+                            droneId, d, deliveryId, 0, discontinuity));
+                }
+            }
+
+            DeliveryPathResponse.LngLat hover = null;
+            int hovers = 0;
+            for (int i = 1; i < path.size(); i++) {
+                DeliveryPathResponse.LngLat from = path.get(i - 1);
+                DeliveryPathResponse.LngLat to = path.get(i);
+                if (!isLocated(from) || !isLocated(to)) {
+                    continue;
+                }
+                double lng1 = from.getLng();
+                double lat1 = from.getLat();
+                double lng2 = to.getLng();
+                double lat2 = to.getLat();
+
+                if (lng1 == lng2 && lat1 == lat2) {
+                    hovers++;
+                    hover = to;
+                    if (!areas.isValidPosition(lng2, lat2)) {
+                        violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.RESTRICTED_AREA,
+                                droneId, d, deliveryId, i, "Hover " + restrictedAreaProblem(lng2, lat2)));
+                    }
+                    continue;
+                }
+                if (!isCompassStep(lng2 - lng1, lat2 - lat1)) {
+                    violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.INVALID_STEP,
+                            droneId, d, deliveryId, i, String.format(
+                                    "Move of %.10f is not 0.00015 along a compass direction",
+                                    GeoMath.distance(lng1, lat1, lng2, lat2))));
+                }
+                if (!areas.isValidMove(lng1, lat1, lng2, lat2)) {
+                    violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.RESTRICTED_AREA,
+                            droneId, d, deliveryId, i, "Move " + restrictedAreaProblem(lng2, lat2)));
+                }
+            }
+            if (hovers != 1) {
+                violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.HOVER,
+                        droneId, d, deliveryId, null, "Flight path hovers " + hovers + " times instead of once"));
+            }
+
+            previousHover = hovers == 1 ? hover : null;
+            previousEnd = path.get(path.size() - 1);
+        }
+
+        if (previousEnd != null && isLocated(previousEnd) && !isAtServicePoint(previousEnd)) {
+            int last = deliveries.size() - 1;
+            violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.DISCONTINUOUS,
+                    droneId, last, deliveries.get(last).getDeliveryId(), deliveries.get(last).getFlightPath().size() - 1,
+                    "Drone path does not end at a service point"));
+        }
+        if (maxMoves != null && moves > maxMoves) {
+            violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.MAX_MOVES,
+                    droneId, null, null, null, "Drone path has " + moves + " moves, the drone's limit is " + maxMoves));
+        }
+        return new DronePathReport(moves, violations);
+    }
+
+    /**
+     * Why the delivery cannot start at start, or null if it can
+     */
+    private String startProblem(int delivery, DeliveryPathResponse.LngLat start,
+                                DeliveryPathResponse.LngLat previousHover, DeliveryPathResponse.LngLat previousEnd) {
+        if (delivery == 0) {
+            return isAtServicePoint(start) ? null : "Drone path does not start at a service point";
+        }
+        if (previousHover != null && start.equals(previousHover)) {
+            return null;
+        }
+        // A new flight: the previous delivery flew back and this one leaves from a service point
+        if (previousEnd != null && isLocated(previousEnd) && isAtServicePoint(previousEnd) && isAtServicePoint(start)) {
+            return null;
+        }
+        return "Delivery does not start where the previous delivery hovered or at a service point it returned to";
+    }
+
+    private String restrictedAreaProblem(double lng, double lat) {
+        int area = areas.areaContaining(lng, lat);
+        if (area >= 0) {
+            return "ends inside restricted area " + areas.name(area);
+        }
+        return "ends within 0.00015 of or crosses a restricted area";
+    }
+
+    private boolean isAtServicePoint(DeliveryPathResponse.LngLat position) {
+        ServicePoint nearest = servicePoints.nearest(position.getLng(), position.getLat());
+        return nearest != null && GeoMath.isCloseTo(position.getLng(), position.getLat(),
+                nearest.getLocation().getLng(), nearest.getLocation().getLat());
+    }
+
+    private static boolean isLocated(DeliveryPathResponse.LngLat position) {
+        return position != null && position.getLng() != null && position.getLat() != null;
+    }
+
+    /**
+     * True if the offset is one move along a compass direction, up to STEP_TOLERANCE per axis
+     */
+    static boolean isCompassStep(double dx, double dy) {
+        int direction = CompassDirections.snapVector(dx, dy);
+        return Math.abs(dx - CompassDirections.dx(direction)) <= STEP_TOLERANCE
+                && Math.abs(dy - CompassDirections.dy(direction)) <= STEP_TOLERANCE;
+    }
+
+    /**
+     * Moves counted in one drone path and the rules it breaks
+     */
+    public static final class DronePathReport {
+        private final int moves;
+        private final List<FlightPathVerification.Violation> violations;
+
+        DronePathReport(int moves, List<FlightPathVerification.Violation> violations) {
+            this.moves = moves;
+            this.violations = violations;
+        }
+
+        public int getMoves() {
+            return moves;
+        }
+
+        public List<FlightPathVerification.Violation> getViolations() {
+            return violations;
+        }
+    }
+}
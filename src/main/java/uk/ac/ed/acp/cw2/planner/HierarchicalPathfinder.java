@@ -0,0 +1,288 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * HPA*-style hierarchical pathfinder for long legs.
+ * <p>
+ * 1. Abstract search: A* over the cluster entrances of a {@link ClusterGraph}, with the start and
+ *    goal temporarily connected to the entrances of their own clusters.
+ * 2. Smoothing: entrances that a clear straight line can skip are dropped.
+ * 3. Refinement: each remaining corridor segment is flown with exact compass moves, walking straight
+ *    where possible and running a short A* only where a segment is obstructed.
+ * <p>
+ * Legs spanning fewer than three clusters gain nothing from the abstraction and go straight to A*.
+ * The cluster graph is kept between searches for as long as the same validator (restricted area set)
+ * is passed in, so entrance-to-entrance costs are only computed once per cluster.
+ */
+public class HierarchicalPathfinder implements LatticePathfinder {
+
+    private static final int ABSTRACT_ITERATIONS = 20000;
+    private static final int REFINE_ITERATIONS = 4000;
+
+    private static final Logger logger = LoggerFactory.getLogger(HierarchicalPathfinder.class);
+
+    private volatile ClusterGraph graph;
+
+    @Override
+    public PathSearchResult search(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator,
+            PlanningDeadline deadline) {
+
+        int clusterSpan = Math.max(
+                Math.abs(ClusterGraph.cell(from.getLng()) - ClusterGraph.cell(to.getLng())),
+                Math.abs(ClusterGraph.cell(from.getLat()) - ClusterGraph.cell(to.getLat())));
+        if (clusterSpan <= 1) {
+            return new AStarPathfinder().search(from, to, validator, deadline);
+        }
+
+        ClusterGraph clusters = graphFor(validator);
+        ClusterGraph.Entrance start = new ClusterGraph.Entrance(from.getLng(), from.getLat(),
+                ClusterGraph.cell(from.getLng()), ClusterGraph.cell(from.getLat()),
+                ClusterGraph.cell(from.getLng()), ClusterGraph.cell(from.getLat()));
+        ClusterGraph.Entrance goal = new ClusterGraph.Entrance(to.getLng(), to.getLat(),
+                ClusterGraph.cell(to.getLng()), ClusterGraph.cell(to.getLat()),
+                ClusterGraph.cell(to.getLng()), ClusterGraph.cell(to.getLat()));
+
+        int[] expanded = new int[1];
+        List<ClusterGraph.Entrance> corridor = abstractSearch(clusters, start, goal, deadline, expanded);
+        if (corridor == null) {
+            logger.warn("Hierarchical search found no corridor after {} abstract expansions", expanded[0]);
+            return new PathSearchResult(null, expanded[0]);
+        }
+
+        List<ClusterGraph.Entrance> waypoints = smooth(clusters, corridor);
+        logger.debug("Hierarchical corridor: {} entrances, {} after smoothing, {} clusters cached",
+                corridor.size(), waypoints.size(), clusters.clusterCount());
+
+        List<DeliveryPathResponse.LngLat> path = refine(from, waypoints, validator, deadline, expanded);
+        if (path == null) {
+            logger.warn("Hierarchical refinement failed after {} expansions", expanded[0]);
+        }
+        return new PathSearchResult(path, expanded[0]);
+    }
+
+    private ClusterGraph graphFor(MoveValidator validator) {
+        ClusterGraph current = graph;
+        if (current == null || current.validator() != validator) {
+            current = new ClusterGraph(validator);
+            graph = current;
+        }
+        return current;
+    }
+
+    /**
+     * A* over entrances; returns the entrance sequence from start to goal (both included) or null
+     */
+    private List<ClusterGraph.Entrance> abstractSearch(
+            ClusterGraph clusters,
+            ClusterGraph.Entrance start,
+            ClusterGraph.Entrance goal,
+            PlanningDeadline deadline,
+            int[] expanded) {
+
+        ClusterGraph.Cluster startCluster = clusters.cluster(start.firstCx, start.firstCy);
+        ClusterGraph.Cluster goalCluster = clusters.cluster(goal.firstCx, goal.firstCy);
+
+        Map<ClusterGraph.Entrance, AbstractNode> nodes = new IdentityHashMap<>();
+        Set<ClusterGraph.Entrance> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+        PriorityQueue<AbstractNode> open = new PriorityQueue<>(Comparator.comparingDouble(n -> n.f));
+
+        AbstractNode startNode = new AbstractNode(start);
+        startNode.f = GeoMath.distance(start.lng, start.lat, goal.lng, goal.lat);
+        nodes.put(start, startNode);
+        open.add(startNode);
+
+        while (!open.isEmpty() && expanded[0] < ABSTRACT_ITERATIONS) {
+            expanded[0]++;
+            if (deadline.isExpired()) {
+                return null;
+            }
+            AbstractNode current = open.poll();
+            if (current.entrance == goal) {
+                List<ClusterGraph.Entrance> corridor = new ArrayList<>();
+                for (AbstractNode node = current; node != null; node = node.parent) {
+                    corridor.add(node.entrance);
+                }
+                Collections.reverse(corridor);
+                return corridor;
+            }
+            if (!closed.add(current.entrance)) {
+                continue;
+            }
+
+            Map<ClusterGraph.Entrance, Double> successors = new IdentityHashMap<>();
+            if (current.entrance == start) {
+                for (ClusterGraph.Entrance entrance : startCluster.entrances) {
+                    double cost = clusters.routeCost(startCluster, start.lng, start.lat, entrance.lng, entrance.lat);
+                    if (cost >= 0) {
+                        successors.put(entrance, cost);
+                    }
+                }
+            } else {
+                ClusterGraph.Cluster first = clusters.cluster(current.entrance.firstCx, current.entrance.firstCy);
+                ClusterGraph.Cluster second = first.across(current.entrance);
+                for (ClusterGraph.Cluster cluster : List.of(first, second)) {
+                    successors.putAll(cluster.edges.get(current.entrance));
+                    if (cluster == goalCluster) {
+                        double cost = clusters.routeCost(goalCluster,
+                                current.entrance.lng, current.entrance.lat, goal.lng, goal.lat);
+                        if (cost >= 0) {
+                            successors.put(goal, cost);
+                        }
+                    }
+                }
+            }
+
+            for (Map.Entry<ClusterGraph.Entrance, Double> successor : successors.entrySet()) {
+                ClusterGraph.Entrance entrance = successor.getKey();
+                if (closed.contains(entrance)) {
+                    continue;
+                }
+                double tentativeG = current.g + successor.getValue();
+                AbstractNode node = nodes.get(entrance);
+                if (node == null || tentativeG < node.g) {
+                    if (node == null) {
+                        node = new AbstractNode(entrance);
+                        nodes.put(entrance, node);
+                    }
+                    node.g = tentativeG;
+                    node.f = tentativeG + GeoMath.distance(entrance.lng, entrance.lat, goal.lng, goal.lat);
+                    node.parent = current;
+                    // Stale queue entries are skipped by the closed check
+                    open.add(node.copy());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drop every waypoint that a clear straight line from an earlier kept waypoint can skip
+     */
+    private List<ClusterGraph.Entrance> smooth(ClusterGraph clusters, List<ClusterGraph.Entrance> corridor) {
+        List<ClusterGraph.Entrance> kept = new ArrayList<>();
+        int anchor = 0;
+        kept.add(corridor.get(0));
+        while (anchor < corridor.size() - 1) {
+            int next = corridor.size() - 1;
+            ClusterGraph.Entrance from = corridor.get(anchor);
+            while (next > anchor + 1) {
+                ClusterGraph.Entrance to = corridor.get(next);
+                if (clusters.isLineClear(from.lng, from.lat, to.lng, to.lat)) {
+                    break;
+                }
+                next--;
+            }
+            kept.add(corridor.get(next));
+            anchor = next;
+        }
+        return kept;
+    }
+
+    /**
+     * Fly the smoothed corridor with exact compass moves, one waypoint at a time
+     */
+    private List<DeliveryPathResponse.LngLat> refine(
+            DeliveryPathResponse.LngLat from,
+            List<ClusterGraph.Entrance> waypoints,
+            MoveValidator validator,
+            PlanningDeadline deadline,
+            int[] expanded) {
+
+        List<DeliveryPathResponse.LngLat> path = new ArrayList<>();
+        path.add(from);
+        DeliveryPathResponse.LngLat current = from;
+
+        for (int i = 1; i < waypoints.size(); i++) {
+            ClusterGraph.Entrance waypoint = waypoints.get(i);
+            DeliveryPathResponse.LngLat target = new DeliveryPathResponse.LngLat(waypoint.lng, waypoint.lat);
+
+            List<DeliveryPathResponse.LngLat> leg = walkStraight(current, target, validator, expanded);
+            if (leg == null) {
+                PathSearchResult local = new AStarPathfinder(REFINE_ITERATIONS).search(current, target, validator, deadline);
+                expanded[0] += local.getExpandedNodes();
+                leg = local.getPath();
+            }
+            if (leg == null) {
+                return null;
+            }
+
+            path.addAll(leg.subList(1, leg.size()));
+            current = path.get(path.size() - 1);
+        }
+        return path;
+    }
+
+    /**
+     * Greedy compass moves toward the target; null as soon as one move is not allowed
+     */
+    private List<DeliveryPathResponse.LngLat> walkStraight(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator,
+            int[] expanded) {
+
+        LatticePoint point = LatticePoint.ORIGIN;
+        double lng = from.getLng();
+        double lat = from.getLat();
+        int maxSteps = (int) Math.ceil(GeoMath.distance(lng, lat, to.getLng(), to.getLat()) / GeoMath.MOVE_DISTANCE) * 2 + 2;
+
+        List<DeliveryPathResponse.LngLat> leg = new ArrayList<>();
+        leg.add(from);
+        while (!GeoMath.isCloseTo(lng, lat, to.getLng(), to.getLat())) {
+            if (leg.size() > maxSteps) {
+                return null;
+            }
+            point = point.step(CompassDirections.snapVector(to.getLng() - lng, to.getLat() - lat));
+            double nextLng = point.lng(from.getLng());
+            double nextLat = point.lat(from.getLat());
+            expanded[0]++;
+            if (!validator.isValidMove(lng, lat, nextLng, nextLat)) {
+                return null;
+            }
+            lng = nextLng;
+            lat = nextLat;
+            leg.add(new DeliveryPathResponse.LngLat(lng, lat));
+        }
+        return leg;
+    }
+
+    /**
+     * Node of the abstract search
+     */
+    private static class AbstractNode {
+        final ClusterGraph.Entrance entrance;
+        double g;
+        double f;
+        AbstractNode parent;
+
+        AbstractNode(ClusterGraph.Entrance entrance) {
+            this.entrance = entrance;
+        }
+
+        AbstractNode copy() {
+            AbstractNode copy = new AbstractNode(entrance);
+            copy.g = g;
+            copy.f = f;
+            copy.parent = parent;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of rows to distinct columns (Hungarian algorithm with potentials,
+ * O(rows² × columns)).
+ * <p>
+ * Used to give each delivery cluster its own drone: rows are clusters, columns drones and
+ * a cell the estimated cost of the pair, or POSITIVE_INFINITY if the pair is not allowed.
+ */
+public final class HungarianAssignment {
+
+    private HungarianAssignment() {
+    }
+
+    /**
+     * @return the column assigned to each row, or null if the rows cannot all get a distinct
+     * allowed column
+     */
+    public static int[] solve(double[][] cost) {
+        int n = cost.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        int m = cost[0].length;
+        if (n > m) {
+            return null;
+        }
+
+        // Forbidden cells cost more than any assignment of allowed cells; finite, so the
+        // potentials stay well defined and precise
+        double largest = 0;
+        for (double[] row : cost) {
+            for (double value : row) {
+                if (!Double.isInfinite(value)) {
+                    largest = Math.max(largest, Math.abs(value));
+                }
+            }
+        }
+        double forbidden = (largest + 1) * (n + 1);
+
+        // 1-based: u row potentials, v column potentials, p[j] row holding column j, way the augmenting path
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double cur = cell(cost, i0 - 1, j - 1, forbidden) - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] assignment = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                assignment[p[j] - 1] = j - 1;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (Double.isInfinite(cost[i][assignment[i]])) {
+                return null;
+            }
+        }
+        return assignment;
+    }
+
+    private static double cell(double[][] cost, int row, int column, double forbidden) {
+        double value = cost[row][column];
+        return Double.isInfinite(value) ? forbidden : value;
+    }
+}
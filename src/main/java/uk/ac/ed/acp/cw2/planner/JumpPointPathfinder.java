@@ -0,0 +1,255 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Jump-point-style weighted A* adapted to the 16-direction lattice.
+ * <p>
+ * Grid JPS relies on axis-aligned cells; this lattice has none, so the symmetry breaking is
+ * done by jumping instead: from a node the search keeps moving in one direction and only
+ * creates a successor when something interesting happens - the next move is blocked, the goal
+ * is reached, the straight line passes its closest point to the goal, or an obstacle appears
+ * or disappears one move to either side (a corner to turn around). The many equivalent
+ * one-step paths through open space are never put on the open list. Jump points are
+ * de-duplicated on a half-move grid, which lets the search exhaust a concave pocket
+ * instead of hitting the iteration cap.
+ */
+public class JumpPointPathfinder implements LatticePathfinder {
+
+    // Longest single jump in moves, so open-space rays stay bounded
+    static final int MAX_JUMP = 64;
+
+    // Jump points closer than this are treated as the same search state
+    static final double CELL_SIZE = GeoMath.MOVE_DISTANCE / 2;
+
+    private static final Logger logger = LoggerFactory.getLogger(JumpPointPathfinder.class);
+
+    private final int maxIterations;
+
+    public JumpPointPathfinder() {
+        this(AStarPathfinder.DEFAULT_MAX_ITERATIONS);
+    }
+
+    public JumpPointPathfinder(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public PathSearchResult search(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator,
+            PlanningDeadline deadline) {
+
+        double goalLng = to.getLng();
+        double goalLat = to.getLat();
+
+        PriorityQueue<JumpNode> openSet = new PriorityQueue<>(Comparator.comparingDouble(n -> n.f));
+        Set<Long> closedSet = new HashSet<>();
+        Map<Long, JumpNode> allNodes = new HashMap<>();
+
+        double originLng = from.getLng();
+        double originLat = from.getLat();
+        JumpNode startNode = new JumpNode(LatticePoint.ORIGIN, originLng, originLat, -1, 0);
+        startNode.f = GeoMath.distance(from.getLng(), from.getLat(), goalLng, goalLat);
+        openSet.add(startNode);
+        allNodes.put(cellKey(startNode.lng, startNode.lat), startNode);
+
+        LatticePoint[] jump = new LatticePoint[1];
+        int iterations = 0;
+
+        while (!openSet.isEmpty() && iterations < maxIterations) {
+            iterations++;
+            if ((iterations & AStarPathfinder.DEADLINE_CHECK_MASK) == 0 && deadline.isExpired()) {
+                logger.warn("Jump point search stopped by planning deadline after {} iterations", iterations);
+                return new PathSearchResult(null, iterations);
+            }
+
+            JumpNode current = openSet.poll();
+
+            if (GeoMath.isCloseTo(current.lng, current.lat, goalLng, goalLat)) {
+                logger.debug("Jump point search found path in {} iterations", iterations);
+                return new PathSearchResult(current.path(), iterations);
+            }
+
+            closedSet.add(cellKey(current.lng, current.lat));
+
+            for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                // Going straight back the way we came can never help
+                if (current.direction >= 0 && direction == (current.direction + CompassDirections.COUNT / 2) % CompassDirections.COUNT) {
+                    continue;
+                }
+
+                int steps = jump(current.point, originLng, originLat, direction, goalLng, goalLat, validator, jump);
+                if (steps == 0) {
+                    continue;
+                }
+
+                JumpNode successor = new JumpNode(jump[0], originLng, originLat, direction, steps);
+                long key = cellKey(successor.lng, successor.lat);
+                if (closedSet.contains(key)) {
+                    continue;
+                }
+
+                double tentativeG = current.g + steps * GeoMath.MOVE_DISTANCE;
+                JumpNode existing = allNodes.get(key);
+
+                if (existing == null || tentativeG < existing.g) {
+                    successor.g = tentativeG;
+                    successor.f = tentativeG + AStarPathfinder.HEURISTIC_WEIGHT
+                            * GeoMath.distance(successor.lng, successor.lat, goalLng, goalLat);
+                    successor.parent = current;
+
+                    if (existing != null) {
+                        openSet.remove(existing);
+                    }
+                    openSet.add(successor);
+                    allNodes.put(key, successor);
+                }
+            }
+        }
+
+        logger.warn("Jump point search failed to find path after {} iterations", iterations);
+        return new PathSearchResult(null, iterations);
+    }
+
+    /**
+     * Move from the lattice point in one direction until a jump point is found.
+     * Writes the jump point into out and returns the number of moves taken (0 if the first move is blocked).
+     */
+    private int jump(LatticePoint point, double originLng, double originLat, int direction,
+                     double goalLng, double goalLat,
+                     MoveValidator validator, LatticePoint[] out) {
+
+        double lng = point.lng(originLng);
+        double lat = point.lat(originLat);
+        int left = (direction + CompassDirections.COUNT / 4) % CompassDirections.COUNT;
+        int right = (direction + 3 * CompassDirections.COUNT / 4) % CompassDirections.COUNT;
+
+        int sides = sideMask(lng, lat, left, right, validator);
+        double distance = GeoMath.distance(lng, lat, goalLng, goalLat);
+        boolean approaching = false;
+        int steps = 0;
+
+        while (steps < MAX_JUMP) {
+            LatticePoint next = point.step(direction);
+            double nextLng = next.lng(originLng);
+            double nextLat = next.lat(originLat);
+            double nextDistance = GeoMath.distance(nextLng, nextLat, goalLng, goalLat);
+
+            // Passed the closest point to the goal on this ray: turn here
+            if (approaching && nextDistance > distance) {
+                break;
+            }
+            if (!validator.isValidMove(lng, lat, nextLng, nextLat)) {
+                break;
+            }
+
+            approaching = nextDistance < distance;
+            point = next;
+            lng = nextLng;
+            lat = nextLat;
+            distance = nextDistance;
+            steps++;
+
+            if (distance < GeoMath.CLOSE_THRESHOLD) {
+                break;
+            }
+            // An obstacle edge starts or ends beside us: a corner worth branching from
+            if (sideMask(lng, lat, left, right, validator) != sides) {
+                break;
+            }
+        }
+
+        out[0] = point;
+        return steps;
+    }
+
+    /**
+     * Search state key: the lattice is dense (different move orders land on slightly different
+     * points), so exact positions never repeat inside a pocket; bucketing them into small cells does
+     */
+    private static long cellKey(double lng, double lat) {
+        long x = (long) Math.floor(lng / CELL_SIZE);
+        long y = (long) Math.floor(lat / CELL_SIZE);
+        return (x << 32) ^ (y & 0xffffffffL);
+    }
+
+    /**
+     * Bit 0: the move to the left is blocked, bit 1: the move to the right is blocked
+     */
+    private int sideMask(double lng, double lat, int left, int right, MoveValidator validator) {
+        int mask = 0;
+        if (!validator.isValidMove(lng, lat, lng + CompassDirections.dx(left), lat + CompassDirections.dy(left))) {
+            mask |= 1;
+        }
+        if (!validator.isValidMove(lng, lat, lng + CompassDirections.dx(right), lat + CompassDirections.dy(right))) {
+            mask |= 2;
+        }
+        return mask;
+    }
+
+    /**
+     * Jump point: reached from its parent by 'steps' moves in 'direction'
+     */
+    private static class JumpNode {
+        final LatticePoint point;
+        final double lng;
+        final double lat;
+        final int direction;
+        final int steps;
+        double g;
+        double f;
+        JumpNode parent;
+
+        JumpNode(LatticePoint point, double originLng, double originLat, int direction, int steps) {
+            this.point = point;
+            this.lng = point.lng(originLng);
+            this.lat = point.lat(originLat);
+            this.direction = direction;
+            this.steps = steps;
+        }
+
+        /**
+         * Expand the chain of jumps back into single moves, replaying each jump from its
+         * parent's lattice point so the positions are exactly those the search validated
+         */
+        List<DeliveryPathResponse.LngLat> path() {
+            List<JumpNode> chain = new ArrayList<>();
+            int moves = 0;
+            for (JumpNode node = this; node != null; node = node.parent) {
+                chain.add(node);
+                moves += node.steps;
+            }
+
+            List<DeliveryPathResponse.LngLat> path = new ArrayList<>(moves + 1);
+            JumpNode root = chain.get(chain.size() - 1);
+            path.add(new DeliveryPathResponse.LngLat(root.lng, root.lat));
+
+            for (int i = chain.size() - 2; i >= 0; i--) {
+                JumpNode node = chain.get(i);
+                LatticePoint point = node.parent.point;
+                for (int step = 0; step < node.steps; step++) {
+                    point = point.step(node.direction);
+                    // The root sits at the origin of the lattice
+                    path.add(new DeliveryPathResponse.LngLat(point.lng(root.lng), point.lat(root.lat)));
+                }
+            }
+            return path;
+        }
+    }
+}
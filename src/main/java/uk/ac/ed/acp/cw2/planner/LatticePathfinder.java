@@ -0,0 +1,27 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+
+/**
+ * A search over the 16-direction move lattice anchored at the start position.
+ * Every step of a returned path is exactly one 0.00015-degree compass move and
+ * the last point is within 0.00015 of the goal.
+ */
+public interface LatticePathfinder {
+
+    /**
+     * Search until a path is found, the iteration cap is reached or the deadline expires
+     */
+    PathSearchResult search(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator,
+            PlanningDeadline deadline);
+
+    default PathSearchResult search(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator) {
+        return search(from, to, validator, PlanningDeadline.NONE);
+    }
+}
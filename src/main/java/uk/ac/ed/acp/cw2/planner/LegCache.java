@@ -0,0 +1,176 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Flight paths of single legs (from a position to within 0.00015 of a target), kept across
+ * planning requests for one set of restricted areas and evicted least recently used first.
+ * <p>
+ * When the restricted areas change, the cache for the new set starts as a copy of the old one
+ * minus the legs the change can affect (see {@link Leg#isBlockedBy} and {@link Leg#overlaps});
+ * everything else carries over untouched. A leg repaired incrementally keeps its
+ * {@link LpaStarPathfinder} so that the next change near it is repaired from that search state.
+ * <p>
+ * Callers get their own copy of a path, so they may extend it.
+ */
+public final class LegCache {
+
+    private final int maxLegs;
+    // Access order, so iteration starts at the least recently used leg
+    private final LinkedHashMap<List<Double>, Leg> legs = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+
+    public LegCache(int maxLegs) {
+        this.maxLegs = maxLegs;
+    }
+
+    /**
+     * The cached path of the leg, or null
+     */
+    public synchronized List<DeliveryPathResponse.LngLat> get(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to) {
+        Leg leg = legs.get(key(from, to));
+        if (leg == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<>(leg.path);
+    }
+
+    public synchronized void put(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to,
+                                 List<DeliveryPathResponse.LngLat> path) {
+        put(new Leg(from, to, path, null));
+    }
+
+    public synchronized void put(Leg leg) {
+        if (maxLegs <= 0) {
+            return;
+        }
+        legs.put(key(leg.from, leg.to), leg);
+        Iterator<Leg> it = legs.values().iterator();
+        while (legs.size() > maxLegs && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * A new cache holding this one's legs except those matching affected, which are returned
+     * (least recently used first) for the caller to repair or drop
+     */
+    public synchronized LegCache copyWithout(Predicate<Leg> affected, List<Leg> removed) {
+        LegCache copy = new LegCache(maxLegs);
+        for (Map.Entry<List<Double>, Leg> entry : legs.entrySet()) {
+            if (affected.test(entry.getValue())) {
+                removed.add(entry.getValue());
+            } else {
+                copy.legs.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return copy;
+    }
+
+    public synchronized int size() {
+        return legs.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static List<Double> key(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to) {
+        return List.of(from.getLng(), from.getLat(), to.getLng(), to.getLat());
+    }
+
+    /**
+     * One cached leg: its end points, path, the path's bounding box and, once repaired, its search
+     */
+    public static final class Leg {
+        private final DeliveryPathResponse.LngLat from;
+        private final DeliveryPathResponse.LngLat to;
+        private final List<DeliveryPathResponse.LngLat> path;
+        private final LpaStarPathfinder search;
+        private final double minLng;
+        private final double minLat;
+        private final double maxLng;
+        private final double maxLat;
+
+        public Leg(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to,
+                   List<DeliveryPathResponse.LngLat> path, LpaStarPathfinder search) {
+            this.from = from;
+            this.to = to;
+            this.path = List.copyOf(path);
+            this.search = search;
+            double lngLow = Double.POSITIVE_INFINITY;
+            double latLow = Double.POSITIVE_INFINITY;
+            double lngHigh = Double.NEGATIVE_INFINITY;
+            double latHigh = Double.NEGATIVE_INFINITY;
+            for (DeliveryPathResponse.LngLat point : path) {
+                lngLow = Math.min(lngLow, point.getLng());
+                latLow = Math.min(latLow, point.getLat());
+                lngHigh = Math.max(lngHigh, point.getLng());
+                latHigh = Math.max(latHigh, point.getLat());
+            }
+            this.minLng = lngLow;
+            this.minLat = latLow;
+            this.maxLng = lngHigh;
+            this.maxLat = latHigh;
+        }
+
+        /**
+         * True if some move of the path is not allowed by the validator (e.g. one new area)
+         */
+        public boolean isBlockedBy(MoveValidator validator) {
+            for (int i = 1; i < path.size(); i++) {
+                DeliveryPathResponse.LngLat a = path.get(i - 1);
+                DeliveryPathResponse.LngLat b = path.get(i);
+                if (!validator.isValidMove(a.getLng(), a.getLat(), b.getLng(), b.getLat())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * True if the path's bounding box, grown by the buffer and a move, meets the box: a detour
+         * around an area removed from there may no longer be needed
+         */
+        public boolean overlaps(double boxMinLng, double boxMinLat, double boxMaxLng, double boxMaxLat) {
+            double margin = RestrictedAreaIndex.BUFFER + GeoMath.MOVE_DISTANCE;
+            return minLng - margin <= boxMaxLng && maxLng + margin >= boxMinLng
+                    && minLat - margin <= boxMaxLat && maxLat + margin >= boxMinLat;
+        }
+
+        public DeliveryPathResponse.LngLat getFrom() {
+            return from;
+        }
+
+        public DeliveryPathResponse.LngLat getTo() {
+            return to;
+        }
+
+        public List<DeliveryPathResponse.LngLat> getPath() {
+            return path;
+        }
+
+        /**
+         * The incremental search the leg was last repaired with, or null
+         */
+        public LpaStarPathfinder getSearch() {
+            return search;
+        }
+    }
+}
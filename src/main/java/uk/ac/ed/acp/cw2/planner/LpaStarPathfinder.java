@@ -0,0 +1,349 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Lifelong Planning A* (LPA*) over the 16-direction lattice for one leg, from a fixed start to
+ * within 0.00015 of a fixed goal, one unit of cost per move.
+ * <p>
+ * Unlike the one-shot searches the instance keeps its search state (g and rhs per lattice
+ * position) between calls. When restricted areas change, {@link #areaChanged} re-evaluates only
+ * the positions whose moves can touch the changed box, and the next {@link #computePath} repairs
+ * the path from there instead of searching the whole leg again. Like the A* search it is steered
+ * by an inflated heuristic (see {@link #weight}), so paths are as long as A*'s rather than the
+ * shortest possible. Positions within 0.00015 of the goal all lead, at no cost, to one virtual
+ * goal vertex.
+ * <p>
+ * Not thread-safe: one instance belongs to one cached leg.
+ */
+public final class LpaStarPathfinder {
+
+    public static final int DEFAULT_MAX_EXPANSIONS = 20000;
+
+    private static final double INFINITE = Double.POSITIVE_INFINITY;
+
+    private final double startLng;
+    private final double startLat;
+    private final double goalLng;
+    private final double goalLat;
+    private final int maxExpansions;
+    private MoveValidator validator;
+
+    private final Map<LatticePoint, Vertex> vertices = new HashMap<>();
+    // Known positions within 0.00015 of the goal, the predecessors of the virtual goal
+    private final List<Vertex> closeToGoal = new ArrayList<>();
+    private final PriorityQueue<QueueEntry> open = new PriorityQueue<>();
+    private final Vertex start;
+    private final Vertex goal;
+    private long sequence;
+
+    public LpaStarPathfinder(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to, MoveValidator validator) {
+        this(from, to, validator, DEFAULT_MAX_EXPANSIONS);
+    }
+
+    public LpaStarPathfinder(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to,
+                             MoveValidator validator, int maxExpansions) {
+        this.startLng = from.getLng();
+        this.startLat = from.getLat();
+        this.goalLng = to.getLng();
+        this.goalLat = to.getLat();
+        this.validator = validator;
+        this.maxExpansions = maxExpansions;
+
+        goal = new Vertex(null, goalLng, goalLat, 0);
+        start = vertex(LatticePoint.ORIGIN);
+        start.rhs = 0;
+        enqueue(start);
+    }
+
+    /**
+     * Bring the search up to date and return the path, or a null path if the goal cannot
+     * be reached within the expansion cap or before the deadline
+     */
+    public PathSearchResult computePath(PlanningDeadline deadline) {
+        int expansions = 0;
+        while (!open.isEmpty()) {
+            QueueEntry top = open.peek();
+            if (top.stamp != top.vertex.stamp) {
+                open.poll();
+                continue;
+            }
+            // Positions close to the goal reach it at no cost and so can share its key: those are still
+            // processed, or a stale cost there would stand as the goal's
+            if (compare(top.k1, top.k2, goal) > 0 && goal.rhs == goal.g) {
+                break;
+            }
+            if (expansions >= maxExpansions
+                    || ((expansions & AStarPathfinder.DEADLINE_CHECK_MASK) == 0 && deadline.isExpired())) {
+                return new PathSearchResult(null, expansions);
+            }
+            open.poll();
+            expansions++;
+
+            Vertex u = top.vertex;
+            u.stamp++;
+            if (u == goal) {
+                // The virtual goal has no moves out of it
+                if (u.g > u.rhs) {
+                    u.g = u.rhs;
+                } else {
+                    u.g = INFINITE;
+                    update(u);
+                }
+            } else if (u.g > u.rhs) {
+                // Overconsistent: settle it and offer the lower cost to its successors
+                u.g = u.rhs;
+                for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                    Vertex s = successor(u, direction);
+                    if (s != null && s != start && u.g + 1 < s.rhs) {
+                        s.rhs = u.g + 1;
+                        enqueue(s);
+                    }
+                }
+                if (u.closeToGoal && u.g < goal.rhs) {
+                    goal.rhs = u.g;
+                    enqueue(goal);
+                }
+            } else {
+                // Underconsistent: its old cost no longer holds, so it and everything built on it is re-evaluated
+                u.g = INFINITE;
+                update(u);
+                for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                    Vertex s = vertices.get(u.point.step(direction));
+                    if (s != null) {
+                        update(s);
+                    }
+                }
+                if (u.closeToGoal) {
+                    update(goal);
+                }
+            }
+        }
+        return new PathSearchResult(goal.g == INFINITE ? null : path(), expansions);
+    }
+
+    /**
+     * The restricted areas changed inside the box (the union of the old and new extents of the
+     * changed areas): moves touching it are costed again with the new validator on the next
+     * computePath. Moves elsewhere keep their cost, so the search state built on them is reused.
+     */
+    public void areaChanged(MoveValidator validator, double minLng, double minLat, double maxLng, double maxLat) {
+        this.validator = validator;
+        // Any move touching the box, or ending within the buffer of it, starts or ends within one move plus the buffer
+        double margin = GeoMath.MOVE_DISTANCE + RestrictedAreaIndex.BUFFER;
+        List<Vertex> affected = new ArrayList<>();
+        for (Vertex v : vertices.values()) {
+            if (v.lng >= minLng - margin && v.lng <= maxLng + margin
+                    && v.lat >= minLat - margin && v.lat <= maxLat + margin) {
+                affected.add(v);
+            }
+        }
+        for (Vertex v : affected) {
+            update(v);
+            // Moves out of it that used to be blocked may reach positions the search has not met yet
+            if (v.g != INFINITE) {
+                for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                    Vertex s = successor(v, direction);
+                    if (s != null) {
+                        update(s);
+                    }
+                }
+            }
+        }
+        update(goal);
+    }
+
+    /**
+     * Number of lattice positions the search has met so far
+     */
+    public int getVertexCount() {
+        return vertices.size();
+    }
+
+    /**
+     * Recompute rhs of v from its predecessors and queue it if it is inconsistent
+     */
+    private void update(Vertex v) {
+        if (v == start) {
+            enqueue(v);
+            return;
+        }
+        double best = INFINITE;
+        if (v == goal) {
+            for (Vertex p : closeToGoal) {
+                best = Math.min(best, p.g);
+            }
+        } else {
+            for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                Vertex p = vertices.get(v.point.back(direction));
+                if (p != null && p.g + 1 < best && validator.isValidMove(p.lng, p.lat, v.lng, v.lat)) {
+                    best = p.g + 1;
+                }
+            }
+        }
+        v.rhs = best;
+        enqueue(v);
+    }
+
+    /**
+     * Queue v under its current key if it is inconsistent; stale queue entries are skipped when polled
+     */
+    private void enqueue(Vertex v) {
+        v.stamp++;
+        if (v.g != v.rhs) {
+            double k2 = Math.min(v.g, v.rhs);
+            open.add(new QueueEntry(v, k2 + weight(v) * v.h, k2, v.stamp, sequence++));
+        }
+    }
+
+    /**
+     * Heuristic weight in the key of v. Lowering costs (overconsistent positions) is steered with
+     * the A* search's inflated heuristic: the 16-direction lattice hardly ever revisits a position,
+     * so an exact search would have to meet every position cheaper than a detour. Raised costs
+     * (underconsistent positions) keep the plain heuristic, so that every stale cost below the
+     * goal's is still raised before the search stops.
+     */
+    private static double weight(Vertex v) {
+        return v.g > v.rhs ? AStarPathfinder.HEURISTIC_WEIGHT : 1.0;
+    }
+
+    /**
+     * Neighbour of u in the direction if the move there is valid, met now if it was not known yet
+     */
+    private Vertex successor(Vertex u, int direction) {
+        LatticePoint to = u.point.step(direction);
+        Vertex v = vertices.get(to);
+        double toLng = v != null ? v.lng : to.lng(startLng);
+        double toLat = v != null ? v.lat : to.lat(startLat);
+        if (!validator.isValidMove(u.lng, u.lat, toLng, toLat)) {
+            return null;
+        }
+        return v != null ? v : vertex(to);
+    }
+
+    private Vertex vertex(LatticePoint point) {
+        Vertex v = vertices.get(point);
+        if (v == null) {
+            double lng = point.lng(startLng);
+            double lat = point.lat(startLat);
+            // Moves still needed at the least: the rest of the distance beyond the closeness radius
+            double h = Math.max(0, GeoMath.distance(lng, lat, goalLng, goalLat) - GeoMath.MOVE_DISTANCE) / GeoMath.MOVE_DISTANCE;
+            v = new Vertex(point, lng, lat, h);
+            v.closeToGoal = GeoMath.isCloseTo(lng, lat, goalLng, goalLat);
+            vertices.put(point, v);
+            if (v.closeToGoal) {
+                closeToGoal.add(v);
+            }
+        }
+        return v;
+    }
+
+    /**
+     * -1, 0 or 1 as the key (k1, k2) is below, equal to or above the key of v
+     */
+    private static int compare(double k1, double k2, Vertex v) {
+        double vk2 = Math.min(v.g, v.rhs);
+        int byK1 = Double.compare(k1, vk2 + weight(v) * v.h);
+        return byK1 != 0 ? byK1 : Double.compare(k2, vk2);
+    }
+
+    /**
+     * Walk back from the cheapest position close to the goal, each move to the cheapest valid
+     * predecessor; costs fall with every move, so the walk ends at the start
+     */
+    private List<DeliveryPathResponse.LngLat> path() {
+        Vertex end = null;
+        for (Vertex v : closeToGoal) {
+            if (v.g == goal.g && (end == null || v.g < end.g)) {
+                end = v;
+            }
+        }
+        if (end == null) {
+            return null;
+        }
+
+        List<DeliveryPathResponse.LngLat> path = new ArrayList<>();
+        Vertex current = end;
+        path.add(new DeliveryPathResponse.LngLat(current.lng, current.lat));
+        while (current != start) {
+            Vertex previous = null;
+            for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                Vertex p = vertices.get(current.point.back(direction));
+                if (p != null && p.g < current.g && (previous == null || p.g < previous.g)
+                        && validator.isValidMove(p.lng, p.lat, current.lng, current.lat)) {
+                    previous = p;
+                }
+            }
+            if (previous == null) {
+                // Only possible where the inflated search left a cost on the way stale
+                return null;
+            }
+            current = previous;
+            path.add(new DeliveryPathResponse.LngLat(current.lng, current.lat));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Lattice position with its cost from the start (g), one-step lookahead cost (rhs) and heuristic
+     */
+    private static final class Vertex {
+        // Null for the virtual goal
+        final LatticePoint point;
+        final double lng;
+        final double lat;
+        final double h;
+        double g = INFINITE;
+        double rhs = INFINITE;
+        boolean closeToGoal;
+        // Bumped whenever the vertex is queued or settled, invalidating older queue entries
+        int stamp;
+
+        Vertex(LatticePoint point, double lng, double lat, double h) {
+            this.point = point;
+            this.lng = lng;
+            this.lat = lat;
+            this.h = h;
+        }
+    }
+
+    /**
+     * Queue entry ordered by (k1, k2), then by insertion so that ties break the same way every run
+     */
+    private static final class QueueEntry implements Comparable<QueueEntry> {
+        final Vertex vertex;
+        final double k1;
+        final double k2;
+        final int stamp;
+        final long sequence;
+
+        QueueEntry(Vertex vertex, double k1, double k2, int stamp, long sequence) {
+            this.vertex = vertex;
+            this.k1 = k1;
+            this.k2 = k2;
+            this.stamp = stamp;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other) {
+            int byK1 = Double.compare(k1, other.k1);
+            if (byK1 != 0) {
+                return byK1;
+            }
+            int byK2 = Double.compare(k2, other.k2);
+            return byK2 != 0 ? byK2 : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package uk.ac.ed.acp.cw2.planner;
+
+/**
+ * Checks whether a single straight move between two positions is allowed
+ * (does not end in or cross a restricted area). Pathfinders receive one of
+ * these instead of the raw restricted area list.
+ */
+@FunctionalInterface
+public interface MoveValidator {
+
+    /**
+     * @return true if the drone may fly from (lng1, lat1) to (lng2, lat2)
+     */
+    boolean isValidMove(double lng1, double lat1, double lng2, double lat2);
+
+    /**
+     * @return true if the drone may hover at (lng, lat); by default a zero-length move
+     */
+    default boolean isValidPosition(double lng, double lat) {
+        return isValidMove(lng, lat, lng, lat);
+    }
+}
@@ -0,0 +1,32 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+
+import java.util.List;
+
+/**
+ * Outcome of one lattice search: the path (null if none was found within the
+ * iteration cap) plus the number of nodes expanded, used for logging and benchmarks.
+ */
+public class PathSearchResult {
+
+    private final List<DeliveryPathResponse.LngLat> path;
+    private final int expandedNodes;
+
+    public PathSearchResult(List<DeliveryPathResponse.LngLat> path, int expandedNodes) {
+        this.path = path;
+        this.expandedNodes = expandedNodes;
+    }
+
+    public List<DeliveryPathResponse.LngLat> getPath() {
+        return path;
+    }
+
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public boolean isFound() {
+        return path != null;
+    }
+}
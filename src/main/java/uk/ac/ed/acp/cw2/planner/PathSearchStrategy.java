@@ -0,0 +1,33 @@
+package uk.ac.ed.acp.cw2.planner;
+
+/**
+ * Lattice search used by generateFlightPath when the direct line to the goal is blocked.
+ * Selected with planner.search.strategy; RRT remains the last resort for all of them.
+ */
+public enum PathSearchStrategy {
+
+    /** Weighted A* (epsilon 1.5) expanding one move at a time */
+    A_STAR,
+
+    /** Weighted A* run from both ends, stopping when the two frontiers meet */
+    BIDIRECTIONAL,
+
+    /** A* whose successors jump along a direction until something changes */
+    JUMP_POINT,
+
+    /** HPA*-style search over a coarse cluster grid, refined to moves along the chosen corridor */
+    HIERARCHICAL;
+
+    /**
+     * New pathfinder for this strategy. Pathfinders are thread-safe and may be reused;
+     * the hierarchical one keeps its cluster graph between searches, so callers should keep it.
+     */
+    public LatticePathfinder newPathfinder() {
+        return switch (this) {
+            case A_STAR -> new AStarPathfinder();
+            case BIDIRECTIONAL -> new BidirectionalAStarPathfinder();
+            case JUMP_POINT -> new JumpPointPathfinder();
+            case HIERARCHICAL -> new HierarchicalPathfinder();
+        };
+    }
+}
@@ -0,0 +1,166 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-request trace of the planner's inner loops (candidate drones, legs, batches), replacing
+ * log statements there.
+ * <p>
+ * Every event is counted by name; one INFO summary line with the counts is logged when the request
+ * finishes. Event detail is only formatted when it is logged:
+ * - Normally a sample of it (the 1st, 2nd, 4th, 8th, ... occurrence of each event) at DEBUG.
+ * - All of it at INFO for a request planned inside {@link #requestVerbose()}, which the controller
+ *   opens when the client sends "X-Planner-Trace: verbose".
+ * <p>
+ * A trace belongs to one planning request and may be shared by the threads planning its parts.
+ */
+public final class PlannerTrace {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlannerTrace.class);
+
+    /** Request header value asking for full detail */
+    public static final String VERBOSE = "verbose";
+
+    /** Outside a planning request: events are dropped */
+    public static final PlannerTrace OFF = new PlannerTrace("-", false, false);
+
+    private static final AtomicLong nextId = new AtomicLong();
+    private static final ThreadLocal<Boolean> verboseRequested = new ThreadLocal<>();
+
+    private final String id;
+    private final boolean verbose;
+    private final boolean enabled;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, AtomicInteger> counts = new ConcurrentSkipListMap<>();
+
+    private PlannerTrace(String id, boolean verbose, boolean enabled) {
+        this.id = id;
+        this.verbose = verbose;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Trace for a new planning request, verbose if the calling thread asked for it
+     */
+    public static PlannerTrace begin() {
+        return new PlannerTrace("plan-" + nextId.incrementAndGet(), Boolean.TRUE.equals(verboseRequested.get()), true);
+    }
+
+    /**
+     * Plans started on this thread until the scope is closed trace every event at INFO
+     */
+    public static Scope requestVerbose() {
+        verboseRequested.set(Boolean.TRUE);
+        return verboseRequested::remove;
+    }
+
+    public static boolean isVerboseRequested() {
+        return Boolean.TRUE.equals(verboseRequested.get());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * Number of times the event has occurred in this request so far
+     */
+    public int getCount(String name) {
+        AtomicInteger count = counts.get(name);
+        return count != null ? count.get() : 0;
+    }
+
+    public void event(String name) {
+        count(name);
+    }
+
+    public void event(String name, String format, Object arg) {
+        if (count(name)) {
+            log(format, new Object[]{arg});
+        }
+    }
+
+    public void event(String name, String format, Object arg1, Object arg2) {
+        if (count(name)) {
+            log(format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void event(String name, String format, Object... args) {
+        if (count(name)) {
+            log(format, args);
+        }
+    }
+
+    /**
+     * Log the summary line: elapsed time, outcome and the count of every event
+     */
+    public void finish(String outcome) {
+        if (!enabled) {
+            return;
+        }
+        StringBuilder events = new StringBuilder();
+        counts.forEach((name, count) -> events.append(events.isEmpty() ? "" : ", ").append(name).append('=').append(count.get()));
+        logger.info("[{}] {} in {} ms - {}", id, outcome, (System.nanoTime() - startNanos) / 1_000_000, events);
+    }
+
+    /**
+     * @return true if this occurrence's detail should be logged
+     */
+    private boolean count(String name) {
+        if (!enabled) {
+            return false;
+        }
+        int n = counts.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+        return verbose || ((n & (n - 1)) == 0 && logger.isDebugEnabled());
+    }
+
+    private void log(String format, Object[] args) {
+        String message = MessageFormatter.arrayFormat(format, args).getMessage();
+        if (verbose) {
+            logger.info("[{}] {}", id, message);
+        } else {
+            logger.debug("[{}] {}", id, message);
+        }
+    }
+
+    /**
+     * Log argument printing the value with the given number of decimals, formatted only if logged
+     */
+    public static Object decimals(double value, int places) {
+        return lazy(() -> String.format("%." + places + "f", value));
+    }
+
+    /**
+     * Log argument computed only if logged
+     */
+    public static Object lazy(Supplier<?> value) {
+        return new Object() {
+            @Override
+            public String toString() {
+                return String.valueOf(value.get());
+            }
+        };
+    }
+
+    /**
+     * Ends a {@link #requestVerbose()} block
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,61 @@
+package uk.ac.ed.acp.cw2.planner;
+
+/**
+ * Wall-clock budget for one planning request, shared by the strategies, their candidate
+ * loops and the pathfinders. Work checks isExpired() at natural boundaries and gives up;
+ * wasHit() then tells the caller that the result may not be the best the heuristics could find.
+ */
+public final class PlanningDeadline {
+
+    /** No budget: never expires */
+    public static final PlanningDeadline NONE = new PlanningDeadline(0, false);
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+    private volatile boolean hit;
+
+    private PlanningDeadline(long deadlineNanos, boolean bounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Deadline budgetMillis from now; zero or a negative budget means unlimited
+     */
+    public static PlanningDeadline after(long budgetMillis) {
+        if (budgetMillis <= 0) {
+            return NONE;
+        }
+        return new PlanningDeadline(System.nanoTime() + budgetMillis * 1_000_000L, true);
+    }
+
+    /**
+     * @return true once the budget is used up; the first true answer also marks the deadline as hit
+     */
+    public boolean isExpired() {
+        if (!bounded) {
+            return false;
+        }
+        if (hit) {
+            return true;
+        }
+        if (System.nanoTime() - deadlineNanos >= 0) {
+            hit = true;
+        }
+        return hit;
+    }
+
+    /**
+     * @return true if some work was cut short because the budget ran out
+     */
+    public boolean wasHit() {
+        return hit;
+    }
+
+    public long remainingMillis() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, (deadlineNanos - System.nanoTime()) / 1_000_000L);
+    }
+}
@@ -0,0 +1,217 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+
+import java.util.List;
+
+/**
+ * Restricted areas compiled into primitive vertex arrays with a bounding box per polygon.
+ * <p>
+ * Answers the same questions the planner used to ask of the raw RestrictedArea list
+ * (point inside, point inside or within the 0.00015 buffer, segment crossing an edge),
+ * but rejects polygons whose buffered bounding box cannot be involved before touching any edge.
+ * Immutable once built, so one instance can be shared between threads.
+ */
+public class RestrictedAreaIndex implements MoveValidator {
+
+    // Buffer distance to prevent corner cutting
+    public static final double BUFFER = 0.00015;
+
+    private final String[] names;
+    // Per polygon vertex coordinates; a missing vertex coordinate is stored as NaN and its edges skipped
+    private final double[][] xs;
+    private final double[][] ys;
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+
+    public RestrictedAreaIndex(List<RestrictedArea> restrictedAreas) {
+        int count = restrictedAreas.size();
+        names = new String[count];
+        xs = new double[count][];
+        ys = new double[count][];
+        minX = new double[count];
+        minY = new double[count];
+        maxX = new double[count];
+        maxY = new double[count];
+
+        for (int a = 0; a < count; a++) {
+            RestrictedArea area = restrictedAreas.get(a);
+            names[a] = area.getName();
+            List<RestrictedArea.Vertex> vertices = area.getVertices();
+            int n = (vertices == null || vertices.size() < 3) ? 0 : vertices.size();
+
+            xs[a] = new double[n];
+            ys[a] = new double[n];
+            minX[a] = Double.POSITIVE_INFINITY;
+            minY[a] = Double.POSITIVE_INFINITY;
+            maxX[a] = Double.NEGATIVE_INFINITY;
+            maxY[a] = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < n; i++) {
+                RestrictedArea.Vertex vertex = vertices.get(i);
+                boolean missing = vertex.getLng() == null || vertex.getLat() == null;
+                double x = missing ? Double.NaN : vertex.getLng();
+                double y = missing ? Double.NaN : vertex.getLat();
+                xs[a][i] = x;
+                ys[a][i] = y;
+                if (!missing) {
+                    minX[a] = Math.min(minX[a], x);
+                    minY[a] = Math.min(minY[a], y);
+                    maxX[a] = Math.max(maxX[a], x);
+                    maxY[a] = Math.max(maxY[a], y);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int area) {
+        return names[area];
+    }
+
+    /**
+     * Index of the first area strictly containing the point, or -1 if none does
+     */
+    public int areaContaining(double lng, double lat) {
+        for (int a = 0; a < names.length; a++) {
+            if (lng >= minX[a] && lng <= maxX[a] && lat >= minY[a] && lat <= maxY[a]
+                    && isPointInPolygon(a, lng, lat)) {
+                return a;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if a point is inside or within the buffer distance of any area
+     */
+    public boolean isPointInOrNearAny(double lng, double lat) {
+        for (int a = 0; a < names.length; a++) {
+            if (isPointInOrNearPolygon(a, lng, lat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A move is valid if its end point is clear of every area (including the buffer)
+     * and the segment does not cross any area edge
+     */
+    @Override
+    public boolean isValidMove(double lng1, double lat1, double lng2, double lat2) {
+        for (int a = 0; a < names.length; a++) {
+            if (isPointInOrNearPolygon(a, lng2, lat2)) {
+                return false;
+            }
+            if (doesLineIntersectPolygon(a, lng1, lat1, lng2, lat2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isValidPosition(double lng, double lat) {
+        return !isPointInOrNearAny(lng, lat);
+    }
+
+    /**
+     * Check if a straight line between two points is clear: both end points outside
+     * every buffered area and no area edge crossed
+     */
+    public boolean isPathClear(double lng1, double lat1, double lng2, double lat2) {
+        for (int a = 0; a < names.length; a++) {
+            if (isPointInOrNearPolygon(a, lng1, lat1) || isPointInOrNearPolygon(a, lng2, lat2)) {
+                return false;
+            }
+            if (doesLineIntersectPolygon(a, lng1, lat1, lng2, lat2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ray casting algorithm to check if a point is inside a polygon
+     */
+    private boolean isPointInPolygon(int a, double lng, double lat) {
+        double[] x = xs[a];
+        double[] y = ys[a];
+        int n = x.length;
+        boolean inside = false;
+
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double xi = x[i], yi = y[i];
+            double xj = x[j], yj = y[j];
+            if (Double.isNaN(xi) || Double.isNaN(xj)) {
+                continue;
+            }
+
+            boolean intersect = ((yi > lat) != (yj > lat)) &&
+                    (lng < (xj - xi) * (lat - yi) / (yj - yi) + xi);
+
+            if (intersect) {
+                inside = !inside;
+            }
+        }
+
+        return inside;
+    }
+
+    private boolean isPointInOrNearPolygon(int a, double lng, double lat) {
+        // Further than the buffer from the bounding box: neither inside nor near any edge
+        if (lng <= minX[a] - BUFFER || lng >= maxX[a] + BUFFER
+                || lat <= minY[a] - BUFFER || lat >= maxY[a] + BUFFER) {
+            return false;
+        }
+
+        if (isPointInPolygon(a, lng, lat)) {
+            return true;
+        }
+
+        double[] x = xs[a];
+        double[] y = ys[a];
+        int n = x.length;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            if (Double.isNaN(x[i]) || Double.isNaN(x[next])) {
+                continue;
+            }
+            if (GeoMath.pointToSegmentDistance(lng, lat, x[i], y[i], x[next], y[next]) < BUFFER) {
+                return true; // Too close to edge
+            }
+        }
+
+        return false;
+    }
+
+    private boolean doesLineIntersectPolygon(int a, double x1, double y1, double x2, double y2) {
+        // A crossing point lies inside both the segment's and the polygon's bounding box
+        if (Math.max(x1, x2) < minX[a] || Math.min(x1, x2) > maxX[a]
+                || Math.max(y1, y2) < minY[a] || Math.min(y1, y2) > maxY[a]) {
+            return false;
+        }
+
+        double[] x = xs[a];
+        double[] y = ys[a];
+        int n = x.length;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            if (Double.isNaN(x[i]) || Double.isNaN(x[next])) {
+                continue;
+            }
+            if (GeoMath.segmentsIntersect(x1, y1, x2, y2, x[i], y[i], x[next], y[next])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
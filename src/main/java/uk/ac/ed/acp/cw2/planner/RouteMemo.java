@@ -0,0 +1,80 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Routes computed during one planning request, keyed by drone, service point and the stops
+ * in the order they were given. The strategies probe the same drone with the same stops
+ * several times (a feasibility check, then the real assignment, then a later strategy or
+ * batch round); each combination is routed once and later calls get the same result,
+ * including "infeasible" (null).
+ * <p>
+ * Like {@link PlannerTrace}, a memo belongs to one planning request and may be shared by the
+ * threads planning its parts: a combination asked for by two threads at once is still routed
+ * once, the second waiting for the first's result.
+ */
+public final class RouteMemo {
+
+    // Key: [droneId, servicePointId, stops]; the dispatch records compare by value
+    private final Map<List<Object>, CompletableFuture<DeliveryPathResponse>> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger routed = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+
+    /**
+     * The route of drone from servicePoint through stops, computed by router the first time
+     * it is asked for
+     */
+    public DeliveryPathResponse route(Integer droneId, Integer servicePointId, List<MedDispatchRec> stops,
+                                      Supplier<DeliveryPathResponse> router) {
+        List<Object> key = List.of(droneId, servicePointId, List.copyOf(stops));
+        CompletableFuture<DeliveryPathResponse> mine = new CompletableFuture<>();
+        CompletableFuture<DeliveryPathResponse> existing = routes.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            reused.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        routed.incrementAndGet();
+        try {
+            DeliveryPathResponse route = router.get();
+            mine.complete(route);
+            return route;
+        } catch (RuntimeException | Error e) {
+            // Not remembered: the next call routes again
+            routes.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Number of routes computed; never more than the number of distinct (drone, service point, stops)
+     */
+    public int getRouted() {
+        return routed.get();
+    }
+
+    /**
+     * Number of calls answered with an already computed route
+     */
+    public int getReused() {
+        return reused.get();
+    }
+}
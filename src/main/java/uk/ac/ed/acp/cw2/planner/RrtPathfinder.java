@@ -0,0 +1,265 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * RRT (Rapidly-exploring Random Tree) last-resort pathfinder.
+ * <p>
+ * Deterministic: the random generator is seeded from the configured seed and the leg end points,
+ * so the same leg always yields the same path regardless of call order. Nearest-node lookups use a
+ * uniform grid bucket over the tree, and tree nodes live in primitive arrays so the final path is
+ * reconstructed into a pre-sized array instead of repeated list inserts.
+ */
+public class RrtPathfinder {
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private static final int MAX_ITERATIONS = 5000;
+    private static final double GOAL_SAMPLE_RATE = 0.3; // 30% chance to sample goal directly
+    private static final double EXPLORATION_MARGIN = 0.01;
+    private static final double CELL_SIZE = 0.0005;
+
+    private static final Logger logger = LoggerFactory.getLogger(RrtPathfinder.class);
+
+    private final long seed;
+
+    public RrtPathfinder(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Find any valid path from 'from' to within 0.00015 of 'to'
+     * @return the path including the start point, or null if none found within the iteration limit
+     */
+    public List<DeliveryPathResponse.LngLat> findPath(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator) {
+        return findPath(from, to, validator, PlanningDeadline.NONE);
+    }
+
+    /**
+     * As above, but give up (returning null) once the planning deadline expires
+     */
+    public List<DeliveryPathResponse.LngLat> findPath(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            MoveValidator validator,
+            PlanningDeadline deadline) {
+
+        double goalLng = to.getLng();
+        double goalLat = to.getLat();
+
+        Random random = new Random(legSeed(from.getLng(), from.getLat(), goalLng, goalLat));
+        Tree tree = new Tree(MAX_ITERATIONS + 1);
+        tree.add(LatticePoint.ORIGIN, from.getLng(), from.getLat(), -1);
+
+        // Calculate exploration bounds (area around start and goal)
+        double minLng = Math.min(from.getLng(), goalLng) - EXPLORATION_MARGIN;
+        double maxLng = Math.max(from.getLng(), goalLng) + EXPLORATION_MARGIN;
+        double minLat = Math.min(from.getLat(), goalLat) - EXPLORATION_MARGIN;
+        double maxLat = Math.max(from.getLat(), goalLat) + EXPLORATION_MARGIN;
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            if ((iteration & AStarPathfinder.DEADLINE_CHECK_MASK) == 0 && deadline.isExpired()) {
+                logger.warn("QPF stopped by planning deadline after {} iterations", iteration);
+                return null;
+            }
+            // Sample random point (or goal with probability)
+            double sampleLng, sampleLat;
+            if (random.nextDouble() < GOAL_SAMPLE_RATE) {
+                sampleLng = goalLng;
+                sampleLat = goalLat;
+            } else {
+                sampleLng = minLng + random.nextDouble() * (maxLng - minLng);
+                sampleLat = minLat + random.nextDouble() * (maxLat - minLat);
+            }
+
+            int nearest = tree.nearest(sampleLng, sampleLat);
+            double nearestLng = tree.lng[nearest];
+            double nearestLat = tree.lat[nearest];
+
+            // Steer one move from nearest toward the sample, snapped to a compass direction
+            int direction = CompassDirections.snapVector(sampleLng - nearestLng, sampleLat - nearestLat);
+            LatticePoint newPoint = tree.point[nearest].step(direction);
+            double newLng = newPoint.lng(from.getLng());
+            double newLat = newPoint.lat(from.getLat());
+
+            if (!validator.isValidMove(nearestLng, nearestLat, newLng, newLat)) {
+                continue;
+            }
+
+            int newNode = tree.add(newPoint, newLng, newLat, nearest);
+
+            if (GeoMath.isCloseTo(newLng, newLat, goalLng, goalLat)) {
+                logger.debug("QPF found path in {} iterations, tree size: {}", iteration, tree.size);
+                return tree.pathTo(newNode);
+            }
+        }
+
+        logger.warn("QPF failed to find path after {} iterations (tree size: {})", MAX_ITERATIONS, tree.size);
+        return null;
+    }
+
+    /**
+     * Mix the configured seed with the leg end points so each leg has its own stable random stream
+     */
+    private long legSeed(double fromLng, double fromLat, double toLng, double toLat) {
+        long h = seed;
+        h = 31 * h + Double.hashCode(fromLng);
+        h = 31 * h + Double.hashCode(fromLat);
+        h = 31 * h + Double.hashCode(toLng);
+        h = 31 * h + Double.hashCode(toLat);
+        return h;
+    }
+
+    /**
+     * Array-backed tree with a uniform grid bucket index for nearest-node queries
+     */
+    private static class Tree {
+        // Exact lattice point of each node relative to the root; lng / lat are worked out from it
+        LatticePoint[] point;
+        double[] lng;
+        double[] lat;
+        int[] parent;
+        int size;
+
+        private final Map<Long, int[]> buckets = new HashMap<>();
+        private final Map<Long, Integer> bucketSizes = new HashMap<>();
+        private int minCx = Integer.MAX_VALUE;
+        private int maxCx = Integer.MIN_VALUE;
+        private int minCy = Integer.MAX_VALUE;
+        private int maxCy = Integer.MIN_VALUE;
+
+        Tree(int capacity) {
+            point = new LatticePoint[capacity];
+            lng = new double[capacity];
+            lat = new double[capacity];
+            parent = new int[capacity];
+        }
+
+        int add(LatticePoint nodePoint, double nodeLng, double nodeLat, int parentIndex) {
+            int index = size++;
+            point[index] = nodePoint;
+            lng[index] = nodeLng;
+            lat[index] = nodeLat;
+            parent[index] = parentIndex;
+
+            int cx = cell(nodeLng);
+            int cy = cell(nodeLat);
+            minCx = Math.min(minCx, cx);
+            maxCx = Math.max(maxCx, cx);
+            minCy = Math.min(minCy, cy);
+            maxCy = Math.max(maxCy, cy);
+
+            long key = key(cx, cy);
+            int count = bucketSizes.getOrDefault(key, 0);
+            int[] bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new int[4];
+                buckets.put(key, bucket);
+            } else if (count == bucket.length) {
+                bucket = Arrays.copyOf(bucket, count * 2);
+                buckets.put(key, bucket);
+            }
+            bucket[count] = index;
+            bucketSizes.put(key, count + 1);
+            return index;
+        }
+
+        // Best candidate of the nearest-node query in progress
+        private int best;
+        private double bestDist;
+
+        /**
+         * Search grid rings outward from the sample's cell until no closer node can exist
+         */
+        int nearest(double sampleLng, double sampleLat) {
+            int cx = cell(sampleLng);
+            int cy = cell(sampleLat);
+            int maxRing = Math.max(
+                    Math.max(Math.abs(cx - minCx), Math.abs(cx - maxCx)),
+                    Math.max(Math.abs(cy - minCy), Math.abs(cy - maxCy)));
+
+            best = -1;
+            bestDist = Double.MAX_VALUE;
+
+            for (int ring = 0; ring <= maxRing; ring++) {
+                // Any node in this ring or beyond is at least (ring - 1) cells away
+                if (best >= 0 && bestDist <= (ring - 1) * CELL_SIZE) {
+                    break;
+                }
+                if (ring == 0) {
+                    scanCell(cx, cy, sampleLng, sampleLat);
+                    continue;
+                }
+                // Walk only the perimeter of the ring
+                for (int x = cx - ring; x <= cx + ring; x++) {
+                    scanCell(x, cy - ring, sampleLng, sampleLat);
+                    scanCell(x, cy + ring, sampleLng, sampleLat);
+                }
+                for (int y = cy - ring + 1; y <= cy + ring - 1; y++) {
+                    scanCell(cx - ring, y, sampleLng, sampleLat);
+                    scanCell(cx + ring, y, sampleLng, sampleLat);
+                }
+            }
+            return best;
+        }
+
+        private void scanCell(int x, int y, double sampleLng, double sampleLat) {
+            long key = key(x, y);
+            int[] bucket = buckets.get(key);
+            if (bucket == null) {
+                return;
+            }
+            int count = bucketSizes.get(key);
+            for (int i = 0; i < count; i++) {
+                int node = bucket[i];
+                double dist = GeoMath.distance(lng[node], lat[node], sampleLng, sampleLat);
+                // Ties go to the older node, matching a linear scan in insertion order
+                if (dist < bestDist || (dist == bestDist && node < best)) {
+                    bestDist = dist;
+                    best = node;
+                }
+            }
+        }
+
+        /**
+         * Reconstruct the path from the root to the given node into a pre-sized array
+         */
+        List<DeliveryPathResponse.LngLat> pathTo(int node) {
+            int length = 0;
+            for (int current = node; current != -1; current = parent[current]) {
+                length++;
+            }
+
+            DeliveryPathResponse.LngLat[] points = new DeliveryPathResponse.LngLat[length];
+            int position = length - 1;
+            for (int current = node; current != -1; current = parent[current]) {
+                points[position--] = new DeliveryPathResponse.LngLat(lng[current], lat[current]);
+            }
+
+            return new ArrayList<>(Arrays.asList(points));
+        }
+
+        private static int cell(double value) {
+            return (int) Math.floor(value / CELL_SIZE);
+        }
+
+        private static long key(int x, int y) {
+            return ((long) x << 32) | (y & 0xffffffffL);
+        }
+    }
+}
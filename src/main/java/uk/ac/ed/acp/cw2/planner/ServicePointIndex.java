@@ -0,0 +1,216 @@
+package uk.ac.ed.acp.cw2.planner;
+
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Static 2-d tree over service point locations, for the nearest, k-nearest and radius
+ * queries the strategies make per dispatch or per batch.
+ * <p>
+ * Distances are GeoMath.distance, and equal distances are broken by position in the list
+ * the index was built from, so every query answers exactly what a scan of that list
+ * (keeping the first closest point) would. Service points without a location are left out.
+ * Immutable once built, so one instance can be shared between threads.
+ */
+public final class ServicePointIndex {
+
+    // Slack on the splitting-plane test so rounding in GeoMath.distance never prunes a tie
+    private static final double SLACK = 1e-12;
+
+    private final List<ServicePoint> source;
+    private final double[] lng;
+    private final double[] lat;
+    // Tree nodes in implicit layout: the node of [lo, hi) is at (lo + hi) / 2, split on lng at even depth
+    private final int[] tree;
+
+    public ServicePointIndex(List<ServicePoint> servicePoints) {
+        source = servicePoints;
+        lng = new double[servicePoints.size()];
+        lat = new double[servicePoints.size()];
+
+        List<Integer> located = new ArrayList<>();
+        for (int i = 0; i < servicePoints.size(); i++) {
+            ServicePoint.Location location = servicePoints.get(i).getLocation();
+            if (location == null || location.getLng() == null || location.getLat() == null) {
+                continue;
+            }
+            lng[i] = location.getLng();
+            lat[i] = location.getLat();
+            located.add(i);
+        }
+
+        Integer[] nodes = located.toArray(new Integer[0]);
+        build(nodes, 0, nodes.length, 0);
+        tree = Arrays.stream(nodes).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Number of indexed (located) service points
+     */
+    public int size() {
+        return tree.length;
+    }
+
+    /**
+     * Closest service point to the location, or null if there is none
+     */
+    public ServicePoint nearest(double lng, double lat) {
+        return nearest(lng, lat, Double.POSITIVE_INFINITY, sp -> true);
+    }
+
+    /**
+     * Closest service point within maxDistance that accept allows, or null if there is none.
+     * accept is only asked about points that could still be the answer.
+     */
+    public ServicePoint nearest(double lng, double lat, double maxDistance, Predicate<ServicePoint> accept) {
+        Nearest best = new Nearest(maxDistance);
+        nearest(0, tree.length, 0, lng, lat, accept, best);
+        return best.point >= 0 ? source.get(best.point) : null;
+    }
+
+    /**
+     * The k closest service points, closest first
+     */
+    public List<ServicePoint> nearest(double lng, double lat, int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        // Farthest of the current k on top
+        PriorityQueue<double[]> heap = new PriorityQueue<>(
+                Comparator.<double[]>comparingDouble(e -> e[0]).thenComparingDouble(e -> e[1]).reversed());
+        kNearest(0, tree.length, 0, lng, lat, k, heap);
+
+        List<double[]> found = new ArrayList<>(heap);
+        found.sort(Comparator.<double[]>comparingDouble(e -> e[0]).thenComparingDouble(e -> e[1]));
+        List<ServicePoint> result = new ArrayList<>(found.size());
+        for (double[] entry : found) {
+            result.add(source.get((int) entry[1]));
+        }
+        return result;
+    }
+
+    /**
+     * Service points at most radius from the location, closest first
+     */
+    public List<ServicePoint> within(double lng, double lat, double radius) {
+        List<double[]> found = new ArrayList<>();
+        within(0, tree.length, 0, lng, lat, radius, found);
+
+        found.sort(Comparator.<double[]>comparingDouble(e -> e[0]).thenComparingDouble(e -> e[1]));
+        List<ServicePoint> result = new ArrayList<>(found.size());
+        for (double[] entry : found) {
+            result.add(source.get((int) entry[1]));
+        }
+        return result;
+    }
+
+    private void build(Integer[] nodes, int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        double[] axis = depth % 2 == 0 ? lng : lat;
+        Arrays.sort(nodes, lo, hi, Comparator.<Integer>comparingDouble(i -> axis[i]).thenComparingInt(i -> i));
+        int mid = (lo + hi) >>> 1;
+        build(nodes, lo, mid, depth + 1);
+        build(nodes, mid + 1, hi, depth + 1);
+    }
+
+    private void nearest(int lo, int hi, int depth, double qLng, double qLat,
+                         Predicate<ServicePoint> accept, Nearest best) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int p = tree[mid];
+
+        double distance = GeoMath.distance(lng[p], lat[p], qLng, qLat);
+        if (distance <= best.distance && (distance < best.distance || best.point < 0 || p < best.point)
+                && accept.test(source.get(p))) {
+            best.distance = distance;
+            best.point = p;
+        }
+
+        double diff = depth % 2 == 0 ? qLng - lng[p] : qLat - lat[p];
+        if (diff < 0) {
+            nearest(lo, mid, depth + 1, qLng, qLat, accept, best);
+            if (-diff <= best.distance + SLACK) {
+                nearest(mid + 1, hi, depth + 1, qLng, qLat, accept, best);
+            }
+        } else {
+            nearest(mid + 1, hi, depth + 1, qLng, qLat, accept, best);
+            if (diff <= best.distance + SLACK) {
+                nearest(lo, mid, depth + 1, qLng, qLat, accept, best);
+            }
+        }
+    }
+
+    private void kNearest(int lo, int hi, int depth, double qLng, double qLat, int k, PriorityQueue<double[]> heap) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int p = tree[mid];
+
+        double distance = GeoMath.distance(lng[p], lat[p], qLng, qLat);
+        if (heap.size() < k) {
+            heap.add(new double[]{distance, p});
+        } else {
+            double[] worst = heap.peek();
+            if (distance < worst[0] || (distance == worst[0] && p < worst[1])) {
+                heap.poll();
+                heap.add(new double[]{distance, p});
+            }
+        }
+
+        double diff = depth % 2 == 0 ? qLng - lng[p] : qLat - lat[p];
+        int nearLo = diff < 0 ? lo : mid + 1;
+        int nearHi = diff < 0 ? mid : hi;
+        int farLo = diff < 0 ? mid + 1 : lo;
+        int farHi = diff < 0 ? hi : mid;
+        kNearest(nearLo, nearHi, depth + 1, qLng, qLat, k, heap);
+        if (heap.size() < k || Math.abs(diff) <= heap.peek()[0] + SLACK) {
+            kNearest(farLo, farHi, depth + 1, qLng, qLat, k, heap);
+        }
+    }
+
+    private void within(int lo, int hi, int depth, double qLng, double qLat, double radius, List<double[]> found) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int p = tree[mid];
+
+        double distance = GeoMath.distance(lng[p], lat[p], qLng, qLat);
+        if (distance <= radius) {
+            found.add(new double[]{distance, p});
+        }
+
+        double diff = depth % 2 == 0 ? qLng - lng[p] : qLat - lat[p];
+        // Points left of the split are at least diff away, points right of it at least -diff
+        if (diff <= radius + SLACK) {
+            within(lo, mid, depth + 1, qLng, qLat, radius, found);
+        }
+        if (-diff <= radius + SLACK) {
+            within(mid + 1, hi, depth + 1, qLng, qLat, radius, found);
+        }
+    }
+
+    /**
+     * Best answer of a nearest query so far
+     */
+    private static class Nearest {
+        double distance;
+        int point = -1;
+
+        Nearest(double maxDistance) {
+            this.distance = maxDistance;
+        }
+    }
+}
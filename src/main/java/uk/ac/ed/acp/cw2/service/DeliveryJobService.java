@@ -0,0 +1,38 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.dto.DeliveryJobStatus;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs calcDeliveryPath as background jobs on a bounded worker pool
+ */
+public interface DeliveryJobService {
+
+    /**
+     * Queue a delivery path computation
+     * @param budgetMillis planning budget for the job, null for the configured default
+     * @return the status of the new job, or null if the queue is full and the job was not accepted
+     */
+    DeliveryJobStatus submit(List<MedDispatchRec> dispatches, Long budgetMillis);
+
+    /**
+     * @return the current status of the job, or null if the job is unknown or has expired
+     */
+    DeliveryJobStatus getStatus(String jobId);
+
+    /**
+     * Status of the job once it has finished or waitMillis has passed, whichever comes first.
+     * The returned future never blocks the calling thread.
+     * @return a future completing with the status, or with null if the job is unknown
+     */
+    CompletableFuture<DeliveryJobStatus> awaitStatus(String jobId, long waitMillis);
+
+    /**
+     * @return the plan of a job that has SUCCEEDED, null otherwise
+     */
+    DeliveryPathResponse getResult(String jobId);
+}
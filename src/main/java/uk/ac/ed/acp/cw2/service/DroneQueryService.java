@@ -3,9 +3,12 @@ package uk.ac.ed.acp.cw2.service;
 import org.springframework.stereotype.Service;
 import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
 import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.FlightPathVerification;
 import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
 import uk.ac.ed.acp.cw2.dto.QueryCondition;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -46,8 +49,39 @@ public interface DroneQueryService {
      */
     List<Integer> queryAvailableDrones(List<MedDispatchRec> dispatches);
 
+    /**
+     * Query available drones for dispatches streamed as NDJSON, each one folded into the request's
+     * dispatch table as soon as it has been read; the records themselves are not kept
+     * @throws IllegalArgumentException if the body is not valid JSON or a dispatch fails validation
+     */
+    List<Integer> queryAvailableDronesStreamed(InputStream dispatches) throws IOException;
+
     /**
      * Calculate the delivery path for a list of dispatches
      */
     DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches);
+
+    /**
+     * Calculate the delivery path within a wall-clock budget
+     * @param budgetMillis planning time budget in milliseconds, 0 or less for unlimited
+     * @return the best complete plan found before the budget ran out; its planStatus says
+     *         whether the search finished or was cut short
+     */
+    DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, long budgetMillis);
+
+    /**
+     * Calculate the delivery path for dispatches streamed as NDJSON. Each dispatch is validated and
+     * added to the request's dispatch table as it is read, so the availability precheck is done by
+     * the time the body ends; the records are still kept for routing.
+     * @param budgetMillis planning time budget in milliseconds, or null for the configured default
+     * @throws IllegalArgumentException if the body is not valid JSON or a dispatch fails validation
+     */
+    DeliveryPathResponse calcDeliveryPathStreamed(InputStream dispatches, Long budgetMillis) throws IOException;
+
+    /**
+     * Check every drone path of a delivery plan against the move rules, the current restricted
+     * areas (temporary ones included) and the drones' maxMoves
+     * @return all violations found, with the drone, delivery and point they occur at
+     */
+    FlightPathVerification verifyDeliveryPath(DeliveryPathResponse plan);
 }
\ No newline at end of file
@@ -18,6 +18,16 @@ public interface GeoService {
      */
     double calculateDistance(LngLat position1, LngLat position2);
 
+    /**
+     * Calculate the Euclidean distance between two positions given as primitives
+     * @param lng1 Longitude of the first position
+     * @param lat1 Latitude of the first position
+     * @param lng2 Longitude of the second position
+     * @param lat2 Latitude of the second position
+     * @return The Euclidean distance between the two positions
+     */
+    double calculateDistance(double lng1, double lat1, double lng2, double lat2);
+
     /**
      * Check if two positions are close to each other (distance < 0.00015)
      * @param position1 The first position
@@ -26,6 +36,12 @@ public interface GeoService {
      */
     boolean isCloseTo(LngLat position1, LngLat position2);
 
+    /**
+     * Check if two positions given as primitives are close to each other (distance < 0.00015)
+     * @return true if the positions are close to each other, false otherwise
+     */
+    boolean isCloseTo(double lng1, double lat1, double lng2, double lat2);
+
     /**
      * Calculate the next position based on the starting position and angle
      * @param start The starting position
@@ -34,6 +50,15 @@ public interface GeoService {
      */
     LngLat nextPosition(LngLat start, double angle);
 
+    /**
+     * Calculate the next position without allocating a result object
+     * @param lng The starting longitude
+     * @param lat The starting latitude
+     * @param angle The angle (0-359 degrees)
+     * @param out Array of length >= 2 receiving the new longitude (out[0]) and latitude (out[1])
+     */
+    void nextPosition(double lng, double lat, double angle, double[] out);
+
     /**
      * Check if a position is inside a polygon region (including the boundary)
      * @param position The position to check
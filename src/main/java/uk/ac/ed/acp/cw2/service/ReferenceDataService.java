@@ -0,0 +1,13 @@
+package uk.ac.ed.acp.cw2.service;
+
+/**
+ * Version of the ILP reference data (drones, availability, service points, restricted areas)
+ */
+public interface ReferenceDataService {
+
+    /**
+     * Content hash of the reference data as last fetched. Equal versions mean plans computed
+     * against one are valid for the other; the value changes whenever any dataset changes.
+     */
+    long snapshotVersion();
+}
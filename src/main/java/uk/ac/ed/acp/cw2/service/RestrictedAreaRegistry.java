@@ -0,0 +1,72 @@
+package uk.ac.ed.acp.cw2.service;
+
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.TemporaryRestrictedArea;
+
+import java.util.List;
+
+/**
+ * Temporary no-fly zones registered, updated and expired at runtime. The planner flies around
+ * them as well as around the ILP restricted areas.
+ */
+public interface RestrictedAreaRegistry {
+
+    /**
+     * Add a temporary area, or replace the one with the same id
+     * @return the area's previous registration, or null if it is new
+     */
+    TemporaryRestrictedArea register(TemporaryRestrictedArea area);
+
+    /**
+     * Remove a temporary area ahead of its expiry
+     * @return the removed registration, or null if there was none with that id
+     */
+    TemporaryRestrictedArea expire(Integer id);
+
+    /**
+     * Active temporary areas, by id; areas past their expiry are left out
+     */
+    List<TemporaryRestrictedArea> list();
+
+    /**
+     * Active temporary areas and the registry version they belong to, read together: the latest
+     * version whose listeners have all returned
+     */
+    Snapshot snapshot();
+
+    /**
+     * Call the listener on every change, with the snapshot that includes it. Changes reach the
+     * listeners one at a time and in order; snapshot() keeps returning the previous version until
+     * every listener has returned, so no plan is made against a half-applied change.
+     */
+    void addListener(Listener listener);
+
+    /**
+     * Receives each change; before is null for a new area, after is null for a removed or expired one
+     */
+    @FunctionalInterface
+    interface Listener {
+        void areaChanged(RestrictedArea before, RestrictedArea after, Snapshot snapshot);
+    }
+
+    /**
+     * The active temporary areas at one registry version; the version grows with every change
+     */
+    final class Snapshot {
+        private final long version;
+        private final List<RestrictedArea> areas;
+
+        public Snapshot(long version, List<RestrictedArea> areas) {
+            this.version = version;
+            this.areas = List.copyOf(areas);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<RestrictedArea> getAreas() {
+            return areas;
+        }
+    }
+}
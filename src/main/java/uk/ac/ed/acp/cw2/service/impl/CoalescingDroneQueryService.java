@@ -0,0 +1,476 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.FlightPathVerification;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.QueryCondition;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.planner.PlannerTrace;
+import uk.ac.ed.acp.cw2.planner.PlanningDeadline;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+import uk.ac.ed.acp.cw2.service.DroneQueryService;
+import uk.ac.ed.acp.cw2.service.ReferenceDataService;
+import uk.ac.ed.acp.cw2.service.RestrictedAreaRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Front layer for {@link DroneQueryServiceImpl} that avoids repeating planning work.
+ * <p>
+ * 1. Memo: complete delivery plans and queryAvailableDrones answers are kept in a {@link PlanCache},
+ *    keyed by the canonical dispatch list (see {@link DispatchKeys}) and the reference data version,
+ *    until they expire, are evicted for space or the reference data changes. Budget-truncated plans
+ *    are never cached, since a later request with more time may do better, and neither are the
+ *    empty plans of runs that failed with an error. Cache statistics are
+ *    published as planner.cache.* meters on the actuator metrics endpoint.
+ * 2. Single flight: concurrent calcDeliveryPath calls that miss the cache with the same dispatches,
+ *    planning budget and reference data version share one planning run; the first caller plans,
+ *    the others wait for its result.
+ * 3. Temporary restricted areas: when one is registered, updated or expires, cached plans that fly
+ *    through it (or near one that went away) are repaired leg by leg, keeping their drones and
+ *    delivery order, or dropped if they can no longer be flown. Other entries stay as they are.
+ *    This runs on the registry's background thread within one budget for the whole change. Every
+ *    entry is tagged with the temporary area version it holds for and is only a hit at that
+ *    version, so results stored while a change is being applied are not served after it.
+ * <p>
+ * All other queries pass straight through, as do calcDeliveryPath calls made with a verbose
+ * {@link PlannerTrace} requested.
+ * <p>
+ * Shared and cached results are handed to several callers and must be treated as read-only.
+ */
+@Service
+@Primary
+public class CoalescingDroneQueryService implements DroneQueryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingDroneQueryService.class);
+
+    @Autowired
+    private DroneQueryServiceImpl droneQueryService;
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired(required = false)
+    private RestrictedAreaRegistry restrictedAreaRegistry;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // Upper bound on the total weight of cached results (one unit per waypoint or drone id)
+    @Value("${planner.cache.max-weight:500000}")
+    private long cacheMaxWeight = 500000;
+
+    // Cached results are recomputed after this long even if the reference data is unchanged
+    @Value("${planner.cache.ttl-minutes:10}")
+    private long cacheTtlMinutes = 10;
+
+    // Wall-clock budget for repairing legs and cached plans after a temporary area changes, all of them together
+    @Value("${planner.restricted-areas.repair-budget-ms:2000}")
+    private long repairBudgetMs = 2000;
+
+    private volatile PlanCache planCache;
+
+    // Planning runs in progress, by request key
+    private final Map<String, CompletableFuture<DeliveryPathResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    @Override
+    public List<Integer> getDronesWithCooling(boolean coolingRequired) {
+        return droneQueryService.getDronesWithCooling(coolingRequired);
+    }
+
+    @Override
+    public Drone getDroneById(Integer id) {
+        return droneQueryService.getDroneById(id);
+    }
+
+    @Override
+    public List<Integer> queryAsPath(String attributeName, String attributeValue) {
+        return droneQueryService.queryAsPath(attributeName, attributeValue);
+    }
+
+    @Override
+    public List<Integer> queryByConditions(List<QueryCondition> conditions) {
+        return droneQueryService.queryByConditions(conditions);
+    }
+
+    @Override
+    public List<Integer> queryAvailableDrones(List<MedDispatchRec> dispatches) {
+        if (dispatches == null || dispatches.isEmpty()) {
+            return droneQueryService.queryAvailableDrones(dispatches);
+        }
+
+        long version = referenceDataService.snapshotVersion();
+        String key = DispatchKeys.key(dispatches, version, "queryAvailableDrones");
+        long areasVersion = temporaryAreasVersion();
+        Cached cached = lookup(key, version, areasVersion);
+        if (cached != null) {
+            return cached.value();
+        }
+
+        List<Integer> droneIds = List.copyOf(droneQueryService.queryAvailableDrones(dispatches));
+        if (temporaryAreasVersion() == areasVersion) {
+            cache().put(key, version, new Cached(dispatches, droneIds, areasVersion), droneIds.size() + 1);
+        }
+        return droneIds;
+    }
+
+    /**
+     * Not cached: the key is built from the dispatch records, which a streamed availability query
+     * never holds
+     */
+    @Override
+    public List<Integer> queryAvailableDronesStreamed(InputStream dispatches) throws IOException {
+        return droneQueryService.queryAvailableDronesStreamed(dispatches);
+    }
+
+    @Override
+    public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches) {
+        return planCached(dispatches, "budget=default",
+                () -> droneQueryService.calcDeliveryPath(dispatches));
+    }
+
+    @Override
+    public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, long budgetMillis) {
+        return planCached(dispatches, "budget=" + budgetMillis,
+                () -> droneQueryService.calcDeliveryPath(dispatches, budgetMillis));
+    }
+
+    @Override
+    public DeliveryPathResponse calcDeliveryPathStreamed(InputStream dispatches, Long budgetMillis) throws IOException {
+        // Read here, so that streamed requests share the cache and single flight with the others
+        DroneQueryServiceImpl.StreamedDispatches read = droneQueryService.readDispatches(dispatches);
+        return planCached(read.records, budgetMillis != null ? "budget=" + budgetMillis : "budget=default",
+                () -> droneQueryService.calcDeliveryPath(read, budgetMillis));
+    }
+
+    @Override
+    public FlightPathVerification verifyDeliveryPath(DeliveryPathResponse plan) {
+        return droneQueryService.verifyDeliveryPath(plan);
+    }
+
+    /**
+     * Number of calls that were answered by another caller's planning run
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        PlanCache cache = cache();
+        FunctionCounter.builder("planner.cache.requests", cache, PlanCache::getHits)
+                .tag("result", "hit")
+                .description("Plan cache lookups")
+                .register(meterRegistry);
+        FunctionCounter.builder("planner.cache.requests", cache, PlanCache::getMisses)
+                .tag("result", "miss")
+                .description("Plan cache lookups")
+                .register(meterRegistry);
+        FunctionCounter.builder("planner.cache.evictions", cache, PlanCache::getSizeEvictions)
+                .tag("cause", "size")
+                .description("Entries removed from the plan cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("planner.cache.evictions", cache, PlanCache::getExpirations)
+                .tag("cause", "expired")
+                .description("Entries removed from the plan cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("planner.cache.evictions", cache, PlanCache::getInvalidations)
+                .tag("cause", "reference-data-changed")
+                .description("Entries removed from the plan cache")
+                .register(meterRegistry);
+        Gauge.builder("planner.cache.weight", cache, PlanCache::getTotalWeight)
+                .description("Total weight of cached results")
+                .register(meterRegistry);
+        Gauge.builder("planner.cache.size", cache, PlanCache::size)
+                .description("Number of cached results")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void listenForAreaChanges() {
+        if (restrictedAreaRegistry != null) {
+            restrictedAreaRegistry.addListener(this::restrictedAreaChanged);
+        }
+    }
+
+    /**
+     * Bring the planner's leg cache up to date with the change, then repair the cached plans it
+     * touches and drop the available-drone answers for dispatches in the old or new area. Called on
+     * the registry's background thread before the new version is published; entries still current
+     * are tagged with it.
+     */
+    void restrictedAreaChanged(RestrictedArea before, RestrictedArea after, RestrictedAreaRegistry.Snapshot temporary) {
+        PlanningDeadline deadline = PlanningDeadline.after(repairBudgetMs);
+        droneQueryService.restrictedAreasChanged(before, after, temporary, deadline);
+
+        List<RestrictedArea> changedAreas = new ArrayList<>();
+        if (before != null) {
+            changedAreas.add(before);
+        }
+        if (after != null) {
+            changedAreas.add(after);
+        }
+        RestrictedAreaIndex changed = new RestrictedAreaIndex(changedAreas);
+        RestrictedAreaIndex added = new RestrictedAreaIndex(after != null ? List.of(after) : List.of());
+        RestrictedAreaIndex removed = new RestrictedAreaIndex(before != null ? List.of(before) : List.of());
+
+        PlanCache cache = cache();
+        long previousVersion = temporary.getVersion() - 1;
+        int repaired = 0;
+        int dropped = 0;
+        for (Map.Entry<String, PlanCache.Entry> entry : cache.snapshot().entrySet()) {
+            Cached cached = entry.getValue().getValue();
+            if (cached.areasVersion != previousVersion) {
+                // Stored against an older version while an earlier change was applied: never a hit again
+                continue;
+            }
+            if (!(cached.value instanceof DeliveryPathResponse plan)) {
+                if (cached.value == null || touchesDeliveries(cached.dispatches, changed)) {
+                    // No plan, or availability answer for dispatches in the changed area: both may now differ
+                    cache.invalidate(entry.getKey(), entry.getValue());
+                    dropped++;
+                } else {
+                    cached.areasVersion = temporary.getVersion();
+                }
+                continue;
+            }
+            if (!touchesPlan(plan, added, before)) {
+                cached.areasVersion = temporary.getVersion();
+                continue;
+            }
+            DeliveryPathResponse repairedPlan = deadline.isExpired()
+                    ? null : droneQueryService.repairPlan(cached.dispatches, plan, temporary, deadline);
+            if (repairedPlan != null) {
+                cache.replace(entry.getKey(), entry.getValue(),
+                        new Cached(cached.dispatches, repairedPlan, temporary.getVersion()), weigh(repairedPlan));
+                repaired++;
+            } else {
+                cache.invalidate(entry.getKey(), entry.getValue());
+                dropped++;
+            }
+        }
+        logger.info("Temporary restricted area {} changed: {} cached results repaired, {} dropped",
+                (after != null ? after : before).getId(), repaired, dropped);
+    }
+
+    /**
+     * True if any move of the plan is blocked by the added area, or comes within a move of the buffer
+     * around the removed one's bounding box (its detour around it may no longer be needed)
+     */
+    private static boolean touchesPlan(DeliveryPathResponse plan, RestrictedAreaIndex added, RestrictedArea removed) {
+        double[] box = removed != null ? bounds(removed) : null;
+        double margin = RestrictedAreaIndex.BUFFER + GeoMath.MOVE_DISTANCE;
+        for (DeliveryPathResponse.DronePath dronePath : plan.getDronePaths()) {
+            for (DeliveryPathResponse.Delivery delivery : dronePath.getDeliveries()) {
+                List<DeliveryPathResponse.LngLat> path = delivery.getFlightPath();
+                for (int i = 0; i < path.size(); i++) {
+                    DeliveryPathResponse.LngLat point = path.get(i);
+                    DeliveryPathResponse.LngLat previous = path.get(Math.max(0, i - 1));
+                    if (!added.isValidMove(previous.getLng(), previous.getLat(), point.getLng(), point.getLat())) {
+                        return true;
+                    }
+                    if (box != null
+                            && point.getLng() >= box[0] - margin && point.getLng() <= box[2] + margin
+                            && point.getLat() >= box[1] - margin && point.getLat() <= box[3] + margin) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * [minLng, minLat, maxLng, maxLat] of the area's vertices, or null if it has none
+     */
+    private static double[] bounds(RestrictedArea area) {
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        if (area.getVertices() != null) {
+            for (RestrictedArea.Vertex vertex : area.getVertices()) {
+                if (vertex.getLng() != null && vertex.getLat() != null) {
+                    box[0] = Math.min(box[0], vertex.getLng());
+                    box[1] = Math.min(box[1], vertex.getLat());
+                    box[2] = Math.max(box[2], vertex.getLng());
+                    box[3] = Math.max(box[3], vertex.getLat());
+                }
+            }
+        }
+        return box[0] <= box[2] ? box : null;
+    }
+
+    private static boolean touchesDeliveries(List<MedDispatchRec> dispatches, RestrictedAreaIndex areas) {
+        for (MedDispatchRec dispatch : dispatches) {
+            MedDispatchRec.Delivery delivery = dispatch.getDelivery();
+            if (delivery != null && delivery.getLng() != null && delivery.getLat() != null
+                    && areas.isPointInOrNearAny(delivery.getLng(), delivery.getLat())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version of the temporary restricted areas; 0 without a registry
+     */
+    private long temporaryAreasVersion() {
+        return restrictedAreaRegistry != null ? restrictedAreaRegistry.snapshot().getVersion() : 0;
+    }
+
+    /**
+     * The cached result for key if it holds for the given temporary area version, otherwise null
+     */
+    private Cached lookup(String key, long referenceVersion, long areasVersion) {
+        PlanCache.Entry entry = cache().get(key, referenceVersion);
+        if (entry == null) {
+            return null;
+        }
+        Cached cached = entry.getValue();
+        return cached.areasVersion == areasVersion ? cached : null;
+    }
+
+    /**
+     * The plan cache, created on first use so that the configured limits have been injected
+     */
+    public PlanCache cache() {
+        PlanCache cache = planCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = planCache;
+                if (cache == null) {
+                    cache = new PlanCache(cacheMaxWeight, TimeUnit.MINUTES.toMillis(cacheTtlMinutes));
+                    planCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Answer from the plan cache if possible, otherwise plan (coalesced) and cache complete plans
+     */
+    private DeliveryPathResponse planCached(
+            List<MedDispatchRec> dispatches,
+            String qualifier,
+            Supplier<DeliveryPathResponse> planner) {
+
+        // A verbose trace is asked for to watch the planner at work, so plan afresh
+        if (dispatches == null || dispatches.isEmpty() || PlannerTrace.isVerboseRequested()) {
+            return planner.get();
+        }
+
+        long version = referenceDataService.snapshotVersion();
+        // A complete plan does not depend on the budget it was found within
+        String cacheKey = DispatchKeys.key(dispatches, version, "calcDeliveryPath");
+        long areasVersion = temporaryAreasVersion();
+        Cached cached = lookup(cacheKey, version, areasVersion);
+        if (cached != null) {
+            logger.debug("Plan cache hit for {} dispatches", dispatches.size());
+            return cached.value();
+        }
+
+        DeliveryPathResponse response = coalesce(DispatchKeys.key(dispatches, version, qualifier), planner);
+        // Only complete plans and proven infeasibility (null) are kept, not a truncated or failed run.
+        // A plan made while a temporary area changed may have missed the change and its repair
+        if ((response == null || (response.getPlanStatus() != DeliveryPathResponse.PlanStatus.BUDGET_TRUNCATED
+                && response.getPlanStatus() != DeliveryPathResponse.PlanStatus.FAILED))
+                && temporaryAreasVersion() == areasVersion) {
+            cache().put(cacheKey, version, new Cached(dispatches, response, areasVersion), weigh(response));
+        }
+        return response;
+    }
+
+    /**
+     * Cache weight of a plan: one unit per waypoint, plus one for the entry itself
+     */
+    private static long weigh(DeliveryPathResponse response) {
+        long weight = 1;
+        if (response != null && response.getDronePaths() != null) {
+            for (DeliveryPathResponse.DronePath dronePath : response.getDronePaths()) {
+                for (DeliveryPathResponse.Delivery delivery : dronePath.getDeliveries()) {
+                    weight += delivery.getFlightPath().size();
+                }
+            }
+        }
+        return weight;
+    }
+
+    private DeliveryPathResponse coalesce(String key, Supplier<DeliveryPathResponse> planner) {
+        CompletableFuture<DeliveryPathResponse> mine = new CompletableFuture<>();
+        CompletableFuture<DeliveryPathResponse> running = inFlight.putIfAbsent(key, mine);
+
+        if (running != null) {
+            coalescedRequests.incrementAndGet();
+            logger.debug("Joining in-flight planning run {}", key);
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                // Surface the planner's own exception, as if this caller had planned itself
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            DeliveryPathResponse response = planner.get();
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Helper class keeping a cached result together with the dispatches it answers, so that it can
+     * be checked and repaired when a temporary restricted area changes, and the temporary area
+     * version it holds for
+     */
+    private static class Cached {
+        final List<MedDispatchRec> dispatches;
+        final Object value;
+        // Moved on by the change listener when a change leaves the result as it is
+        volatile long areasVersion;
+
+        Cached(List<MedDispatchRec> dispatches, Object value, long areasVersion) {
+            this.dispatches = List.copyOf(dispatches);
+            this.value = value;
+            this.areasVersion = areasVersion;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T value() {
+            return (T) value;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.DeliveryJobStatus;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.service.DeliveryJobService;
+import uk.ac.ed.acp.cw2.service.DroneQueryService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background delivery path jobs.
+ * <p>
+ * Jobs run on a fixed pool of worker threads fed by a bounded queue. When every worker is busy
+ * and the queue is full, new jobs are rejected straight away (admission control) instead of
+ * piling up, so a burst of large requests cannot exhaust memory or the servlet threads.
+ * Finished jobs are kept for a while so their result can be fetched, then dropped.
+ */
+@Service
+public class DeliveryJobServiceImpl implements DeliveryJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryJobServiceImpl.class);
+
+    @Autowired
+    private DroneQueryService droneQueryService;
+
+    // Number of jobs planned in parallel
+    @Value("${planner.jobs.workers:2}")
+    private int workers = 2;
+
+    // Jobs waiting for a worker; submissions beyond this are rejected
+    @Value("${planner.jobs.queue-capacity:32}")
+    private int queueCapacity = 32;
+
+    // How long a finished job (and its result) can still be fetched
+    @Value("${planner.jobs.retention-minutes:30}")
+    private long retentionMinutes = 30;
+
+    // Upper bound on retained jobs; the oldest finished jobs go first
+    @Value("${planner.jobs.max-retained:1000}")
+    private int maxRetainedJobs = 1000;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "delivery-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        logger.info("Delivery job pool started: {} workers, queue capacity {}", workers, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public DeliveryJobStatus submit(List<MedDispatchRec> dispatches, Long budgetMillis) {
+        purgeExpiredJobs();
+
+        Job job = new Job(UUID.randomUUID().toString(), dispatches, budgetMillis);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            logger.warn("Delivery job queue full ({} queued, {} running), rejecting job with {} dispatches",
+                    executor.getQueue().size(), executor.getActiveCount(), dispatches.size());
+            return null;
+        }
+
+        logger.info("Queued delivery job {} with {} dispatches", job.id, dispatches.size());
+        return job.snapshot();
+    }
+
+    @Override
+    public DeliveryJobStatus getStatus(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? job.snapshot() : null;
+    }
+
+    @Override
+    public CompletableFuture<DeliveryJobStatus> awaitStatus(String jobId, long waitMillis) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (waitMillis <= 0 || job.state.isFinished()) {
+            return CompletableFuture.completedFuture(job.snapshot());
+        }
+        // Timing out just means "report the current state"
+        return job.done.thenApply(ignored -> job.snapshot())
+                .orTimeout(waitMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> job.snapshot());
+    }
+
+    @Override
+    public DeliveryPathResponse getResult(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || job.state != DeliveryJobStatus.State.SUCCEEDED) {
+            return null;
+        }
+        return job.result;
+    }
+
+    private void run(Job job) {
+        job.startedAt = System.currentTimeMillis();
+        job.state = DeliveryJobStatus.State.RUNNING;
+        logger.info("Running delivery job {}", job.id);
+
+        DeliveryJobStatus.State outcome;
+        try {
+            DeliveryPathResponse response = job.budgetMillis != null
+                    ? droneQueryService.calcDeliveryPath(job.dispatches, job.budgetMillis)
+                    : droneQueryService.calcDeliveryPath(job.dispatches);
+
+            if (response != null && response.getPlanStatus() == DeliveryPathResponse.PlanStatus.FAILED) {
+                throw new IllegalStateException("Planner failed with an error");
+            }
+            if (response == null) {
+                // Same empty plan the synchronous endpoint answers with
+                response = new DeliveryPathResponse(0.0, 0, new ArrayList<>());
+                response.setPlanStatus(DeliveryPathResponse.PlanStatus.COMPLETE);
+            }
+            job.result = response;
+            outcome = DeliveryJobStatus.State.SUCCEEDED;
+        } catch (Exception e) {
+            logger.error("Delivery job {} failed", job.id, e);
+            job.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            outcome = DeliveryJobStatus.State.FAILED;
+        }
+
+        // finishedAt before state: a finished job always has its finish time set
+        job.dispatches = null;
+        job.finishedAt = System.currentTimeMillis();
+        job.state = outcome;
+        job.done.complete(null);
+
+        logger.info("Delivery job {} {} in {} ms", job.id, job.state, job.finishedAt - job.startedAt);
+    }
+
+    /**
+     * Drop finished jobs past their retention time, then the oldest finished jobs while over the cap
+     */
+    private void purgeExpiredJobs() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        jobs.values().removeIf(job -> job.state.isFinished() && job.finishedAt < cutoff);
+
+        if (jobs.size() >= maxRetainedJobs) {
+            jobs.values().stream()
+                    .filter(job -> job.state.isFinished())
+                    .sorted(Comparator.comparingLong(job -> job.finishedAt))
+                    .limit(jobs.size() - maxRetainedJobs + 1)
+                    .forEach(job -> jobs.remove(job.id));
+        }
+    }
+
+    /**
+     * Mutable state of one job, written by its worker and read by the request threads
+     */
+    private static class Job {
+        final String id;
+        final int dispatchCount;
+        final Long budgetMillis;
+        final long submittedAt = System.currentTimeMillis();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        volatile List<MedDispatchRec> dispatches; // released once the job has run
+        volatile DeliveryJobStatus.State state = DeliveryJobStatus.State.QUEUED;
+        volatile Long startedAt;
+        volatile Long finishedAt;
+        volatile DeliveryPathResponse result;
+        volatile String error;
+
+        Job(String id, List<MedDispatchRec> dispatches, Long budgetMillis) {
+            this.id = id;
+            this.dispatches = dispatches;
+            this.dispatchCount = dispatches.size();
+            this.budgetMillis = budgetMillis;
+        }
+
+        DeliveryJobStatus snapshot() {
+            DeliveryPathResponse plan = result;
+            String planStatus = plan != null && plan.getPlanStatus() != null
+                    ? plan.getPlanStatus().headerValue()
+                    : null;
+            return new DeliveryJobStatus(id, state, dispatchCount, planStatus, error,
+                    submittedAt, startedAt, finishedAt);
+        }
+    }
+}
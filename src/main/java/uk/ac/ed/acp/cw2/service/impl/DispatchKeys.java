@@ -0,0 +1,95 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Canonical keys for dispatch lists, so that requests which differ only in dispatch order or
+ * number formatting (2.5 vs 2.50, -0.0 vs 0.0) map to the same planning work
+ */
+public final class DispatchKeys {
+
+    private DispatchKeys() {
+    }
+
+    /**
+     * SHA-256 of the canonical dispatch list, the reference data version and any extra qualifier
+     * (e.g. the planning budget)
+     */
+    public static String key(List<MedDispatchRec> dispatches, long referenceVersion, String qualifier) {
+        String canonical = canonicalForm(dispatches) + "|v=" + referenceVersion + "|" + qualifier;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * One line per dispatch, sorted by id (then by content for duplicate ids), with normalised numbers
+     */
+    public static String canonicalForm(List<MedDispatchRec> dispatches) {
+        return dispatches.stream()
+                .map(DispatchKeys::canonicalForm)
+                .sorted((a, b) -> {
+                    int byId = Long.compare(idOf(a), idOf(b));
+                    return byId != 0 ? byId : a.compareTo(b);
+                })
+                .reduce(new StringBuilder(), (sb, line) -> sb.append(line).append('\n'), StringBuilder::append)
+                .toString();
+    }
+
+    private static String canonicalForm(MedDispatchRec dispatch) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(dispatch.getId()).append(';')
+                .append(dispatch.getDate()).append(';')
+                .append(dispatch.getTime()).append(';');
+
+        MedDispatchRec.Requirements requirements = dispatch.getRequirements();
+        if (requirements != null) {
+            sb.append(number(requirements.getCapacity())).append(';')
+                    .append(requirements.getCooling()).append(';')
+                    .append(requirements.getHeating()).append(';')
+                    .append(number(requirements.getMaxCost())).append(';');
+        } else {
+            sb.append("-;");
+        }
+
+        MedDispatchRec.Delivery delivery = dispatch.getDelivery();
+        if (delivery != null) {
+            sb.append(number(delivery.getLng())).append(';').append(number(delivery.getLat()));
+        } else {
+            sb.append('-');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Dispatch id from the start of a canonical line; lines without an id sort last
+     */
+    private static long idOf(String line) {
+        String id = line.substring(0, line.indexOf(';'));
+        return "null".equals(id) ? Long.MAX_VALUE : Long.parseLong(id);
+    }
+
+    private static String number(Double value) {
+        if (value == null) {
+            return "-";
+        }
+        if (value == 0.0) {
+            return "0"; // also folds -0.0
+        }
+        if (value.isNaN() || value.isInfinite()) {
+            return value.toString();
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
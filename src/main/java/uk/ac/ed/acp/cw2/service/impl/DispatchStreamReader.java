@@ -0,0 +1,213 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
+
+/**
+ * Reads dispatches from a request body one at a time with Jackson's streaming parser, instead of
+ * binding the whole body into a list and validating it afterwards.
+ * <p>
+ * The body is NDJSON (one dispatch object per line) or, for clients that already send it, a plain
+ * JSON array of dispatches. Each dispatch is checked against the same rules as the @NotNull fields
+ * of {@link MedDispatchRec} as soon as it has been parsed and handed to the sink, so a caller can
+ * fold it into columns (see {@link DispatchTable.Builder}) while the rest is still arriving.
+ * Unknown fields are skipped, as the default object mapper does.
+ */
+public final class DispatchStreamReader {
+
+    // Thread-safe and expensive to create, so shared
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private DispatchStreamReader() {
+    }
+
+    /**
+     * Pass every dispatch in the stream to sink, in order
+     * @return the number of dispatches read
+     * @throws IllegalArgumentException if the body is not valid JSON or a dispatch fails validation;
+     *         the dispatches before it have been passed on already
+     */
+    public static int read(InputStream body, Consumer<MedDispatchRec> sink) throws IOException {
+        int count = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                MedDispatchRec dispatch;
+                try {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new IllegalArgumentException("expected an object but found " + token);
+                    }
+                    dispatch = readDispatch(parser);
+                    validate(dispatch);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Dispatch " + count + ": " + e.getMessage(), e);
+                }
+                sink.accept(dispatch);
+                count++;
+                token = parser.nextToken();
+            }
+            if (array && token == null) {
+                throw new IllegalArgumentException("Dispatch array is not closed");
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Dispatch " + count + ": " + e.getOriginalMessage(), e);
+        }
+        return count;
+    }
+
+    private static MedDispatchRec readDispatch(JsonParser parser) throws IOException {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> dispatch.setId(readInteger(parser));
+                case "date" -> dispatch.setDate(value == JsonToken.VALUE_NULL ? null : parseDate(parser.getText()));
+                case "time" -> dispatch.setTime(value == JsonToken.VALUE_NULL ? null : parseTime(parser.getText()));
+                case "requirements" -> dispatch.setRequirements(value == JsonToken.VALUE_NULL ? null : readRequirements(parser));
+                case "delivery" -> dispatch.setDelivery(value == JsonToken.VALUE_NULL ? null : readDelivery(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return dispatch;
+    }
+
+    private static MedDispatchRec.Requirements readRequirements(JsonParser parser) throws IOException {
+        MedDispatchRec.Requirements requirements = new MedDispatchRec.Requirements();
+        expectObject(parser, "requirements");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "capacity" -> requirements.setCapacity(readDouble(parser));
+                case "cooling" -> requirements.setCooling(readBoolean(parser));
+                case "heating" -> requirements.setHeating(readBoolean(parser));
+                case "maxCost" -> requirements.setMaxCost(readDouble(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return requirements;
+    }
+
+    private static MedDispatchRec.Delivery readDelivery(JsonParser parser) throws IOException {
+        MedDispatchRec.Delivery delivery = new MedDispatchRec.Delivery();
+        expectObject(parser, "delivery");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "lng" -> delivery.setLng(readDouble(parser));
+                case "lat" -> delivery.setLat(readDouble(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return delivery;
+    }
+
+    private static void expectObject(JsonParser parser, String field) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException(field + " must be an object");
+        }
+    }
+
+    private static Integer readInteger(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.valueOf(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + parser.getText() + "' is not a whole number");
+            }
+        }
+        throw new IllegalArgumentException(parser.currentName() + " must be a whole number");
+    }
+
+    /**
+     * Number, numeric string or null, as Jackson's coercion for a Double field accepts
+     */
+    private static Double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Double.valueOf(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + parser.getText() + "' is not a number");
+            }
+        }
+        throw new IllegalArgumentException(parser.currentName() + " must be a number");
+    }
+
+    private static Boolean readBoolean(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+            return token == JsonToken.VALUE_TRUE;
+        }
+        throw new IllegalArgumentException(parser.currentName() + " must be true or false");
+    }
+
+    private static LocalDate parseDate(String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("'" + text + "' is not a date");
+        }
+    }
+
+    private static LocalTime parseTime(String text) {
+        try {
+            return LocalTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("'" + text + "' is not a time");
+        }
+    }
+
+    /**
+     * The @NotNull constraints of MedDispatchRec (its nested requirements and delivery have none)
+     */
+    private static void validate(MedDispatchRec dispatch) {
+        String problem = null;
+        if (dispatch.getId() == null) {
+            problem = "Dispatch ID cannot be null";
+        } else if (dispatch.getDate() == null) {
+            problem = "Date cannot be null";
+        } else if (dispatch.getTime() == null) {
+            problem = "Time cannot be null";
+        } else if (dispatch.getRequirements() == null) {
+            problem = "Requirements cannot be null";
+        } else if (dispatch.getDelivery() == null) {
+            problem = "Delivery location cannot be null";
+        }
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+    }
+}
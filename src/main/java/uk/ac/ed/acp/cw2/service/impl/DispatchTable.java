@@ -0,0 +1,494 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything queryAvailableDrones needs to know about a dispatch list that does not depend on the drone,
+ * worked out once per request into primitive arrays.
+ * <p>
+ * Holds the requirements of each dispatch, the straight-line distance from each delivery to each
+ * service point and the service points each drone is based at, so the per-drone checks only index
+ * into arrays. Round trip estimates depend only on the service point the trip starts from and are
+ * memoised per service point.
+ * <p>
+ * Dispatches that no drone could ever fulfil (delivery inside a restricted area, no delivery
+ * coordinates) are found while building the table; the whole request is then rejected before any
+ * drone is looked at.
+ * <p>
+ * The table keeps columns only, not the dispatch records, and is filled one dispatch at a time by a
+ * {@link Builder}, so a request streamed in (see {@link DispatchStreamReader}) is worked out as it is
+ * read. Streamed availability queries never hold a list of records; streamed path calculations keep
+ * one beside the table for routing.
+ * <p>
+ * Built and read by one request thread; not safe for concurrent use.
+ */
+public final class DispatchTable {
+
+    // Distance covered by one move
+    static final double MOVE_DISTANCE = 0.00015;
+
+    private static final int[] NO_SERVICE_POINTS = new int[0];
+
+    // Column values of a missing id, date or time
+    private static final int NO_ID = Integer.MIN_VALUE;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final long NO_TIME = -1L;
+
+    private final int size;
+
+    // Per dispatch fields; a missing capacity or maxCost is stored as NaN
+    private final int[] id;
+    // Epoch day and nano of day
+    private final long[] date;
+    private final long[] time;
+    private final double[] capacity;
+    private final double[] maxCost;
+    private final boolean[] cooling;
+    private final boolean[] heating;
+    private final double[] lng;
+    private final double[] lat;
+    private final boolean anyCooling;
+    private final boolean anyHeating;
+    private final double maxCapacity;
+    private final boolean allSameDate;
+
+    // Dispatch indices grouped by date, each group in request order: group g is order[groupStart[g]..groupStart[g+1])
+    private final int[] order;
+    private final int[] groupStart;
+
+    private final int servicePointCount;
+    private final double[] spLng;
+    private final double[] spLat;
+    // Delivery to service point distances, row per dispatch
+    private final double[] distance;
+    // Service point indices (ascending) by drone id, as listed in the availability data
+    private final Map<String, int[]> servicePointsByDrone;
+
+    // Memoised per service point estimates, NaN until computed
+    private final double[] tripMoves;
+    private final double[] sameDayRouteMoves;
+
+    private final int rejectedDispatch;
+    private final String rejectionReason;
+
+    private DispatchTable(Builder builder) {
+        size = builder.size;
+        id = Arrays.copyOf(builder.id, size);
+        date = Arrays.copyOf(builder.date, size);
+        time = Arrays.copyOf(builder.time, size);
+        capacity = Arrays.copyOf(builder.capacity, size);
+        maxCost = Arrays.copyOf(builder.maxCost, size);
+        cooling = Arrays.copyOf(builder.cooling, size);
+        heating = Arrays.copyOf(builder.heating, size);
+        lng = Arrays.copyOf(builder.lng, size);
+        lat = Arrays.copyOf(builder.lat, size);
+        anyCooling = builder.anyCooling;
+        anyHeating = builder.anyHeating;
+        maxCapacity = builder.maxCapacity;
+        rejectedDispatch = builder.rejectedDispatch;
+        rejectionReason = builder.rejectionReason;
+
+        // Group by date in order of first appearance, keeping request order within a date
+        Map<Long, Integer> groupOfDate = new LinkedHashMap<>();
+        int[] group = new int[size];
+        for (int i = 0; i < size; i++) {
+            group[i] = groupOfDate.computeIfAbsent(date[i], day -> groupOfDate.size());
+        }
+        allSameDate = groupOfDate.size() <= 1;
+        groupStart = new int[groupOfDate.size() + 1];
+        for (int i = 0; i < size; i++) {
+            groupStart[group[i] + 1]++;
+        }
+        for (int g = 0; g < groupOfDate.size(); g++) {
+            groupStart[g + 1] += groupStart[g];
+        }
+        order = new int[size];
+        int[] next = Arrays.copyOf(groupStart, groupOfDate.size());
+        for (int i = 0; i < size; i++) {
+            order[next[group[i]]++] = i;
+        }
+
+        servicePointCount = builder.servicePointCount;
+        spLng = builder.spLng;
+        spLat = builder.spLat;
+        distance = Arrays.copyOf(builder.distance, size * servicePointCount);
+        servicePointsByDrone = indexServicePoints(builder.droneAvailability, builder.spIndexById, servicePointCount);
+
+        tripMoves = new double[servicePointCount];
+        sameDayRouteMoves = new double[servicePointCount];
+        Arrays.fill(tripMoves, Double.NaN);
+        Arrays.fill(sameDayRouteMoves, Double.NaN);
+    }
+
+    /**
+     * Build the table for one queryAvailableDrones request
+     */
+    public static DispatchTable build(List<MedDispatchRec> dispatches,
+                                      List<ServicePoint> servicePoints,
+                                      List<DroneServicePointAvailability> droneAvailability,
+                                      RestrictedAreaIndex restrictedAreas) {
+        Builder builder = builder(servicePoints, droneAvailability, restrictedAreas);
+        for (MedDispatchRec dispatch : dispatches) {
+            builder.add(dispatch);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Empty table for one request, to be filled with {@link Builder#add} as the dispatches arrive
+     */
+    public static Builder builder(List<ServicePoint> servicePoints,
+                                  List<DroneServicePointAvailability> droneAvailability,
+                                  RestrictedAreaIndex restrictedAreas) {
+        return new Builder(servicePoints, droneAvailability, restrictedAreas);
+    }
+
+    private static Map<String, int[]> indexServicePoints(List<DroneServicePointAvailability> droneAvailability,
+                                                         Map<Integer, Integer> spIndexById,
+                                                         int servicePointCount) {
+        Map<String, boolean[]> hosted = new HashMap<>();
+        for (DroneServicePointAvailability dsp : droneAvailability) {
+            Integer s = spIndexById.get(dsp.getServicePointId());
+            if (s == null || dsp.getDrones() == null) continue;
+            for (DroneServicePointAvailability.DroneAvailability da : dsp.getDrones()) {
+                hosted.computeIfAbsent(da.getId(), id -> new boolean[servicePointCount])[s] = true;
+            }
+        }
+
+        Map<String, int[]> byDrone = new HashMap<>();
+        hosted.forEach((droneId, flags) -> {
+            int count = 0;
+            int[] indices = new int[servicePointCount];
+            for (int s = 0; s < servicePointCount; s++) {
+                if (flags[s]) indices[count++] = s;
+            }
+            byDrone.put(droneId, Arrays.copyOf(indices, count));
+        });
+        return byDrone;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Id of a dispatch, or null if it has none
+     */
+    public Integer id(int i) {
+        return id[i] != NO_ID ? id[i] : null;
+    }
+
+    /**
+     * Date of a dispatch, or null if it has none
+     */
+    public LocalDate date(int i) {
+        return date[i] != NO_DATE ? LocalDate.ofEpochDay(date[i]) : null;
+    }
+
+    /**
+     * Time of a dispatch, or null if it has none
+     */
+    public LocalTime time(int i) {
+        return time[i] != NO_TIME ? LocalTime.ofNanoOfDay(time[i]) : null;
+    }
+
+    /**
+     * True if some dispatch can never be delivered, whatever the drone
+     */
+    public boolean isRejected() {
+        return rejectedDispatch >= 0;
+    }
+
+    /**
+     * Index of the first dispatch that can never be delivered, or -1
+     */
+    public int rejectedDispatch() {
+        return rejectedDispatch;
+    }
+
+    public String rejectionReason() {
+        return rejectionReason;
+    }
+
+    public double capacity(int i) {
+        return capacity[i];
+    }
+
+    public double maxCost(int i) {
+        return maxCost[i];
+    }
+
+    public boolean needsCooling(int i) {
+        return cooling[i];
+    }
+
+    public boolean needsHeating(int i) {
+        return heating[i];
+    }
+
+    public boolean anyNeedsCooling() {
+        return anyCooling;
+    }
+
+    public boolean anyNeedsHeating() {
+        return anyHeating;
+    }
+
+    /**
+     * Largest capacity any single dispatch requires, or NaN if none states a capacity
+     */
+    public double maxCapacity() {
+        return maxCapacity;
+    }
+
+    public boolean allSameDate() {
+        return allSameDate;
+    }
+
+    /**
+     * Straight-line distance from a delivery to a service point
+     */
+    public double distance(int dispatch, int servicePoint) {
+        return distance[dispatch * servicePointCount + servicePoint];
+    }
+
+    /**
+     * Indices of the service points a drone is based at, in service point order
+     */
+    public int[] servicePointsFor(Integer droneId) {
+        return servicePointsByDrone.getOrDefault(String.valueOf(droneId), NO_SERVICE_POINTS);
+    }
+
+    /**
+     * The candidate service point closest to a delivery (the first one on ties), or -1 if there is none
+     */
+    public int closestServicePoint(int dispatch, int[] candidates) {
+        int closest = -1;
+        double minDistance = Double.MAX_VALUE;
+        int row = dispatch * servicePointCount;
+        for (int s : candidates) {
+            if (distance[row + s] < minDistance) {
+                minDistance = distance[row + s];
+                closest = s;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Estimated moves to fly every dispatch from a service point, one round trip per date visiting
+     * that date's deliveries in request order
+     */
+    public double tripMoves(int servicePoint) {
+        double moves = tripMoves[servicePoint];
+        if (Double.isNaN(moves)) {
+            moves = 0;
+            for (int g = 0; g + 1 < groupStart.length; g++) {
+                int first = order[groupStart[g]];
+                int last = order[groupStart[g + 1] - 1];
+                double dailyDistance = distance(first, servicePoint);
+                for (int p = groupStart[g]; p < groupStart[g + 1] - 1; p++) {
+                    dailyDistance += GeoMath.distance(lng[order[p]], lat[order[p]], lng[order[p + 1]], lat[order[p + 1]]);
+                }
+                dailyDistance += distance(last, servicePoint);
+                moves += Math.ceil(dailyDistance / MOVE_DISTANCE);
+            }
+            tripMoves[servicePoint] = moves;
+        }
+        return moves;
+    }
+
+    /**
+     * Estimated moves for one flight from a service point through every delivery and back, in the
+     * order a simple route heuristic picks (both orders for two deliveries, nearest neighbour beyond)
+     */
+    public double sameDayRouteMoves(int servicePoint) {
+        double moves = sameDayRouteMoves[servicePoint];
+        if (Double.isNaN(moves)) {
+            moves = Math.ceil(routeDistance(servicePoint) / MOVE_DISTANCE);
+            sameDayRouteMoves[servicePoint] = moves;
+        }
+        return moves;
+    }
+
+    private double routeDistance(int servicePoint) {
+        if (size == 1) {
+            return distance(0, servicePoint) * 2;
+        }
+
+        if (size == 2) {
+            double dist1 = distance(0, servicePoint) + between(0, 1) + distance(1, servicePoint);
+            double dist2 = distance(1, servicePoint) + between(1, 0) + distance(0, servicePoint);
+            return Math.min(dist1, dist2);
+        }
+
+        boolean[] visited = new boolean[size];
+        double total = 0.0;
+        double currentLng = spLng[servicePoint];
+        double currentLat = spLat[servicePoint];
+        int current = -1;
+        for (int step = 0; step < size; step++) {
+            int nearest = -1;
+            double minDist = Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (visited[i]) continue;
+                double dist = GeoMath.distance(currentLng, currentLat, lng[i], lat[i]);
+                if (dist < minDist) {
+                    minDist = dist;
+                    nearest = i;
+                }
+            }
+            if (nearest < 0) {
+                break;
+            }
+            total += current < 0 ? distance(nearest, servicePoint) : between(current, nearest);
+            visited[nearest] = true;
+            current = nearest;
+            currentLng = lng[nearest];
+            currentLat = lat[nearest];
+        }
+        return current < 0 ? total : total + distance(current, servicePoint);
+    }
+
+    private double between(int a, int b) {
+        return GeoMath.distance(lng[a], lat[a], lng[b], lat[b]);
+    }
+
+    /**
+     * Columns of a table being filled one dispatch at a time. Each dispatch is checked against the
+     * restricted areas and its service point distances worked out as it is added.
+     */
+    public static final class Builder {
+        private final int servicePointCount;
+        private final double[] spLng;
+        private final double[] spLat;
+        private final Map<Integer, Integer> spIndexById = new HashMap<>();
+        private final List<DroneServicePointAvailability> droneAvailability;
+        private final RestrictedAreaIndex restrictedAreas;
+
+        private int size;
+        private int[] id = new int[16];
+        private long[] date = new long[16];
+        private long[] time = new long[16];
+        private double[] capacity = new double[16];
+        private double[] maxCost = new double[16];
+        private boolean[] cooling = new boolean[16];
+        private boolean[] heating = new boolean[16];
+        private double[] lng = new double[16];
+        private double[] lat = new double[16];
+        private double[] distance;
+
+        private boolean anyCooling;
+        private boolean anyHeating;
+        private double maxCapacity = Double.NaN;
+        private int rejectedDispatch = -1;
+        private String rejectionReason;
+
+        private Builder(List<ServicePoint> servicePoints,
+                        List<DroneServicePointAvailability> droneAvailability,
+                        RestrictedAreaIndex restrictedAreas) {
+            this.droneAvailability = droneAvailability;
+            this.restrictedAreas = restrictedAreas;
+            servicePointCount = servicePoints.size();
+            spLng = new double[servicePointCount];
+            spLat = new double[servicePointCount];
+            for (int s = 0; s < servicePointCount; s++) {
+                ServicePoint sp = servicePoints.get(s);
+                spLng[s] = sp.getLocation().getLng();
+                spLat[s] = sp.getLocation().getLat();
+                spIndexById.putIfAbsent(sp.getId(), s);
+            }
+            distance = new double[16 * servicePointCount];
+        }
+
+        /**
+         * Append a dispatch; the record itself is not kept
+         */
+        public Builder add(MedDispatchRec dispatch) {
+            if (size == id.length) {
+                grow();
+            }
+            int i = size++;
+            id[i] = dispatch.getId() != null ? dispatch.getId() : NO_ID;
+            date[i] = dispatch.getDate() != null ? dispatch.getDate().toEpochDay() : NO_DATE;
+            time[i] = dispatch.getTime() != null ? dispatch.getTime().toNanoOfDay() : NO_TIME;
+
+            MedDispatchRec.Requirements requirements = dispatch.getRequirements();
+            capacity[i] = requirements != null && requirements.getCapacity() != null
+                    ? requirements.getCapacity() : Double.NaN;
+            maxCost[i] = requirements != null && requirements.getMaxCost() != null
+                    ? requirements.getMaxCost() : Double.NaN;
+            cooling[i] = requirements != null && Boolean.TRUE.equals(requirements.getCooling());
+            heating[i] = requirements != null && Boolean.TRUE.equals(requirements.getHeating());
+            anyCooling |= cooling[i];
+            anyHeating |= heating[i];
+            if (!Double.isNaN(capacity[i]) && (Double.isNaN(maxCapacity) || capacity[i] > maxCapacity)) {
+                maxCapacity = capacity[i];
+            }
+
+            MedDispatchRec.Delivery delivery = dispatch.getDelivery();
+            if (delivery == null || delivery.getLng() == null || delivery.getLat() == null) {
+                lng[i] = Double.NaN;
+                lat[i] = Double.NaN;
+                if (rejectedDispatch < 0) {
+                    rejectedDispatch = i;
+                    rejectionReason = "no delivery location";
+                }
+            } else {
+                lng[i] = delivery.getLng();
+                lat[i] = delivery.getLat();
+                int area = restrictedAreas.areaContaining(lng[i], lat[i]);
+                if (area >= 0 && rejectedDispatch < 0) {
+                    rejectedDispatch = i;
+                    rejectionReason = "delivery inside restricted area " + restrictedAreas.name(area);
+                }
+            }
+
+            for (int s = 0; s < servicePointCount; s++) {
+                distance[i * servicePointCount + s] = GeoMath.distance(spLng[s], spLat[s], lng[i], lat[i]);
+            }
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * True if a dispatch added so far can never be delivered, whatever the drone
+         */
+        public boolean isRejected() {
+            return rejectedDispatch >= 0;
+        }
+
+        public DispatchTable build() {
+            return new DispatchTable(this);
+        }
+
+        private void grow() {
+            int capacityNow = id.length * 2;
+            id = Arrays.copyOf(id, capacityNow);
+            date = Arrays.copyOf(date, capacityNow);
+            time = Arrays.copyOf(time, capacityNow);
+            capacity = Arrays.copyOf(capacity, capacityNow);
+            maxCost = Arrays.copyOf(maxCost, capacityNow);
+            cooling = Arrays.copyOf(cooling, capacityNow);
+            heating = Arrays.copyOf(heating, capacityNow);
+            lng = Arrays.copyOf(lng, capacityNow);
+            lat = Arrays.copyOf(lat, capacityNow);
+            distance = Arrays.copyOf(distance, capacityNow * servicePointCount);
+        }
+    }
+}
@@ -1,20 +1,55 @@
 package uk.ac.ed.acp.cw2.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+import uk.ac.ed.acp.cw2.planner.DistanceField;
+import uk.ac.ed.acp.cw2.planner.FlightPathVerifier;
+import uk.ac.ed.acp.cw2.planner.HungarianAssignment;
+import uk.ac.ed.acp.cw2.planner.LatticePathfinder;
+import uk.ac.ed.acp.cw2.planner.LegCache;
+import uk.ac.ed.acp.cw2.planner.LpaStarPathfinder;
+import uk.ac.ed.acp.cw2.planner.PathSearchResult;
+import uk.ac.ed.acp.cw2.planner.PathSearchStrategy;
+import uk.ac.ed.acp.cw2.planner.PlannerTrace;
+import uk.ac.ed.acp.cw2.planner.PlanningDeadline;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+import uk.ac.ed.acp.cw2.planner.RouteMemo;
+import uk.ac.ed.acp.cw2.planner.RrtPathfinder;
+import uk.ac.ed.acp.cw2.planner.ServicePointIndex;
 import uk.ac.ed.acp.cw2.service.DroneQueryService;
+import uk.ac.ed.acp.cw2.service.RestrictedAreaRegistry;
 
 import javax.print.attribute.IntegerSyntax;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.sql.Time;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,42 +63,174 @@ public class DroneQueryServiceImpl implements DroneQueryService {
     @Autowired
     private String ilpEndpoint;
 
+    // Seed for the RRT fallback pathfinder so plans are reproducible
+    @Value("${planner.rrt.seed:" + RrtPathfinder.DEFAULT_SEED + "}")
+    private long rrtSeed = RrtPathfinder.DEFAULT_SEED;
+
+    // Lattice search used when the direct line to a target is blocked
+    @Value("${planner.search.strategy:A_STAR}")
+    private PathSearchStrategy searchStrategy = PathSearchStrategy.A_STAR;
+
+    // Pathfinder for searchStrategy, created on first use and reused (keeps the hierarchical cluster graph)
+    private volatile LatticePathfinder latticePathfinder;
+
+    // Compiled form of the most recently seen restricted area list (one list instance per request)
+    private volatile CompiledAreas compiledAreas;
+
+    // k-d tree over the last fetched service point list
+    private volatile CompiledServicePoints compiledServicePoints;
+
+    // Blocked returns to a service point descend its distance field, built out to this many moves (0 = off)
+    @Value("${planner.distance-field.radius-moves:200}")
+    private int distanceFieldRadiusMoves = 200;
+
+    // Restricted areas of the latest requests (ILP plus temporary), with their leg cache and distance fields
+    private volatile AreaSnapshot areaSnapshot;
+
+    // Temporary no-fly zones added to the ILP restricted areas (absent in plain unit tests)
+    @Autowired(required = false)
+    private RestrictedAreaRegistry restrictedAreaRegistry;
+
+    // Legs kept across requests for the current restricted areas (0 = no leg cache)
+    @Value("${planner.leg-cache.max-legs:5000}")
+    private int maxCachedLegs = 5000;
+
+    // Default wall-clock budget for one calcDeliveryPath request (0 = unlimited)
+    @Value("${planner.budget-ms:10000}")
+    private long planningBudgetMs = 10000;
+
+    // Threads planning independent dates and requirement partitions of one request (0 = one per core, 1 = sequential)
+    @Value("${planner.parallelism:0}")
+    private int parallelism = 0;
+
+    // Pool for those threads, created on first use
+    private volatile ForkJoinPool plannerPool;
+
+    // Improvement phase for multi-drone winners: wall-clock budget in ms (0 = off), parallel
+    // searches (0 = one per core) and iteration cap per search
+    @Value("${planner.lns.budget-ms:0}")
+    private long lnsBudgetMs = 0;
+
+    @Value("${planner.lns.threads:0}")
+    private int lnsThreads = 0;
+
+    @Value("${planner.lns.iterations:5000}")
+    private int lnsIterations = 5000;
+
+    // Threads for the parallel improvement searches, created on first use
+    private volatile ExecutorService lnsExecutor;
+
+    // Deadline of the calcDeliveryPath request running on this thread (or planning part of it)
+    private static final ThreadLocal<PlanningDeadline> currentDeadline = new ThreadLocal<>();
+
+    // Trace of the calcDeliveryPath request running on this thread (inner-loop events)
+    private static final ThreadLocal<PlannerTrace> currentTrace = new ThreadLocal<>();
+
+    // Routes already computed by the calcDeliveryPath request running on this thread
+    private static final ThreadLocal<RouteMemo> currentRoutes = new ThreadLocal<>();
+
+    // Strategy names used in logs and as metric tags
+    private static final String SINGLE_DRONE = "single-drone";
+    private static final String NEAREST_SERVICE_POINT = "nearest-service-point";
+    private static final String MULTI_DRONE = "multi-drone";
+    private static final String IMPROVEMENT = "lns";
+
+    // Weight of cost against moves in the cluster assignment: moves decide, cost breaks ties
+    private static final double ASSIGNMENT_COST_SCALE = 1e6;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private volatile PlannerMetrics plannerMetrics;
+
     /**
      * Fetch all drones from the ILP REST service
      */
     private List<Drone> fetchAllDrones() {
-        Drone[] drones = restTemplate.getForObject(ilpEndpoint + "/drones", Drone[].class);
-        return drones != null ? Arrays.asList(drones) : List.of();
+        return fetch("drones", Drone[].class);
     }
 
     /**
      * Fetch drone availability at service points
      */
     private List<DroneServicePointAvailability> fetchDroneAvailability() {
-        DroneServicePointAvailability[] availability = restTemplate.getForObject(
-                ilpEndpoint + "/drones-for-service-points",
-                DroneServicePointAvailability[].class);
-        return availability != null ? Arrays.asList(availability) : List.of();
+        return fetch("drones-for-service-points", DroneServicePointAvailability[].class);
     }
 
     /**
      * Fetch all service points
      */
     private List<ServicePoint> fetchAllServicePoints() {
-        ServicePoint[] servicePoints = restTemplate.getForObject(
-                ilpEndpoint + "/service-points",
-                ServicePoint[].class);
-        return servicePoints != null ? Arrays.asList(servicePoints) : List.of();
+        return fetch("service-points", ServicePoint[].class);
     }
 
     /**
-     * Fetch all restricted areas
+     * Fetch all restricted areas and add the active temporary ones. The combined list instance is
+     * reused while neither part changes, so the caches built for it carry over between requests.
      */
     private List<RestrictedArea> fetchRestrictedAreas() {
-        RestrictedArea[] restrictedAreas = restTemplate.getForObject(
-                ilpEndpoint + "/restricted-areas",
-                RestrictedArea[].class);
-        return restrictedAreas != null ? Arrays.asList(restrictedAreas) : List.of();
+        return fetchRestrictedAreas(restrictedAreaRegistry != null
+                ? restrictedAreaRegistry.snapshot() : new RestrictedAreaRegistry.Snapshot(0, List.of()));
+    }
+
+    /**
+     * The ILP restricted areas plus the given version of the temporary ones
+     */
+    private List<RestrictedArea> fetchRestrictedAreas(RestrictedAreaRegistry.Snapshot temporary) {
+        List<RestrictedArea> ilpAreas = fetch("restricted-areas", RestrictedArea[].class);
+
+        AreaSnapshot snapshot = areaSnapshot;
+        if (snapshot != null && snapshot.version == temporary.getVersion() && snapshot.ilpAreas.equals(ilpAreas)) {
+            return snapshot.areas;
+        }
+        snapshot = new AreaSnapshot(ilpAreas, temporary, new LegCache(maxCachedLegs), Map.of());
+        adopt(snapshot);
+        return snapshot.areas;
+    }
+
+    /**
+     * Make snapshot the current one unless a newer temporary area version is current already
+     * (a request that read the registry just before a change was applied)
+     */
+    private synchronized void adopt(AreaSnapshot snapshot) {
+        AreaSnapshot current = areaSnapshot;
+        if (current == null || snapshot.version >= current.version) {
+            areaSnapshot = snapshot;
+        }
+    }
+
+    /**
+     * Fetch the four ILP datasets a planning run works from
+     */
+    private IlpData fetchIlpData() {
+        return new IlpData(fetchAllDrones(), fetchDroneAvailability(), fetchAllServicePoints(), fetchRestrictedAreas());
+    }
+
+    /**
+     * GET one ILP resource, timed per resource and outcome
+     */
+    private <T> List<T> fetch(String resource, Class<T[]> type) {
+        Timer.Sample sample = metrics().start();
+        boolean success = false;
+        try {
+            T[] body = restTemplate.getForObject(ilpEndpoint + "/" + resource, type);
+            success = true;
+            return body != null ? Arrays.asList(body) : List.of();
+        } finally {
+            metrics().fetch(sample, resource, success);
+        }
+    }
+
+    /**
+     * Planner meters, created on first use so that the registry has been injected
+     */
+    private PlannerMetrics metrics() {
+        PlannerMetrics metrics = plannerMetrics;
+        if (metrics == null) {
+            metrics = new PlannerMetrics(meterRegistry);
+            plannerMetrics = metrics;
+        }
+        return metrics;
     }
 
 
@@ -127,7 +294,8 @@ public class DroneQueryServiceImpl implements DroneQueryService {
 
     @Override
     public List<Integer> queryAvailableDrones(List<MedDispatchRec> dispatches) {
-        logger.info("Querying available drones for dispatches: {}", dispatches);
+        logger.info("Querying available drones for {} dispatches", dispatches != null ? dispatches.size() : 0);
+        logger.debug("Dispatches: {}", dispatches);
 
         // validate input
         if (dispatches == null || dispatches.isEmpty()) {
@@ -141,13 +309,50 @@ public class DroneQueryServiceImpl implements DroneQueryService {
         List<ServicePoint> servicePoints = fetchAllServicePoints();
         List<RestrictedArea> restrictedAreas = fetchRestrictedAreas();
 
-        List<Integer> availableDroneIds = drones.stream()
-                .filter(drone -> fulfillAllDispatches(drone, dispatches, droneAvailability, restrictedAreas))
-                .map(Drone::getId)
-                .toList();
+        // Drone-independent checks and distances, once per request
+        DispatchTable table = DispatchTable.build(
+                dispatches, servicePoints, droneAvailability, restrictedAreaIndex(restrictedAreas));
+        return availableDrones(table, drones, droneAvailability);
+    }
+
+    @Override
+    public List<Integer> queryAvailableDronesStreamed(InputStream dispatches) throws IOException {
+        // Reference data first, so that each dispatch is checked and measured as soon as it is read
+        List<Drone> drones = fetchAllDrones();
+        List<DroneServicePointAvailability> droneAvailability = fetchDroneAvailability();
+        List<ServicePoint> servicePoints = fetchAllServicePoints();
+        List<RestrictedArea> restrictedAreas = fetchRestrictedAreas();
+
+        DispatchTable.Builder builder = DispatchTable.builder(
+                servicePoints, droneAvailability, restrictedAreaIndex(restrictedAreas));
+        int count = DispatchStreamReader.read(dispatches, builder::add);
+        logger.info("Querying available drones for {} streamed dispatches", count);
+        if (count == 0) {
+            logger.warn("No dispatches provided for availability query");
+            return List.of();
+        }
+        return availableDrones(builder.build(), drones, droneAvailability);
+    }
+
+    /**
+     * Drones that can fulfil every dispatch of the table
+     */
+    private List<Integer> availableDrones(DispatchTable table,
+                                          List<Drone> drones,
+                                          List<DroneServicePointAvailability> droneAvailability) {
+        if (table.isRejected()) {
+            logger.info("Dispatch {} cannot be delivered by any drone ({}) - no drones available",
+                    table.id(table.rejectedDispatch()), table.rejectionReason());
+            metrics().pruned("drones", drones.size());
+            return List.of();
+        }
+
+        // Whole-fleet capability / availability filter, then move and cost estimates for the survivors
+        List<Integer> availableDroneIds = FleetColumns.build(drones, droneAvailability).availableFor(table);
+        metrics().pruned("drones", drones.size() - availableDroneIds.size());
 
         logger.info("Found {} drones that can fulfill all {} dispatches",
-                availableDroneIds.size(), dispatches.size());
+                availableDroneIds.size(), table.size());
         logger.debug("Available drone IDs: {}", availableDroneIds);
 
         return availableDroneIds;
@@ -155,24 +360,440 @@ public class DroneQueryServiceImpl implements DroneQueryService {
 
     @Override
     public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches) {
-        logger.info("Calculating delivery path for dispatches: {}", dispatches);
+        return calcDeliveryPath(dispatches, planningBudgetMs);
+    }
+
+    @Override
+    public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, long budgetMillis) {
+        return calcDeliveryPath(dispatches, null, null, budgetMillis);
+    }
+
+    /**
+     * Plan with the ILP data and dispatch table already built for the records, or nulls to fetch the
+     * data and build the table for the precheck
+     */
+    private DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, IlpData data,
+                                                  DispatchTable table, long budgetMillis) {
+        PlanningDeadline deadline = PlanningDeadline.after(budgetMillis);
+        currentDeadline.set(deadline);
+        PlannerTrace trace = PlannerTrace.begin();
+        currentTrace.set(trace);
+        RouteMemo routes = new RouteMemo();
+        currentRoutes.set(routes);
+        Timer.Sample sample = metrics().start();
+        DeliveryPathResponse response = null;
+        try {
+            response = planDeliveryPath(dispatches, data, table);
+            boolean failed = response != null && response.getPlanStatus() == DeliveryPathResponse.PlanStatus.FAILED;
+            if (!deadline.wasHit() || failed) {
+                if (response != null && !failed) {
+                    response.setPlanStatus(DeliveryPathResponse.PlanStatus.COMPLETE);
+                }
+                return response;
+            }
+
+            logger.warn("Planning budget of {} ms used up, returning best plan found so far", budgetMillis);
+            if (response == null) {
+                // Not proven infeasible, just out of time: answer empty but say why
+                response = new DeliveryPathResponse(0.0, 0, new ArrayList<>());
+            }
+            response.setPlanStatus(DeliveryPathResponse.PlanStatus.BUDGET_TRUNCATED);
+            return response;
+        } finally {
+            currentDeadline.remove();
+            currentTrace.remove();
+            currentRoutes.remove();
+            metrics().routes(routes.getRouted(), routes.getReused());
+            metrics().plan(sample, response != null ? response.getPlanStatus() : null);
+            trace.finish(response != null && response.getPlanStatus() != null
+                    ? response.getPlanStatus().headerValue() : "no plan");
+        }
+    }
+
+    @Override
+    public DeliveryPathResponse calcDeliveryPathStreamed(InputStream dispatches, Long budgetMillis) throws IOException {
+        return calcDeliveryPath(readDispatches(dispatches), budgetMillis);
+    }
+
+    /**
+     * Read a streamed dispatch list for planning. Each dispatch is added to the request's dispatch
+     * table as it is read, so the availability precheck is worked out while the rest of the body
+     * arrives; the records are kept as well, since the routing strategies work on them, and so is
+     * the ILP data, which planning them uses rather than fetching it again.
+     */
+    StreamedDispatches readDispatches(InputStream body) throws IOException {
+        IlpData data = fetchIlpData();
+        DispatchTable.Builder builder = DispatchTable.builder(
+                data.servicePoints, data.droneAvailability, restrictedAreaIndex(data.restrictedAreas));
+        List<MedDispatchRec> records = new ArrayList<>();
+        DispatchStreamReader.read(body, dispatch -> {
+            builder.add(dispatch);
+            records.add(dispatch);
+        });
+        logger.info("Read {} streamed dispatches for path calculation", records.size());
+        return new StreamedDispatches(records, data, builder.build());
+    }
+
+    /**
+     * Plan dispatches read by {@link #readDispatches}, the precheck answered from their table
+     * @param budgetMillis planning time budget in milliseconds, or null for the configured default
+     */
+    DeliveryPathResponse calcDeliveryPath(StreamedDispatches dispatches, Long budgetMillis) {
+        return calcDeliveryPath(dispatches.records, dispatches.data, dispatches.table,
+                budgetMillis != null ? budgetMillis : planningBudgetMs);
+    }
+
+    @Override
+    public FlightPathVerification verifyDeliveryPath(DeliveryPathResponse plan) {
+        List<DeliveryPathResponse.DronePath> dronePaths = plan.getDronePaths() != null ? plan.getDronePaths() : List.of();
+        logger.info("Verifying delivery path with {} drone paths", dronePaths.size());
+
+        FlightPathVerifier verifier = new FlightPathVerifier(
+                restrictedAreaIndex(fetchRestrictedAreas()), servicePointIndex(fetchAllServicePoints()));
+        Map<Integer, Drone> drones = new HashMap<>();
+        for (Drone drone : fetchAllDrones()) {
+            drones.put(drone.getId(), drone);
+        }
+
+        // Drone paths are independent, so each is checked as one task on the planner pool
+        List<Supplier<FlightPathVerifier.DronePathReport>> checks = new ArrayList<>();
+        for (DeliveryPathResponse.DronePath dronePath : dronePaths) {
+            Drone drone = drones.get(dronePath.getDroneId());
+            Integer maxMoves = drone != null && drone.getCapability() != null ? drone.getCapability().getMaxMoves() : null;
+            checks.add(() -> verifier.verify(dronePath, maxMoves));
+        }
+        List<FlightPathVerifier.DronePathReport> reports = inParallel(checks);
+
+        List<FlightPathVerification.Violation> violations = new ArrayList<>();
+        int checkedMoves = 0;
+        for (int p = 0; p < dronePaths.size(); p++) {
+            Integer droneId = dronePaths.get(p).getDroneId();
+            if (!drones.containsKey(droneId)) {
+                violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.UNKNOWN_DRONE,
+                        droneId, null, null, null, "No drone with id " + droneId));
+            }
+            violations.addAll(reports.get(p).getViolations());
+            checkedMoves += reports.get(p).getMoves();
+        }
+        if (plan.getTotalMoves() != null && plan.getTotalMoves() != checkedMoves) {
+            violations.add(new FlightPathVerification.Violation(FlightPathVerification.ViolationType.TOTAL_MOVES,
+                    null, null, null, null,
+                    "totalMoves is " + plan.getTotalMoves() + " but the drone paths have " + checkedMoves + " moves"));
+        }
+
+        logger.info("Verified {} moves: {} violations", checkedMoves, violations.size());
+        return new FlightPathVerification(violations.isEmpty(), checkedMoves, violations);
+    }
+
+    /**
+     * Carry the leg cache and distance fields over to the restricted areas after a temporary area
+     * change. Legs the new area blocks are repaired with LPA*, starting from the search saved with
+     * the leg if it was repaired before; legs that may have detoured around a removed area are
+     * dropped and routed afresh when next needed. Everything else is kept as it is.
+     * @param deadline budget shared with the cached plan repairs of the same change
+     */
+    public void restrictedAreasChanged(RestrictedArea before, RestrictedArea after,
+                                       RestrictedAreaRegistry.Snapshot temporary, PlanningDeadline deadline) {
+        AreaSnapshot current = areaSnapshot;
+        double[] changed = bounds(before, after);
+        if (current == null || changed == null) {
+            // Nothing planned yet, or no geometry changed: the next request starts from the new areas
+            return;
+        }
+        RestrictedAreaIndex added = after != null ? new RestrictedAreaIndex(List.of(after)) : null;
+        double[] removed = before != null ? bounds(before, null) : null;
+
+        // Legs with a saved search are taken out too: a search the change does not reach goes stale, so it is let go
+        List<LegCache.Leg> affected = new ArrayList<>();
+        LegCache legs = current.legs.copyWithout(leg -> leg.getSearch() != null
+                || (added != null && leg.isBlockedBy(added))
+                || (removed != null && leg.overlaps(removed[0], removed[1], removed[2], removed[3])), affected);
+        Map<List<Double>, DistanceField> fields = new HashMap<>();
+        current.distanceFields.forEach((location, field) -> {
+            if (!field.overlaps(changed[0], changed[1], changed[2], changed[3])) {
+                fields.put(location, field);
+            }
+        });
+        AreaSnapshot next = new AreaSnapshot(current.ilpAreas, temporary, legs, fields);
+        RestrictedAreaIndex index = restrictedAreaIndex(next.areas);
+
+        int kept = legs.size();
+        int repaired = 0;
+        int dropped = 0;
+        for (LegCache.Leg leg : affected) {
+            boolean blocked = added != null && leg.isBlockedBy(added);
+            if (!blocked && (removed == null || !leg.overlaps(removed[0], removed[1], removed[2], removed[3]))) {
+                legs.put(new LegCache.Leg(leg.getFrom(), leg.getTo(), leg.getPath(), null));
+                kept++;
+                continue;
+            }
+            List<DeliveryPathResponse.LngLat> path = null;
+            LpaStarPathfinder search = leg.getSearch();
+            // A leg ending inside an area now cannot be flown; searching would only run to the cap
+            boolean reachable = index.areaContaining(leg.getTo().getLng(), leg.getTo().getLat()) < 0;
+            if (blocked && reachable && !deadline.isExpired()) {
+                if (search == null) {
+                    search = new LpaStarPathfinder(leg.getFrom(), leg.getTo(), index);
+                } else {
+                    search.areaChanged(index, changed[0], changed[1], changed[2], changed[3]);
+                }
+                path = search.computePath(deadline).getPath();
+            }
+            if (path != null) {
+                legs.put(new LegCache.Leg(leg.getFrom(), leg.getTo(), path, search));
+                repaired++;
+            } else {
+                dropped++;
+            }
+            metrics().legRepair(path != null);
+        }
+        adopt(next);
+        logger.info("Restricted areas changed: {} legs repaired, {} dropped, {} kept; {} of {} distance fields kept",
+                repaired, dropped, kept, fields.size(), current.distanceFields.size());
+    }
+
+    /**
+     * Fly a plan again against the current restricted areas, keeping each drone's service point,
+     * dispatches and delivery order. Legs still in the leg cache come back as they were, so only
+     * the legs a change touched are flown again, with the legs after them whose start moved.
+     * @param temporary the temporary areas to fly around, before the registry publishes them
+     * @param deadline budget shared with the other repairs of the same change
+     * @return the repaired plan, or null if it can no longer be flown within the drones' limits or the
+     *         budget ran out
+     */
+    public DeliveryPathResponse repairPlan(List<MedDispatchRec> dispatches, DeliveryPathResponse plan,
+                                           RestrictedAreaRegistry.Snapshot temporary, PlanningDeadline deadline) {
+        DeliveryPathResponse repaired = flyAgain(dispatches, plan, temporary, deadline);
+        metrics().planRepair(repaired != null);
+        return repaired;
+    }
+
+    private DeliveryPathResponse flyAgain(List<MedDispatchRec> dispatches, DeliveryPathResponse plan,
+                                          RestrictedAreaRegistry.Snapshot temporary, PlanningDeadline deadline) {
+        if (plan == null || plan.getDronePaths() == null || plan.getDronePaths().isEmpty()) {
+            return null;
+        }
+        Map<Integer, MedDispatchRec> dispatchById = new HashMap<>();
+        for (MedDispatchRec dispatch : dispatches) {
+            if (dispatchById.put(dispatch.getId(), dispatch) != null) {
+                // Deliveries name their dispatch by id only
+                return null;
+            }
+        }
+
+        List<Drone> drones = fetchAllDrones();
+        List<ServicePoint> servicePoints = fetchAllServicePoints();
+        List<RestrictedArea> restrictedAreas = fetchRestrictedAreas(temporary);
+        RestrictedAreaIndex index = restrictedAreaIndex(restrictedAreas);
+        for (MedDispatchRec dispatch : dispatches) {
+            // A delivery inside an area cannot be reached; searching for it would only use up the shared budget
+            if (index.areaContaining(dispatch.getDelivery().getLng(), dispatch.getDelivery().getLat()) >= 0) {
+                return null;
+            }
+        }
+        DeliveryPathResponse repaired = inRequest(deadline, null, null, () -> {
+            List<DeliveryPathResponse.DronePath> paths = new ArrayList<>();
+            double totalCost = 0.0;
+            int totalMoves = 0;
+            for (DeliveryPathResponse.DronePath dronePath : plan.getDronePaths()) {
+                DeliveryPathResponse route = repairDronePath(dronePath, dispatchById, drones, servicePoints, restrictedAreas);
+                if (route == null) {
+                    return null;
+                }
+                paths.addAll(route.getDronePaths());
+                totalCost += route.getTotalCost();
+                totalMoves += route.getTotalMoves();
+            }
+            return new DeliveryPathResponse(totalCost, totalMoves, paths);
+        });
+        if (repaired == null || deadline.wasHit()) {
+            return null;
+        }
+        repaired.setPlanStatus(DeliveryPathResponse.PlanStatus.COMPLETE);
+        return repaired;
+    }
+
+    /**
+     * One drone's part of a plan flown again: its flights are the runs of deliveries on one date
+     */
+    private DeliveryPathResponse repairDronePath(DeliveryPathResponse.DronePath dronePath,
+                                                 Map<Integer, MedDispatchRec> dispatchById,
+                                                 List<Drone> drones,
+                                                 List<ServicePoint> servicePoints,
+                                                 List<RestrictedArea> restrictedAreas) {
+        Drone drone = drones.stream()
+                .filter(d -> d.getId().equals(dronePath.getDroneId()))
+                .findFirst().orElse(null);
+        if (drone == null || dronePath.getDeliveries() == null || dronePath.getDeliveries().isEmpty()) {
+            return null;
+        }
+        // Every flight starts exactly at the service point
+        DeliveryPathResponse.LngLat start = dronePath.getDeliveries().get(0).getFlightPath().get(0);
+        ServicePoint servicePoint = servicePoints.stream()
+                .filter(sp -> sp.getLocation().getLng().equals(start.getLng()) && sp.getLocation().getLat().equals(start.getLat()))
+                .findFirst().orElse(null);
+        if (servicePoint == null) {
+            return null;
+        }
+
+        List<MedDispatchRec> stops = new ArrayList<>();
+        List<LocalDate> dates = new ArrayList<>();
+        List<List<MedDispatchRec>> stopsByDate = new ArrayList<>();
+        for (DeliveryPathResponse.Delivery delivery : dronePath.getDeliveries()) {
+            MedDispatchRec dispatch = dispatchById.get(delivery.getDeliveryId());
+            if (dispatch == null) {
+                return null;
+            }
+            stops.add(dispatch);
+            if (dates.isEmpty() || !dates.get(dates.size() - 1).equals(dispatch.getDate())) {
+                if (dates.contains(dispatch.getDate())) {
+                    return null;
+                }
+                dates.add(dispatch.getDate());
+                stopsByDate.add(new ArrayList<>());
+            }
+            stopsByDate.get(stopsByDate.size() - 1).add(dispatch);
+        }
+
+        List<Flight> flights = new ArrayList<>(dates.size());
+        for (List<MedDispatchRec> flightStops : stopsByDate) {
+            flights.add(flyInOrder(drone, servicePoint, flightStops, restrictedAreas));
+        }
+        return priceFlights(drone, stops, dates, flights);
+    }
+
+    /**
+     * [minLng, minLat, maxLng, maxLat] over the vertices of both areas (either may be null), or null if neither has any
+     */
+    private static double[] bounds(RestrictedArea first, RestrictedArea second) {
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (RestrictedArea area : Arrays.asList(first, second)) {
+            if (area == null || area.getVertices() == null) {
+                continue;
+            }
+            for (RestrictedArea.Vertex vertex : area.getVertices()) {
+                if (vertex.getLng() != null && vertex.getLat() != null) {
+                    box[0] = Math.min(box[0], vertex.getLng());
+                    box[1] = Math.min(box[1], vertex.getLat());
+                    box[2] = Math.max(box[2], vertex.getLng());
+                    box[3] = Math.max(box[3], vertex.getLat());
+                }
+            }
+        }
+        return box[0] <= box[2] ? box : null;
+    }
+
+    /**
+     * Deadline of the current request, or no deadline when called outside calcDeliveryPath
+     */
+    private PlanningDeadline deadline() {
+        PlanningDeadline deadline = currentDeadline.get();
+        return deadline != null ? deadline : PlanningDeadline.NONE;
+    }
+
+    /**
+     * Trace of the current request, or the no-op trace when called outside calcDeliveryPath
+     */
+    private PlannerTrace trace() {
+        PlannerTrace trace = currentTrace.get();
+        return trace != null ? trace : PlannerTrace.OFF;
+    }
+
+    /**
+     * Route memo of the current request, or a throwaway one when called outside calcDeliveryPath
+     */
+    private RouteMemo routes() {
+        RouteMemo routes = currentRoutes.get();
+        return routes != null ? routes : new RouteMemo();
+    }
+
+    /**
+     * Run independent parts of the current request on the planner pool and return their results in
+     * task order, so merging them does not depend on which finishes first. The parts share the
+     * request's deadline, trace and route memo.
+     */
+    private <T> List<T> inParallel(List<Supplier<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (tasks.size() <= 1 || parallelism == 1) {
+            tasks.forEach(task -> results.add(task.get()));
+            return results;
+        }
+
+        PlanningDeadline deadline = currentDeadline.get();
+        PlannerTrace trace = currentTrace.get();
+        RouteMemo routes = currentRoutes.get();
+        List<ForkJoinTask<T>> forked = new ArrayList<>(tasks.size());
+        for (Supplier<T> task : tasks) {
+            forked.add(plannerPool().submit(ForkJoinTask.adapt(() -> inRequest(deadline, trace, routes, task))));
+        }
+        forked.forEach(task -> results.add(task.join()));
+        return results;
+    }
+
+    /**
+     * Run task with the given request's thread-locals; a pool thread may be helping with another
+     * request's part when it picks this one up, so the previous values are put back afterwards
+     */
+    private static <T> T inRequest(PlanningDeadline deadline, PlannerTrace trace, RouteMemo routes, Supplier<T> task) {
+        PlanningDeadline previousDeadline = currentDeadline.get();
+        PlannerTrace previousTrace = currentTrace.get();
+        RouteMemo previousRoutes = currentRoutes.get();
+        currentDeadline.set(deadline);
+        currentTrace.set(trace);
+        currentRoutes.set(routes);
+        try {
+            return task.get();
+        } finally {
+            currentDeadline.set(previousDeadline);
+            currentTrace.set(previousTrace);
+            currentRoutes.set(previousRoutes);
+        }
+    }
+
+    private ForkJoinPool plannerPool() {
+        ForkJoinPool pool = plannerPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = plannerPool;
+                if (pool == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                            forkJoinPool -> {
+                                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                                thread.setName("planner-" + threadNumber.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }, null, false);
+                    plannerPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private DeliveryPathResponse planDeliveryPath(List<MedDispatchRec> dispatches, IlpData data, DispatchTable table) {
+        logger.info("Calculating delivery path for {} dispatches", dispatches != null ? dispatches.size() : 0);
+        logger.debug("Dispatches: {}", dispatches);
 
         // Validate input
         if (dispatches == null || dispatches.isEmpty()) {
             logger.warn("No dispatches provided for path calculation");
             return createEmptyResponse();
         }
-        // fetch all necessary data
-        List<Drone> allDrones = fetchAllDrones();
-        List<DroneServicePointAvailability> droneAvailability = fetchDroneAvailability();
-        List<ServicePoint> servicePoints = fetchAllServicePoints();
-        List<RestrictedArea> restrictedAreas = fetchRestrictedAreas();
+        // fetch all necessary data, unless it came with the dispatches
+        IlpData ilp = data != null ? data : fetchIlpData();
+        List<Drone> allDrones = ilp.drones;
+        List<DroneServicePointAvailability> droneAvailability = ilp.droneAvailability;
+        List<ServicePoint> servicePoints = ilp.servicePoints;
+        List<RestrictedArea> restrictedAreas = ilp.restrictedAreas;
 
         logger.info("Fetched {} drones, {} service points, {} restricted areas",
                 allDrones.size(), servicePoints.size(), restrictedAreas.size());
 
         // find available drones that can handle ALL dispatches in a single flight
-        List<Integer> availableDroneIds = queryAvailableDrones(dispatches);
+        List<Integer> availableDroneIds = table != null
+                ? availableDrones(table, allDrones, droneAvailability)
+                : queryAvailableDrones(dispatches);
 
         logger.info("Found {} drones that can handle all dispatches in single flight", availableDroneIds.size());
 
@@ -184,6 +805,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
 
             // Try single-drone solution if there are drones that can handle all dispatches
             if (!availableDroneIds.isEmpty()) {
+                Timer.Sample strategySample = metrics().start();
                 // Filter service points by distance to avoid wasting time on far-away drones
                 List<ServicePoint> filteredServicePoints = filterServicePointsByDistance(
                         servicePoints, dispatches, availableDroneIds, droneAvailability, new HashSet<>());
@@ -192,16 +814,24 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                         servicePoints.size(), filteredServicePoints.size());
 
                 for (ServicePoint sp : filteredServicePoints) {
+                    if (deadline().isExpired()) {
+                        logger.warn("Planning budget used up during Strategy 1, keeping best single-drone plan so far");
+                        break;
+                    }
+
                     // Get drones available at this service point
                     List<Integer> droneIdsAtSp = getDroneIdsAtServicePoint(sp.getId(), droneAvailability, availableDroneIds);
 
                     if (droneIdsAtSp.isEmpty()) {
-                        logger.debug("No available drones at service point {}", sp.getId());
+                        trace().event("single-drone.sp-without-drones", "No available drones at service point {}", sp.getId());
                         continue;
                     }
 
                     // try each available drone at this service point
                     for (Integer droneId : droneIdsAtSp) {
+                        if (deadline().isExpired()) {
+                            break;
+                        }
                         Drone drone = allDrones.stream()
                                 .filter(d -> d.getId().equals(droneId))
                                 .findFirst()
@@ -212,8 +842,6 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                             continue;
                         }
 
-                        logger.debug("Calculating path for drone {} at service point {}",
-                                drone.getId(), sp.getName());
 
                         // calculate delivery path for this drone
                         DeliveryPathResponse response = calculatePathForDrone(drone, sp, dispatches, restrictedAreas);
@@ -231,18 +859,19 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                             if (isBetter) {
                                 bestMoves = response.getTotalMoves();
                                 bestResponse = response;
-                                logger.info("New best single-drone path found: {} moves, cost {} using drone {} at service point {}",
-                                        bestMoves, String.format("%.2f", response.getTotalCost()), drone.getId(), sp.getName());
+                                trace().event("single-drone.new-best", "New best single-drone path found: {} moves, cost {} using drone {} at service point {}",
+                                        bestMoves, PlannerTrace.decimals(response.getTotalCost(), 2), drone.getId(), sp.getName());
                             }
                         }
                     }
                 }
+                metrics().strategy(strategySample, SINGLE_DRONE, bestResponse != null);
             }
 
             // Log single drone result
             if (bestResponse != null) {
                 logger.info("✓ Strategy 1 (Single Drone): {} moves, cost {}",
-                        bestResponse.getTotalMoves(), String.format("%.2f", bestResponse.getTotalCost()));
+                        bestResponse.getTotalMoves(), PlannerTrace.decimals(bestResponse.getTotalCost(), 2));
             } else {
                 logger.info("✗ Strategy 1 (Single Drone): No solution found");
             }
@@ -252,19 +881,23 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             // This can be better even when single-drone works!
             // Example: D1 near SP1, D2 near SP2 -> 2 drones (short trips) < 1 drone (long trip)
 
-            logger.info("Trying Strategy 2: Nearest Service Point (each delivery → nearest SP)");
-
             List<Integer> allAvailableDroneIds = allDrones.stream()
                     .map(Drone::getId)
                     .collect(Collectors.toList());
 
-            DeliveryPathResponse nearestSPResponse = calculateNearestServicePointPath(
-                    dispatches, allDrones, servicePoints, droneAvailability, allAvailableDroneIds, restrictedAreas);
+            DeliveryPathResponse nearestSPResponse = null;
+            if (!deadline().isExpired()) {
+                logger.info("Trying Strategy 2: Nearest Service Point (each delivery → nearest SP)");
+                Timer.Sample strategySample = metrics().start();
+                nearestSPResponse = calculateNearestServicePointPath(
+                        dispatches, allDrones, servicePoints, droneAvailability, allAvailableDroneIds, restrictedAreas);
+                metrics().strategy(strategySample, NEAREST_SERVICE_POINT, nearestSPResponse != null);
+            }
 
             if (nearestSPResponse != null) {
                 logger.info("✓ Strategy 2 (Nearest SP): {} moves, cost {}, {} drones",
                         nearestSPResponse.getTotalMoves(),
-                        String.format("%.2f", nearestSPResponse.getTotalCost()),
+                        PlannerTrace.decimals(nearestSPResponse.getTotalCost(), 2),
                         nearestSPResponse.getDronePaths().size());
             } else {
                 logger.info("✗ Strategy 2 (Nearest SP): No solution found");
@@ -273,15 +906,19 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             // STRATEGY 3: Try traditional multi-drone (partition by requirements)
             // Handles conflicting requirements (cooling vs heating)
 
-            logger.info("Trying Strategy 3: Traditional Multi-Drone (partition by requirements)");
-
-            DeliveryPathResponse multiDroneResponse = calculateMultiDronePath(
-                    dispatches, allDrones, servicePoints, droneAvailability, allAvailableDroneIds, restrictedAreas);
+            DeliveryPathResponse multiDroneResponse = null;
+            if (!deadline().isExpired()) {
+                logger.info("Trying Strategy 3: Traditional Multi-Drone (partition by requirements)");
+                Timer.Sample strategySample = metrics().start();
+                multiDroneResponse = calculateMultiDronePath(
+                        dispatches, allDrones, servicePoints, droneAvailability, allAvailableDroneIds, restrictedAreas);
+                metrics().strategy(strategySample, MULTI_DRONE, multiDroneResponse != null);
+            }
 
             if (multiDroneResponse != null) {
                 logger.info("✓ Strategy 3 (Multi-Drone Partition): {} moves, cost {}, {} drones",
                         multiDroneResponse.getTotalMoves(),
-                        String.format("%.2f", multiDroneResponse.getTotalCost()),
+                        PlannerTrace.decimals(multiDroneResponse.getTotalCost(), 2),
                         multiDroneResponse.getDronePaths().size());
             } else {
                 logger.info("✗ Strategy 3 (Multi-Drone Partition): No solution found");
@@ -307,254 +944,260 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                     .orElse(null);
 
             if (finalBest == bestResponse) {
+                metrics().strategyWon(SINGLE_DRONE);
                 logger.info("WINNER: Strategy 1 (Single Drone) - {} moves, cost {}",
-                        finalBest.getTotalMoves(), String.format("%.2f", finalBest.getTotalCost()));
+                        finalBest.getTotalMoves(), PlannerTrace.decimals(finalBest.getTotalCost(), 2));
             } else if (finalBest == nearestSPResponse) {
+                metrics().strategyWon(NEAREST_SERVICE_POINT);
                 logger.info("WINNER: Strategy 2 (Nearest SP) - {} moves, cost {}, {} drones used",
-                        finalBest.getTotalMoves(), String.format("%.2f", finalBest.getTotalCost()),
+                        finalBest.getTotalMoves(), PlannerTrace.decimals(finalBest.getTotalCost(), 2),
                         finalBest.getDronePaths().size());
             } else {
+                metrics().strategyWon(MULTI_DRONE);
                 logger.info("WINNER: Strategy 3 (Multi-Drone Partition) - {} moves, cost {}, {} drones used",
-                        finalBest.getTotalMoves(), String.format("%.2f", finalBest.getTotalCost()),
+                        finalBest.getTotalMoves(), PlannerTrace.decimals(finalBest.getTotalCost(), 2),
                         finalBest.getDronePaths().size());
             }
 
-            return finalBest;
+            return improvePlan(finalBest, dispatches, allDrones, servicePoints, droneAvailability, restrictedAreas);
 
         } catch (Exception e) {
             logger.error("Error calculating delivery path", e);
-            return createEmptyResponse();
+            // Not the same as no plan existing, so marked: it must not be remembered as infeasible
+            DeliveryPathResponse failed = new DeliveryPathResponse(0.0, 0, new ArrayList<>());
+            failed.setPlanStatus(DeliveryPathResponse.PlanStatus.FAILED);
+            return failed;
         }
     }
 
     /**
-     * Check if a single attribute matches the given value
+     * Improvement phase: large neighbourhood search over which drone flies which dispatch of a
+     * multi-drone plan, run as parallel searches with different seeds for at most planner.lns.budget-ms.
+     * The best estimated assignment is routed for real and replaces the plan only if it has fewer
+     * moves (or equal moves and lower cost).
+     *
+     * Plans it cannot map back to distinct drones and dispatches (for example split sub-dispatches
+     * sharing an ID) are returned unchanged.
      */
-    private boolean matchesAttribute(Drone.Capability capability, String attributeName, String attributeValue) {
-        try {
-            Field field = capability.getClass().getDeclaredField(attributeName);
-            field.setAccessible(true);
-            Object actualValue = field.get(capability);
+    private DeliveryPathResponse improvePlan(DeliveryPathResponse plan,
+                                             List<MedDispatchRec> dispatches,
+                                             List<Drone> allDrones,
+                                             List<ServicePoint> servicePoints,
+                                             List<DroneServicePointAvailability> droneAvailability,
+                                             List<RestrictedArea> restrictedAreas) {
+        long budgetMillis = Math.min(lnsBudgetMs, deadline().remainingMillis());
+        if (budgetMillis <= 0 || plan == null || plan.getDronePaths().size() < 2) {
+            return plan;
+        }
+
+        // Map the plan back to drones, their service points and dispatch indices
+        Map<Integer, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < dispatches.size(); i++) {
+            if (indexById.put(dispatches.get(i).getId(), i) != null) {
+                return plan;
+            }
+        }
+        int vehicles = plan.getDronePaths().size();
+        List<Drone> drones = new ArrayList<>(vehicles);
+        List<ServicePoint> bases = new ArrayList<>(vehicles);
+        List<List<Integer>> routes = new ArrayList<>(vehicles);
+        int[] owner = new int[dispatches.size()];
+        Arrays.fill(owner, -1);
+        for (int v = 0; v < vehicles; v++) {
+            DeliveryPathResponse.DronePath path = plan.getDronePaths().get(v);
+            Drone drone = allDrones.stream().filter(d -> d.getId().equals(path.getDroneId())).findFirst().orElse(null);
+            if (drone == null || drone.getCapability() == null || drones.contains(drone) || path.getDeliveries().isEmpty()) {
+                return plan;
+            }
+            DeliveryPathResponse.LngLat start = path.getDeliveries().get(0).getFlightPath().get(0);
+            ServicePoint base = servicePoints.stream()
+                    .filter(sp -> sp.getLocation().getLng().equals(start.getLng()) && sp.getLocation().getLat().equals(start.getLat()))
+                    .findFirst().orElse(null);
+            if (base == null) {
+                return plan;
+            }
+            List<Integer> route = new ArrayList<>();
+            for (DeliveryPathResponse.Delivery delivery : path.getDeliveries()) {
+                Integer i = indexById.get(delivery.getDeliveryId());
+                if (i == null || owner[i] >= 0) {
+                    return plan;
+                }
+                owner[i] = v;
+                route.add(i);
+            }
+            drones.add(drone);
+            bases.add(base);
+            routes.add(route);
+        }
+        if (Arrays.stream(owner).anyMatch(v -> v < 0)) {
+            return plan;
+        }
 
-            if (actualValue == null) {
-                logger.debug("Attribute {} is null in capability", attributeName);
-                return false;
+        double[] baseLng = new double[vehicles];
+        double[] baseLat = new double[vehicles];
+        double[] capacity = new double[vehicles];
+        int[] maxMoves = new int[vehicles];
+        boolean[][] allowed = new boolean[vehicles][dispatches.size()];
+        for (int v = 0; v < vehicles; v++) {
+            Drone.Capability capability = drones.get(v).getCapability();
+            baseLng[v] = bases.get(v).getLocation().getLng();
+            baseLat[v] = bases.get(v).getLocation().getLat();
+            capacity[v] = capability.getCapacity() != null ? capability.getCapacity() : Double.NaN;
+            maxMoves[v] = capability.getMaxMoves() != null ? capability.getMaxMoves() : Integer.MAX_VALUE;
+            for (int i = 0; i < dispatches.size(); i++) {
+                allowed[v][i] = canDroneFulfillDispatch(drones.get(v), dispatches.get(i), droneAvailability);
             }
+        }
 
-            return compareValues(actualValue, attributeValue);
+        Timer.Sample sample = metrics().start();
+        LargeNeighbourhoodSearch search = new LargeNeighbourhoodSearch(
+                dispatches, baseLng, baseLat, capacity, maxMoves, allowed, routes);
+        LargeNeighbourhoodSearch.Result best = runSearches(search, budgetMillis);
+        if (best == null || best.getMoves() >= search.getInitialMoves()) {
+            metrics().strategy(sample, IMPROVEMENT, false);
+            trace().event("lns.no-improvement", "Improvement phase kept the plan ({} estimated moves)", search.getInitialMoves());
+            return plan;
+        }
 
-        } catch (NoSuchFieldException e) {
-            logger.warn("Attribute {} not found in Capability class", attributeName);
-            return false;
-        } catch (IllegalAccessException e) {
-            logger.error("Cannot access attribute {} in Capability class", attributeName, e);
-            return false;
+        // Route the improved assignment for real; dispatches stay in request order per drone
+        List<DeliveryPathResponse.DronePath> paths = new ArrayList<>();
+        double totalCost = 0.0;
+        int totalMoves = 0;
+        for (int v = 0; v < vehicles; v++) {
+            List<MedDispatchRec> stops = new ArrayList<>();
+            for (int i = 0; i < dispatches.size(); i++) {
+                if (best.getVehicleOf()[i] == v) {
+                    stops.add(dispatches.get(i));
+                }
+            }
+            if (stops.isEmpty()) {
+                continue;
+            }
+            DeliveryPathResponse route = calculatePathForDrone(drones.get(v), bases.get(v), stops, restrictedAreas);
+            if (route == null) {
+                metrics().strategy(sample, IMPROVEMENT, false);
+                trace().event("lns.route-failed", "Improved assignment for drone {} cannot be flown, keeping the plan",
+                        drones.get(v).getId());
+                return plan;
+            }
+            paths.addAll(route.getDronePaths());
+            totalCost += route.getTotalCost();
+            totalMoves += route.getTotalMoves();
         }
-    }
 
-    /**
-     * Check if all conditions are satisfied
-     */
-    private boolean matchAllConditions(Drone.Capability capability, List<QueryCondition> conditions) {
-        return conditions.stream()
-                .allMatch(condition -> matchesCondition(capability, condition));
+        boolean better = totalMoves < plan.getTotalMoves()
+                || (totalMoves == plan.getTotalMoves() && totalCost < plan.getTotalCost());
+        metrics().strategy(sample, IMPROVEMENT, better);
+        if (!better) {
+            trace().event("lns.not-better", "Improved assignment routes to {} moves, plan has {}", totalMoves, plan.getTotalMoves());
+            return plan;
+        }
+
+        logger.info("Improvement phase: {} → {} moves, cost {} → {}, {} drones",
+                plan.getTotalMoves(), totalMoves,
+                PlannerTrace.decimals(plan.getTotalCost(), 2), PlannerTrace.decimals(totalCost, 2), paths.size());
+        return new DeliveryPathResponse(totalCost, totalMoves, paths);
     }
 
     /**
-     * Check if a drone can fulfill all dispatches
-     * IMPORTANT:
-     * 1. Total capacity of all dispatches must not exceed drone capacity
-     * 2. If dispatches require both cooling AND heating, the drone must have BOTH capabilities
+     * Run the parallel searches until the budget is used up; the best result wins, ties going to
+     * the lower seed so the outcome does not depend on which thread finishes first
      */
-    private boolean fulfillAllDispatches(Drone drone, List<MedDispatchRec> dispatches, List<DroneServicePointAvailability> droneAvailability, List<RestrictedArea> restrictedAreas) {
-        if (drone.getCapability() == null) {
-            logger.warn("Drone {} has no capability", drone.getName());
-            return false;
-        }
-
-
-        // Check if dispatches require both cooling AND heating
-        boolean needsCooling = dispatches.stream()
-                .anyMatch(d -> Boolean.TRUE.equals(d.getRequirements().getCooling()));
-        boolean needsHeating = dispatches.stream()
-                .anyMatch(d -> Boolean.TRUE.equals(d.getRequirements().getHeating()));
-
-        // If both are needed, drone must have BOTH capabilities
-        if (needsCooling && needsHeating) {
-            boolean hasBothCapabilities = Boolean.TRUE.equals(drone.getCapability().getCooling())
-                    && Boolean.TRUE.equals(drone.getCapability().getHeating());
+    private LargeNeighbourhoodSearch.Result runSearches(LargeNeighbourhoodSearch search, long budgetMillis) {
+        long deadlineNanos = System.nanoTime() + budgetMillis * 1_000_000L;
+        int threads = lnsThreads > 0 ? lnsThreads : Runtime.getRuntime().availableProcessors();
 
-            if (!hasBothCapabilities) {
-                logger.debug("Drone {} cannot fulfill deliveries requiring both cooling and heating (drone has: cooling={}, heating={})",
-                        drone.getId(), drone.getCapability().getCooling(), drone.getCapability().getHeating());
-                return false;
-            }
-
-            logger.debug("Drone {} can fulfill deliveries requiring both cooling and heating", drone.getId());
+        List<Future<LargeNeighbourhoodSearch.Result>> futures = new ArrayList<>(threads);
+        for (int w = 0; w < threads; w++) {
+            long seed = LargeNeighbourhoodSearch.DEFAULT_SEED + w;
+            futures.add(lnsExecutor(threads).submit(() -> search.search(seed, lnsIterations, deadlineNanos)));
         }
 
-        // Check maxMoves estimation (rough approximation for queryAvailableDrones)
-        // As per instructor: "rather on the sample side with margins so large that any normal rounding / simplifying assumptions won't matter"
-        Integer maxMoves = drone.getCapability().getMaxMoves();
-        if (maxMoves != null) {
-            double estimatedMoves = estimateTotalMovesForDispatches(drone, dispatches, droneAvailability);
-
-            if (estimatedMoves > maxMoves) {
-                logger.debug("Drone {} estimated moves {} exceeds maxMoves limit {}",
-                        drone.getId(), String.format("%.0f", estimatedMoves), maxMoves);
-                return false;
+        LargeNeighbourhoodSearch.Result best = null;
+        int iterations = 0;
+        for (Future<LargeNeighbourhoodSearch.Result> future : futures) {
+            try {
+                LargeNeighbourhoodSearch.Result result = future.get();
+                iterations += result.getIterations();
+                if (best == null || result.getMoves() < best.getMoves()) {
+                    best = result;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                return best;
+            } catch (ExecutionException e) {
+                logger.warn("Improvement search failed", e.getCause());
             }
-
-            logger.debug("Drone {} estimated moves {} within maxMoves limit {}",
-                    drone.getId(), String.format("%.0f", estimatedMoves), maxMoves);
         }
-
-        return dispatches.stream()
-                .allMatch(dispatch -> fulfillDispatch(drone, dispatch, dispatches, droneAvailability, restrictedAreas));
+        trace().event("lns.searched", "{} searches ran {} iterations, best {} estimated moves (plan {})",
+                threads, iterations, best != null ? best.getMoves() : null, search.getInitialMoves());
+        return best;
     }
 
-    /**
-     * Estimate total moves needed for all dispatches (rough approximation for queryAvailableDrones).
-     * As per instructor: queries with moves/cost are "on the sample side with margins so large
-     * that any normal rounding / simplifying assumptions won't matter"
-     *
-     * Strategy: Simple straight-line distance estimation with generous margins
-     * - Find nearest service point
-     * - Calculate straight-line distances: SP → D1 → D2 → ... → Dn → SP
-     * - Add 50% margin for obstacle avoidance and actual path routing
-     */
-    private double estimateTotalMovesForDispatches(
-            Drone drone,
-            List<MedDispatchRec> dispatches,
-            List<DroneServicePointAvailability> droneAvailability) {
-
-        final double MOVE_DISTANCE = 0.00015;
-        final double MARGIN_MULTIPLIER = 1.5; // 50% margin for obstacles and routing
-
-        // Find nearest service point that has this drone
-        ServicePoint nearestSP = findClosestServicePointForDrone(
-                drone.getId(),
-                dispatches.get(0).getDelivery(),
-                droneAvailability);
-
-        if (nearestSP == null) {
-            // No service point found - return very high estimate to exclude this drone
-            return Double.MAX_VALUE;
-        }
-
-        // Group by date (each date is separate round trip)
-        Map<LocalDate, List<MedDispatchRec>> byDate = dispatches.stream()
-                .collect(Collectors.groupingBy(MedDispatchRec::getDate));
-
-        double totalEstimatedMoves = 0;
-
-        for (List<MedDispatchRec> dailyDispatches : byDate.values()) {
-            // Estimate distance for this day's deliveries
-            double dailyDistance = 0;
-
-            // SP → first delivery
-            if (!dailyDispatches.isEmpty()) {
-                dailyDistance += calculateEuclideanDistance(
-                        nearestSP.getLocation().getLng(),
-                        nearestSP.getLocation().getLat(),
-                        dailyDispatches.get(0).getDelivery().getLng(),
-                        dailyDispatches.get(0).getDelivery().getLat()
-                );
-            }
-
-            // Delivery to delivery
-            for (int i = 0; i < dailyDispatches.size() - 1; i++) {
-                dailyDistance += calculateEuclideanDistance(
-                        dailyDispatches.get(i).getDelivery().getLng(),
-                        dailyDispatches.get(i).getDelivery().getLat(),
-                        dailyDispatches.get(i + 1).getDelivery().getLng(),
-                        dailyDispatches.get(i + 1).getDelivery().getLat()
-                );
-            }
-
-            // Last delivery → SP
-            if (!dailyDispatches.isEmpty()) {
-                dailyDistance += calculateEuclideanDistance(
-                        dailyDispatches.get(dailyDispatches.size() - 1).getDelivery().getLng(),
-                        dailyDispatches.get(dailyDispatches.size() - 1).getDelivery().getLat(),
-                        nearestSP.getLocation().getLng(),
-                        nearestSP.getLocation().getLat()
-                );
+    private ExecutorService lnsExecutor(int threads) {
+        ExecutorService executor = lnsExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = lnsExecutor;
+                if (executor == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(threads, runnable -> {
+                        Thread thread = new Thread(runnable, "planner-lns-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    lnsExecutor = executor;
+                }
             }
-
-            // Convert distance to moves and add margin
-            double dailyMoves = Math.ceil(dailyDistance / MOVE_DISTANCE);
-            totalEstimatedMoves += dailyMoves;
         }
-
-        return totalEstimatedMoves;
+        return executor;
     }
 
     /**
-     * Check if a drone can fulfill a single dispatch
+     * Stop the planner and improvement search threads with the application context
      */
-    private boolean fulfillDispatch(Drone drone, MedDispatchRec dispatch, List<MedDispatchRec> allDispatches, List<DroneServicePointAvailability> droneAvailability, List<RestrictedArea> restrictedAreas) {
-        Drone.Capability capability = drone.getCapability();
-        MedDispatchRec.Requirements requirements = dispatch.getRequirements();
-
-        // 1.check capacity requirement
-        if (requirements.getCapacity() != null) {
-            if (capability.getCapacity() == null ||
-                    capability.getCapacity() < requirements.getCapacity()) {
-                logger.debug("Drone {} cannot fulfill capacity requirement: {} < {}",
-                        drone.getName(), capability.getCapacity(), requirements.getCapacity());
-                return false;
-            }
-        }
-
-        // 2.check cooling requirement
-        if (Boolean.TRUE.equals(requirements.getCooling())) {
-            if (!Boolean.TRUE.equals(capability.getCooling())) {
-                logger.debug("Drone {} cannot fulfill cooling requirement", drone.getName());
-                return false;
-            }
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (plannerPool != null) {
+            plannerPool.shutdownNow();
         }
-
-        // 3. Check heating requirement
-        if (Boolean.TRUE.equals(requirements.getHeating())) {
-            if (!Boolean.TRUE.equals(capability.getHeating())) {
-                logger.debug("Drone {} does not have heating capability", drone.getId());
-                return false;
-            }
+        if (lnsExecutor != null) {
+            lnsExecutor.shutdownNow();
         }
+    }
 
-        // 4. Check maxCost requirement (using estimation/approximation)
-        if (requirements.getMaxCost() != null) {
-            // Estimate cost for this dispatch using approximation approach
-            double estimatedCost = estimateDispatchCost(drone, dispatch, allDispatches, droneAvailability);
+    /**
+     * Check if a single attribute matches the given value
+     */
+    private boolean matchesAttribute(Drone.Capability capability, String attributeName, String attributeValue) {
+        try {
+            Field field = capability.getClass().getDeclaredField(attributeName);
+            field.setAccessible(true);
+            Object actualValue = field.get(capability);
 
-            if (estimatedCost > requirements.getMaxCost()) {
-                logger.debug("Drone {} estimated cost {} exceeds maxCost {}",
-                        drone.getId(), String.format("%.2f", estimatedCost), requirements.getMaxCost());
+            if (actualValue == null) {
+                logger.debug("Attribute {} is null in capability", attributeName);
                 return false;
             }
-        }
 
-        // 5. Check time availability
-        if (dispatch.getDate() != null && dispatch.getTime() != null) {
-            if (!isAvailableAtTime(drone.getId(), dispatch.getDate(), dispatch.getTime(), droneAvailability)) {
-                logger.debug("Drone {} not available on {} at {}",
-                        drone.getId(), dispatch.getDate(), dispatch.getTime());
-                return false;
-            }
-        }
+            return compareValues(actualValue, attributeValue);
 
-        // 6. Check delivery location is not in restricted area
-        if (dispatch.getDelivery() != null) {
-            if (isInRestrictedArea(dispatch.getDelivery(), restrictedAreas)) {
-                logger.debug("Delivery location ({}, {}) is in restricted area",
-                        dispatch.getDelivery().getLng(), dispatch.getDelivery().getLat());
-                return false;
-            }
+        } catch (NoSuchFieldException e) {
+            logger.warn("Attribute {} not found in Capability class", attributeName);
+            return false;
+        } catch (IllegalAccessException e) {
+            logger.error("Cannot access attribute {} in Capability class", attributeName, e);
+            return false;
         }
+    }
 
-        logger.debug("Drone {} can fulfill dispatch {}", drone.getId(), dispatch.getId());
-        return true;
+    /**
+     * Check if all conditions are satisfied
+     */
+    private boolean matchAllConditions(Drone.Capability capability, List<QueryCondition> conditions) {
+        return conditions.stream()
+                .allMatch(condition -> matchesCondition(capability, condition));
     }
 
     /**
@@ -596,309 +1239,148 @@ public class DroneQueryServiceImpl implements DroneQueryService {
     }
 
     /**
-     * Check if a location is in any restricted area
+     * Compiled index for a restricted area list. The same list instance is passed through a whole
+     * planning request, so the last compiled list is remembered and reused.
      */
-    private boolean isInRestrictedArea(MedDispatchRec.Delivery delivery, List<RestrictedArea> restrictedAreas) {
-        if (delivery.getLng() == null || delivery.getLat() == null) {
-            return false;
-        }
-
-        for (RestrictedArea area : restrictedAreas) {
-            if (isPointInPolygon(delivery.getLng(), delivery.getLat(), area.getVertices())) {
-                logger.debug("Point ({}, {}) is inside restricted area: {}",
-                        delivery.getLng(), delivery.getLat(), area.getName());
-                return true;
-            }
+    private RestrictedAreaIndex restrictedAreaIndex(List<RestrictedArea> restrictedAreas) {
+        CompiledAreas compiled = compiledAreas;
+        if (compiled == null || compiled.source != restrictedAreas) {
+            compiled = new CompiledAreas(restrictedAreas, new RestrictedAreaIndex(restrictedAreas));
+            compiledAreas = compiled;
         }
-
-        return false;
+        return compiled.index;
     }
 
     /**
-     * Ray casting algorithm to check if a point is inside a polygon
+     * Distance field of the service point for the restricted areas, built the first time a return
+     * to it is blocked and kept until a restricted area change reaches it
      */
-    private boolean isPointInPolygon(double lng, double lat, List<RestrictedArea.Vertex> vertices) {
-        if (vertices == null || vertices.size() < 3) {
-            return false;
-        }
-
-        boolean inside = false;
-        int n = vertices.size();
-
-        for (int i = 0, j = n - 1; i < n; j = i++) {
-            RestrictedArea.Vertex vi = vertices.get(i);
-            RestrictedArea.Vertex vj = vertices.get(j);
-
-            if (vi.getLng() == null || vi.getLat() == null ||
-                    vj.getLng() == null || vj.getLat() == null) {
-                continue;
-            }
-
-            double xi = vi.getLng(), yi = vi.getLat();
-            double xj = vj.getLng(), yj = vj.getLat();
-
-            boolean intersect = ((yi > lat) != (yj > lat)) &&
-                    (lng < (xj - xi) * (lat - yi) / (yj - yi) + xi);
-
-            if (intersect) {
-                inside = !inside;
-            }
-        }
+    private DistanceField distanceField(ServicePoint servicePoint, List<RestrictedArea> restrictedAreas) {
+        double lng = servicePoint.getLocation().getLng();
+        double lat = servicePoint.getLocation().getLat();
+        AreaSnapshot snapshot = areaSnapshot;
+        if (snapshot == null || snapshot.areas != restrictedAreas) {
+            // Areas of a request that has been overtaken by a change: build, but do not keep
+            return buildDistanceField(servicePoint, restrictedAreas);
+        }
+        return snapshot.distanceFields.computeIfAbsent(List.of(lng, lat),
+                location -> buildDistanceField(servicePoint, restrictedAreas));
+    }
 
-        return inside;
+    private DistanceField buildDistanceField(ServicePoint servicePoint, List<RestrictedArea> restrictedAreas) {
+        long startNanos = System.nanoTime();
+        Timer.Sample sample = metrics().start();
+        DistanceField field = new DistanceField(servicePoint.getLocation().getLng(), servicePoint.getLocation().getLat(),
+                distanceFieldRadiusMoves, restrictedAreaIndex(restrictedAreas));
+        metrics().distanceFieldBuilt(sample);
+        logger.info("Built distance field for {} ({} moves, {} KB off-heap) in {} ms", servicePoint.getName(),
+                distanceFieldRadiusMoves, field.sizeInBytes() / 1024, (System.nanoTime() - startNanos) / 1_000_000);
+        return field;
     }
 
     /**
-     * Estimate the cost for a single dispatch assuming it's part of a delivery pack.
-     * For continuous delivery (same date): SP → L1 → L2 → ... → SP
-     * For different dates: Each date is a separate trip with full fixed costs
-     *
-     * Formula:
-     * - Single dispatch: (SP → delivery → SP) / 0.00015
-     * - Same date dispatches: optimize route order, split fixed costs
-     * - Different dates: calculate separately, each gets full fixed costs
-     * - Per dispatch cost = (fixed costs share) + (segment moves × costPerMove)
+     * Leg cache for the restricted areas, or null if they are not the current ones
      */
-    private double estimateDispatchCost(
-            Drone drone,
-            MedDispatchRec dispatch,
-            List<MedDispatchRec> allDispatches,
-            List<DroneServicePointAvailability> droneAvailability) {
-
-        Drone.Capability capability = drone.getCapability();
-
-        // Get cost parameters
-        double costInitial = capability.getCostInitial() != null ? capability.getCostInitial() : 0.0;
-        double costPerMove = capability.getCostPerMove() != null ? capability.getCostPerMove() : 0.0;
-        double costFinal = capability.getCostFinal() != null ? capability.getCostFinal() : 0.0;
-        final double MOVE_DISTANCE = 0.00015;
-
-        // Find closest service point that has this drone
-        ServicePoint closestSP = findClosestServicePointForDrone(
-                drone.getId(), dispatch.getDelivery(), droneAvailability);
-
-        if (closestSP == null) {
-            return Double.MAX_VALUE;
-        }
-
-        // Check if all dispatches are on the same date
-        boolean allSameDate = allDispatches.stream()
-                .allMatch(d -> d.getDate().equals(dispatch.getDate()));
-
-        // Case 1: Single dispatch - simple round trip (SP → delivery → SP)
-        if (allDispatches.size() == 1) {
-            double distanceToDelivery = calculateEuclideanDistance(
-                    closestSP.getLocation().getLng(),
-                    closestSP.getLocation().getLat(),
-                    dispatch.getDelivery().getLng(),
-                    dispatch.getDelivery().getLat()
-            );
-            double roundTripDistance = distanceToDelivery * 2;
-            double estimatedMoves = Math.ceil(roundTripDistance / MOVE_DISTANCE);
-            double moveCost = estimatedMoves * costPerMove;
-            double totalCost = (costInitial + costFinal) + moveCost;
-
-            logger.debug("Drone {} - Dispatch {} (single): moves={}, moveCost={}, fixedCost={}, total={}",
-                    drone.getId(), dispatch.getId(), (int)estimatedMoves,
-                    String.format("%.2f", moveCost),
-                    String.format("%.2f", (costInitial + costFinal)),
-                    String.format("%.2f", totalCost));
-
-            return totalCost;
-        }
-
-        // Case 2: Different dates - each dispatch treated separately with full fixed costs
-        if (!allSameDate) {
-            double distanceToDelivery = calculateEuclideanDistance(
-                    closestSP.getLocation().getLng(),
-                    closestSP.getLocation().getLat(),
-                    dispatch.getDelivery().getLng(),
-                    dispatch.getDelivery().getLat()
-            );
-            double roundTripDistance = distanceToDelivery * 2;
-            double estimatedMoves = Math.ceil(roundTripDistance / MOVE_DISTANCE);
-            double moveCost = estimatedMoves * costPerMove;
-            double totalCost = (costInitial + costFinal) + moveCost;
-
-            logger.debug("Drone {} - Dispatch {} (different date): moves={}, moveCost={}, fixedCost={}, total={}",
-                    drone.getId(), dispatch.getId(), (int)estimatedMoves,
-                    String.format("%.2f", moveCost),
-                    String.format("%.2f", (costInitial + costFinal)),
-                    String.format("%.2f", totalCost));
+    private LegCache legCache(List<RestrictedArea> restrictedAreas) {
+        AreaSnapshot snapshot = areaSnapshot;
+        return snapshot != null && snapshot.areas == restrictedAreas ? snapshot.legs : null;
+    }
 
-            return totalCost;
+    /**
+     * Helper class holding one combination of ILP and temporary restricted areas with the legs
+     * and distance fields computed for it
+     */
+    private static class AreaSnapshot {
+        final List<RestrictedArea> ilpAreas;
+        final long version;
+        final List<RestrictedArea> areas;
+        final LegCache legs;
+        // By service point location
+        final Map<List<Double>, DistanceField> distanceFields;
+
+        AreaSnapshot(List<RestrictedArea> ilpAreas, RestrictedAreaRegistry.Snapshot temporary,
+                     LegCache legs, Map<List<Double>, DistanceField> distanceFields) {
+            this.ilpAreas = ilpAreas;
+            this.version = temporary.getVersion();
+            List<RestrictedArea> combined = new ArrayList<>(ilpAreas);
+            combined.addAll(temporary.getAreas());
+            this.areas = combined;
+            this.legs = legs;
+            this.distanceFields = new ConcurrentHashMap<>(distanceFields);
         }
+    }
 
-        // Case 3: Same date, multiple dispatches - continuous delivery with route optimization
-        // Optimize delivery order to minimize total distance: SP → L1 → L2 → SP
-        List<MedDispatchRec> sameDateDispatches = allDispatches.stream()
-                .filter(d -> d.getDate().equals(dispatch.getDate()))
-                .collect(Collectors.toList());
-
-        int numDispatches = sameDateDispatches.size();
-
-        List<MedDispatchRec> orderedDispatches = optimizeSimpleRouteForEstimation(closestSP, sameDateDispatches);
-
-        // Calculate total distance for the entire flight: SP → D1 → D2 → ... → Dn → SP
-        double totalFlightDistance = 0.0;
-
-        // Segment 0: SP → first delivery
-        totalFlightDistance += calculateEuclideanDistance(
-                closestSP.getLocation().getLng(),
-                closestSP.getLocation().getLat(),
-                orderedDispatches.get(0).getDelivery().getLng(),
-                orderedDispatches.get(0).getDelivery().getLat()
-        );
+    /**
+     * Helper class pairing a restricted area list with its compiled index
+     */
+    private static class CompiledAreas {
+        final List<RestrictedArea> source;
+        final RestrictedAreaIndex index;
 
-        // Segments: delivery i → delivery i+1
-        for (int i = 0; i < numDispatches - 1; i++) {
-            totalFlightDistance += calculateEuclideanDistance(
-                    orderedDispatches.get(i).getDelivery().getLng(),
-                    orderedDispatches.get(i).getDelivery().getLat(),
-                    orderedDispatches.get(i + 1).getDelivery().getLng(),
-                    orderedDispatches.get(i + 1).getDelivery().getLat()
-            );
+        CompiledAreas(List<RestrictedArea> source, RestrictedAreaIndex index) {
+            this.source = source;
+            this.index = index;
         }
-
-        // Last segment: last delivery → SP
-        totalFlightDistance += calculateEuclideanDistance(
-                orderedDispatches.get(numDispatches - 1).getDelivery().getLng(),
-                orderedDispatches.get(numDispatches - 1).getDelivery().getLat(),
-                closestSP.getLocation().getLng(),
-                closestSP.getLocation().getLat()
-        );
-
-        // Calculate total moves and total flight cost
-        double totalFlightMoves = Math.ceil(totalFlightDistance / MOVE_DISTANCE);
-        double totalFlightCost = costInitial + (totalFlightMoves * costPerMove) + costFinal;
-
-        // Cost per delivery = total flight cost / number of deliveries (pro-rata distribution)
-        double costPerDispatch = totalFlightCost / numDispatches;
-
-        logger.debug("Drone {} - Dispatch {} (same date, {} deliveries): totalFlightMoves={}, totalFlightCost={}, costPerDispatch={}",
-                drone.getId(), dispatch.getId(), numDispatches, (int)totalFlightMoves,
-                String.format("%.2f", totalFlightCost),
-                String.format("%.2f", costPerDispatch));
-
-        return costPerDispatch;
     }
 
     /**
-     * Simple route optimization for dispatches: find best order to minimize total distance
-     * For 2 dispatches: try both orders (L1→L2 vs L2→L1) and pick the shorter one
-     * For more: use nearest neighbor heuristic
+     * Spatial index over a service point list. Rebuilt only when the fetched list differs from
+     * the one last indexed, so one reference snapshot is indexed once.
      */
-    private List<MedDispatchRec> optimizeSimpleRouteForEstimation(ServicePoint sp, List<MedDispatchRec> dispatches) {
-        if (dispatches.size() <= 1) {
-            return new ArrayList<>(dispatches);
+    private ServicePointIndex servicePointIndex(List<ServicePoint> servicePoints) {
+        CompiledServicePoints compiled = compiledServicePoints;
+        if (compiled == null || (compiled.source != servicePoints && !compiled.source.equals(servicePoints))) {
+            compiled = new CompiledServicePoints(servicePoints, new ServicePointIndex(servicePoints));
+            compiledServicePoints = compiled;
         }
+        return compiled.index;
+    }
 
-        // For 2 dispatches, try both orders and pick the shorter one
-        if (dispatches.size() == 2) {
-            MedDispatchRec d1 = dispatches.get(0);
-            MedDispatchRec d2 = dispatches.get(1);
-
-            // Order 1: SP → D1 → D2 → SP
-            double dist1 = calculateEuclideanDistance(
-                    sp.getLocation().getLng(), sp.getLocation().getLat(),
-                    d1.getDelivery().getLng(), d1.getDelivery().getLat()
-            ) + calculateEuclideanDistance(
-                    d1.getDelivery().getLng(), d1.getDelivery().getLat(),
-                    d2.getDelivery().getLng(), d2.getDelivery().getLat()
-            ) + calculateEuclideanDistance(
-                    d2.getDelivery().getLng(), d2.getDelivery().getLat(),
-                    sp.getLocation().getLng(), sp.getLocation().getLat()
-            );
-
-            // Order 2: SP → D2 → D1 → SP
-            double dist2 = calculateEuclideanDistance(
-                    sp.getLocation().getLng(), sp.getLocation().getLat(),
-                    d2.getDelivery().getLng(), d2.getDelivery().getLat()
-            ) + calculateEuclideanDistance(
-                    d2.getDelivery().getLng(), d2.getDelivery().getLat(),
-                    d1.getDelivery().getLng(), d1.getDelivery().getLat()
-            ) + calculateEuclideanDistance(
-                    d1.getDelivery().getLng(), d1.getDelivery().getLat(),
-                    sp.getLocation().getLng(), sp.getLocation().getLat()
-            );
+    /**
+     * Helper class pairing a service point list with its spatial index
+     */
+    private static class CompiledServicePoints {
+        final List<ServicePoint> source;
+        final ServicePointIndex index;
 
-            return dist1 <= dist2 ? List.of(d1, d2) : List.of(d2, d1);
+        CompiledServicePoints(List<ServicePoint> source, ServicePointIndex index) {
+            this.source = source;
+            this.index = index;
         }
+    }
 
-        // For more dispatches, use nearest neighbor heuristic
-        List<MedDispatchRec> result = new ArrayList<>();
-        Set<Integer> visited = new HashSet<>();
-
-        // Start from service point, pick nearest unvisited delivery
-        double currentLng = sp.getLocation().getLng();
-        double currentLat = sp.getLocation().getLat();
-
-        while (result.size() < dispatches.size()) {
-            double minDist = Double.MAX_VALUE;
-            MedDispatchRec nearest = null;
-
-            for (MedDispatchRec d : dispatches) {
-                if (visited.contains(d.getId())) continue;
-
-                double dist = calculateEuclideanDistance(
-                        currentLng, currentLat,
-                        d.getDelivery().getLng(), d.getDelivery().getLat()
-                );
-
-                if (dist < minDist) {
-                    minDist = dist;
-                    nearest = d;
-                }
-            }
-
-            if (nearest != null) {
-                result.add(nearest);
-                visited.add(nearest.getId());
-                currentLng = nearest.getDelivery().getLng();
-                currentLat = nearest.getDelivery().getLat();
-            }
+    /**
+     * Helper class holding the ILP datasets fetched for one planning run
+     */
+    private static class IlpData {
+        final List<Drone> drones;
+        final List<DroneServicePointAvailability> droneAvailability;
+        final List<ServicePoint> servicePoints;
+        final List<RestrictedArea> restrictedAreas;
+
+        IlpData(List<Drone> drones, List<DroneServicePointAvailability> droneAvailability,
+                List<ServicePoint> servicePoints, List<RestrictedArea> restrictedAreas) {
+            this.drones = drones;
+            this.droneAvailability = droneAvailability;
+            this.servicePoints = servicePoints;
+            this.restrictedAreas = restrictedAreas;
         }
-
-        return result;
     }
 
     /**
-     * Find the closest service point that has the specified drone available
+     * Helper class holding a streamed dispatch list: the records for routing, the ILP data they were
+     * read against and the dispatch table built from them while they were read
      */
-    private ServicePoint findClosestServicePointForDrone(
-            Integer droneId,
-            MedDispatchRec.Delivery delivery,
-            List<DroneServicePointAvailability> droneAvailability) {
-
-        // Fetch all service points
-        List<ServicePoint> allServicePoints = fetchAllServicePoints();
-
-        ServicePoint closestSP = null;
-        double minDistance = Double.MAX_VALUE;
-
-        for (ServicePoint sp : allServicePoints) {
-            // Check if this service point has the drone
-            boolean hasDrone = droneAvailability.stream()
-                    .filter(dsp -> dsp.getServicePointId().equals(sp.getId()))
-                    .flatMap(dsp -> dsp.getDrones().stream())
-                    .anyMatch(d -> String.valueOf(droneId).equals(d.getId()));
-
-            if (hasDrone) {
-                double distance = calculateEuclideanDistance(
-                        sp.getLocation().getLng(),
-                        sp.getLocation().getLat(),
-                        delivery.getLng(),
-                        delivery.getLat()
-                );
+    static class StreamedDispatches {
+        final List<MedDispatchRec> records;
+        final IlpData data;
+        final DispatchTable table;
 
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closestSP = sp;
-                }
-            }
+        StreamedDispatches(List<MedDispatchRec> records, IlpData data, DispatchTable table) {
+            this.records = records;
+            this.data = data;
+            this.table = table;
         }
-
-        return closestSP;
     }
 
     /**
@@ -1070,126 +1552,82 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Route of drone from servicePoint through dispatches, or null if it cannot fly them.
+     * Each (drone, service point, dispatches) is routed once per request; the strategies
+     * share the result instead of routing the same stops again.
+     */
     private DeliveryPathResponse calculatePathForDrone(Drone drone,
                                                        ServicePoint servicePoint,
                                                        List<MedDispatchRec> dispatches,
                                                        List<RestrictedArea> restrictedAreas) {
-        logger.info("Calculating path for drone {} from service point {}", drone.getId(), servicePoint.getName());
+        boolean[] routed = new boolean[1];
+        DeliveryPathResponse response = routes().route(drone.getId(), servicePoint.getId(), dispatches, () -> {
+            routed[0] = true;
+            Timer.Sample sample = metrics().start();
+            DeliveryPathResponse route = planPathForDrone(drone, servicePoint, dispatches, restrictedAreas);
+            metrics().dronePath(sample, route != null);
+            return route;
+        });
+        if (!routed[0]) {
+            trace().event("route.reused", "Reusing route of drone {} from {} for {} dispatches",
+                    drone.getId(), servicePoint.getName(), dispatches.size());
+        }
+        return response;
+    }
+
+    private DeliveryPathResponse planPathForDrone(Drone drone,
+                                                  ServicePoint servicePoint,
+                                                  List<MedDispatchRec> dispatches,
+                                                  List<RestrictedArea> restrictedAreas) {
+        trace().event("drone-path.start", "Calculating path for drone {} from service point {}", drone.getId(), servicePoint.getName());
 
         // Group dispatches by date and sort by date
         Map<LocalDate, List<MedDispatchRec>> dispatchByDate = dispatches.stream()
                 .collect(Collectors.groupingBy(MedDispatchRec::getDate));
 
-        List<DeliveryPathResponse.Delivery> allDeliveries = new ArrayList<>();
-        int totalMoves = 0;
-
-
-        // Track moves per date for cost calculation (each date = separate flight)
-        Map<LocalDate, Integer> movesPerDate = new HashMap<>();
-
         // Process each day's dispatches separately, IN DATE ORDER
         List<LocalDate> sortedDates = dispatchByDate.keySet().stream()
                 .sorted()
                 .collect(Collectors.toList());
 
+        // Each date is a separate flight from the service point: plan them concurrently, merge in date order
+        List<Supplier<Flight>> flightTasks = new ArrayList<>(sortedDates.size());
         for (LocalDate date : sortedDates) {
-            List<MedDispatchRec> dailyDispatches = dispatchByDate.get(date);
-
-            logger.debug("Processing {} dispatches for date {}", dailyDispatches.size(), date);
-
-            // Optimize delivery order (respects time ordering within the day)
-            List<MedDispatchRec> optimiseOrder = optimizeDeliveryOrder(servicePoint, dailyDispatches);
-
-            // Generate flight path for this day's deliveries
-            DeliveryPathResponse.LngLat currentLocation = new DeliveryPathResponse.LngLat(servicePoint.getLocation().getLng(), servicePoint.getLocation().getLat());
-
-            int movesForThisDate = 0; // Track moves for this day's flight
-
-            for (int i = 0; i < optimiseOrder.size(); i++) {
-                MedDispatchRec dispatch = optimiseOrder.get(i);
-
-                // Validate capacity for this dispatch
-                Double droneCapacity = drone.getCapability().getCapacity();
-                Double requiredCapacity = dispatch.getRequirements().getCapacity();
-                if (droneCapacity != null && requiredCapacity != null) {
-                    if (requiredCapacity > droneCapacity) {
-                        logger.debug("Dispatch {} requires capacity {} but drone {} only has {}",
-                                dispatch.getId(), requiredCapacity, drone.getId(), droneCapacity);
-                        return null;
-                    }
-                }
-
-                DeliveryPathResponse.LngLat targetLocation = new DeliveryPathResponse.LngLat(
-                        dispatch.getDelivery().getLng(), dispatch.getDelivery().getLat());
-
-                // Generate flight path from currentLocation to targetLocation
-                List<DeliveryPathResponse.LngLat> path = generateFlightPath(currentLocation, targetLocation, restrictedAreas);
-
-                if (path == null) {
-                    logger.warn("Cannot generate path for delivery {}", dispatch.getId());
-                    return null;
-                }
-
-                // Get the ACTUAL hover position (last point we reached, which is < 0.00015 from target)
-                DeliveryPathResponse.LngLat actualHoverPosition = path.get(path.size() - 1);
-
-                // Add hover point (duplicate coordinate indicates delivery)
-                // We hover at the ACTUAL position, not the exact target location
-                path.add(new DeliveryPathResponse.LngLat(
-                        actualHoverPosition.getLng(), actualHoverPosition.getLat()));
-
-                // If this is the last delivery of the day, add return path to service point
-                if (i == optimiseOrder.size() - 1) {
-                    DeliveryPathResponse.LngLat servicePointLocation =
-                            new DeliveryPathResponse.LngLat(
-                                    servicePoint.getLocation().getLng(),
-                                    servicePoint.getLocation().getLat()
-                            );
-
-                    // Start return path from the ACTUAL hover position
-                    List<DeliveryPathResponse.LngLat> returnPath = generateFlightPath(
-                            actualHoverPosition, servicePointLocation, restrictedAreas);
-
-                    if (returnPath == null) {
-                        logger.warn("Cannot generate return path to service point");
-                        return null;
-                    }
-
-                    // Add return path (skip first point to avoid duplication)
-                    if (returnPath.size() > 1) {
-                        path.addAll(returnPath.subList(1, returnPath.size()));
-                    }
-                }
-
-                // calculate moves (INCLUDING hover - identical consecutive points count as 1 move)
-                // Each step in the path counts as 1 move, including the hover
-                int movesForThisDelivery = path.size() - 1; // Total positions minus 1 = total moves
-                totalMoves += movesForThisDelivery;
-                movesForThisDate += movesForThisDelivery;
+            flightTasks.add(() -> planFlight(drone, servicePoint, date, dispatchByDate.get(date), restrictedAreas));
+        }
+        List<Flight> flights = inParallel(flightTasks);
+        return priceFlights(drone, dispatches, sortedDates, flights);
+    }
 
-                // create Delivery object
-                DeliveryPathResponse.Delivery delivery = new DeliveryPathResponse.Delivery();
-                delivery.setDeliveryId(dispatch.getId());
-                delivery.setFlightPath(path);
-                allDeliveries.add(delivery);
+    /**
+     * Merge a drone's flights (one per date, in date order) into its route, checking its move
+     * limit and each dispatch's maxCost, or null if a flight is missing or a limit is broken
+     */
+    private DeliveryPathResponse priceFlights(Drone drone,
+                                              List<MedDispatchRec> dispatches,
+                                              List<LocalDate> sortedDates,
+                                              List<Flight> flights) {
+        List<DeliveryPathResponse.Delivery> allDeliveries = new ArrayList<>();
+        int totalMoves = 0;
 
-                // IMPORTANT: Next delivery starts from the ACTUAL hover position, not the target location
-                currentLocation = actualHoverPosition;
+        // Track moves per date for cost calculation (each date = separate flight)
+        Map<LocalDate, Integer> movesPerDate = new HashMap<>();
 
-                logger.debug("Generated path for delivery {} with {} moves, hover at ({}, {})",
-                        dispatch.getId(), movesForThisDelivery,
-                        String.format("%.6f", actualHoverPosition.getLng()),
-                        String.format("%.6f", actualHoverPosition.getLat()));
+        for (int d = 0; d < sortedDates.size(); d++) {
+            Flight flight = flights.get(d);
+            if (flight == null) {
+                return null;
             }
-
-            // Store total moves for this date's flight
-            movesPerDate.put(date, movesForThisDate);
+            allDeliveries.addAll(flight.deliveries);
+            totalMoves += flight.moves;
+            movesPerDate.put(sortedDates.get(d), flight.moves);
         }
 
         // Validate total moves against drone's limit
         Integer maxMoves = drone.getCapability().getMaxMoves();
         if (maxMoves != null && totalMoves > maxMoves) {
-            logger.warn("Total moves ({}) exceeds drone's limit ({})", totalMoves, maxMoves);
+            trace().event("drone-path.over-max-moves", "Total moves ({}) exceeds drone's limit ({})", totalMoves, maxMoves);
             return null;
         }
 
@@ -1209,10 +1647,10 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             int movesForFlight = movesPerDate.get(date);
             double flightCost = costInitial + (costPerMove * movesForFlight) + costFinal;
             totalCost += flightCost;
-            logger.debug("Flight on {}: {} moves, cost: {}", date, movesForFlight, flightCost);
+            trace().event("drone-path.flight", "Flight on {}: {} moves, cost: {}", date, movesForFlight, flightCost);
         }
 
-        logger.debug("Total cost across {} flights: {}", numFlights, totalCost);
+        trace().event("drone-path.cost", "Total cost across {} flights: {}", numFlights, totalCost);
 
         // Validate maxCost for each dispatch
         // IMPORTANT: Cost per dispatch = (total flight cost) / (number of deliveries in that flight)
@@ -1237,10 +1675,10 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                 double costPerDispatch = flightCost / numDispatchesInFlight;
 
                 if (costPerDispatch > dispatch.getRequirements().getMaxCost()) {
-                    logger.debug("Drone {} dispatch {} cost {} (flight: {}, moves: {}, dispatches: {}) exceeds maxCost {}",
+                    trace().event("drone-path.over-max-cost", "Drone {} dispatch {} cost {} (flight: {}, moves: {}, dispatches: {}) exceeds maxCost {}",
                             drone.getId(), dispatch.getId(),
-                            String.format("%.2f", costPerDispatch),
-                            String.format("%.2f", flightCost),
+                            PlannerTrace.decimals(costPerDispatch, 2),
+                            PlannerTrace.decimals(flightCost, 2),
                             totalMovesInFlight, numDispatchesInFlight,
                             dispatch.getRequirements().getMaxCost());
                     return null;
@@ -1258,11 +1696,120 @@ public class DroneQueryServiceImpl implements DroneQueryService {
         response.setTotalMoves(totalMoves);
         response.setDronePaths(Arrays.asList(dronePath));
 
-        logger.info("Path calculation completed - Cost: {}, Moves: {}, Deliveries: {}",
+        trace().event("drone-path.found", "Path calculation completed - Cost: {}, Moves: {}, Deliveries: {}",
                 totalCost, totalMoves, allDeliveries.size());
 
         return response;
     }
+    /**
+     * One day's flight of drone: out from servicePoint through the day's dispatches and back,
+     * or null if a leg cannot be flown or a dispatch is over the drone's capacity
+     */
+    private Flight planFlight(Drone drone,
+                              ServicePoint servicePoint,
+                              LocalDate date,
+                              List<MedDispatchRec> dailyDispatches,
+                              List<RestrictedArea> restrictedAreas) {
+        trace().event("drone-path.date", "Processing {} dispatches for date {}", dailyDispatches.size(), date);
+
+        // Optimize delivery order (respects time ordering within the day)
+        List<MedDispatchRec> optimiseOrder = optimizeDeliveryOrder(servicePoint, dailyDispatches);
+        return flyInOrder(drone, servicePoint, optimiseOrder, restrictedAreas);
+    }
+
+    /**
+     * Fly drone from servicePoint through the dispatches in the given order and back, or null if
+     * a leg cannot be flown or a dispatch is over the drone's capacity
+     */
+    private Flight flyInOrder(Drone drone,
+                              ServicePoint servicePoint,
+                              List<MedDispatchRec> optimiseOrder,
+                              List<RestrictedArea> restrictedAreas) {
+        // Generate flight path for this day's deliveries
+        DeliveryPathResponse.LngLat currentLocation = new DeliveryPathResponse.LngLat(servicePoint.getLocation().getLng(), servicePoint.getLocation().getLat());
+
+        List<DeliveryPathResponse.Delivery> deliveries = new ArrayList<>();
+        int movesForThisDate = 0; // Track moves for this day's flight
+
+        for (int i = 0; i < optimiseOrder.size(); i++) {
+            MedDispatchRec dispatch = optimiseOrder.get(i);
+
+            // Validate capacity for this dispatch
+            Double droneCapacity = drone.getCapability().getCapacity();
+            Double requiredCapacity = dispatch.getRequirements().getCapacity();
+            if (droneCapacity != null && requiredCapacity != null) {
+                if (requiredCapacity > droneCapacity) {
+                    trace().event("drone-path.over-capacity", "Dispatch {} requires capacity {} but drone {} only has {}",
+                            dispatch.getId(), requiredCapacity, drone.getId(), droneCapacity);
+                    return null;
+                }
+            }
+
+            DeliveryPathResponse.LngLat targetLocation = new DeliveryPathResponse.LngLat(
+                    dispatch.getDelivery().getLng(), dispatch.getDelivery().getLat());
+
+            // Generate flight path from currentLocation to targetLocation
+            List<DeliveryPathResponse.LngLat> path = generateFlightPath(currentLocation, targetLocation, restrictedAreas);
+
+            if (path == null) {
+                trace().event("drone-path.leg-failed", "Cannot generate path for delivery {}", dispatch.getId());
+                return null;
+            }
+
+            // Get the ACTUAL hover position (last point we reached, which is < 0.00015 from target)
+            DeliveryPathResponse.LngLat actualHoverPosition = path.get(path.size() - 1);
+
+            // Add hover point (duplicate coordinate indicates delivery)
+            // We hover at the ACTUAL position, not the exact target location
+            path.add(new DeliveryPathResponse.LngLat(
+                    actualHoverPosition.getLng(), actualHoverPosition.getLat()));
+
+            // If this is the last delivery of the day, add return path to service point
+            if (i == optimiseOrder.size() - 1) {
+                DeliveryPathResponse.LngLat servicePointLocation =
+                        new DeliveryPathResponse.LngLat(
+                                servicePoint.getLocation().getLng(),
+                                servicePoint.getLocation().getLat()
+                        );
+
+                // Start return path from the ACTUAL hover position
+                List<DeliveryPathResponse.LngLat> returnPath = generateReturnPath(
+                        actualHoverPosition, servicePoint, restrictedAreas);
+
+                if (returnPath == null) {
+                    trace().event("drone-path.return-failed", "Cannot generate return path to service point");
+                    return null;
+                }
+
+                // Add return path (skip first point to avoid duplication)
+                if (returnPath.size() > 1) {
+                    path.addAll(returnPath.subList(1, returnPath.size()));
+                }
+            }
+
+            // calculate moves (INCLUDING hover - identical consecutive points count as 1 move)
+            // Each step in the path counts as 1 move, including the hover
+            int movesForThisDelivery = path.size() - 1; // Total positions minus 1 = total moves
+            movesForThisDate += movesForThisDelivery;
+
+            // create Delivery object
+            DeliveryPathResponse.Delivery delivery = new DeliveryPathResponse.Delivery();
+            delivery.setDeliveryId(dispatch.getId());
+            delivery.setFlightPath(path);
+            deliveries.add(delivery);
+
+            // IMPORTANT: Next delivery starts from the ACTUAL hover position, not the target location
+            currentLocation = actualHoverPosition;
+
+            trace().event("drone-path.delivery", "Generated path for delivery {} with {} moves, hover at ({}, {})",
+                    dispatch.getId(), movesForThisDelivery,
+                    PlannerTrace.decimals(actualHoverPosition.getLng(), 6),
+                    PlannerTrace.decimals(actualHoverPosition.getLat(), 6));
+        }
+
+        return new Flight(deliveries, movesForThisDate);
+    }
+
     /**
      * Optimize delivery order using TSP algorithm
      * Uses Dynamic Programming for small sets (<=12) and Greedy for larger sets
@@ -1285,10 +1832,12 @@ public class DroneQueryServiceImpl implements DroneQueryService {
         // Use TSP optimization to minimize total distance/moves
         if (n <= 12) {
             logger.debug("Using DP algorithm for {} dispatches", n);
+            metrics().order("dp");
             return optimizeDeliveryOrder_DP(startPoint, dispatches);
         }
 
         logger.debug("Using Greedy algorithm for {} dispatches", n);
+        metrics().order("greedy");
         return optimizeDeliveryOrder_Greedy(startPoint, dispatches);
     }
 
@@ -1314,7 +1863,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                     continue;
                 }
 
-                double distance = calculateEuclideanDistance(
+                double distance = GeoMath.distance(
                         currentLng, currentLat,
                         dispatch.getDelivery().getLng(),
                         dispatch.getDelivery().getLat()
@@ -1336,8 +1885,8 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             }
         }
 
-        logger.debug("Greedy optimization: total estimated distance = {}",
-                calculateTotalDistance(startPoint, optimized));
+        trace().event("order.greedy", "Greedy optimization: total estimated distance = {}",
+                PlannerTrace.lazy(() -> calculateTotalDistance(startPoint, optimized)));
 
         return optimized;
     }
@@ -1355,7 +1904,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
 
         // Calculate distances from start point to each dispatch
         for (int i = 0; i < n; i++) {
-            startDist[i] = calculateEuclideanDistance(
+            startDist[i] = GeoMath.distance(
                     startPoint.getLocation().getLng(),
                     startPoint.getLocation().getLat(),
                     dispatches.get(i).getDelivery().getLng(),
@@ -1367,7 +1916,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
                 if (i != j) {
-                    dist[i][j] = calculateEuclideanDistance(
+                    dist[i][j] = GeoMath.distance(
                             dispatches.get(i).getDelivery().getLng(),
                             dispatches.get(i).getDelivery().getLat(),
                             dispatches.get(j).getDelivery().getLng(),
@@ -1446,17 +1995,11 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             optimized.add(dispatches.get(idx));
         }
 
-        logger.debug("DP optimization: optimal distance = {}", bestDist);
+        trace().event("order.dp", "DP optimization: optimal distance = {}", bestDist);
 
         return optimized;
     }
 
-    private double calculateEuclideanDistance(double lng1, double lat1, double lng2, double lat2) {
-        double dx = lng2 - lng1;
-        double dy = lat2 - lat1;
-        return Math.sqrt(dx * dx + dy * dy);
-    }
-
     /**
      * Generate flight path from 'from' to 'to', avoiding restricted areas
      * Uses fast greedy algorithm with obstacle avoidance
@@ -1464,144 +2007,118 @@ public class DroneQueryServiceImpl implements DroneQueryService {
      */
     private List<DeliveryPathResponse.LngLat> generateFlightPath(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to, List<RestrictedArea> restrictedAreas) {
 
+        // Out of planning budget: fail the leg so the candidate being built is dropped
+        if (deadline().isExpired()) {
+            return null;
+        }
+
+        // Flown before for the same restricted areas, possibly by an earlier request
+        LegCache legs = legCache(restrictedAreas);
+        List<DeliveryPathResponse.LngLat> cached = legs != null ? legs.get(from, to) : null;
+        if (cached != null) {
+            trace().event("leg.cached", "Reusing cached leg from ({}, {}) to ({}, {}), {} moves",
+                    from.getLng(), from.getLat(), to.getLng(), to.getLat(), cached.size() - 1);
+            return cached;
+        }
+
+        List<DeliveryPathResponse.LngLat> path = routeLeg(from, to, restrictedAreas);
+        // A leg found while the budget ran out may be a fallback a full search would not pick
+        if (path != null && legs != null && !deadline().wasHit()) {
+            legs.put(from, to, path);
+        }
+        return path;
+    }
+
+    /**
+     * Route one leg: the direct line if it is clear, else the lattice search, else the RRT fallback
+     */
+    private List<DeliveryPathResponse.LngLat> routeLeg(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to, List<RestrictedArea> restrictedAreas) {
+
         // Check if direct path is clear (no restricted areas blocking)
         if (isPathClear(from, to, restrictedAreas)) {
-            logger.debug("Direct path is clear from ({}, {}) to ({}, {})",
+            trace().event("leg.direct", "Direct path is clear from ({}, {}) to ({}, {})",
                     from.getLng(), from.getLat(), to.getLng(), to.getLat());
             // Generate step-by-step path with moves of 0.00015 degrees
             return generateDirectPath(from, to, restrictedAreas);
         }
 
-        // Strategy 2: Try A* pathfinding (optimal but slower)
-        logger.debug("Direct path blocked, trying A* pathfinding");
-        List<DeliveryPathResponse.LngLat> astarPath = aStarPathfinding(from, to, restrictedAreas);
+        // Strategy 2: Lattice search (A*, bidirectional or jump point, see planner.search.strategy)
+        trace().event("leg.blocked", "Direct path blocked, trying {} search", searchStrategy);
+        List<DeliveryPathResponse.LngLat> latticePath = searchLatticePath(from, to, restrictedAreas);
 
-        if (astarPath != null) {
-            return astarPath;
+        if (latticePath != null) {
+            return latticePath;
         }
 
         // Strategy 3: Last resort - quick boundary-following pathfinder (always finds a path if possible)
-        logger.warn("A* failed, using last resort quick pathfinder with boundary following");
+        trace().event("leg.rrt-fallback", "{} search failed, using last resort quick pathfinder with boundary following", searchStrategy);
         return quickPathFinder(from, to, restrictedAreas);
     }
 
+    /**
+     * Flight path from 'from' back to the service point. A blocked return descends the service
+     * point's distance field when 'from' lies inside it and only falls back to the lattice search
+     * when the field does not lead home.
+     */
+    private List<DeliveryPathResponse.LngLat> generateReturnPath(DeliveryPathResponse.LngLat from,
+                                                                  ServicePoint servicePoint,
+                                                                  List<RestrictedArea> restrictedAreas) {
+        DeliveryPathResponse.LngLat to = new DeliveryPathResponse.LngLat(
+                servicePoint.getLocation().getLng(), servicePoint.getLocation().getLat());
+        if (distanceFieldRadiusMoves <= 0 || deadline().isExpired() || isPathClear(from, to, restrictedAreas)) {
+            return generateFlightPath(from, to, restrictedAreas);
+        }
+
+        DistanceField field = distanceField(servicePoint, restrictedAreas);
+        List<DeliveryPathResponse.LngLat> path = field.returnPath(from.getLng(), from.getLat());
+        metrics().distanceFieldReturn(path != null);
+        if (path != null) {
+            trace().event("leg.field", "Returned to {} along its distance field in {} moves",
+                    servicePoint.getName(), path.size() - 1);
+            return path;
+        }
+        trace().event("leg.field-miss", "Distance field of {} does not lead home from ({}, {})",
+                servicePoint.getName(), from.getLng(), from.getLat());
+        return generateFlightPath(from, to, restrictedAreas);
+    }
 
     /**
-     * RRT (Rapidly-exploring Random Tree) Pathfinder
-     * Uses random sampling to quickly find ANY valid path around obstacles
-     * Excellent for complex restricted areas and perpendicular paths (no directional bias)
-     * No optimization - just finds a path fast!
+     * Search the move lattice around restricted areas with the configured strategy
+     * @return the path, or null if the search gave up
      */
-    private List<DeliveryPathResponse.LngLat> quickPathFinder(
+    private List<DeliveryPathResponse.LngLat> searchLatticePath(
             DeliveryPathResponse.LngLat from,
             DeliveryPathResponse.LngLat to,
             List<RestrictedArea> restrictedAreas) {
 
-        final double MOVE_DISTANCE = 0.00015;
-        final double CLOSE_THRESHOLD = 0.00015;
-        final int MAX_ITERATIONS = 5000;
-        final double GOAL_SAMPLE_RATE = 0.3; // 30% chance to sample goal directly
-
-        Random random = new Random();
-
-        // Tree node for RRT
-        class RRTNode {
-            double lng;
-            double lat;
-            RRTNode parent;
-
-            RRTNode(double lng, double lat, RRTNode parent) {
-                this.lng = lng;
-                this.lat = lat;
-                this.parent = parent;
-            }
-        }
-
-        // Initialize tree with start node
-        List<RRTNode> tree = new ArrayList<>();
-        RRTNode startNode = new RRTNode(from.getLng(), from.getLat(), null);
-        tree.add(startNode);
-
-        // Calculate exploration bounds (area around start and goal)
-        double minLng = Math.min(from.getLng(), to.getLng()) - 0.01;
-        double maxLng = Math.max(from.getLng(), to.getLng()) + 0.01;
-        double minLat = Math.min(from.getLat(), to.getLat()) - 0.01;
-        double maxLat = Math.max(from.getLat(), to.getLat()) + 0.01;
-
-        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
-            // Sample random point (or goal with probability)
-            double sampleLng, sampleLat;
-            if (random.nextDouble() < GOAL_SAMPLE_RATE) {
-                // Sample goal to bias exploration toward target
-                sampleLng = to.getLng();
-                sampleLat = to.getLat();
-            } else {
-                // Random sample in exploration area
-                sampleLng = minLng + random.nextDouble() * (maxLng - minLng);
-                sampleLat = minLat + random.nextDouble() * (maxLat - minLat);
-            }
-
-            // nearest node in tree to sample
-            RRTNode nearest = null;
-            double minDist = Double.MAX_VALUE;
-            for (RRTNode node : tree) {
-                double dist = calculateEuclideanDistance(node.lng, node.lat, sampleLng, sampleLat);
-                if (dist < minDist) {
-                    minDist = dist;
-                    nearest = node;
-                }
-            }
-
-            if (nearest == null) continue;
-
-            // Steer from nearest toward sample (max distance = MOVE_DISTANCE)
-            double dx = sampleLng - nearest.lng;
-            double dy = sampleLat - nearest.lat;
-            double dist = Math.sqrt(dx * dx + dy * dy);
-
-            // Snap to nearest valid compass direction (16 directions)
-            double angle = Math.atan2(dy, dx);
-            double angleDeg = Math.toDegrees(angle);
-            double snapAngle = Math.round(angleDeg / 22.5) * 22.5;
-            double snapRad = Math.toRadians(snapAngle);
-
-            double newLng = nearest.lng + MOVE_DISTANCE * Math.cos(snapRad);
-            double newLat = nearest.lat + MOVE_DISTANCE * Math.sin(snapRad);
-
-            // Check if new node is valid (not in restricted area)
-            if (!isValidMove(nearest.lng, nearest.lat, newLng, newLat, restrictedAreas)) {
-                continue;
-            }
-
-            // Add new node to tree
-            RRTNode newNode = new RRTNode(newLng, newLat, nearest);
-            tree.add(newNode);
-
-            // Check if we reached goal
-            double distToGoal = calculateEuclideanDistance(newLng, newLat, to.getLng(), to.getLat());
-            if (distToGoal < CLOSE_THRESHOLD) {
-                // Goal reached! Reconstruct path
-                logger.info("QPF found path in {} iterations, tree size: {}", iteration, tree.size());
+        LatticePathfinder pathfinder = latticePathfinder;
+        if (pathfinder == null) {
+            pathfinder = searchStrategy.newPathfinder();
+            latticePathfinder = pathfinder;
+        }
 
-                List<DeliveryPathResponse.LngLat> path = new ArrayList<>();
-                RRTNode current = newNode;
-                while (current != null) {
-                    path.add(0, new DeliveryPathResponse.LngLat(current.lng, current.lat));
-                    current = current.parent;
-                }
+        Timer.Sample sample = metrics().start();
+        PathSearchResult result = pathfinder.search(from, to, restrictedAreaIndex(restrictedAreas), deadline());
+        metrics().search(sample, searchStrategy, result);
+        trace().event("leg.search", "{} search expanded {} nodes", searchStrategy, result.getExpandedNodes());
+        return result.getPath();
+    }
 
-                // Add exact goal if not already there
-                DeliveryPathResponse.LngLat lastPoint = path.get(path.size() - 1);
-                if (!lastPoint.getLng().equals(to.getLng()) || !lastPoint.getLat().equals(to.getLat())) {
-                    path.add(new DeliveryPathResponse.LngLat(to.getLng(), to.getLat()));
-                }
 
-                return path;
-            }
-        }
+    /**
+     * RRT (Rapidly-exploring Random Tree) Pathfinder
+     * Uses random sampling to quickly find ANY valid path around obstacles.
+     * Seeded per leg so the same dispatches always produce the same fallback path.
+     */
+    private List<DeliveryPathResponse.LngLat> quickPathFinder(
+            DeliveryPathResponse.LngLat from,
+            DeliveryPathResponse.LngLat to,
+            List<RestrictedArea> restrictedAreas) {
 
-        logger.warn("QPF failed to find path after {} iterations (tree size: {})", MAX_ITERATIONS, tree.size());
-        return null;
+        List<DeliveryPathResponse.LngLat> path =
+                new RrtPathfinder(rrtSeed).findPath(from, to, restrictedAreaIndex(restrictedAreas), deadline());
+        metrics().rrtFallback(path != null);
+        return path;
     }
 
     /**
@@ -1616,20 +2133,18 @@ public class DroneQueryServiceImpl implements DroneQueryService {
 
         List<DeliveryPathResponse.LngLat> path = new ArrayList<>();
         DeliveryPathResponse.LngLat current = new DeliveryPathResponse.LngLat(from.getLng(), from.getLat());
+        // Moves add up exactly on the lattice; positions are worked out from it relative to 'from'
+        LatticePoint currentPoint = LatticePoint.ORIGIN;
         path.add(current);
 
-        final double MOVE_DISTANCE = 0.00015;
         final double CLOSE_THRESHOLD = 0.00015;
 
-        // 16 compass directions in degrees: 0, 22.5, 45, 67.5, ..., 337.5
-        double[] angles = {0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5, 180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5};
-
         int maxSteps = 10000; // Safety limit to prevent infinite loops
         int steps = 0;
 
         while (steps < maxSteps) {
             // Check if we're close enough to target (within 0.00015 degrees)
-            double distance = calculateEuclideanDistance(
+            double distance = GeoMath.distance(
                     current.getLng(), current.getLat(),
                     to.getLng(), to.getLat()
             );
@@ -1638,442 +2153,129 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                 // Close enough - we're done!
                 // We hover at the ACTUAL position (current), not the delivery position (to)
                 // This allows us to be < 0.00015 away, which is acceptable
-                logger.debug("Reached close enough to target: distance = {}", String.format("%.6f", distance));
+                trace().event("leg.close-enough", "Reached close enough to target: distance = {}", PlannerTrace.decimals(distance, 6));
                 break;
             }
 
             // Find best direction to move (greedy approach)
             double bestDistance = Double.MAX_VALUE;
             DeliveryPathResponse.LngLat bestNext = null;
+            LatticePoint bestPoint = null;
 
-            for (double angleDeg : angles) {
-                double angleRad = Math.toRadians(angleDeg);
-                double newLng = current.getLng() + MOVE_DISTANCE * Math.cos(angleRad);
-                double newLat = current.getLat() + MOVE_DISTANCE * Math.sin(angleRad);
+            // 16 compass directions
+            for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+                LatticePoint newPoint = currentPoint.step(direction);
+                double newLng = newPoint.lng(from.getLng());
+                double newLat = newPoint.lat(from.getLat());
 
                 // Calculate distance from this new position to target
-                double distToTarget = calculateEuclideanDistance(newLng, newLat, to.getLng(), to.getLat());
+                double distToTarget = GeoMath.distance(newLng, newLat, to.getLng(), to.getLat());
 
                 // Check if this move is valid (not crossing restricted areas)
                 boolean valid = isValidMove(current.getLng(), current.getLat(), newLng, newLat, restrictedAreas);
 
-                if (valid && distToTarget < bestDistance) {
-                    bestDistance = distToTarget;
-                    bestNext = new DeliveryPathResponse.LngLat(newLng, newLat);
-                }
-            }
-
-            if (bestNext == null) {
-                // No valid move found - path is blocked, fall back to A*
-                logger.warn("Direct greedy path blocked at ({}, {}), using A* instead",
-                        current.getLng(), current.getLat());
-                return aStarPathfinding(from, to, restrictedAreas);
-            }
-
-            // Make the best move
-            current = bestNext;
-            path.add(current);
-            steps++;
-        }
-
-        if (steps >= maxSteps) {
-            logger.error("Direct path generation exceeded max steps, falling back to A*");
-            return aStarPathfinding(from, to, restrictedAreas);
-        }
-
-        logger.debug("Generated direct path with {} steps", path.size() - 1);
-        return path;
-    }
-
-    /**
-     * Check if a direct path between two points crosses any restricted areas
-     */
-    private boolean isPathClear(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to, List<RestrictedArea> restrictedAreas) {
-
-        // Check if endpoints are in or near restricted areas
-        for (RestrictedArea area : restrictedAreas) {
-            if (isPointInOrNearPolygon(from.getLng(), from.getLat(), area.getVertices()) ||
-                    isPointInOrNearPolygon(to.getLng(), to.getLat(), area.getVertices())) {
-                return false;
-            }
-
-            // Check if the line segment crosses the restricted area
-            if (doesLineIntersectPolygon(from.getLng(), from.getLat(), to.getLng(), to.getLat(), area.getVertices())) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private double calculateTotalCost(Drone.Capability capability, int totalMoves) {
-        double initialCost = capability.getCostInitial() != null ?
-                capability.getCostInitial() : 0.0;
-        double costPerMove = capability.getCostPerMove() != null ?
-                capability.getCostPerMove() : 0.0;
-        double finalCost = capability.getCostFinal() != null ?
-                capability.getCostFinal() : 0.0;
-
-        double totalCost = initialCost + (costPerMove * totalMoves) + finalCost;
-
-        logger.debug("Cost breakdown - Initial: {}, PerMove: {} × {}, Final: {}, Total: {}",
-                initialCost, costPerMove, totalMoves, finalCost, totalCost);
-
-        return totalCost;
-    }
-
-    /**
-     * Inner class representing a node in A* search
-     */
-    private static class AStarNode {
-        double lng;
-        double lat;
-        double g; // Cost from start
-        double h; // Heuristic to goal
-        double f; // Total cost (g + h)
-        AStarNode parent;
-
-        AStarNode(double lng, double lat) {
-            this.lng = lng;
-            this.lat = lat;
-        }
-
-        /**
-         * Generate unique key for this node's position
-         * Rounds to 10 decimal places to handle floating point precision
-         */
-        String getKey() {
-            return String.format("%.10f,%.10f", lng, lat);
-        }
-    }
-
-    /**
-     * Calculate total distance for a delivery sequence
-     * Used for TSP optimization logging
-     */
-    private double calculateTotalDistance(
-            ServicePoint startPoint,
-            List<MedDispatchRec> dispatches) {
-
-        if (dispatches.isEmpty()) {
-            return 0.0;
-        }
-
-        double totalDist = 0.0;
-
-        // Distance from start to first dispatch
-        totalDist += calculateEuclideanDistance(
-                startPoint.getLocation().getLng(),
-                startPoint.getLocation().getLat(),
-                dispatches.get(0).getDelivery().getLng(),
-                dispatches.get(0).getDelivery().getLat()
-        );
-
-        // Distances between consecutive dispatches
-        for (int i = 0; i < dispatches.size() - 1; i++) {
-            totalDist += calculateEuclideanDistance(
-                    dispatches.get(i).getDelivery().getLng(),
-                    dispatches.get(i).getDelivery().getLat(),
-                    dispatches.get(i + 1).getDelivery().getLng(),
-                    dispatches.get(i + 1).getDelivery().getLat()
-            );
-        }
-
-        // Distance from last dispatch back to start
-        totalDist += calculateEuclideanDistance(
-                dispatches.get(dispatches.size() - 1).getDelivery().getLng(),
-                dispatches.get(dispatches.size() - 1).getDelivery().getLat(),
-                startPoint.getLocation().getLng(),
-                startPoint.getLocation().getLat()
-        );
-
-        return totalDist;
-    }
-
-    /**
-     * A* pathfinding algorithm to find path from 'from' to 'to' avoiding restricted areas
-     */
-    private List<DeliveryPathResponse.LngLat> aStarPathfinding(
-            DeliveryPathResponse.LngLat from,
-            DeliveryPathResponse.LngLat to,
-            List<RestrictedArea> restrictedAreas) {
-
-        logger.debug("Starting A* pathfinding from ({}, {}) to ({}, {})",
-                from.getLng(), from.getLat(), to.getLng(), to.getLat());
-
-        // Priority queue ordered by f(n) = g(n) + h(n)
-        PriorityQueue<AStarNode> openSet = new PriorityQueue<>(
-                Comparator.comparingDouble(n -> n.f)
-        );
-
-        Set<String> closedSet = new HashSet<>();
-        Map<String, AStarNode> allNodes = new HashMap<>();
-
-        // Initialize start node
-        AStarNode startNode = new AStarNode(from.getLng(), from.getLat());
-        startNode.g = 0;
-        startNode.h = calculateEuclideanDistance(from.getLng(), from.getLat(), to.getLng(), to.getLat());
-        startNode.f = startNode.g + startNode.h;
-
-        openSet.add(startNode);
-        allNodes.put(startNode.getKey(), startNode);
-
-        int iterations = 0;
-        int maxIterations = 10000; // Increased - need to find ANY path around restricted areas
-
-        while (!openSet.isEmpty() && iterations < maxIterations) {
-            iterations++;
-
-            AStarNode current = openSet.poll();
-
-            // Check if goal reached (within 0.00015 degree tolerance)
-            if (isGoalReached(current, to)) {
-                logger.debug("A* found path in {} iterations", iterations);
-                return reconstructPath(current);
-            }
-
-            closedSet.add(current.getKey());
-
-            // Explore all 16 compass directions
-            for (AStarNode neighbor : getValidNeighbors(current, to, restrictedAreas)) {
-                if (closedSet.contains(neighbor.getKey())) {
-                    continue;
-                }
-
-                // Calculate tentative g score (cost from start to neighbor)
-                double tentativeG = current.g + 0.00015; // Each move is 0.00015 degrees
-
-                AStarNode existingNode = allNodes.get(neighbor.getKey());
-
-                if (existingNode == null || tentativeG < existingNode.g) {
-                    neighbor.g = tentativeG;
-                    neighbor.h = calculateEuclideanDistance(
-                            neighbor.lng, neighbor.lat, to.getLng(), to.getLat()
-                    );
-                    // Use weighted A* with epsilon=1.5 to explore more aggressively (sacrifice optimality for speed)
-                    neighbor.f = neighbor.g + 1.5 * neighbor.h;
-                    neighbor.parent = current;
-
-                    if (existingNode == null) {
-                        openSet.add(neighbor);
-                        allNodes.put(neighbor.getKey(), neighbor);
-                    } else {
-                        // Update existing node
-                        existingNode.g = neighbor.g;
-                        existingNode.h = neighbor.h;
-                        existingNode.f = neighbor.f;
-                        existingNode.parent = neighbor.parent;
-                        // Re-add to priority queue with updated priority
-                        openSet.remove(existingNode);
-                        openSet.add(existingNode);
-                    }
-                }
-            }
-        }
-
-        logger.warn("A* failed to find path after {} iterations", iterations);
-        return null; // No path found
-    }
-
-    private List<AStarNode> getValidNeighbors(
-            AStarNode current,
-            DeliveryPathResponse.LngLat goal,
-            List<RestrictedArea> restrictedAreas) {
-
-        List<AStarNode> neighbors = new ArrayList<>();
-        double step = 0.00015; // Fixed step size per specification
-
-        // 16 compass directions: 0°, 22.5°, 45°, 67.5°, 90°, ..., 337.5°
-        // Convention: 0° = East, 90° = North, 180° = West, 270° = South
-        double[] angles = {0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5, 180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5};
-
-        for (double angleDeg : angles) {
-            double angleRad = Math.toRadians(angleDeg);
-
-            // Calculate new position
-            // Using standard trigonometry: dx = cos(angle), dy = sin(angle)
-            double newLng = current.lng + step * Math.cos(angleRad);
-            double newLat = current.lat + step * Math.sin(angleRad);
-
-            // Create neighbor node
-            AStarNode neighbor = new AStarNode(newLng, newLat);
-
-            // Validate neighbor
-            if (isValidMove(current.lng, current.lat, newLng, newLat, restrictedAreas)) {
-                neighbors.add(neighbor);
-            }
-        }
-
-        return neighbors;
-    }
-
-    private boolean isValidMove(
-            double lng1, double lat1,
-            double lng2, double lat2,
-            List<RestrictedArea> restrictedAreas) {
-
-        // Check if endpoint is in restricted area
-        for (RestrictedArea area : restrictedAreas) {
-            if (isPointInOrNearPolygon(lng2, lat2, area.getVertices())) {
-                return false;
-            }
-
-            // Check if line segment crosses the restricted area
-            if (doesLineIntersectPolygon(lng1, lat1, lng2, lat2, area.getVertices())) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private boolean isPointInOrNearPolygon(
-            double lng, double lat,
-            List<RestrictedArea.Vertex> vertices) {
-
-        if (vertices == null || vertices.size() < 3) {
-            return false;
-        }
-
-        // Buffer distance to prevent corner cutting
-        double buffer = 0.00015;
-
-        // First check if point is inside polygon
-        if (isPointInPolygon(lng, lat, vertices)) {
-            return true;
-        }
-
-        // Check if point is too close to any edge
-        for (int i = 0; i < vertices.size(); i++) {
-            RestrictedArea.Vertex v1 = vertices.get(i);
-            RestrictedArea.Vertex v2 = vertices.get((i + 1) % vertices.size());
-
-            if (v1.getLng() == null || v1.getLat() == null ||
-                    v2.getLng() == null || v2.getLat() == null) {
-                continue;
-            }
-
-            double distToEdge = pointToLineDistance(
-                    lng, lat,
-                    v1.getLng(), v1.getLat(),
-                    v2.getLng(), v2.getLat()
-            );
-
-            if (distToEdge < buffer) {
-                return true; // Too close to edge
-            }
-        }
-
-        return false;
-    }
-
-    private double pointToLineDistance(
-            double px, double py,
-            double x1, double y1,
-            double x2, double y2) {
-
-        double A = px - x1;
-        double B = py - y1;
-        double C = x2 - x1;
-        double D = y2 - y1;
-
-        double dot = A * C + B * D;
-        double lenSq = C * C + D * D;
-
-        double param = (lenSq != 0) ? (dot / lenSq) : -1;
-
-        double xx, yy;
-
-        if (param < 0) {
-            xx = x1;
-            yy = y1;
-        } else if (param > 1) {
-            xx = x2;
-            yy = y2;
-        } else {
-            xx = x1 + param * C;
-            yy = y1 + param * D;
-        }
-
-        double dx = px - xx;
-        double dy = py - yy;
-
-        return Math.sqrt(dx * dx + dy * dy);
-    }
-
-    private boolean doesLineIntersectPolygon(double x1, double y1, double x2, double y2, List<RestrictedArea.Vertex> vertices) {
-
-        if (vertices == null || vertices.size() < 3) {
-            return false;
-        }
-
-        // Check intersection with each edge of the polygon
-        for (int i = 0; i < vertices.size(); i++) {
-            RestrictedArea.Vertex v1 = vertices.get(i);
-            RestrictedArea.Vertex v2 = vertices.get((i + 1) % vertices.size());
-
-            if (v1.getLng() == null || v1.getLat() == null ||
-                    v2.getLng() == null || v2.getLat() == null) {
-                continue;
+                if (valid && distToTarget < bestDistance) {
+                    bestDistance = distToTarget;
+                    bestNext = new DeliveryPathResponse.LngLat(newLng, newLat);
+                    bestPoint = newPoint;
+                }
             }
 
-            if (doLineSegmentsIntersect(
-                    x1, y1, x2, y2,
-                    v1.getLng(), v1.getLat(),
-                    v2.getLng(), v2.getLat())) {
-                return true;
+            if (bestNext == null) {
+                // No valid move found - path is blocked, fall back to the lattice search
+                trace().event("leg.direct-blocked", "Direct greedy path blocked at ({}, {}), using {} search instead",
+                        current.getLng(), current.getLat(), searchStrategy);
+                return searchLatticePath(from, to, restrictedAreas);
             }
+
+            // Make the best move
+            current = bestNext;
+            currentPoint = bestPoint;
+            path.add(current);
+            steps++;
         }
 
-        return false;
+        if (steps >= maxSteps) {
+            logger.error("Direct path generation exceeded max steps, falling back to {} search", searchStrategy);
+            return searchLatticePath(from, to, restrictedAreas);
+        }
+
+        trace().event("leg.direct-steps", "Generated direct path with {} steps", path.size() - 1);
+        return path;
     }
 
     /**
-     * Check if two line segments intersect
-     * Uses cross product method
+     * Check if a direct path between two points crosses any restricted areas
      */
-    private boolean doLineSegmentsIntersect(
-            double x1, double y1, double x2, double y2,
-            double x3, double y3, double x4, double y4) {
+    private boolean isPathClear(DeliveryPathResponse.LngLat from, DeliveryPathResponse.LngLat to, List<RestrictedArea> restrictedAreas) {
+        return restrictedAreaIndex(restrictedAreas).isPathClear(
+                from.getLng(), from.getLat(), to.getLng(), to.getLat());
+    }
 
-        double d = (x1 - x2) * (y3 - y4) - (y1 - y2) * (x3 - x4);
+    private double calculateTotalCost(Drone.Capability capability, int totalMoves) {
+        double initialCost = capability.getCostInitial() != null ?
+                capability.getCostInitial() : 0.0;
+        double costPerMove = capability.getCostPerMove() != null ?
+                capability.getCostPerMove() : 0.0;
+        double finalCost = capability.getCostFinal() != null ?
+                capability.getCostFinal() : 0.0;
 
-        if (Math.abs(d) < 1e-10) {
-            return false; // Parallel lines
-        }
+        double totalCost = initialCost + (costPerMove * totalMoves) + finalCost;
 
-        double t = ((x1 - x3) * (y3 - y4) - (y1 - y3) * (x3 - x4)) / d;
-        double u = -((x1 - x2) * (y1 - y3) - (y1 - y2) * (x1 - x3)) / d;
+        trace().event("cost.breakdown", "Cost breakdown - Initial: {}, PerMove: {} × {}, Final: {}, Total: {}",
+                initialCost, costPerMove, totalMoves, finalCost, totalCost);
 
-        return (t >= 0 && t <= 1 && u >= 0 && u <= 1);
+        return totalCost;
     }
 
     /**
-     * Check if goal is reached (within 0.00015 degree tolerance)
+     * Calculate total distance for a delivery sequence
+     * Used for TSP optimization logging
      */
-    private boolean isGoalReached(AStarNode node, DeliveryPathResponse.LngLat goal) {
-        double distance = calculateEuclideanDistance(
-                node.lng, node.lat, goal.getLng(), goal.getLat()
-        );
-        return distance < 0.00015; // Within one move distance
-    }
+    private double calculateTotalDistance(
+            ServicePoint startPoint,
+            List<MedDispatchRec> dispatches) {
 
-    /**
-     * Reconstruct path from goal to start by following parent pointers
-     */
-    private List<DeliveryPathResponse.LngLat> reconstructPath(AStarNode goal) {
-        List<DeliveryPathResponse.LngLat> path = new ArrayList<>();
-        AStarNode current = goal;
+        if (dispatches.isEmpty()) {
+            return 0.0;
+        }
+
+        double totalDist = 0.0;
+
+        // Distance from start to first dispatch
+        totalDist += GeoMath.distance(
+                startPoint.getLocation().getLng(),
+                startPoint.getLocation().getLat(),
+                dispatches.get(0).getDelivery().getLng(),
+                dispatches.get(0).getDelivery().getLat()
+        );
 
-        while (current != null) {
-            path.add(new DeliveryPathResponse.LngLat(current.lng, current.lat));
-            current = current.parent;
+        // Distances between consecutive dispatches
+        for (int i = 0; i < dispatches.size() - 1; i++) {
+            totalDist += GeoMath.distance(
+                    dispatches.get(i).getDelivery().getLng(),
+                    dispatches.get(i).getDelivery().getLat(),
+                    dispatches.get(i + 1).getDelivery().getLng(),
+                    dispatches.get(i + 1).getDelivery().getLat()
+            );
         }
 
-        Collections.reverse(path);
+        // Distance from last dispatch back to start
+        totalDist += GeoMath.distance(
+                dispatches.get(dispatches.size() - 1).getDelivery().getLng(),
+                dispatches.get(dispatches.size() - 1).getDelivery().getLat(),
+                startPoint.getLocation().getLng(),
+                startPoint.getLocation().getLat()
+        );
 
-        logger.debug("Reconstructed path with {} points", path.size());
-        return path;
+        return totalDist;
+    }
+
+    private boolean isValidMove(
+            double lng1, double lat1,
+            double lng2, double lat2,
+            List<RestrictedArea> restrictedAreas) {
+        return restrictedAreaIndex(restrictedAreas).isValidMove(lng1, lat1, lng2, lat2);
     }
 
     /**
@@ -2087,7 +2289,8 @@ public class DroneQueryServiceImpl implements DroneQueryService {
      *   Drone2 from OT: OT → D4 → D5 → OT (short trips)
      *   Total = LOW moves ✓
      *
-     * Fallback: If no drone available at nearest SP, try other SPs
+     * Each day's clusters get distinct drones by a minimum-cost assignment over estimated costs
+     * (see assignDronesToClusters), which may base a cluster at another service point
      */
     private DeliveryPathResponse calculateNearestServicePointPath(
             List<MedDispatchRec> dispatches,
@@ -2097,111 +2300,88 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             List<Integer> availableDroneIds,
             List<RestrictedArea> restrictedAreas) {
 
-        logger.info("Calculating nearest service point clustering for {} deliveries", dispatches.size());
+        trace().event("nearest-sp.start", "Calculating nearest service point clustering for {} deliveries", dispatches.size());
 
-        // Group dispatches by date first
+        // Group dispatches by date first; the dates are planned concurrently, each drone flying on one of them
         Map<LocalDate, List<MedDispatchRec>> byDate = dispatches.stream()
                 .collect(Collectors.groupingBy(MedDispatchRec::getDate));
 
+        List<Function<Set<Integer>, DeliveryPathResponse>> days = new ArrayList<>();
+        for (LocalDate date : byDate.keySet().stream().sorted().collect(Collectors.toList())) {
+            List<MedDispatchRec> dailyDispatches = byDate.get(date);
+            days.add(usedDroneIds -> calculateNearestServicePointDay(date, dailyDispatches, allDrones, servicePoints,
+                    droneAvailability, availableDroneIds, usedDroneIds, restrictedAreas));
+        }
+        List<DeliveryPathResponse> dayPaths = planReservingDrones(days);
+        if (dayPaths == null) {
+            return null;
+        }
+
         List<DeliveryPathResponse.DronePath> allDronePaths = new ArrayList<>();
         double totalCost = 0.0;
         int totalMoves = 0;
         Set<Integer> usedDroneIds = new HashSet<>();
+        for (DeliveryPathResponse dayPath : dayPaths) {
+            allDronePaths.addAll(dayPath.getDronePaths());
+            totalCost += dayPath.getTotalCost();
+            totalMoves += dayPath.getTotalMoves();
+            dayPath.getDronePaths().forEach(path -> usedDroneIds.add(path.getDroneId()));
+        }
 
-        // Process each date separately
-        for (Map.Entry<LocalDate, List<MedDispatchRec>> dateEntry : byDate.entrySet()) {
-            LocalDate date = dateEntry.getKey();
-            List<MedDispatchRec> dailyDispatches = dateEntry.getValue();
-
-            logger.debug("Processing {} deliveries for date {}", dailyDispatches.size(), date);
-
-            // STEP 1: Cluster dispatches by nearest service point
-            Map<ServicePoint, List<MedDispatchRec>> clustersBySP = clusterDispatchesByNearestSP(
-                    dailyDispatches, servicePoints);
-
-            logger.info("Clustered {} deliveries into {} groups by service point",
-                    dailyDispatches.size(), clustersBySP.size());
-
-            // STEP 2: For each cluster, find suitable drone and calculate path
-            for (Map.Entry<ServicePoint, List<MedDispatchRec>> cluster : clustersBySP.entrySet()) {
-                ServicePoint sp = cluster.getKey();
-                List<MedDispatchRec> clusterDispatches = cluster.getValue();
-
-                logger.info("Cluster at {}: {} deliveries", sp.getName(), clusterDispatches.size());
-
-                // Try to find drone at this service point
-                Integer droneId = findSuitableDroneForCluster(
-                        sp, clusterDispatches, allDrones, droneAvailability,
-                        availableDroneIds, usedDroneIds, restrictedAreas);
-
-                ServicePoint actualSP = sp;
-
-                // FALLBACK: If no drone at nearest SP, try other service points
-                if (droneId == null) {
-                    logger.warn("No suitable drone at nearest SP {} for cluster, trying other SPs...",
-                            sp.getName());
-
-                    for (ServicePoint alternateSP : servicePoints) {
-                        if (alternateSP.getId().equals(sp.getId())) continue;
-
-                        droneId = findSuitableDroneForCluster(
-                                alternateSP, clusterDispatches, allDrones, droneAvailability,
-                                availableDroneIds, usedDroneIds, restrictedAreas);
+        DeliveryPathResponse response = new DeliveryPathResponse();
+        response.setTotalCost(totalCost);
+        response.setTotalMoves(totalMoves);
+        response.setDronePaths(allDronePaths);
 
-                        if (droneId != null) {
-                            actualSP = alternateSP;
-                            logger.info("Found drone {} at alternate SP {}", droneId, alternateSP.getName());
-                            break;
-                        }
-                    }
-                }
+        trace().event("nearest-sp.solution", "Nearest SP clustering: {} drones, {} total moves, cost {}",
+                usedDroneIds.size(), totalMoves, PlannerTrace.decimals(totalCost, 2));
 
-                if (droneId == null) {
-                    logger.error("No suitable drone found for cluster at {} (tried all SPs)", sp.getName());
-                    return null;
-                }
+        return response;
+    }
 
-                final Integer finalDroneId = droneId;
-                Drone drone = allDrones.stream()
-                        .filter(d -> d.getId().equals(finalDroneId))
-                        .findFirst()
-                        .orElse(null);
+    /**
+     * One date of calculateNearestServicePointPath: cluster the day's dispatches by nearest service
+     * point and give every cluster its own drone, none of them in usedDroneIds
+     * @return the day's drone paths, or null if the clusters cannot all be assigned
+     */
+    private DeliveryPathResponse calculateNearestServicePointDay(
+            LocalDate date,
+            List<MedDispatchRec> dailyDispatches,
+            List<Drone> allDrones,
+            List<ServicePoint> servicePoints,
+            List<DroneServicePointAvailability> droneAvailability,
+            List<Integer> availableDroneIds,
+            Set<Integer> usedDroneIds,
+            List<RestrictedArea> restrictedAreas) {
 
-                if (drone == null) {
-                    logger.warn("Drone {} not found", droneId);
-                    return null;
-                }
+        trace().event("nearest-sp.date", "Processing {} deliveries for date {}", dailyDispatches.size(), date);
 
-                // Calculate path for this cluster
-                DeliveryPathResponse clusterPath = calculatePathForDrone(
-                        drone, actualSP, clusterDispatches, restrictedAreas);
+        // STEP 1: Cluster dispatches by nearest service point
+        Map<ServicePoint, List<MedDispatchRec>> clustersBySP = clusterDispatchesByNearestSP(
+                dailyDispatches, servicePoints);
 
-                if (clusterPath == null) {
-                    logger.warn("Failed to calculate path for cluster at {} with drone {}",
-                            actualSP.getName(), droneId);
-                    return null;
-                }
+        trace().event("nearest-sp.clusters", "Clustered {} deliveries into {} groups by service point",
+                dailyDispatches.size(), clustersBySP.size());
 
-                logger.info("Assigned cluster ({} deliveries) to drone {} at {}: {} moves, cost {}",
-                        clusterDispatches.size(), droneId, actualSP.getName(),
-                        clusterPath.getTotalMoves(), String.format("%.2f", clusterPath.getTotalCost()));
+        // STEP 2: Give every cluster its own drone, then take the routes of the chosen pairs
+        List<DeliveryPathResponse> clusterPaths = assignDronesToClusters(
+                dailyDispatches, new ArrayList<>(clustersBySP.entrySet()), allDrones, servicePoints,
+                droneAvailability, availableDroneIds, usedDroneIds, restrictedAreas);
 
-                allDronePaths.addAll(clusterPath.getDronePaths());
-                totalCost += clusterPath.getTotalCost();
-                totalMoves += clusterPath.getTotalMoves();
-                usedDroneIds.add(droneId);
-            }
+        if (clusterPaths == null) {
+            logger.error("No assignment of drones to the {} clusters on {}", clustersBySP.size(), date);
+            return null;
         }
 
-        DeliveryPathResponse response = new DeliveryPathResponse();
-        response.setTotalCost(totalCost);
-        response.setTotalMoves(totalMoves);
-        response.setDronePaths(allDronePaths);
-
-        logger.info("Nearest SP clustering: {} drones, {} total moves, cost {}",
-                usedDroneIds.size(), totalMoves, String.format("%.2f", totalCost));
-
-        return response;
+        List<DeliveryPathResponse.DronePath> dronePaths = new ArrayList<>();
+        double totalCost = 0.0;
+        int totalMoves = 0;
+        for (DeliveryPathResponse clusterPath : clusterPaths) {
+            dronePaths.addAll(clusterPath.getDronePaths());
+            totalCost += clusterPath.getTotalCost();
+            totalMoves += clusterPath.getTotalMoves();
+        }
+        return new DeliveryPathResponse(totalCost, totalMoves, dronePaths);
     }
 
     /**
@@ -2213,30 +2393,20 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             List<ServicePoint> servicePoints) {
 
         Map<ServicePoint, List<MedDispatchRec>> clusters = new HashMap<>();
+        ServicePointIndex index = servicePointIndex(servicePoints);
 
         for (MedDispatchRec dispatch : dispatches) {
             // Find nearest service point for this dispatch
-            ServicePoint nearestSP = null;
-            double minDistance = Double.MAX_VALUE;
-
-            for (ServicePoint sp : servicePoints) {
-                double distance = calculateEuclideanDistance(
-                        sp.getLocation().getLng(),
-                        sp.getLocation().getLat(),
-                        dispatch.getDelivery().getLng(),
-                        dispatch.getDelivery().getLat()
-                );
-
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    nearestSP = sp;
-                }
-            }
+            double lng = dispatch.getDelivery().getLng();
+            double lat = dispatch.getDelivery().getLat();
+            ServicePoint nearestSP = index.nearest(lng, lat);
 
             if (nearestSP != null) {
                 clusters.computeIfAbsent(nearestSP, k -> new ArrayList<>()).add(dispatch);
-                logger.debug("Dispatch {} assigned to cluster at {} (distance: {})",
-                        dispatch.getId(), nearestSP.getName(), String.format("%.4f", minDistance));
+                double distance = GeoMath.distance(
+                        nearestSP.getLocation().getLng(), nearestSP.getLocation().getLat(), lng, lat);
+                trace().event("nearest-sp.dispatch-clustered", "Dispatch {} assigned to cluster at {} (distance: {})",
+                        dispatch.getId(), nearestSP.getName(), PlannerTrace.decimals(distance, 4));
             }
         }
 
@@ -2244,60 +2414,146 @@ public class DroneQueryServiceImpl implements DroneQueryService {
     }
 
     /**
-     * Find suitable drone at service point that can handle all dispatches in cluster
+     * Assign one distinct drone to each cluster of a day, minimising the total estimated cost,
+     * and route only the chosen pairs.
+     *
+     * 1. Lower-bound moves of each cluster from each service point, out to its farthest delivery
+     *    and back plus a hover per delivery, from the straight-line distances in a DispatchTable.
+     * 2. Cost matrix: cluster x unused drone. A drone is flown from whichever of its service points
+     *    gives the lowest bound; pairs the drone cannot serve (requirements, availability, maxMoves
+     *    or maxCost against the bound) are forbidden. Moves dominate, cost breaks ties.
+     * 3. Hungarian assignment; route the assigned pairs. A pair whose real route is infeasible moves
+     *    on to the drone's service point with the next lowest bound, and is forbidden only once none
+     *    is left; the assignment is then solved again. Routes already found come from the route memo.
+     *
+     * @return one single-drone path per cluster, or null if no assignment works out
      */
-    private Integer findSuitableDroneForCluster(
-            ServicePoint servicePoint,
-            List<MedDispatchRec> clusterDispatches,
+    private List<DeliveryPathResponse> assignDronesToClusters(
+            List<MedDispatchRec> dailyDispatches,
+            List<Map.Entry<ServicePoint, List<MedDispatchRec>>> clusters,
             List<Drone> allDrones,
+            List<ServicePoint> servicePoints,
             List<DroneServicePointAvailability> droneAvailability,
             List<Integer> availableDroneIds,
             Set<Integer> usedDroneIds,
             List<RestrictedArea> restrictedAreas) {
 
-        // Get drones at this service point
-        List<Integer> dronesAtSP = droneAvailability.stream()
-                .filter(dsa -> dsa.getServicePointId().equals(servicePoint.getId()))
-                .flatMap(dsa -> dsa.getDrones().stream())
-                .map(da -> Integer.parseInt(da.getId()))
-                .filter(availableDroneIds::contains)
-                .filter(droneId -> !usedDroneIds.contains(droneId))
-                .collect(Collectors.toList());
+        DispatchTable table = DispatchTable.build(
+                dailyDispatches, servicePoints, droneAvailability, restrictedAreaIndex(restrictedAreas));
+        // Table rows follow dailyDispatches
+        Map<MedDispatchRec, Integer> rowOf = new IdentityHashMap<>();
+        for (int i = 0; i < dailyDispatches.size(); i++) {
+            rowOf.put(dailyDispatches.get(i), i);
+        }
+
+        // Lower-bound moves per cluster and service point
+        double[][] movesBound = new double[clusters.size()][servicePoints.size()];
+        for (int c = 0; c < clusters.size(); c++) {
+            List<MedDispatchRec> stops = clusters.get(c).getValue();
+            for (int s = 0; s < servicePoints.size(); s++) {
+                double farthest = 0.0;
+                for (MedDispatchRec stop : stops) {
+                    farthest = Math.max(farthest, table.distance(rowOf.get(stop), s));
+                }
+                // The drone only has to come within one move of a delivery
+                double outbound = Math.ceil(Math.max(0.0, farthest - DispatchTable.MOVE_DISTANCE) / DispatchTable.MOVE_DISTANCE);
+                movesBound[c][s] = 2 * outbound + stops.size();
+            }
+        }
 
-        logger.debug("Service point {} has {} available drones: {}",
-                servicePoint.getName(), dronesAtSP.size(), dronesAtSP);
+        // Candidate drones: based at some service point, allowed and not used on another day
+        List<Drone> candidates = allDrones.stream()
+                .filter(d -> availableDroneIds.contains(d.getId()) && !usedDroneIds.contains(d.getId()))
+                .filter(d -> d.getCapability() != null && table.servicePointsFor(d.getId()).length > 0)
+                .collect(Collectors.toList());
 
-        // Try each drone to see if it can handle all dispatches in cluster
-        for (Integer droneId : dronesAtSP) {
-            Drone drone = allDrones.stream()
-                    .filter(d -> d.getId().equals(droneId))
-                    .findFirst()
-                    .orElse(null);
+        double[][] cost = new double[clusters.size()][candidates.size()];
+        // Service points each pair may fly from, by ascending bound (service point order on ties), and the one in use
+        int[][][] basesOf = new int[clusters.size()][candidates.size()][];
+        int[][] baseIndex = new int[clusters.size()][candidates.size()];
+        for (int c = 0; c < clusters.size(); c++) {
+            List<MedDispatchRec> stops = clusters.get(c).getValue();
+            double[] bound = movesBound[c];
+            for (int d = 0; d < candidates.size(); d++) {
+                Drone drone = candidates.get(d);
+                cost[c][d] = Double.POSITIVE_INFINITY;
+                basesOf[c][d] = new int[0];
+                if (!stops.stream().allMatch(dispatch -> canDroneFulfillDispatch(drone, dispatch, droneAvailability))) {
+                    continue;
+                }
 
-            if (drone == null) continue;
+                List<Integer> bases = new ArrayList<>();
+                for (int s : table.servicePointsFor(drone.getId())) {
+                    if (pairCost(drone, stops, bound[s]) < Double.POSITIVE_INFINITY) {
+                        bases.add(s);
+                    }
+                }
+                bases.sort(Comparator.comparingDouble(s -> bound[s]));
+                basesOf[c][d] = bases.stream().mapToInt(Integer::intValue).toArray();
+                if (!bases.isEmpty()) {
+                    cost[c][d] = pairCost(drone, stops, bound[bases.get(0)]);
+                }
+            }
+        }
 
-            // Check if drone can handle all dispatches in cluster
-            boolean canHandleAll = clusterDispatches.stream()
-                    .allMatch(dispatch -> canDroneFulfillDispatch(drone, dispatch, droneAvailability));
+        while (!deadline().isExpired()) {
+            int[] assignment = HungarianAssignment.solve(cost);
+            if (assignment == null) {
+                trace().event("nearest-sp.no-assignment", "No drone assignment covers all {} clusters", clusters.size());
+                return null;
+            }
 
-            if (canHandleAll) {
-                // Additional check: try to calculate path to ensure it's feasible (moves within limit)
-                DeliveryPathResponse testPath = calculatePathForDrone(
-                        drone, servicePoint, clusterDispatches, restrictedAreas);
+            List<DeliveryPathResponse> paths = new ArrayList<>();
+            for (int c = 0; c < clusters.size(); c++) {
+                int d = assignment[c];
+                Drone drone = candidates.get(d);
+                ServicePoint base = servicePoints.get(basesOf[c][d][baseIndex[c][d]]);
+                List<MedDispatchRec> stops = clusters.get(c).getValue();
 
-                if (testPath != null) {
-                    logger.debug("Drone {} at {} can handle cluster of {} dispatches",
-                            droneId, servicePoint.getName(), clusterDispatches.size());
-                    return droneId;
+                DeliveryPathResponse path = calculatePathForDrone(drone, base, stops, restrictedAreas);
+                if (path == null) {
+                    baseIndex[c][d]++;
+                    if (baseIndex[c][d] < basesOf[c][d].length) {
+                        int next = basesOf[c][d][baseIndex[c][d]];
+                        trace().event("nearest-sp.pair-next-base", "Drone {} at {} cannot fly the cluster of {} deliveries, trying {}",
+                                drone.getId(), base.getName(), stops.size(), servicePoints.get(next).getName());
+                        cost[c][d] = pairCost(drone, stops, movesBound[c][next]);
+                    } else {
+                        trace().event("nearest-sp.pair-infeasible", "Drone {} cannot fly the cluster of {} deliveries from any of its service points, reassigning",
+                                drone.getId(), stops.size());
+                        cost[c][d] = Double.POSITIVE_INFINITY;
+                    }
+                    paths = null;
+                    break;
                 }
+                trace().event("nearest-sp.cluster-assigned", "Assigned cluster ({} deliveries) to drone {} at {}: {} moves, cost {}",
+                        stops.size(), drone.getId(), base.getName(),
+                        path.getTotalMoves(), PlannerTrace.decimals(path.getTotalCost(), 2));
+                paths.add(path);
+            }
+            if (paths != null) {
+                return paths;
             }
         }
-
-        logger.debug("No suitable drone found at {} for cluster of {} dispatches",
-                servicePoint.getName(), clusterDispatches.size());
         return null;
     }
 
+    /**
+     * Assignment cost of a drone flying a cluster with the given lower-bound moves, or infinity if
+     * the bound already breaks the drone's maxMoves or a delivery's maxCost
+     */
+    private double pairCost(Drone drone, List<MedDispatchRec> stops, double moves) {
+        Drone.Capability capability = drone.getCapability();
+        if (capability.getMaxMoves() != null && moves > capability.getMaxMoves()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double flightCost = calculateTotalCost(capability, (int) moves);
+        boolean withinMaxCost = stops.stream()
+                .map(stop -> stop.getRequirements().getMaxCost())
+                .allMatch(maxCost -> maxCost == null || flightCost / stops.size() <= maxCost);
+        return withinMaxCost ? moves + flightCost / ASSIGNMENT_COST_SCALE : Double.POSITIVE_INFINITY;
+    }
+
 
     /**
      * Check if drone can fulfill a single dispatch (simplified check)
@@ -2352,7 +2608,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             List<Integer> availableDroneIds,
             List<RestrictedArea> restrictedAreas) {
 
-        logger.info("Starting multi-drone path calculation for {} deliveries", dispatches.size());
+        trace().event("multi-drone.start", "Starting multi-drone path calculation for {} deliveries", dispatches.size());
 
         // If any dispatch exceeds capacity, we CANNOT split it - return null
         double maxAvailableCapacity = allDrones.stream()
@@ -2380,98 +2636,170 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                 partitionMap.get("heating").size(),
                 partitionMap.get("standard").size());
 
-        List<DeliveryPathResponse.DronePath> allDronePaths = new ArrayList<>();
-        double totalCost = 0.0;
-        int totalMoves = 0;
-        Set<Integer> usedDroneIds = new HashSet<>();
-
-        // Process each partition separately
+        // Every (partition, date) is planned concurrently, each drone flying for one of them
+        List<Function<Set<Integer>, DeliveryPathResponse>> units = new ArrayList<>();
         for (Map.Entry<String, List<MedDispatchRec>> entry : partitionMap.entrySet()) {
             String requirementType = entry.getKey();
             List<MedDispatchRec> partition = entry.getValue();
 
             if (partition.isEmpty()) continue;
 
-            logger.debug("Processing {} partition with {} deliveries", requirementType, partition.size());
+            trace().event("multi-drone.partition", "Processing {} partition with {} deliveries", requirementType, partition.size());
 
             // Group by date
             Map<LocalDate, List<MedDispatchRec>> byDate = partition.stream()
                     .collect(Collectors.groupingBy(MedDispatchRec::getDate));
 
-            for (Map.Entry<LocalDate, List<MedDispatchRec>> dateEntry : byDate.entrySet()) {
-                LocalDate date = dateEntry.getKey();
-                List<MedDispatchRec> dailyDispatches = dateEntry.getValue();
+            for (LocalDate date : byDate.keySet().stream().sorted().collect(Collectors.toList())) {
+                List<MedDispatchRec> dailyDispatches = byDate.get(date);
                 dailyDispatches.sort(Comparator.comparing(MedDispatchRec::getTime));
+                units.add(usedDroneIds -> calculatePartitionDay(requirementType, date, dailyDispatches, allDrones,
+                        servicePoints, droneAvailability, availableDroneIds, usedDroneIds, restrictedAreas));
+            }
+        }
+        List<DeliveryPathResponse> unitPaths = planReservingDrones(units);
+        if (unitPaths == null) {
+            return null;
+        }
+
+        List<DeliveryPathResponse.DronePath> allDronePaths = new ArrayList<>();
+        double totalCost = 0.0;
+        int totalMoves = 0;
+        Set<Integer> usedDroneIds = new HashSet<>();
+        for (DeliveryPathResponse unitPath : unitPaths) {
+            unitPath.getDronePaths().forEach(path -> usedDroneIds.add(path.getDroneId()));
+            allDronePaths.addAll(unitPath.getDronePaths());
+            totalCost += unitPath.getTotalCost();
+            totalMoves += unitPath.getTotalMoves();
+        }
+
+        DeliveryPathResponse response = new DeliveryPathResponse();
+        response.setTotalCost(totalCost);
+        response.setTotalMoves(totalMoves);
+        response.setDronePaths(allDronePaths);
 
-                logger.debug("Processing {} {} dispatches for {}", dailyDispatches.size(), requirementType, date);
+        trace().event("multi-drone.solution", "Multi-drone solution: {} drones, {} moves, cost {}, Drones used: {}",
+                usedDroneIds.size(), totalMoves, PlannerTrace.decimals(totalCost, 2), usedDroneIds);
 
-                // Find drones that can handle this requirement type
-                List<Integer> suitableDroneIds = filterDronesByRequirement(
-                        availableDroneIds, allDrones, requirementType, usedDroneIds,
-                        dailyDispatches, droneAvailability);
 
-                logger.debug("Found {} suitable drones for {} requirement: {}",
-                        suitableDroneIds.size(), requirementType, suitableDroneIds);
+        return response;
+    }
 
-                if (suitableDroneIds.isEmpty()) {
-                    logger.error("No suitable drones for {} requirement", requirementType);
-                    return null;
-                }
+    /**
+     * One requirement partition on one date of calculateMultiDronePath: a single drone if one can fly
+     * the day's dispatches, otherwise batches over several, none of them in usedDroneIds
+     * @return the drone paths, or null if the dispatches cannot be assigned
+     */
+    private DeliveryPathResponse calculatePartitionDay(
+            String requirementType,
+            LocalDate date,
+            List<MedDispatchRec> dailyDispatches,
+            List<Drone> allDrones,
+            List<ServicePoint> servicePoints,
+            List<DroneServicePointAvailability> droneAvailability,
+            List<Integer> availableDroneIds,
+            Set<Integer> usedDroneIds,
+            List<RestrictedArea> restrictedAreas) {
 
-                // Try single drone solution first for this partition
-                DeliveryPathResponse singleDroneResult = trySingleDroneSolution(
-                        dailyDispatches, suitableDroneIds, allDrones, servicePoints,
-                        droneAvailability, restrictedAreas, new HashSet<>(usedDroneIds));
+        trace().event("multi-drone.partition-date", "Processing {} {} dispatches for {}", dailyDispatches.size(), requirementType, date);
 
-                if (singleDroneResult != null) {
-                    logger.info("Single-drone handles {} partition: {} moves, cost: {}",
-                            requirementType, singleDroneResult.getTotalMoves(),
-                            String.format("%.2f", singleDroneResult.getTotalCost()));
-                }
+        // Find drones that can handle this requirement type
+        List<Integer> suitableDroneIds = filterDronesByRequirement(
+                availableDroneIds, allDrones, requirementType, usedDroneIds,
+                dailyDispatches, droneAvailability);
 
-                // If single drone fails (maxMoves exceeded), split into batches
-                DeliveryPathResponse multiDroneResult = null;
-                if (singleDroneResult == null) {
-                    logger.info("Single-drone failed , trying multi-drone batches");
-                    multiDroneResult = splitIntoBatches(
-                            dailyDispatches, suitableDroneIds, allDrones, servicePoints,
-                            droneAvailability, restrictedAreas, new HashSet<>(usedDroneIds));
-                }
+        trace().event("multi-drone.suitable-drones", "Found {} suitable drones for {} requirement: {}",
+                suitableDroneIds.size(), requirementType, suitableDroneIds);
 
-                // Step 7: Pick the best solution (prefer single drone if available, otherwise use multi)
-                DeliveryPathResponse bestResult = singleDroneResult != null ? singleDroneResult : multiDroneResult;
+        if (suitableDroneIds.isEmpty()) {
+            logger.error("No suitable drones for {} requirement", requirementType);
+            return null;
+        }
 
-                if (bestResult == null) {
-                    logger.error("Failed to assign {} {} dispatches - no valid solution found",
-                            dailyDispatches.size(), requirementType);
-                    return null;
-                }
+        // Try single drone solution first for this partition
+        DeliveryPathResponse singleDroneResult = trySingleDroneSolution(
+                dailyDispatches, suitableDroneIds, allDrones, servicePoints,
+                droneAvailability, restrictedAreas, new HashSet<>(usedDroneIds));
 
-                logger.info("✓ Using {} solution: {} moves, {} drones, cost: {}",
-                        singleDroneResult != null ? "single-drone" : "multi-drone",
-                        bestResult.getTotalMoves(),
-                        bestResult.getDronePaths().size(),
-                        String.format("%.2f", bestResult.getTotalCost()));
+        if (singleDroneResult != null) {
+            trace().event("multi-drone.single-drone-fits", "Single-drone handles {} partition: {} moves, cost: {}",
+                    requirementType, singleDroneResult.getTotalMoves(),
+                    PlannerTrace.decimals(singleDroneResult.getTotalCost(), 2));
+        }
 
-                // Update used drones based on best result
-                bestResult.getDronePaths().forEach(path -> usedDroneIds.add(path.getDroneId()));
+        // If single drone fails (maxMoves exceeded), split into batches
+        DeliveryPathResponse multiDroneResult = null;
+        if (singleDroneResult == null) {
+            trace().event("multi-drone.single-drone-failed", "Single-drone failed , trying multi-drone batches");
+            multiDroneResult = splitIntoBatches(
+                    dailyDispatches, suitableDroneIds, allDrones, servicePoints,
+                    droneAvailability, restrictedAreas, new HashSet<>(usedDroneIds));
+        }
 
-                allDronePaths.addAll(bestResult.getDronePaths());
-                totalCost += bestResult.getTotalCost();
-                totalMoves += bestResult.getTotalMoves();
-            }
+        // Step 7: Pick the best solution (prefer single drone if available, otherwise use multi)
+        DeliveryPathResponse bestResult = singleDroneResult != null ? singleDroneResult : multiDroneResult;
+
+        if (bestResult == null) {
+            logger.error("Failed to assign {} {} dispatches - no valid solution found",
+                    dailyDispatches.size(), requirementType);
+            return null;
         }
 
-        DeliveryPathResponse response = new DeliveryPathResponse();
-        response.setTotalCost(totalCost);
-        response.setTotalMoves(totalMoves);
-        response.setDronePaths(allDronePaths);
+        trace().event("multi-drone.partition-solved", "✓ Using {} solution: {} moves, {} drones, cost: {}",
+                singleDroneResult != null ? "single-drone" : "multi-drone",
+                bestResult.getTotalMoves(),
+                bestResult.getDronePaths().size(),
+                PlannerTrace.decimals(bestResult.getTotalCost(), 2));
+
+        return bestResult;
+    }
 
-        logger.info("Multi-drone solution: {} drones, {} moves, cost {}, Drones used: {}",
-                usedDroneIds.size(), totalMoves, String.format("%.2f", totalCost), usedDroneIds);
+    /**
+     * Plan parts of a request that must not share a drone (the dates of Strategy 2, the partitions
+     * and dates of Strategy 3) concurrently. Each part is given the drones already reserved.
+     * <p>
+     * First every part is planned on the planner pool with nothing reserved. The results are then
+     * taken in part order, each reserving its drones; a part that flies a drone an earlier part
+     * reserved, or found no plan, is planned again on this thread against the reservations so far.
+     * The outcome depends only on the part order, not on thread timing, and parts that do not
+     * compete for a drone are planned once, in parallel.
+     * @return the parts' plans in order, or null if one has no plan
+     */
+    private List<DeliveryPathResponse> planReservingDrones(List<Function<Set<Integer>, DeliveryPathResponse>> parts) {
+        Set<Integer> reserved = new HashSet<>();
+        List<DeliveryPathResponse> results = new ArrayList<>(parts.size());
+        if (parts.size() <= 1 || parallelism == 1) {
+            for (Function<Set<Integer>, DeliveryPathResponse> part : parts) {
+                DeliveryPathResponse result = part.apply(new HashSet<>(reserved));
+                if (result == null) {
+                    return null;
+                }
+                result.getDronePaths().forEach(path -> reserved.add(path.getDroneId()));
+                results.add(result);
+            }
+            return results;
+        }
 
+        List<Supplier<DeliveryPathResponse>> speculative = new ArrayList<>(parts.size());
+        for (Function<Set<Integer>, DeliveryPathResponse> part : parts) {
+            speculative.add(() -> part.apply(new HashSet<>()));
+        }
+        results.addAll(inParallel(speculative));
 
-        return response;
+        for (int p = 0; p < parts.size(); p++) {
+            DeliveryPathResponse result = results.get(p);
+            if (!reserved.isEmpty() && (result == null || result.getDronePaths().stream()
+                    .anyMatch(path -> reserved.contains(path.getDroneId())))) {
+                trace().event("reservation.replan", "Part {} of {} competes for a reserved drone, planning it again", p + 1, parts.size());
+                result = parts.get(p).apply(new HashSet<>(reserved));
+                results.set(p, result);
+            }
+            if (result == null) {
+                return null;
+            }
+            result.getDronePaths().forEach(path -> reserved.add(path.getDroneId()));
+        }
+        return results;
     }
 
     /**
@@ -2509,7 +2837,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             List<MedDispatchRec> dispatches,
             List<DroneServicePointAvailability> droneAvailability) {
 
-        logger.debug("Filtering {} drones for {} requirement, {} already used",
+        trace().event("drone-filter.start", "Filtering {} drones for {} requirement, {} already used",
                 droneIds.size(), requirementType, usedDroneIds.size());
 
         List<Integer> result = droneIds.stream()
@@ -2521,7 +2849,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                             .orElse(null);
 
                     if (drone == null || drone.getCapability() == null) {
-                        logger.debug("Drone {} has no capability", id);
+                        trace().event("drone-filter.no-capability", "Drone {} has no capability", id);
                         return false;
                     }
 
@@ -2533,14 +2861,14 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                         case "cooling":
                             hasRequiredCapability = Boolean.TRUE.equals(cap.getCooling());
                             if (!hasRequiredCapability) {
-                                logger.debug("Drone {} cooling={}, need cooling=true",
+                                trace().event("drone-filter.no-cooling", "Drone {} cooling={}, need cooling=true",
                                         id, cap.getCooling());
                             }
                             break;
                         case "heating":
                             hasRequiredCapability = Boolean.TRUE.equals(cap.getHeating());
                             if (!hasRequiredCapability) {
-                                logger.debug("Drone {} heating={}, need heating=true",
+                                trace().event("drone-filter.no-heating", "Drone {} heating={}, need heating=true",
                                         id, cap.getHeating());
                             }
                             break;
@@ -2558,7 +2886,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                     for (MedDispatchRec dispatch : dispatches) {
                         if (!isDroneAvailableForDispatch(id, dispatch, droneAvailability)) {
                             // Log once for first unavailable dispatch
-                            logger.debug("Drone {} not available for dispatch {} on {} at {}",
+                            trace().event("drone-filter.unavailable", "Drone {} not available for dispatch {} on {} at {}",
                                     id, dispatch.getId(), dispatch.getDate(), dispatch.getTime());
                             availableForAll = false;
                             break; // No need to check remaining dispatches
@@ -2569,7 +2897,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                 })
                 .collect(Collectors.toList());
 
-        logger.debug("After filtering: {} suitable drones", result.size());
+        trace().event("drone-filter.result", "After filtering: {} suitable drones", result.size());
         return result;
     }
 
@@ -2604,7 +2932,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
         List<ServicePoint> filteredServicePoints = filterServicePointsByDistance(
                 servicePoints, dispatches, suitableDroneIds, droneAvailability, usedDroneIds);
 
-        logger.info("Filtered service points for trySingleDroneSolution: {} → {}",
+        trace().event("single-batch.sp-filter", "Filtered service points for trySingleDroneSolution: {} → {}",
                 servicePoints.size(), filteredServicePoints.size());
 
         // Try all suitable drones and pick the one with minimum moves
@@ -2649,17 +2977,17 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                         bestResult = result;
                         bestMoves = result.getTotalMoves();
                         bestDroneId = droneId;
-                        logger.debug("Found better drone {} at {} with {} moves (cost: {})",
+                        trace().event("single-batch.better-drone", "Found better drone {} at {} with {} moves (cost: {})",
                                 droneId, sp.getName(), result.getTotalMoves(),
-                                String.format("%.2f", result.getTotalCost()));
+                                PlannerTrace.decimals(result.getTotalCost(), 2));
                     }
                 }
             }
         }
 
         if (bestResult != null) {
-            logger.info("Successfully assigned {} dispatches to single drone {} with minimum {} moves (cost: {})",
-                    dispatches.size(), bestDroneId, bestMoves, String.format("%.2f", bestResult.getTotalCost()));
+            trace().event("single-batch.assigned", "Successfully assigned {} dispatches to single drone {} with minimum {} moves (cost: {})",
+                    dispatches.size(), bestDroneId, bestMoves, PlannerTrace.decimals(bestResult.getTotalCost(), 2));
             usedDroneIds.add(bestDroneId);
         }
 
@@ -2681,9 +3009,10 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             List<RestrictedArea> restrictedAreas,
             Set<Integer> usedDroneIds) {
 
-        logger.info("splitIntoBatches called with {} dispatches (IDs: {})",
+        trace().event("batches.start", "splitIntoBatches called with {} dispatches (IDs: {})",
                 dispatches.size(),
-                dispatches.stream().map(d -> d.getId() + ":" + d.getRequirements().getCapacity()).collect(Collectors.toList()));
+                PlannerTrace.lazy(() -> dispatches.stream()
+                        .map(d -> d.getId() + ":" + d.getRequirements().getCapacity()).collect(Collectors.toList())));
 
         List<DeliveryPathResponse.DronePath> allPaths = new ArrayList<>();
         double totalCost = 0.0;
@@ -2708,7 +3037,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                 spDroneIds.removeAll(usedDroneIds);
 
                 if (spDroneIds.isEmpty()) {
-                    logger.debug("No available drones at service point {}", sp.getName());
+                    trace().event("batches.sp-without-drones", "No available drones at service point {}", sp.getName());
                     continue;
                 }
 
@@ -2750,7 +3079,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
                 remaining.remove(dispatch); // Removes first occurrence only
             }
 
-            logger.info("Assigned {} deliveries to drone {}, {} remaining",
+            trace().event("batches.assigned", "Assigned {} deliveries to drone {}, {} remaining",
                     best.batch.size(), best.droneId, remaining.size());
         }
 
@@ -2767,9 +3096,9 @@ public class DroneQueryServiceImpl implements DroneQueryService {
      *
      * Algorithm:
      * 1. Calculate average delivery location
-     * 2. Sort service points by distance to average location
-     * 3. Filter out service points that are > 3* farther than closest
-     * 4. BUT if filtered list has NO drones available, fall back to ALL service points
+     * 2. Find the closest service point to it (spatial index)
+     * 3. Keep service points at most 3* as far as the closest, sorted by distance (radius query)
+     * 4. BUT if none of those has a drone available, fall back to ALL service points
      */
     private List<ServicePoint> filterServicePointsByDistance(
             List<ServicePoint> servicePoints,
@@ -2792,62 +3121,37 @@ public class DroneQueryServiceImpl implements DroneQueryService {
         avgLng /= dispatches.size();
         avgLat /= dispatches.size();
 
-        // Calculate distances from each service point to average location
-        List<ServicePointDistance> spDistances = new ArrayList<>();
-        for (ServicePoint sp : servicePoints) {
-            double dist = calculateEuclideanDistance(
-                    sp.getLocation().getLng(),
-                    sp.getLocation().getLat(),
-                    avgLng, avgLat);
-            spDistances.add(new ServicePointDistance(sp, dist));
+        ServicePointIndex index = servicePointIndex(servicePoints);
+        ServicePoint closest = index.nearest(avgLng, avgLat);
+        if (closest == null) {
+            return servicePoints;
         }
 
-        // Sort by distance (closest first)
-        spDistances.sort(Comparator.comparingDouble(spd -> spd.distance));
-
-        // Find minimum distance
-        double minDistance = spDistances.get(0).distance;
-
         // Filter: keep service points within 3× of closest distance
+        double minDistance = GeoMath.distance(
+                closest.getLocation().getLng(), closest.getLocation().getLat(), avgLng, avgLat);
         double distanceThreshold = minDistance * 3.0;
-        List<ServicePoint> filtered = spDistances.stream()
-                .filter(spd -> spd.distance <= distanceThreshold)
-                .map(spd -> spd.servicePoint)
-                .collect(Collectors.toList());
 
-        // Check if filtered list has any available drones
-        List<Integer> availableDronesInFiltered = new ArrayList<>();
-        for (ServicePoint sp : filtered) {
-            List<Integer> spDrones = getDroneIdsAtServicePoint(
-                    sp.getId(), droneAvailability, suitableDroneIds);
+        // Check if any service point in range has a drone available
+        ServicePoint closestWithDrone = index.nearest(avgLng, avgLat, distanceThreshold, sp -> {
+            List<Integer> spDrones = getDroneIdsAtServicePoint(sp.getId(), droneAvailability, suitableDroneIds);
             spDrones.removeAll(usedDroneIds);
-            availableDronesInFiltered.addAll(spDrones);
-        }
+            return !spDrones.isEmpty();
+        });
 
-        if (availableDronesInFiltered.isEmpty()) {
+        if (closestWithDrone == null) {
             // No drones in nearby service points, must use all service points
-            logger.info("No drones available in nearby service points, using all {} service points", servicePoints.size());
+            trace().event("sp-filter.all", "No drones available in nearby service points, using all {} service points", servicePoints.size());
             return servicePoints;
         }
 
-        logger.info("Filtered service points: {} → {} (closest: {}, threshold: {}×)",
-                servicePoints.size(), filtered.size(),
-                spDistances.get(0).servicePoint.getName(), 3.0);
-
-        return filtered;
-    }
+        List<ServicePoint> filtered = index.within(avgLng, avgLat, distanceThreshold);
 
-    /**
-     * Helper class to store service point with its distance
-     */
-    private static class ServicePointDistance {
-        ServicePoint servicePoint;
-        double distance;
+        trace().event("sp-filter.nearby", "Filtered service points: {} → {} (closest: {}, threshold: {}×)",
+                servicePoints.size(), filtered.size(), closest.getName(), 3.0);
+        metrics().pruned("service-points", servicePoints.size() - filtered.size());
 
-        ServicePointDistance(ServicePoint sp, double dist) {
-            this.servicePoint = sp;
-            this.distance = dist;
-        }
+        return filtered;
     }
 
     /**
@@ -2860,8 +3164,8 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             ServicePoint servicePoint,
             List<RestrictedArea> restrictedAreas) {
 
-        logger.info("Finding best batch for {} remaining dispatches", remaining.size());
-        logger.info("Evaluating drones: {}", droneIds);
+        trace().event("best-batch.start", "Finding best batch for {} remaining dispatches", remaining.size());
+        trace().event("best-batch.drones", "Evaluating drones: {}", droneIds);
         BestBatchResult best = null;
 
         for (Integer droneId : droneIds) {
@@ -2885,7 +3189,7 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             for (int batchSize = maxBatch.size(); batchSize >= 1; batchSize--) {
                 List<MedDispatchRec> batch = maxBatch.subList(0, batchSize);
 
-                // Reuse existing calculatePathForDrone method
+                // Shorter prefixes seen in earlier batch rounds come from the route memo
                 DeliveryPathResponse result = calculatePathForDrone(
                         drone, servicePoint, batch, restrictedAreas);
 
@@ -2917,9 +3221,9 @@ public class DroneQueryServiceImpl implements DroneQueryService {
         }
 
         if (best != null) {
-            logger.info("Best batch: drone {} with {} dispatches", best.droneId, best.batch.size());
+            trace().event("best-batch.found", "Best batch: drone {} with {} dispatches", best.droneId, best.batch.size());
         } else {
-            logger.warn("No drone could handle any of the {} dispatches", remaining.size());
+            trace().event("best-batch.none", "No drone could handle any of the {} dispatches", remaining.size());
         }
 
         return best;
@@ -3006,4 +3310,17 @@ public class DroneQueryServiceImpl implements DroneQueryService {
             this.response = response;
         }
     }
+
+    /**
+     * Helper class holding one day's flight of a drone
+     */
+    private static class Flight {
+        final List<DeliveryPathResponse.Delivery> deliveries;
+        final int moves;
+
+        Flight(List<DeliveryPathResponse.Delivery> deliveries, int moves) {
+            this.deliveries = deliveries;
+            this.moves = moves;
+        }
+    }
 }
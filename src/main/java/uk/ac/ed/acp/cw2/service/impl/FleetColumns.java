@@ -0,0 +1,226 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The drone fleet as capability columns and availability bitsets, so queryAvailableDrones can filter
+ * the whole fleet at once instead of checking each drone against each dispatch.
+ * <p>
+ * Filtering runs in two stages:
+ * 1. Bulk: the dispatch requirements are aggregated once (cooling, heating, largest capacity, the
+ *    distinct weekday/time slots) and every drone is tested per column, one bit per drone, with
+ *    the bitsets ANDed together.
+ * 2. Survivors only: the moves and cost estimates, which depend on where the drone is based,
+ *    are checked against the {@link DispatchTable}.
+ * <p>
+ * The numeric column comparisons are plain branch-free loops over primitive arrays, which the JIT
+ * compiles to SIMD code on its own.
+ * Built per request; not safe for concurrent use.
+ */
+public final class FleetColumns {
+
+    private final List<Drone> drones;
+    private final int size;
+
+    private final BitSet hasCapability;
+    private final BitSet cooling;
+    private final BitSet heating;
+    // Missing capacity / maxMoves are stored as NaN, missing costs as 0
+    private final double[] capacity;
+    private final double[] maxMoves;
+    private final double[] costInitial;
+    private final double[] costPerMove;
+    private final double[] costFinal;
+
+    private final List<DroneServicePointAvailability> droneAvailability;
+    // Drone indices by id as written in the availability data
+    private final Map<String, List<Integer>> indicesById = new HashMap<>();
+    // Drones available at a weekday and time, computed on first use
+    private final Map<String, BitSet> availableAt = new HashMap<>();
+
+    private FleetColumns(List<Drone> drones, List<DroneServicePointAvailability> droneAvailability) {
+        this.drones = drones;
+        this.size = drones.size();
+        this.droneAvailability = droneAvailability;
+        hasCapability = new BitSet(size);
+        cooling = new BitSet(size);
+        heating = new BitSet(size);
+        capacity = new double[size];
+        maxMoves = new double[size];
+        costInitial = new double[size];
+        costPerMove = new double[size];
+        costFinal = new double[size];
+
+        for (int d = 0; d < size; d++) {
+            Drone drone = drones.get(d);
+            indicesById.computeIfAbsent(String.valueOf(drone.getId()), id -> new ArrayList<>()).add(d);
+
+            Drone.Capability c = drone.getCapability();
+            if (c == null) {
+                capacity[d] = Double.NaN;
+                maxMoves[d] = Double.NaN;
+                continue;
+            }
+            hasCapability.set(d);
+            cooling.set(d, Boolean.TRUE.equals(c.getCooling()));
+            heating.set(d, Boolean.TRUE.equals(c.getHeating()));
+            capacity[d] = c.getCapacity() != null ? c.getCapacity() : Double.NaN;
+            maxMoves[d] = c.getMaxMoves() != null ? c.getMaxMoves() : Double.NaN;
+            costInitial[d] = c.getCostInitial() != null ? c.getCostInitial() : 0.0;
+            costPerMove[d] = c.getCostPerMove() != null ? c.getCostPerMove() : 0.0;
+            costFinal[d] = c.getCostFinal() != null ? c.getCostFinal() : 0.0;
+        }
+    }
+
+    public static FleetColumns build(List<Drone> drones, List<DroneServicePointAvailability> droneAvailability) {
+        return new FleetColumns(drones, droneAvailability);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ids of the drones that can fulfil every dispatch in the table, in fleet order
+     */
+    public List<Integer> availableFor(DispatchTable table) {
+        BitSet candidates = candidatesFor(table);
+        List<Integer> droneIds = new ArrayList<>();
+        for (int d = candidates.nextSetBit(0); d >= 0; d = candidates.nextSetBit(d + 1)) {
+            if (withinMoveAndCostLimits(d, table)) {
+                droneIds.add(drones.get(d).getId());
+            }
+        }
+        return droneIds;
+    }
+
+    /**
+     * Stage 1: drones whose capabilities and availability fit every dispatch
+     */
+    public BitSet candidatesFor(DispatchTable table) {
+        BitSet candidates = (BitSet) hasCapability.clone();
+
+        // A drone fulfilling every dispatch needs cooling if any dispatch does, likewise heating
+        if (table.anyNeedsCooling()) {
+            candidates.and(cooling);
+        }
+        if (table.anyNeedsHeating()) {
+            candidates.and(heating);
+        }
+        if (!Double.isNaN(table.maxCapacity())) {
+            candidates.and(atLeast(capacity, table.maxCapacity()));
+        }
+
+        for (int i = 0; i < table.size() && !candidates.isEmpty(); i++) {
+            LocalDate date = table.date(i);
+            LocalTime time = table.time(i);
+            if (date != null && time != null) {
+                candidates.and(availableAt(date.getDayOfWeek(), time));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Bit d set where column[d] >= min; NaN entries never match
+     */
+    static BitSet atLeast(double[] column, double min) {
+        long[] words = new long[(column.length + 63) >>> 6];
+        for (int i = 0; i < column.length; i++) {
+            words[i >>> 6] |= (column[i] >= min ? 1L : 0L) << i;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Drones with a time slot on this weekday covering the time, at any service point
+     */
+    private BitSet availableAt(DayOfWeek dayOfWeek, LocalTime time) {
+        return availableAt.computeIfAbsent(dayOfWeek + "@" + time, key -> {
+            BitSet available = new BitSet(size);
+            String day = dayOfWeek.toString();
+            for (DroneServicePointAvailability sp : droneAvailability) {
+                if (sp.getDrones() == null) continue;
+                for (DroneServicePointAvailability.DroneAvailability da : sp.getDrones()) {
+                    List<Integer> indices = indicesById.get(da.getId());
+                    if (indices == null || !hasSlot(da, day, time)) continue;
+                    for (int d : indices) {
+                        available.set(d);
+                    }
+                }
+            }
+            return available;
+        });
+    }
+
+    private static boolean hasSlot(DroneServicePointAvailability.DroneAvailability da, String day, LocalTime time) {
+        if (da.getAvailability() == null) {
+            return false;
+        }
+        for (DroneServicePointAvailability.TimeSlot ts : da.getAvailability()) {
+            if (!day.equalsIgnoreCase(ts.getDayOfWeek())) continue;
+            LocalTime from = ts.getFrom();
+            LocalTime until = ts.getUntil();
+            if (from != null && until != null && !time.isBefore(from) && !time.isAfter(until)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stage 2: maxMoves and maxCost estimates (rough approximations, as per instructor: "rather on the
+     * sample side with margins so large that any normal rounding / simplifying assumptions won't matter")
+     */
+    private boolean withinMoveAndCostLimits(int d, DispatchTable table) {
+        int[] servicePoints = table.servicePointsFor(drones.get(d).getId());
+
+        // Moves: straight-line round trips from the drone's service point nearest to the first delivery
+        if (!Double.isNaN(maxMoves[d])) {
+            int nearestSP = table.closestServicePoint(0, servicePoints);
+            double estimatedMoves = nearestSP < 0 ? Double.MAX_VALUE : table.tripMoves(nearestSP);
+            if (estimatedMoves > maxMoves[d]) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < table.size(); i++) {
+            double maxCost = table.maxCost(i);
+            if (!Double.isNaN(maxCost) && estimateDispatchCost(d, table, i, servicePoints) > maxCost) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimate the cost for a single dispatch assuming it's part of a delivery pack.
+     * For continuous delivery (same date): SP → L1 → L2 → ... → SP, cost shared pro-rata
+     * For a single dispatch or different dates: SP → delivery → SP with full fixed costs
+     */
+    private double estimateDispatchCost(int d, DispatchTable table, int i, int[] servicePoints) {
+        // Closest service point that has this drone
+        int closestSP = table.closestServicePoint(i, servicePoints);
+        if (closestSP < 0) {
+            return Double.MAX_VALUE;
+        }
+
+        if (table.size() == 1 || !table.allSameDate()) {
+            double estimatedMoves = Math.ceil(table.distance(i, closestSP) * 2 / DispatchTable.MOVE_DISTANCE);
+            return (costInitial[d] + costFinal[d]) + estimatedMoves * costPerMove[d];
+        }
+
+        double totalFlightCost = costInitial[d] + (table.sameDayRouteMoves(closestSP) * costPerMove[d]) + costFinal[d];
+        return totalFlightCost / table.size();
+    }
+}
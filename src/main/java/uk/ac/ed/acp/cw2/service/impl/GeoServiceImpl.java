@@ -2,6 +2,7 @@ package uk.ac.ed.acp.cw2.service.impl;
 
 import org.springframework.stereotype.Service;
 import uk.ac.ed.acp.cw2.dto.LngLat;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
 import uk.ac.ed.acp.cw2.service.GeoService;
 
 import java.util.List;
@@ -12,18 +13,20 @@ import java.util.List;
 @Service
 public class GeoServiceImpl implements GeoService {
 
-    // Constants
-    private static final double CLOSE_THRESHOLD = 0.00015;
-    private static final double MOVE_DISTANCE = 0.00015;
-
     /**
      * Calculate the Euclidean distance between two positions
      */
     @Override
     public double calculateDistance(LngLat position1, LngLat position2) {
-        double deltaLng = position1.getLng() - position2.getLng();
-        double deltaLat = position1.getLat() - position2.getLat();
-        return Math.sqrt(deltaLng * deltaLng + deltaLat * deltaLat);
+        return GeoMath.distance(position1.getLng(), position1.getLat(), position2.getLng(), position2.getLat());
+    }
+
+    /**
+     * Calculate the Euclidean distance between two primitive positions
+     */
+    @Override
+    public double calculateDistance(double lng1, double lat1, double lng2, double lat2) {
+        return GeoMath.distance(lng1, lat1, lng2, lat2);
     }
 
     /**
@@ -31,7 +34,15 @@ public class GeoServiceImpl implements GeoService {
      */
     @Override
     public boolean isCloseTo(LngLat position1, LngLat position2) {
-        return calculateDistance(position1, position2) < CLOSE_THRESHOLD;
+        return GeoMath.isCloseTo(position1.getLng(), position1.getLat(), position2.getLng(), position2.getLat());
+    }
+
+    /**
+     * Check if two primitive positions are close to each other (distance < 0.00015)
+     */
+    @Override
+    public boolean isCloseTo(double lng1, double lat1, double lng2, double lat2) {
+        return GeoMath.isCloseTo(lng1, lat1, lng2, lat2);
     }
 
     /**
@@ -39,14 +50,17 @@ public class GeoServiceImpl implements GeoService {
      */
     @Override
     public LngLat nextPosition(LngLat start, double angle) {
-        // change angle to radians
-        double radians = Math.toRadians(angle);
-
-        // calculate new position
-        double newLng = start.getLng() + MOVE_DISTANCE * Math.cos(radians);
-        double newLat = start.getLat() + MOVE_DISTANCE * Math.sin(radians);
+        double[] next = new double[2];
+        GeoMath.nextPosition(start.getLng(), start.getLat(), angle, next);
+        return new LngLat(next[0], next[1]);
+    }
 
-        return new LngLat(newLng, newLat);
+    /**
+     * Write the next position for a primitive start position and an angle into out
+     */
+    @Override
+    public void nextPosition(double lng, double lat, double angle, double[] out) {
+        GeoMath.nextPosition(lng, lat, angle, out);
     }
 
     /**
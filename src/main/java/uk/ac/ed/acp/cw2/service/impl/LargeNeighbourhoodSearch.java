@@ -0,0 +1,338 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Large neighbourhood search over which drone flies which dispatch in a multi-drone plan.
+ * <p>
+ * Each iteration removes a few random dispatches (destroy) and puts each back at the cheapest
+ * feasible position in any drone's flight for its date (repair); the result is kept if it is no
+ * worse. Everything is measured on estimates: a leg costs ceil(straight-line distance / move)
+ * moves, looked up in a matrix computed once, plus one hover move per delivery. Restricted areas
+ * are ignored, so the caller routes the best assignment for real before using it.
+ * <p>
+ * Feasibility of an insertion: the drone may serve the dispatch (decided by the caller), the
+ * flight's total capacity fits the drone, cooling and heating are not mixed in one flight and the
+ * drone's estimated moves stay within its maxMoves.
+ * <p>
+ * The problem is immutable once built; each {@link #search} call keeps its own state, so several
+ * searches with different seeds can run in parallel on one instance.
+ */
+public final class LargeNeighbourhoodSearch {
+
+    /** Seed of the first parallel search; search w uses DEFAULT_SEED + w */
+    public static final long DEFAULT_SEED = 42;
+
+    // Largest number of dispatches removed in one destroy step
+    private static final int MAX_REMOVED = 4;
+
+    private final int vehicles;
+    private final int size;
+    private final int days;
+    private final int[] day;
+    private final double[] load;
+    private final boolean[] cooling;
+    private final boolean[] heating;
+    private final boolean[][] allowed;
+    private final double[] capacity;
+    private final int[] maxMoves;
+    // Leg moves between nodes: 0..vehicles-1 are the drones' service points, then the dispatches
+    private final int[][] legMoves;
+    // Starting flights, [vehicle][day] -> dispatch indices in flight order
+    private final List<List<List<Integer>>> initialFlights;
+    private final long initialMoves;
+
+    /**
+     * @param dispatches     the dispatches of the plan
+     * @param baseLng        service point longitude per drone
+     * @param baseLat        service point latitude per drone
+     * @param capacity       capacity per drone, NaN for no limit
+     * @param maxMoves       maxMoves per drone, Integer.MAX_VALUE for no limit
+     * @param allowed        [drone][dispatch]: the drone meets the dispatch's requirements and availability
+     * @param initialRoutes  per drone, the dispatch indices it flies now, in flight order
+     */
+    public LargeNeighbourhoodSearch(List<MedDispatchRec> dispatches,
+                                    double[] baseLng, double[] baseLat,
+                                    double[] capacity, int[] maxMoves,
+                                    boolean[][] allowed,
+                                    List<List<Integer>> initialRoutes) {
+        this.vehicles = baseLng.length;
+        this.size = dispatches.size();
+        this.capacity = capacity;
+        this.maxMoves = maxMoves;
+        this.allowed = allowed;
+
+        day = new int[size];
+        load = new double[size];
+        cooling = new boolean[size];
+        heating = new boolean[size];
+        Map<LocalDate, Integer> dayIndex = new HashMap<>();
+        double[] lng = new double[vehicles + size];
+        double[] lat = new double[vehicles + size];
+        for (int v = 0; v < vehicles; v++) {
+            lng[v] = baseLng[v];
+            lat[v] = baseLat[v];
+        }
+        for (int i = 0; i < size; i++) {
+            MedDispatchRec dispatch = dispatches.get(i);
+            day[i] = dayIndex.computeIfAbsent(dispatch.getDate(), date -> dayIndex.size());
+            MedDispatchRec.Requirements requirements = dispatch.getRequirements();
+            load[i] = requirements != null && requirements.getCapacity() != null ? requirements.getCapacity() : 0.0;
+            cooling[i] = requirements != null && Boolean.TRUE.equals(requirements.getCooling());
+            heating[i] = requirements != null && Boolean.TRUE.equals(requirements.getHeating());
+            lng[vehicles + i] = dispatch.getDelivery().getLng();
+            lat[vehicles + i] = dispatch.getDelivery().getLat();
+        }
+        days = dayIndex.size();
+
+        int nodes = vehicles + size;
+        legMoves = new int[nodes][nodes];
+        for (int a = 0; a < nodes; a++) {
+            for (int b = a + 1; b < nodes; b++) {
+                int moves = (int) Math.ceil(GeoMath.distance(lng[a], lat[a], lng[b], lat[b]) / DispatchTable.MOVE_DISTANCE);
+                legMoves[a][b] = moves;
+                legMoves[b][a] = moves;
+            }
+        }
+
+        initialFlights = new ArrayList<>(vehicles);
+        for (int v = 0; v < vehicles; v++) {
+            List<List<Integer>> flights = new ArrayList<>(days);
+            for (int d = 0; d < days; d++) {
+                flights.add(new ArrayList<>());
+            }
+            for (int i : initialRoutes.get(v)) {
+                flights.get(day[i]).add(i);
+            }
+            initialFlights.add(flights);
+        }
+        initialMoves = new State().total;
+    }
+
+    /**
+     * Estimated moves of the starting plan
+     */
+    public long getInitialMoves() {
+        return initialMoves;
+    }
+
+    /**
+     * Run one search until maxIterations or the deadline (System.nanoTime), whichever comes first
+     */
+    public Result search(long seed, int maxIterations, long deadlineNanos) {
+        Random random = new Random(seed);
+        State current = new State();
+        long bestMoves = current.total;
+        int[] bestVehicleOf = current.vehicleOf();
+
+        int iterations = 0;
+        while (iterations < maxIterations && System.nanoTime() - deadlineNanos < 0) {
+            iterations++;
+            State next = current.copy();
+            if (!next.destroyAndRepair(random)) {
+                continue;
+            }
+            if (next.total <= current.total) {
+                current = next;
+                if (current.total < bestMoves) {
+                    bestMoves = current.total;
+                    bestVehicleOf = current.vehicleOf();
+                }
+            }
+        }
+        return new Result(bestMoves, bestVehicleOf, iterations);
+    }
+
+    /**
+     * Best assignment a search found
+     */
+    public static final class Result {
+        private final long moves;
+        private final int[] vehicleOf;
+        private final int iterations;
+
+        Result(long moves, int[] vehicleOf, int iterations) {
+            this.moves = moves;
+            this.vehicleOf = vehicleOf;
+            this.iterations = iterations;
+        }
+
+        /** Estimated total moves */
+        public long getMoves() {
+            return moves;
+        }
+
+        /** Drone index per dispatch index */
+        public int[] getVehicleOf() {
+            return vehicleOf;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+    }
+
+    /**
+     * Flights of every drone with their running totals
+     */
+    private final class State {
+        // [vehicle][day] -> dispatch indices in flight order
+        final List<List<List<Integer>>> flights;
+        final long[] vehicleMoves;
+        long total;
+
+        State() {
+            flights = new ArrayList<>(vehicles);
+            for (List<List<Integer>> initial : initialFlights) {
+                List<List<Integer>> copy = new ArrayList<>(days);
+                for (List<Integer> flight : initial) {
+                    copy.add(new ArrayList<>(flight));
+                }
+                flights.add(copy);
+            }
+            vehicleMoves = new long[vehicles];
+            for (int v = 0; v < vehicles; v++) {
+                for (List<Integer> flight : flights.get(v)) {
+                    vehicleMoves[v] += flightMoves(v, flight);
+                }
+                total += vehicleMoves[v];
+            }
+        }
+
+        private State(State other) {
+            flights = new ArrayList<>(vehicles);
+            for (List<List<Integer>> vehicleFlights : other.flights) {
+                List<List<Integer>> copy = new ArrayList<>(days);
+                for (List<Integer> flight : vehicleFlights) {
+                    copy.add(new ArrayList<>(flight));
+                }
+                flights.add(copy);
+            }
+            vehicleMoves = other.vehicleMoves.clone();
+            total = other.total;
+        }
+
+        State copy() {
+            return new State(this);
+        }
+
+        int[] vehicleOf() {
+            int[] vehicleOf = new int[size];
+            for (int v = 0; v < vehicles; v++) {
+                for (List<Integer> flight : flights.get(v)) {
+                    for (int i : flight) {
+                        vehicleOf[i] = v;
+                    }
+                }
+            }
+            return vehicleOf;
+        }
+
+        /**
+         * Remove 1..MAX_REMOVED random dispatches and reinsert each at its cheapest feasible position
+         * @return false if some dispatch fits nowhere
+         */
+        boolean destroyAndRepair(Random random) {
+            int[] owner = vehicleOf();
+            int count = 1 + random.nextInt(Math.min(MAX_REMOVED, size));
+
+            // Partial Fisher-Yates shuffle picks the removed dispatches
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            for (int k = 0; k < count; k++) {
+                int pick = k + random.nextInt(size - k);
+                int swap = order[k];
+                order[k] = order[pick];
+                order[pick] = swap;
+            }
+
+            for (int k = 0; k < count; k++) {
+                int i = order[k];
+                int v = owner[i];
+                List<Integer> flight = flights.get(v).get(day[i]);
+                long before = flightMoves(v, flight);
+                flight.remove(Integer.valueOf(i));
+                long change = flightMoves(v, flight) - before;
+                vehicleMoves[v] += change;
+                total += change;
+            }
+
+            for (int k = 0; k < count; k++) {
+                if (!insertCheapest(order[k])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean insertCheapest(int i) {
+            int bestVehicle = -1;
+            int bestPosition = -1;
+            long bestDelta = Long.MAX_VALUE;
+
+            for (int v = 0; v < vehicles; v++) {
+                if (!allowed[v][i]) {
+                    continue;
+                }
+                List<Integer> flight = flights.get(v).get(day[i]);
+                if (!fitsFlight(v, flight, i)) {
+                    continue;
+                }
+                for (int p = 0; p <= flight.size(); p++) {
+                    int previous = p == 0 ? v : vehicles + flight.get(p - 1);
+                    int next = p == flight.size() ? v : vehicles + flight.get(p);
+                    long delta = legMoves[previous][vehicles + i] + legMoves[vehicles + i][next]
+                            - (flight.isEmpty() ? 0 : legMoves[previous][next]) + 1;
+                    if (delta < bestDelta && vehicleMoves[v] + delta <= maxMoves[v]) {
+                        bestDelta = delta;
+                        bestVehicle = v;
+                        bestPosition = p;
+                    }
+                }
+            }
+
+            if (bestVehicle < 0) {
+                return false;
+            }
+            flights.get(bestVehicle).get(day[i]).add(bestPosition, i);
+            vehicleMoves[bestVehicle] += bestDelta;
+            total += bestDelta;
+            return true;
+        }
+
+        private boolean fitsFlight(int v, List<Integer> flight, int i) {
+            double flightLoad = load[i];
+            for (int j : flight) {
+                if ((cooling[i] && heating[j]) || (heating[i] && cooling[j])) {
+                    return false;
+                }
+                flightLoad += load[j];
+            }
+            return Double.isNaN(capacity[v]) || flightLoad <= capacity[v];
+        }
+    }
+
+    /**
+     * Out from the service point through the flight's deliveries and back, one hover per delivery
+     */
+    private long flightMoves(int v, List<Integer> flight) {
+        if (flight.isEmpty()) {
+            return 0;
+        }
+        long moves = legMoves[v][vehicles + flight.get(0)] + flight.size();
+        for (int k = 0; k + 1 < flight.size(); k++) {
+            moves += legMoves[vehicles + flight.get(k)][vehicles + flight.get(k + 1)];
+        }
+        return moves + legMoves[vehicles + flight.get(flight.size() - 1)][v];
+    }
+}
@@ -0,0 +1,203 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded memo of planning results.
+ * <p>
+ * Entries are weighed (a week-long plan with thousands of waypoints costs far more than a list of
+ * drone ids) and the least recently used entries are evicted until the total weight fits. Entries
+ * also expire a fixed time after they were written. Every entry belongs to one reference data
+ * version; the first access with a different version drops them all. Single entries can be
+ * replaced or invalidated when only part of the data they depend on changes.
+ * Null results (no feasible plan) can be cached as well.
+ */
+public class PlanCache {
+
+    private final long maxWeight;
+    private final long ttlNanos;
+
+    // Access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long version;
+    private long totalWeight;
+
+    private long hits;
+    private long misses;
+    private long sizeEvictions;
+    private long expirations;
+    private long invalidations;
+
+    public PlanCache(long maxWeight, long ttlMillis) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * @return the cached entry, or null on a miss (absent, expired or from another data version)
+     */
+    public synchronized Entry get(String key, long referenceVersion) {
+        switchVersion(referenceVersion);
+        Entry entry = entries.get(key);
+        if (entry != null && isExpired(entry, System.nanoTime())) {
+            remove(key, entry);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    /**
+     * Store a result; entries heavier than the whole cache are not stored
+     */
+    public synchronized void put(String key, long referenceVersion, Object value, long weight) {
+        switchVersion(referenceVersion);
+        if (weight > maxWeight) {
+            return;
+        }
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        entries.put(key, new Entry(value, weight, System.nanoTime()));
+        totalWeight += weight;
+        evict();
+    }
+
+    /**
+     * Copy of the current entries, for a pass that may replace or invalidate some of them
+     */
+    public synchronized Map<String, Entry> snapshot() {
+        return new LinkedHashMap<>(entries);
+    }
+
+    /**
+     * Swap in a new value for an entry if it is still the one given; it keeps its original expiry
+     */
+    public synchronized void replace(String key, Entry expected, Object value, long weight) {
+        if (entries.get(key) != expected) {
+            return;
+        }
+        remove(key, expected);
+        if (weight > maxWeight) {
+            invalidations++;
+            return;
+        }
+        entries.put(key, new Entry(value, weight, expected.writtenAtNanos));
+        totalWeight += weight;
+        evict();
+    }
+
+    /**
+     * Drop an entry if it is still the one given, e.g. because the data it was computed from changed
+     */
+    public synchronized void invalidate(String key, Entry expected) {
+        if (entries.get(key) == expected) {
+            remove(key, expected);
+            invalidations++;
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    private void switchVersion(long referenceVersion) {
+        if (referenceVersion != version) {
+            clear();
+            version = referenceVersion;
+        }
+    }
+
+    /**
+     * Drop expired entries, then least recently used ones until the weight fits
+     */
+    private void evict() {
+        if (totalWeight <= maxWeight) {
+            return;
+        }
+        long now = System.nanoTime();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (isExpired(entry, now)) {
+                it.remove();
+                totalWeight -= entry.weight;
+                expirations++;
+            }
+        }
+        it = entries.values().iterator();
+        while (totalWeight > maxWeight && it.hasNext()) {
+            Entry entry = it.next();
+            it.remove();
+            totalWeight -= entry.weight;
+            sizeEvictions++;
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.writtenAtNanos >= ttlNanos;
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        totalWeight -= entry.weight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getSizeEvictions() {
+        return sizeEvictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * A cached result; the value may be null
+     */
+    public static class Entry {
+        private final Object value;
+        private final long weight;
+        private final long writtenAtNanos;
+
+        Entry(Object value, long weight, long writtenAtNanos) {
+            this.value = value;
+            this.weight = weight;
+            this.writtenAtNanos = writtenAtNanos;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T getValue() {
+            return (T) value;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.planner.PathSearchResult;
+import uk.ac.ed.acp.cw2.planner.PathSearchStrategy;
+
+/**
+ * Micrometer meters for the stages of calcDeliveryPath, published on the actuator metrics and
+ * prometheus endpoints:
+ * - planner.plan (timer, outcome): whole requests by plan status.
+ * - planner.ilp.fetch (timer, resource, outcome): each ILP REST call.
+ * - planner.strategy (timer, strategy, outcome) and planner.strategy.wins (counter, strategy).
+ * - planner.drone.path (timer, outcome): each calculatePathForDrone call.
+ * - planner.search (timer) and planner.search.expanded (summary of nodes expanded, one per search
+ *   iteration), both tagged by search strategy and outcome.
+ * - planner.rrt.fallbacks (counter, outcome): legs the lattice search gave up on.
+ * - planner.order (counter, algorithm): DP or Greedy delivery ordering.
+ * - planner.candidates.pruned (counter, stage): drones or service points ruled out before any path is built.
+ * - planner.routes (counter, outcome): drone routes computed, or reused from earlier in the same request.
+ * - planner.distance-field.build (timer) and planner.distance-field.returns (counter, outcome): service
+ *   point distance fields built, and blocked returns flown along one or left to the lattice search.
+ * - planner.leg-cache.repairs and planner.cache.repairs (counter, outcome): cached legs and plans a
+ *   temporary restricted area change touched, repaired in place or dropped.
+ * <p>
+ * Without a registry (plain unit tests) the meters are no-ops.
+ */
+public final class PlannerMetrics {
+
+    private final MeterRegistry registry;
+
+    public PlannerMetrics(MeterRegistry registry) {
+        // A composite registry with no children hands out no-op meters
+        this.registry = registry != null ? registry : new CompositeMeterRegistry();
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void plan(Timer.Sample sample, DeliveryPathResponse.PlanStatus status) {
+        sample.stop(Timer.builder("planner.plan")
+                .description("calcDeliveryPath requests")
+                .tag("outcome", status == null ? "none" : status.headerValue())
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void fetch(Timer.Sample sample, String resource, boolean success) {
+        sample.stop(Timer.builder("planner.ilp.fetch")
+                .description("ILP REST service calls")
+                .tag("resource", resource)
+                .tag("outcome", success ? "success" : "error")
+                .register(registry));
+    }
+
+    public void strategy(Timer.Sample sample, String strategy, boolean found) {
+        sample.stop(Timer.builder("planner.strategy")
+                .description("Planning strategy runs")
+                .tag("strategy", strategy)
+                .tag("outcome", found ? "found" : "none")
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void strategyWon(String strategy) {
+        Counter.builder("planner.strategy.wins")
+                .description("Plans returned, by the strategy that produced them")
+                .tag("strategy", strategy)
+                .register(registry)
+                .increment();
+    }
+
+    public void dronePath(Timer.Sample sample, boolean found) {
+        sample.stop(Timer.builder("planner.drone.path")
+                .description("Single drone path calculations")
+                .tag("outcome", found ? "found" : "infeasible")
+                .register(registry));
+    }
+
+    public void search(Timer.Sample sample, PathSearchStrategy strategy, PathSearchResult result) {
+        String outcome = result.isFound() ? "found" : "not-found";
+        sample.stop(Timer.builder("planner.search")
+                .description("Lattice searches around restricted areas")
+                .tag("search", strategy.name())
+                .tag("outcome", outcome)
+                .register(registry));
+        DistributionSummary.builder("planner.search.expanded")
+                .description("Nodes expanded per lattice search")
+                .baseUnit("nodes")
+                .tag("search", strategy.name())
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(result.getExpandedNodes());
+    }
+
+    public void rrtFallback(boolean found) {
+        Counter.builder("planner.rrt.fallbacks")
+                .description("Legs planned by the RRT fallback after the lattice search failed")
+                .tag("outcome", found ? "found" : "failed")
+                .register(registry)
+                .increment();
+    }
+
+    public void order(String algorithm) {
+        Counter.builder("planner.order")
+                .description("Delivery orderings, by algorithm")
+                .tag("algorithm", algorithm)
+                .register(registry)
+                .increment();
+    }
+
+    public void pruned(String stage, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter.builder("planner.candidates.pruned")
+                .description("Candidates ruled out before building a path")
+                .tag("stage", stage)
+                .register(registry)
+                .increment(count);
+    }
+
+    public void routes(int routed, int reused) {
+        route("routed", routed);
+        route("reused", reused);
+    }
+
+    public void distanceFieldBuilt(Timer.Sample sample) {
+        sample.stop(Timer.builder("planner.distance-field.build")
+                .description("Service point distance fields built")
+                .register(registry));
+    }
+
+    public void distanceFieldReturn(boolean descended) {
+        Counter.builder("planner.distance-field.returns")
+                .description("Blocked returns to a service point, by whether its distance field led home")
+                .tag("outcome", descended ? "descended" : "fallback")
+                .register(registry)
+                .increment();
+    }
+
+    public void legRepair(boolean repaired) {
+        Counter.builder("planner.leg-cache.repairs")
+                .description("Cached legs touched by a temporary restricted area change")
+                .tag("outcome", repaired ? "repaired" : "dropped")
+                .register(registry)
+                .increment();
+    }
+
+    public void planRepair(boolean repaired) {
+        Counter.builder("planner.cache.repairs")
+                .description("Cached plans touched by a temporary restricted area change")
+                .tag("outcome", repaired ? "repaired" : "dropped")
+                .register(registry)
+                .increment();
+    }
+
+    private void route(String outcome, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter.builder("planner.routes")
+                .description("Drone routes requested by the strategies")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment(count);
+    }
+}
@@ -0,0 +1,76 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.service.ReferenceDataService;
+
+import java.util.Arrays;
+
+/**
+ * Computes the reference data version by fetching the four ILP datasets and hashing their content.
+ * The version is re-checked at most once per refresh interval, so a burst of requests costs one
+ * round of fetches rather than one per request.
+ */
+@Service
+public class ReferenceDataServiceImpl implements ReferenceDataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataServiceImpl.class);
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private String ilpEndpoint;
+
+    // How long a computed version is trusted before the data is fetched again
+    @Value("${planner.reference-data.refresh-ms:5000}")
+    private long refreshMillis = 5000;
+
+    private long version;
+    private long checkedAtNanos;
+    private boolean checked;
+
+    @Override
+    public synchronized long snapshotVersion() {
+        long now = System.nanoTime();
+        if (!checked || now - checkedAtNanos >= refreshMillis * 1_000_000L) {
+            long latest = fetchVersion();
+            if (checked && latest != version) {
+                logger.info("Reference data changed: version {} -> {}",
+                        Long.toHexString(version), Long.toHexString(latest));
+            }
+            version = latest;
+            checkedAtNanos = now;
+            checked = true;
+        }
+        return version;
+    }
+
+    /**
+     * Combine the content hashes of all four datasets (the DTOs' equals/hashCode are value based)
+     */
+    private long fetchVersion() {
+        Drone[] drones = restTemplate.getForObject(ilpEndpoint + "/drones", Drone[].class);
+        DroneServicePointAvailability[] availability = restTemplate.getForObject(
+                ilpEndpoint + "/drones-for-service-points", DroneServicePointAvailability[].class);
+        ServicePoint[] servicePoints = restTemplate.getForObject(
+                ilpEndpoint + "/service-points", ServicePoint[].class);
+        RestrictedArea[] restrictedAreas = restTemplate.getForObject(
+                ilpEndpoint + "/restricted-areas", RestrictedArea[].class);
+
+        long hash = 17;
+        hash = hash * 1_000_003L + Arrays.hashCode(drones);
+        hash = hash * 1_000_003L + Arrays.hashCode(availability);
+        hash = hash * 1_000_003L + Arrays.hashCode(servicePoints);
+        hash = hash * 1_000_003L + Arrays.hashCode(restrictedAreas);
+        return hash;
+    }
+}
@@ -0,0 +1,163 @@
+package uk.ac.ed.acp.cw2.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.TemporaryRestrictedArea;
+import uk.ac.ed.acp.cw2.service.RestrictedAreaRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory registry of temporary no-fly zones.
+ * <p>
+ * Changes are applied to the registry at once, under its lock, but the listeners run on a
+ * background thread, one change at a time and in order. snapshot() returns the last version whose
+ * listeners have all returned, so request threads neither wait for repairs nor plan against a
+ * change that is still being applied. Expiry runs on the same thread every
+ * planner.restricted-areas.expiry-check-ms, never on request threads.
+ * <p>
+ * Until start() has run (plain unit tests), listeners are called on the changing thread instead.
+ */
+@Service
+public class RestrictedAreaRegistryImpl implements RestrictedAreaRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestrictedAreaRegistryImpl.class);
+
+    // How often areas past their expiry are removed
+    @Value("${planner.restricted-areas.expiry-check-ms:1000}")
+    private long expiryCheckMs = 1000;
+
+    // By id, so snapshots list the areas in a stable order
+    private final Map<Integer, TemporaryRestrictedArea> areas = new TreeMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Version of the latest change, published or not
+    private long version;
+
+    // Latest version whose listeners have all returned
+    private volatile Snapshot published = new Snapshot(0, List.of());
+
+    // Runs the listeners and the expiry check
+    private ScheduledExecutorService changeThread;
+    private Executor notifier = Runnable::run;
+
+    @PostConstruct
+    public void start() {
+        changeThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "restricted-area-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        synchronized (this) {
+            notifier = changeThread;
+        }
+        changeThread.scheduleWithFixedDelay(() -> expireDue(System.currentTimeMillis()),
+                expiryCheckMs, expiryCheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (changeThread != null) {
+            changeThread.shutdownNow();
+        }
+    }
+
+    @Override
+    public synchronized TemporaryRestrictedArea register(TemporaryRestrictedArea area) {
+        if (area == null || area.getArea() == null || area.getArea().getId() == null
+                || area.getArea().getVertices() == null || area.getArea().getVertices().size() < 3) {
+            throw new IllegalArgumentException("A temporary restricted area needs an area with an id and at least three vertices");
+        }
+        TemporaryRestrictedArea previous = areas.put(area.getArea().getId(), area);
+        logger.info("{} temporary restricted area {} ({}), expires at {}", previous == null ? "Registered" : "Updated",
+                area.getArea().getId(), area.getArea().getName(), area.getExpiresAt());
+        changed(previous != null ? previous.getArea() : null, area.getArea());
+        return previous;
+    }
+
+    @Override
+    public synchronized TemporaryRestrictedArea expire(Integer id) {
+        TemporaryRestrictedArea removed = areas.remove(id);
+        if (removed != null) {
+            logger.info("Removed temporary restricted area {} ({})", id, removed.getArea().getName());
+            changed(removed.getArea(), null);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized List<TemporaryRestrictedArea> list() {
+        // Areas due but not yet swept by the expiry check are left out, without expiring them here
+        long now = System.currentTimeMillis();
+        List<TemporaryRestrictedArea> active = new ArrayList<>(areas.size());
+        for (TemporaryRestrictedArea area : areas.values()) {
+            if (area.getExpiresAt() == null || area.getExpiresAt() > now) {
+                active.add(area);
+            }
+        }
+        return active;
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return published;
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Drop every area whose expiry is at or before nowMillis
+     */
+    public synchronized void expireDue(long nowMillis) {
+        List<Integer> due = new ArrayList<>();
+        for (TemporaryRestrictedArea area : areas.values()) {
+            if (area.getExpiresAt() != null && area.getExpiresAt() <= nowMillis) {
+                due.add(area.getArea().getId());
+            }
+        }
+        for (Integer id : due) {
+            TemporaryRestrictedArea area = areas.remove(id);
+            logger.info("Temporary restricted area {} ({}) expired", id, area.getArea().getName());
+            changed(area.getArea(), null);
+        }
+    }
+
+    /**
+     * Move to the next version and queue the listeners for it, publishing the version once they have
+     * all returned; a failing listener does not stop the others. Queued under the lock, so changes
+     * reach the listeners in version order.
+     */
+    private void changed(RestrictedArea before, RestrictedArea after) {
+        version++;
+        List<RestrictedArea> active = new ArrayList<>(areas.size());
+        for (TemporaryRestrictedArea area : areas.values()) {
+            active.add(area.getArea());
+        }
+        Snapshot snapshot = new Snapshot(version, active);
+        notifier.execute(() -> {
+            for (Listener listener : listeners) {
+                try {
+                    listener.areaChanged(before, after, snapshot);
+                } catch (RuntimeException e) {
+                    logger.error("Restricted area listener failed", e);
+                }
+            }
+            published = snapshot;
+        });
+    }
+}
@@ -0,0 +1,190 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.service.ReferenceDataService;
+import uk.ac.ed.acp.cw2.service.impl.CoalescingDroneQueryService;
+import uk.ac.ed.acp.cw2.service.impl.DispatchKeys;
+import uk.ac.ed.acp.cw2.service.impl.DroneQueryServiceImpl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for single-flight coalescing of calcDeliveryPath and the canonical dispatch keys
+ */
+class CoalescingDroneQueryServiceUnitTest {
+
+    @InjectMocks
+    private CoalescingDroneQueryService coalescingService;
+
+    @Mock
+    private DroneQueryServiceImpl droneQueryService;
+
+    @Mock
+    private ReferenceDataService referenceDataService;
+
+    private final MedDispatchRec first = dispatch(1, 2.5, -3.186, 55.944);
+    private final MedDispatchRec second = dispatch(2, 1.0, -3.188, 55.943);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(referenceDataService.snapshotVersion()).thenReturn(7L);
+    }
+
+    @Test
+    void calcDeliveryPath_ConcurrentIdenticalRequests_ShareOnePlanningRun() throws Exception {
+        // Given - the planner blocks until both callers have arrived
+        CountDownLatch release = new CountDownLatch(1);
+        DeliveryPathResponse plan = new DeliveryPathResponse(3.0, 10, new ArrayList<>());
+        when(droneQueryService.calcDeliveryPath(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return plan;
+        });
+
+        // When - the second caller sends the same dispatches in a different order
+        CompletableFuture<DeliveryPathResponse> a =
+                CompletableFuture.supplyAsync(() -> coalescingService.calcDeliveryPath(List.of(first, second)));
+        waitUntil(() -> mockingDetails(droneQueryService).getInvocations().size() == 1);
+        CompletableFuture<DeliveryPathResponse> b =
+                CompletableFuture.supplyAsync(() -> coalescingService.calcDeliveryPath(List.of(second, first)));
+        waitUntil(() -> coalescingService.getCoalescedRequests() == 1);
+        release.countDown();
+
+        // Then
+        assertThat(a.get(5, TimeUnit.SECONDS)).isSameAs(plan);
+        assertThat(b.get(5, TimeUnit.SECONDS)).isSameAs(plan);
+        verify(droneQueryService, times(1)).calcDeliveryPath(anyList());
+    }
+
+    @Test
+    void calcDeliveryPath_RepeatedRequest_ServedFromCache() {
+        // Given
+        DeliveryPathResponse plan = new DeliveryPathResponse(3.0, 10, new ArrayList<>());
+        plan.setPlanStatus(DeliveryPathResponse.PlanStatus.COMPLETE);
+        when(droneQueryService.calcDeliveryPath(anyList())).thenReturn(plan);
+
+        // When - the repeat reorders the dispatches and asks with an explicit budget
+        coalescingService.calcDeliveryPath(List.of(first, second));
+        DeliveryPathResponse repeated = coalescingService.calcDeliveryPath(List.of(second, first), 5000);
+
+        // Then
+        assertThat(repeated).isSameAs(plan);
+        verify(droneQueryService, times(1)).calcDeliveryPath(anyList());
+        assertThat(coalescingService.cache().getHits()).isEqualTo(1);
+        assertThat(coalescingService.getCoalescedRequests()).isZero();
+    }
+
+    @Test
+    void calcDeliveryPath_BudgetTruncatedPlan_NotCached() {
+        // Given
+        DeliveryPathResponse truncated = new DeliveryPathResponse(0.0, 0, new ArrayList<>());
+        truncated.setPlanStatus(DeliveryPathResponse.PlanStatus.BUDGET_TRUNCATED);
+        when(droneQueryService.calcDeliveryPath(anyList())).thenReturn(truncated);
+
+        // When
+        coalescingService.calcDeliveryPath(List.of(first));
+        coalescingService.calcDeliveryPath(List.of(first));
+
+        // Then
+        verify(droneQueryService, times(2)).calcDeliveryPath(anyList());
+    }
+
+    @Test
+    void calcDeliveryPath_FailedPlanningRun_NotCached() {
+        // Given - the planner hit an error, which is not proof that no plan exists
+        DeliveryPathResponse failed = new DeliveryPathResponse(0.0, 0, new ArrayList<>());
+        failed.setPlanStatus(DeliveryPathResponse.PlanStatus.FAILED);
+        when(droneQueryService.calcDeliveryPath(anyList())).thenReturn(failed);
+
+        // When
+        coalescingService.calcDeliveryPath(List.of(first));
+        coalescingService.calcDeliveryPath(List.of(first));
+
+        // Then
+        verify(droneQueryService, times(2)).calcDeliveryPath(anyList());
+        assertThat(coalescingService.cache().size()).isZero();
+    }
+
+    @Test
+    void queryAvailableDrones_ReferenceDataChanges_CacheInvalidated() {
+        // Given
+        when(droneQueryService.queryAvailableDrones(anyList())).thenReturn(List.of(4, 5));
+        coalescingService.queryAvailableDrones(List.of(first));
+        coalescingService.queryAvailableDrones(List.of(first));
+
+        // When
+        when(referenceDataService.snapshotVersion()).thenReturn(8L);
+        List<Integer> afterChange = coalescingService.queryAvailableDrones(List.of(first));
+
+        // Then
+        assertThat(afterChange).containsExactly(4, 5);
+        verify(droneQueryService, times(2)).queryAvailableDrones(anyList());
+        assertThat(coalescingService.cache().getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void calcDeliveryPath_PlannerThrows_ExceptionReachesCaller() {
+        when(droneQueryService.calcDeliveryPath(anyList())).thenThrow(new IllegalStateException("ILP down"));
+
+        assertThatThrownBy(() -> coalescingService.calcDeliveryPath(List.of(first)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("ILP down");
+    }
+
+    @Test
+    void key_OrderAndSignedZero_DoNotMatter() {
+        // Given - the same dispatches in another order, one coordinate sent as -0.0 instead of 0.0
+        MedDispatchRec onMeridian = dispatch(3, 1.0, 0.0, 55.944);
+        MedDispatchRec onMeridianNegativeZero = dispatch(3, 1.0, -0.0, 55.944);
+
+        // When
+        String key1 = DispatchKeys.key(List.of(first, second, onMeridian), 7L, "budget=default");
+        String key2 = DispatchKeys.key(List.of(onMeridianNegativeZero, second, first), 7L, "budget=default");
+
+        // Then
+        assertThat(key1).isEqualTo(key2);
+    }
+
+    @Test
+    void key_DifferentContentVersionOrBudget_Differs() {
+        String key = DispatchKeys.key(List.of(first), 7L, "budget=default");
+
+        assertThat(DispatchKeys.key(List.of(second), 7L, "budget=default")).isNotEqualTo(key);
+        assertThat(DispatchKeys.key(List.of(first), 8L, "budget=default")).isNotEqualTo(key);
+        assertThat(DispatchKeys.key(List.of(first), 7L, "budget=500")).isNotEqualTo(key);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static MedDispatchRec dispatch(int id, double capacity, double lng, double lat) {
+        return new MedDispatchRec(id, LocalDate.parse("2025-01-27"), LocalTime.parse("10:00"),
+                new MedDispatchRec.Requirements(capacity, false, false, null),
+                new MedDispatchRec.Delivery(lng, lat));
+    }
+}
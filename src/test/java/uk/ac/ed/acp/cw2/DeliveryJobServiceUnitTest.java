@@ -0,0 +1,143 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import uk.ac.ed.acp.cw2.dto.DeliveryJobStatus;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.service.DroneQueryService;
+import uk.ac.ed.acp.cw2.service.impl.DeliveryJobServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the asynchronous delivery job queue
+ */
+class DeliveryJobServiceUnitTest {
+
+    @InjectMocks
+    private DeliveryJobServiceImpl deliveryJobService;
+
+    @Mock
+    private DroneQueryService droneQueryService;
+
+    private final List<MedDispatchRec> dispatches = List.of(new MedDispatchRec());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+
+        // One worker and a single queue slot so admission control is easy to trigger
+        setField("workers", 1);
+        setField("queueCapacity", 1);
+        deliveryJobService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deliveryJobService.shutdown();
+    }
+
+    @Test
+    void submit_JobRuns_StatusSucceedsAndResultIsAvailable() {
+        // Given
+        DeliveryPathResponse plan = new DeliveryPathResponse(12.5, 40, new ArrayList<>());
+        plan.setPlanStatus(DeliveryPathResponse.PlanStatus.COMPLETE);
+        when(droneQueryService.calcDeliveryPath(anyList())).thenReturn(plan);
+
+        // When
+        DeliveryJobStatus submitted = deliveryJobService.submit(dispatches, null);
+        DeliveryJobStatus finished = deliveryJobService.awaitStatus(submitted.getJobId(), 5000).join();
+
+        // Then
+        assertThat(submitted.getDispatchCount()).isEqualTo(1);
+        assertThat(finished.getState()).isEqualTo(DeliveryJobStatus.State.SUCCEEDED);
+        assertThat(finished.getPlanStatus()).isEqualTo("complete");
+        assertThat(finished.getFinishedAt()).isGreaterThanOrEqualTo(finished.getStartedAt());
+        assertThat(deliveryJobService.getResult(submitted.getJobId())).isSameAs(plan);
+    }
+
+    @Test
+    void submit_WithBudget_PassesBudgetToPlanner() {
+        // Given
+        DeliveryPathResponse plan = new DeliveryPathResponse(1.0, 2, new ArrayList<>());
+        plan.setPlanStatus(DeliveryPathResponse.PlanStatus.BUDGET_TRUNCATED);
+        when(droneQueryService.calcDeliveryPath(anyList(), eq(250L))).thenReturn(plan);
+
+        // When
+        DeliveryJobStatus submitted = deliveryJobService.submit(dispatches, 250L);
+        DeliveryJobStatus finished = deliveryJobService.awaitStatus(submitted.getJobId(), 5000).join();
+
+        // Then
+        assertThat(finished.getPlanStatus()).isEqualTo("budget-truncated");
+    }
+
+    @Test
+    void submit_PlannerThrows_JobFailsWithError() {
+        // Given
+        when(droneQueryService.calcDeliveryPath(anyList())).thenThrow(new IllegalStateException("ILP down"));
+
+        // When
+        DeliveryJobStatus submitted = deliveryJobService.submit(dispatches, null);
+        DeliveryJobStatus finished = deliveryJobService.awaitStatus(submitted.getJobId(), 5000).join();
+
+        // Then
+        assertThat(finished.getState()).isEqualTo(DeliveryJobStatus.State.FAILED);
+        assertThat(finished.getError()).isEqualTo("ILP down");
+        assertThat(deliveryJobService.getResult(submitted.getJobId())).isNull();
+    }
+
+    @Test
+    void submit_WorkerBusyAndQueueFull_RejectsJob() throws Exception {
+        // Given - the only worker is blocked and the only queue slot is taken
+        CountDownLatch release = new CountDownLatch(1);
+        when(droneQueryService.calcDeliveryPath(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        DeliveryJobStatus running = deliveryJobService.submit(dispatches, null);
+        DeliveryJobStatus queued = deliveryJobService.submit(dispatches, null);
+
+        // When
+        DeliveryJobStatus rejected = deliveryJobService.submit(dispatches, null);
+
+        // Then
+        assertThat(running).isNotNull();
+        assertThat(queued).isNotNull();
+        assertThat(rejected).isNull();
+
+        // An unfinished job times out the long poll and reports its current state
+        DeliveryJobStatus polled = deliveryJobService.awaitStatus(queued.getJobId(), 50).join();
+        assertThat(polled.getState().isFinished()).isFalse();
+
+        release.countDown();
+        DeliveryJobStatus finished = deliveryJobService.awaitStatus(queued.getJobId(), 5000).join();
+        assertThat(finished.getState()).isEqualTo(DeliveryJobStatus.State.SUCCEEDED);
+        // No plan from the planner is reported as the empty plan
+        assertThat(deliveryJobService.getResult(queued.getJobId()).getTotalMoves()).isZero();
+    }
+
+    @Test
+    void getStatus_UnknownJob_ReturnsNull() {
+        assertThat(deliveryJobService.getStatus("no-such-job")).isNull();
+        assertThat(deliveryJobService.awaitStatus("no-such-job", 100).join()).isNull();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field field = DeliveryJobServiceImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(deliveryJobService, value);
+    }
+}
@@ -0,0 +1,89 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.service.impl.DispatchStreamReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for reading streamed dispatches one at a time
+ */
+class DispatchStreamReaderUnitTest {
+
+    private static final String FIRST = "{\"id\": 1, \"date\": \"2025-01-27\", \"time\": \"10:00\", "
+            + "\"requirements\": {\"capacity\": 2.5, \"cooling\": true, \"heating\": false, \"maxCost\": null}, "
+            + "\"delivery\": {\"lng\": -3.186, \"lat\": 55.9449}}";
+    private static final String SECOND = "{\"id\": 2, \"date\": \"2025-01-28\", \"time\": \"14:30:15\", "
+            + "\"requirements\": {\"capacity\": \"4\"}, \"delivery\": {\"lng\": -3.19, \"lat\": 55.946}, "
+            + "\"note\": {\"priority\": [1, 2]}}";
+
+    @Test
+    void read_Ndjson_PassesEachDispatchOn() throws IOException {
+        // Given
+        List<MedDispatchRec> dispatches = new ArrayList<>();
+
+        // When
+        int count = DispatchStreamReader.read(body(FIRST + "\n" + SECOND + "\n"), dispatches::add);
+
+        // Then
+        assertThat(count).isEqualTo(2);
+        assertThat(dispatches.get(0)).isEqualTo(new MedDispatchRec(1, LocalDate.parse("2025-01-27"), LocalTime.parse("10:00"),
+                new MedDispatchRec.Requirements(2.5, true, false, null), new MedDispatchRec.Delivery(-3.186, 55.9449)));
+        // Numeric strings are coerced and unknown fields skipped, as in the bound endpoint
+        assertThat(dispatches.get(1).getRequirements().getCapacity()).isEqualTo(4.0);
+        assertThat(dispatches.get(1).getTime()).isEqualTo(LocalTime.parse("14:30:15"));
+    }
+
+    @Test
+    void read_JsonArray_SameAsNdjson() throws IOException {
+        // Given
+        List<MedDispatchRec> fromLines = new ArrayList<>();
+        List<MedDispatchRec> fromArray = new ArrayList<>();
+
+        // When
+        DispatchStreamReader.read(body(FIRST + "\n" + SECOND), fromLines::add);
+        DispatchStreamReader.read(body("[" + FIRST + ", " + SECOND + "]"), fromArray::add);
+
+        // Then
+        assertThat(fromArray).isEqualTo(fromLines);
+    }
+
+    @Test
+    void read_MissingRequiredField_RejectedWithItsIndex() throws IOException {
+        // Given - the second dispatch has no delivery location
+        String noDelivery = SECOND.replace("\"delivery\": {\"lng\": -3.19, \"lat\": 55.946}, ", "");
+        List<MedDispatchRec> dispatches = new ArrayList<>();
+
+        // When / Then - the first was passed on before the second was read
+        assertThatThrownBy(() -> DispatchStreamReader.read(body(FIRST + "\n" + noDelivery), dispatches::add))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Dispatch 1")
+                .hasMessageContaining("Delivery location cannot be null");
+        assertThat(dispatches).hasSize(1);
+    }
+
+    @Test
+    void read_MalformedJsonOrBadDate_Rejected() {
+        assertThatThrownBy(() -> DispatchStreamReader.read(body(FIRST + "\n{\"id\": 2,"), dispatch -> { }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Dispatch 1");
+        assertThatThrownBy(() -> DispatchStreamReader.read(body(FIRST.replace("2025-01-27", "27/01/2025")), dispatch -> { }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("is not a date");
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,130 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+import uk.ac.ed.acp.cw2.service.impl.DispatchTable;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the per-request dispatch table used by queryAvailableDrones
+ */
+class DispatchTableUnitTest {
+
+    // Service point 10 at the origin, service point 20 0.003 degrees east
+    private final List<ServicePoint> servicePoints = List.of(
+            new ServicePoint("West", 10, new ServicePoint.Location(0.0, 0.0, null)),
+            new ServicePoint("East", 20, new ServicePoint.Location(0.003, 0.0, null)));
+
+    // Drone 1 is based at both service points, drone 2 only at the western one
+    private final List<DroneServicePointAvailability> availability = List.of(
+            new DroneServicePointAvailability(10, List.of(
+                    new DroneServicePointAvailability.DroneAvailability("1", List.of()),
+                    new DroneServicePointAvailability.DroneAvailability("2", List.of()))),
+            new DroneServicePointAvailability(20, List.of(
+                    new DroneServicePointAvailability.DroneAvailability("1", List.of()))));
+
+    // Square from (0.001, 0.001) to (0.002, 0.002)
+    private final RestrictedAreaIndex restrictedAreas = new RestrictedAreaIndex(List.of(
+            new RestrictedArea("Square", 1, null, List.of(
+                    v(0.001, 0.001), v(0.002, 0.001), v(0.002, 0.002), v(0.001, 0.002), v(0.001, 0.001)))));
+
+    @Test
+    void build_DeliveryInRestrictedArea_RejectsWholeRequest() {
+        // When
+        DispatchTable table = build(
+                dispatch(1, "2025-01-27", 0.0025, 0.0),
+                dispatch(2, "2025-01-27", 0.0015, 0.0015));
+
+        // Then
+        assertThat(table.isRejected()).isTrue();
+        assertThat(table.rejectedDispatch()).isEqualTo(1);
+        assertThat(table.rejectionReason()).contains("Square");
+    }
+
+    @Test
+    void closestServicePoint_OnlyAmongTheDronesOwnServicePoints() {
+        // Given - the delivery is nearer the eastern service point
+        DispatchTable table = build(dispatch(1, "2025-01-27", 0.0025, 0.0));
+
+        // When / Then
+        assertThat(table.isRejected()).isFalse();
+        assertThat(table.closestServicePoint(0, table.servicePointsFor(1))).isEqualTo(1);
+        assertThat(table.closestServicePoint(0, table.servicePointsFor(2))).isEqualTo(0);
+        assertThat(table.closestServicePoint(0, table.servicePointsFor(99))).isEqualTo(-1);
+        assertThat(table.distance(0, 1)).isCloseTo(0.0005, within(1e-12));
+    }
+
+    @Test
+    void tripMoves_OneRoundTripPerDate() {
+        // Given - two deliveries on one day, one on the next
+        DispatchTable table = build(
+                dispatch(1, "2025-01-27", 0.0014, 0.0),
+                dispatch(2, "2025-01-28", 0.0004, 0.0),
+                dispatch(3, "2025-01-27", 0.0029, 0.0));
+
+        // When
+        double moves = table.tripMoves(0);
+
+        // Then - 0.0029 out and back (39 moves) plus 0.0004 out and back (6 moves)
+        assertThat(table.allSameDate()).isFalse();
+        assertThat(moves).isEqualTo(45.0);
+    }
+
+    @Test
+    void sameDayRouteMoves_OneFlightThroughAllDeliveries() {
+        // Given - two deliveries on the same day
+        DispatchTable table = build(
+                dispatch(1, "2025-01-27", 0.0029, 0.0),
+                dispatch(2, "2025-01-27", 0.0014, 0.0));
+
+        // When / Then - SP → 0.0014 → 0.0029 → SP is 0.0058, i.e. 39 moves
+        assertThat(table.allSameDate()).isTrue();
+        assertThat(table.sameDayRouteMoves(0)).isEqualTo(39.0);
+    }
+
+    @Test
+    void builder_DispatchesAddedOneByOne_KeepsEveryColumn() {
+        // Given - more dispatches than the builder starts with room for, alternating dates
+        DispatchTable.Builder builder = DispatchTable.builder(servicePoints, availability, restrictedAreas);
+        for (int i = 0; i < 40; i++) {
+            builder.add(dispatch(i, i % 2 == 0 ? "2025-01-27" : "2025-01-28", 0.0015, 0.00005 + 0.0001 * i));
+        }
+
+        // When
+        DispatchTable table = builder.build();
+
+        // Then
+        assertThat(table.size()).isEqualTo(40);
+        assertThat(table.id(39)).isEqualTo(39);
+        assertThat(table.date(39)).isEqualTo(LocalDate.parse("2025-01-28"));
+        assertThat(table.time(0)).isEqualTo(LocalTime.parse("10:00"));
+        assertThat(table.distance(39, 1)).isCloseTo(Math.hypot(0.0015, 0.00395), within(1e-12));
+        assertThat(table.allSameDate()).isFalse();
+        // Delivery 10 is the first inside the square
+        assertThat(table.rejectedDispatch()).isEqualTo(10);
+    }
+
+    private DispatchTable build(MedDispatchRec... dispatches) {
+        return DispatchTable.build(List.of(dispatches), servicePoints, availability, restrictedAreas);
+    }
+
+    private static RestrictedArea.Vertex v(double lng, double lat) {
+        return new RestrictedArea.Vertex(lng, lat, null);
+    }
+
+    private static MedDispatchRec dispatch(int id, String date, double lng, double lat) {
+        return new MedDispatchRec(id, LocalDate.parse(date), LocalTime.parse("10:00"),
+                new MedDispatchRec.Requirements(1.0, false, false, null),
+                new MedDispatchRec.Delivery(lng, lat));
+    }
+}
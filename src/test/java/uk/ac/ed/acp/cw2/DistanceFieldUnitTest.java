@@ -0,0 +1,97 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.planner.DistanceField;
+import uk.ac.ed.acp.cw2.planner.MoveValidator;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the service point distance field
+ */
+class DistanceFieldUnitTest {
+
+    private static final MoveValidator OPEN = (lng1, lat1, lng2, lat2) -> true;
+
+    // A wall at lng 0.001 between lat -0.0006 and 0.0006, between the service point and the delivery
+    private final MoveValidator wall = wall(0.0006);
+
+    @Test
+    void movesFrom_OpenSpace_CountsStraightLineMoves() {
+        // Given
+        DistanceField field = new DistanceField(0.0, 0.0, 50, OPEN);
+
+        // When / Then
+        assertThat(field.movesFrom(0.0, 0.0)).isZero();
+        assertThat(field.movesFrom(0.0015, 0.0)).isEqualTo(10);
+        assertThat(field.movesFrom(0.0, -0.003)).isEqualTo(20);
+    }
+
+    @Test
+    void movesFrom_OutsideRadiusOrWalledOff_Unreached() {
+        // Given - everything east of lng 0.001 is cut off
+        MoveValidator cutOff = (lng1, lat1, lng2, lat2) -> (lng1 <= 0.001) == (lng2 <= 0.001);
+        DistanceField field = new DistanceField(0.0, 0.0, 20, cutOff);
+
+        // When / Then
+        assertThat(field.movesFrom(0.0, 0.01)).isEqualTo(DistanceField.UNREACHED);
+        assertThat(field.movesFrom(0.0015, 0.0)).isEqualTo(DistanceField.UNREACHED);
+        assertThat(field.returnPath(0.0015, 0.0)).isNull();
+    }
+
+    @Test
+    void returnPath_AroundWall_UsesValidStepsAndReachesServicePoint() {
+        // Given
+        DistanceField field = new DistanceField(0.0, 0.0, 50, wall);
+
+        // When
+        List<DeliveryPathResponse.LngLat> path = field.returnPath(0.002, 0.0);
+
+        // Then
+        assertThat(path).isNotNull();
+        assertThat(path.get(0)).isEqualTo(new DeliveryPathResponse.LngLat(0.002, 0.0));
+        for (int i = 1; i < path.size(); i++) {
+            DeliveryPathResponse.LngLat p1 = path.get(i - 1);
+            DeliveryPathResponse.LngLat p2 = path.get(i);
+            assertThat(Math.hypot(p2.getLng() - p1.getLng(), p2.getLat() - p1.getLat()))
+                    .isCloseTo(0.00015, within(1e-9));
+            assertThat(wall.isValidMove(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat())).isTrue();
+        }
+        DeliveryPathResponse.LngLat last = path.get(path.size() - 1);
+        assertThat(Math.hypot(last.getLng(), last.getLat())).isLessThan(0.00015);
+    }
+
+    @Test
+    void returnPath_NoLongerThanFieldCount() {
+        // Given
+        DistanceField field = new DistanceField(0.0, 0.0, 50, wall);
+
+        // When
+        List<DeliveryPathResponse.LngLat> aroundWall = field.returnPath(0.002, 0.0);
+        List<DeliveryPathResponse.LngLat> inOpen = field.returnPath(-0.0015, 0.0);
+
+        // Then
+        assertThat(aroundWall.size() - 1).isLessThanOrEqualTo(field.movesFrom(0.002, 0.0));
+        assertThat(inOpen.size() - 1).isLessThanOrEqualTo(10);
+    }
+
+    /**
+     * Blocks moves ending inside the wall's buffer or whose segment crosses lng 0.001 within halfHeight
+     */
+    private static MoveValidator wall(double halfHeight) {
+        return (lng1, lat1, lng2, lat2) -> {
+            if (Math.abs(lng2 - 0.001) < 0.00015 && Math.abs(lat2) < halfHeight + 0.00015) {
+                return false;
+            }
+            if ((lng1 <= 0.001) == (lng2 <= 0.001)) {
+                return true;
+            }
+            double crossLat = lat1 + (lat2 - lat1) * (0.001 - lng1) / (lng2 - lng1);
+            return Math.abs(crossLat) >= halfHeight + 0.00015;
+        };
+    }
+}
@@ -14,7 +14,9 @@ import org.springframework.web.client.RestTemplate;
 import uk.ac.ed.acp.cw2.dto.*;
 import uk.ac.ed.acp.cw2.service.impl.DroneQueryServiceImpl;
 
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
@@ -37,11 +39,11 @@ import static org.mockito.Mockito.*;
  * UT-7: Dispatch fullfillment - Capacity & Requirements (9 tests)
  * UT-8: Cost Calculations - Pro-Rota Distribution (8 tests)
  * UT-9: Pathfinding - satisfy basic attibutes (5 tests)
- * UT-10: Pathfinding - No obstacles (6 tests)
+ * UT-10: Pathfinding - No obstacles (7 tests)
  * UT-11: Pathfinding - With obstacles (4 tests)
  * UT-12: Error Handling - invalid MedDispatchRec inputs (5 tests)
  *
- * total tests: 67
+ * total tests: 68
  */
 @DisplayName("DroneQueryService Unit Tests - Comprehensive Coverage")
 class DroneQueryServiceUnitTest {
@@ -1731,7 +1733,25 @@ class DroneQueryServiceUnitTest {
             assertThat(response.getDronePaths()).isEmpty();
         }
 
+        @Test
+        @DisplayName("UT-10.7: Streamed dispatches - ILP data fetched once")
+        void testStreamedDelivery_FetchesIlpDataOnce() throws Exception {
+            // Arrange - one NDJSON dispatch
+            String body = "{\"id\": 1007, \"date\": \"2025-01-28\", \"time\": \"10:00\", "
+                    + "\"requirements\": {\"capacity\": 2.5, \"maxCost\": 60.0}, "
+                    + "\"delivery\": {\"lng\": -3.185858, \"lat\": 55.945231}}\n";
+
+            // Act
+            DeliveryPathResponse response = droneQueryService.calcDeliveryPathStreamed(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), null);
 
+            // Assert - planned from the data read with the dispatches, not fetched again
+            assertThat(response.getDronePaths()).isNotEmpty();
+            verify(restTemplate, times(1)).getForObject(anyString(), eq(Drone[].class));
+            verify(restTemplate, times(1)).getForObject(anyString(), eq(ServicePoint[].class));
+            verify(restTemplate, times(1)).getForObject(anyString(), eq(RestrictedArea[].class));
+            verify(restTemplate, times(1)).getForObject(anyString(), eq(DroneServicePointAvailability[].class));
+        }
     }
 
     // ==================== PATHFINDING - WITH OBSTACLES ====================
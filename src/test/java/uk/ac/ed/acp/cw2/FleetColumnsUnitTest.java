@@ -0,0 +1,106 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+import uk.ac.ed.acp.cw2.service.impl.DispatchTable;
+import uk.ac.ed.acp.cw2.service.impl.FleetColumns;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the columnar fleet filter used by queryAvailableDrones
+ */
+class FleetColumnsUnitTest {
+
+    private final List<ServicePoint> servicePoints = List.of(
+            new ServicePoint("Base", 1, new ServicePoint.Location(0.0, 0.0, null)));
+
+    private final List<Drone> drones = List.of(
+            drone(1, true, false, 4.0, 1000, 0.01),
+            drone(2, false, false, 8.0, 1000, 0.01),
+            drone(3, true, true, 2.0, 1000, 0.01),
+            drone(4, true, false, 10.0, 10, 0.01),
+            drone(5, true, false, 10.0, 1000, 5.0),
+            new Drone("No capability", 6, null));
+
+    // Every drone works Mondays 08:00-12:00 except drone 2, which works Mondays afternoons only
+    private final List<DroneServicePointAvailability> availability = List.of(
+            new DroneServicePointAvailability(1, List.of(
+                    slot("1", "08:00", "12:00"), slot("2", "13:00", "18:00"), slot("3", "08:00", "12:00"),
+                    slot("4", "08:00", "12:00"), slot("5", "08:00", "12:00"), slot("6", "08:00", "12:00"))));
+
+    private final FleetColumns fleet = FleetColumns.build(drones, availability);
+
+    @Test
+    void availableFor_FiltersByCapabilityColumnsAndLimits() {
+        // Given - a cooled 3.0 delivery 0.003 away (about 40 moves there and back) with maxCost 5
+        DispatchTable table = table(dispatch(1, "10:00", 3.0, true, 5.0, 0.003));
+
+        // When
+        List<Integer> available = fleet.availableFor(table);
+
+        // Then - 2 has no cooling, 3 too small, 4 too few moves, 5 too expensive, 6 no capability
+        assertThat(available).containsExactly(1);
+    }
+
+    @Test
+    void candidatesFor_EveryDispatchTimeMustBeCovered() {
+        // Given - one morning and one afternoon dispatch on the same Monday
+        DispatchTable table = table(
+                dispatch(1, "10:00", 1.0, false, null, 0.001),
+                dispatch(2, "14:00", 1.0, false, null, 0.001));
+
+        // When / Then - nobody works both shifts
+        assertThat(fleet.candidatesFor(table).isEmpty()).isTrue();
+        assertThat(fleet.availableFor(table(dispatch(1, "14:00", 1.0, false, null, 0.001)))).containsExactly(2);
+    }
+
+    @Test
+    void availableFor_LargeFleet_KeepsFleetOrder() {
+        // Given - 200 identical drones, only the even ones have cooling
+        List<Drone> many = new ArrayList<>();
+        List<DroneServicePointAvailability.DroneAvailability> slots = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            many.add(drone(id, id % 2 == 0, false, 4.0, 1000, 0.01));
+            slots.add(slot(String.valueOf(id), "00:00", "23:59"));
+        }
+        List<DroneServicePointAvailability> manyAvailability = List.of(new DroneServicePointAvailability(1, slots));
+        DispatchTable table = DispatchTable.build(List.of(dispatch(1, "10:00", 1.0, true, null, 0.001)),
+                servicePoints, manyAvailability, new RestrictedAreaIndex(List.of()));
+
+        // When
+        List<Integer> available = FleetColumns.build(many, manyAvailability).availableFor(table);
+
+        // Then
+        assertThat(available).hasSize(100).startsWith(2, 4, 6).endsWith(198, 200);
+    }
+
+    private DispatchTable table(MedDispatchRec... dispatches) {
+        return DispatchTable.build(List.of(dispatches), servicePoints, availability, new RestrictedAreaIndex(List.of()));
+    }
+
+    private static Drone drone(int id, boolean cooling, boolean heating, double capacity, int maxMoves, double costPerMove) {
+        return new Drone("Drone " + id, id, new Drone.Capability(cooling, heating, capacity, maxMoves, costPerMove, 1.0, 1.0));
+    }
+
+    private static DroneServicePointAvailability.DroneAvailability slot(String droneId, String from, String until) {
+        return new DroneServicePointAvailability.DroneAvailability(droneId, List.of(
+                new DroneServicePointAvailability.TimeSlot("MONDAY", LocalTime.parse(from), LocalTime.parse(until))));
+    }
+
+    // 2025-12-22 is a Monday
+    private static MedDispatchRec dispatch(int id, String time, double capacity, boolean cooling, Double maxCost, double lng) {
+        return new MedDispatchRec(id, LocalDate.parse("2025-12-22"), LocalTime.parse(time),
+                new MedDispatchRec.Requirements(capacity, cooling, false, maxCost),
+                new MedDispatchRec.Delivery(lng, 0.0));
+    }
+}
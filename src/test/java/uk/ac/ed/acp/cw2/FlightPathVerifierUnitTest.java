@@ -0,0 +1,126 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.FlightPathVerification;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+import uk.ac.ed.acp.cw2.planner.FlightPathVerifier;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+import uk.ac.ed.acp.cw2.planner.ServicePointIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for checking drone paths against the move rules and restricted areas
+ */
+class FlightPathVerifierUnitTest {
+
+    private static final int EAST = 0;
+    private static final int NORTH = 4;
+    private static final int WEST = 8;
+
+    private static RestrictedArea.Vertex v(double lng, double lat) {
+        return new RestrictedArea.Vertex(lng, lat, null);
+    }
+
+    // Square from (0.001, -0.0005) to (0.002, 0.0005), east of the service point at the origin
+    private final FlightPathVerifier verifier = new FlightPathVerifier(
+            new RestrictedAreaIndex(List.of(new RestrictedArea("Square", 1, null, List.of(
+                    v(0.001, -0.0005), v(0.002, -0.0005), v(0.002, 0.0005), v(0.001, 0.0005), v(0.001, -0.0005))))),
+            new ServicePointIndex(List.of(new ServicePoint("Base", 1, new ServicePoint.Location(0.0, 0.0, null)))));
+
+    /**
+     * Positions of the moves from the origin, one per direction given, repeating the last for the hover
+     */
+    private static List<DeliveryPathResponse.LngLat> flight(int hoverAfter, int... directions) {
+        List<DeliveryPathResponse.LngLat> path = new ArrayList<>();
+        LatticePoint point = LatticePoint.ORIGIN;
+        path.add(new DeliveryPathResponse.LngLat(0.0, 0.0));
+        for (int i = 0; i < directions.length; i++) {
+            point = point.step(directions[i]);
+            path.add(new DeliveryPathResponse.LngLat(point.lng(0.0), point.lat(0.0)));
+            if (i + 1 == hoverAfter) {
+                path.add(new DeliveryPathResponse.LngLat(point.lng(0.0), point.lat(0.0)));
+            }
+        }
+        return path;
+    }
+
+    private static DeliveryPathResponse.DronePath dronePath(List<DeliveryPathResponse.LngLat>... flightPaths) {
+        List<DeliveryPathResponse.Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < flightPaths.length; i++) {
+            deliveries.add(new DeliveryPathResponse.Delivery(100 + i, flightPaths[i]));
+        }
+        return new DeliveryPathResponse.DronePath(7, deliveries);
+    }
+
+    @Test
+    void verify_OutHoverAndBack_NoViolations() {
+        // Given
+        DeliveryPathResponse.DronePath path = dronePath(flight(3, NORTH, NORTH, EAST, WEST, 12, 12));
+
+        // When
+        FlightPathVerifier.DronePathReport report = verifier.verify(path, 7);
+
+        // Then
+        assertThat(report.getViolations()).isEmpty();
+        assertThat(report.getMoves()).isEqualTo(7);
+    }
+
+    @Test
+    void verify_BadStepAndAreaCrossing_ReportedAtTheirPoints() {
+        // Given: the second move is half a move long, and the flight hovers six moves east, by the square
+        List<DeliveryPathResponse.LngLat> flightPath = flight(8, WEST, EAST, EAST, EAST, EAST, EAST, EAST, EAST,
+                WEST, WEST, WEST, WEST, WEST, WEST);
+        flightPath.set(2, new DeliveryPathResponse.LngLat(-0.000075, 0.0));
+
+        // When
+        List<FlightPathVerification.Violation> violations = verifier.verify(dronePath(flightPath), null).getViolations();
+
+        // Then
+        assertThat(violations).extracting(FlightPathVerification.Violation::getType)
+                .contains(FlightPathVerification.ViolationType.INVALID_STEP, FlightPathVerification.ViolationType.RESTRICTED_AREA)
+                .doesNotContain(FlightPathVerification.ViolationType.HOVER);
+        assertThat(violations).filteredOn(v -> v.getType() == FlightPathVerification.ViolationType.INVALID_STEP)
+                .extracting(FlightPathVerification.Violation::getPointIndex).containsExactly(2, 3);
+        // (0.0009, 0) is the first position within 0.00015 of the square
+        assertThat(violations).filteredOn(v -> v.getType() == FlightPathVerification.ViolationType.RESTRICTED_AREA)
+                .extracting(FlightPathVerification.Violation::getPointIndex).containsExactly(8, 9);
+        assertThat(violations).allMatch(v -> v.getDroneId() == 7 && v.getDeliveryIndex() == 0 && v.getDeliveryId() == 100);
+    }
+
+    @Test
+    void verify_NoHoverAndOverMaxMoves_Reported() {
+        // Given
+        DeliveryPathResponse.DronePath path = dronePath(flight(0, NORTH, NORTH, 12, 12));
+
+        // When
+        List<FlightPathVerification.Violation> violations = verifier.verify(path, 3).getViolations();
+
+        // Then
+        assertThat(violations).extracting(FlightPathVerification.Violation::getType)
+                .containsExactly(FlightPathVerification.ViolationType.HOVER, FlightPathVerification.ViolationType.MAX_MOVES);
+    }
+
+    @Test
+    void verify_SecondDeliveryNotFromHover_Discontinuous() {
+        // Given: the first delivery hovers two moves north, the second sets off from one move north
+        List<DeliveryPathResponse.LngLat> first = flight(2, NORTH, NORTH);
+        List<DeliveryPathResponse.LngLat> second = flight(2, NORTH, EAST, WEST, 12);
+        second.remove(0);
+
+        // When
+        List<FlightPathVerification.Violation> violations = verifier.verify(dronePath(first, second), null).getViolations();
+
+        // Then
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).getType()).isEqualTo(FlightPathVerification.ViolationType.DISCONTINUOUS);
+        assertThat(violations.get(0).getDeliveryIndex()).isEqualTo(1);
+        assertThat(violations.get(0).getPointIndex()).isEqualTo(0);
+    }
+}
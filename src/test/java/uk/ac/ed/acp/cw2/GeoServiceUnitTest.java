@@ -121,6 +121,46 @@ class GeoServiceUnitTest {
     }
 
 
+    // primitive overloads
+    @Test
+    void distanceTo_Primitive_ShouldMatchObjectOverload() {
+        // Given
+        LngLat pos1 = new LngLat(-3.192473, 55.946233);
+        LngLat pos2 = new LngLat(-3.184319, 55.942617);
+
+        // When
+        double objectDistance = geoService.calculateDistance(pos1, pos2);
+        double primitiveDistance = geoService.calculateDistance(-3.192473, 55.946233, -3.184319, 55.942617);
+
+        // Then
+        assertThat(primitiveDistance).isEqualTo(objectDistance);
+    }
+
+    @Test
+    void isCloseTo_Primitive_ShouldReturnFalse_WhenDistanceEqualToThreshold() {
+        // When
+        boolean result = geoService.isCloseTo(-3.192473, 55.946233, -3.192473 - 0.00015, 55.946233);
+
+        // Then
+        assertFalse(result);
+    }
+
+    @Test
+    void nextPosition_OutParam_ShouldMatchObjectOverload() {
+        // Given
+        LngLat start = new LngLat(-3.192473, 55.946233);
+        double[] out = new double[2];
+
+        // When
+        LngLat expected = geoService.nextPosition(start, 112.5);
+        geoService.nextPosition(start.getLng(), start.getLat(), 112.5, out);
+
+        // Then
+        assertThat(out[0]).isEqualTo(expected.getLng());
+        assertThat(out[1]).isEqualTo(expected.getLat());
+    }
+
+
     // isInRegion
     @Test
     void isInRegion_ShouldReturnTrue_WhenPositionIsInside() {
@@ -0,0 +1,99 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.geometry.LatticePoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the shared geometry kernel (GeoMath, CompassDirections, LatticePoint)
+ */
+class GeometryKernelUnitTest {
+
+    // step table
+    @Test
+    void stepTable_EveryDirection_HasMoveDistanceLength() {
+        for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+            double length = Math.hypot(CompassDirections.dx(direction), CompassDirections.dy(direction));
+            assertThat(length).isCloseTo(GeoMath.MOVE_DISTANCE, within(1e-12));
+        }
+    }
+
+    @Test
+    void stepTable_MatchesTrigonometry() {
+        for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+            double radians = Math.toRadians(direction * 22.5);
+            assertThat(CompassDirections.dx(direction)).isEqualTo(GeoMath.MOVE_DISTANCE * Math.cos(radians));
+            assertThat(CompassDirections.dy(direction)).isEqualTo(GeoMath.MOVE_DISTANCE * Math.sin(radians));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0", "22.5, 1", "90, 4", "337.5, 15", "10, -1", "360, -1", "-22.5, -1"})
+    void exactDirection_OnlyAcceptsCompassAngles(double angle, int expected) {
+        assertThat(CompassDirections.exactDirection(angle)).isEqualTo(expected);
+    }
+
+    @Test
+    void snapVector_AgreesWithAtan2Rounding() {
+        for (int i = 0; i < 360; i += 7) {
+            double radians = Math.toRadians(i + 0.3);
+            double dx = Math.cos(radians);
+            double dy = Math.sin(radians);
+            int expected = Math.floorMod(Math.round(Math.toDegrees(Math.atan2(dy, dx)) / 22.5), 16);
+            assertThat(CompassDirections.snapVector(dx, dy)).isEqualTo(expected);
+        }
+    }
+
+    // nextPosition
+    @Test
+    void nextPosition_NonCompassAngle_FallsBackToTrigonometry() {
+        double[] out = new double[2];
+
+        GeoMath.nextPosition(0.0, 0.0, 10.0, out);
+
+        assertThat(out[0]).isCloseTo(GeoMath.MOVE_DISTANCE * Math.cos(Math.toRadians(10.0)), within(1e-15));
+        assertThat(out[1]).isCloseTo(GeoMath.MOVE_DISTANCE * Math.sin(Math.toRadians(10.0)), within(1e-15));
+    }
+
+    // lattice points
+    @Test
+    void latticePoint_EveryDirection_MovesOneMoveDistance() {
+        for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+            LatticePoint point = LatticePoint.ORIGIN.step(direction);
+            double length = Math.hypot(point.lng(0.0), point.lat(0.0));
+            assertThat(length).isCloseTo(GeoMath.MOVE_DISTANCE, within(1e-12));
+        }
+    }
+
+    @Test
+    void latticePoint_MovesInAnyOrder_SamePointAndPosition() {
+        // Given
+        LatticePoint oneWay = LatticePoint.ORIGIN.step(1).step(3).step(3).step(14);
+        LatticePoint otherWay = LatticePoint.ORIGIN.step(14).step(3, 2).step(1);
+
+        // Then
+        assertThat(oneWay).isEqualTo(otherWay);
+        assertThat(oneWay.hashCode()).isEqualTo(otherWay.hashCode());
+        assertThat(oneWay.lng(-3.19)).isEqualTo(otherWay.lng(-3.19));
+        assertThat(oneWay.lat(55.94)).isEqualTo(otherWay.lat(55.94));
+    }
+
+    @Test
+    void latticePoint_AroundAllDirections_BackAtOrigin() {
+        LatticePoint point = LatticePoint.ORIGIN;
+        for (int direction = 0; direction < CompassDirections.COUNT; direction++) {
+            point = point.step(direction);
+        }
+
+        assertThat(point).isEqualTo(LatticePoint.ORIGIN);
+        assertThat(point.lng(-3.19)).isEqualTo(-3.19);
+        assertThat(LatticePoint.ORIGIN.step(5).back(5)).isEqualTo(LatticePoint.ORIGIN);
+        assertThat(LatticePoint.ORIGIN.step(0)).isNotEqualTo(LatticePoint.ORIGIN.step(1));
+    }
+}
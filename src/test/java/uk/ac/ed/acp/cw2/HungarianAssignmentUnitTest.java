@@ -0,0 +1,82 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.planner.HungarianAssignment;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the minimum-cost assignment, checked against brute force
+ */
+class HungarianAssignmentUnitTest {
+
+    private static final double X = Double.POSITIVE_INFINITY;
+
+    @Test
+    void solve_GreedyFirstChoiceIsNotOptimal() {
+        // Given - row 0 taking its cheapest column 0 would force row 1 onto 100
+        double[][] cost = {
+                {1, 2},
+                {1, 100}
+        };
+
+        // When
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        // Then
+        assertThat(assignment).containsExactly(1, 0);
+    }
+
+    @Test
+    void solve_RandomRectangular_MatchesBruteForce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(4);
+            int columns = rows + random.nextInt(3);
+            double[][] cost = new double[rows][columns];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    cost[r][c] = random.nextInt(5) == 0 ? X : random.nextInt(50) + random.nextDouble();
+                }
+            }
+
+            int[] assignment = HungarianAssignment.solve(cost);
+            double best = bruteForce(cost, 0, new boolean[columns]);
+
+            if (Double.isInfinite(best)) {
+                assertThat(assignment).isNull();
+            } else {
+                double total = 0;
+                for (int r = 0; r < rows; r++) {
+                    total += cost[r][assignment[r]];
+                }
+                assertThat(total).isCloseTo(best, within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    void solve_NoAllowedAssignment_ReturnsNull() {
+        // Both rows can only use column 0
+        assertThat(HungarianAssignment.solve(new double[][]{{3, X}, {4, X}})).isNull();
+        // More rows than columns
+        assertThat(HungarianAssignment.solve(new double[][]{{1}, {2}})).isNull();
+    }
+
+    private static double bruteForce(double[][] cost, int row, boolean[] taken) {
+        if (row == cost.length) {
+            return 0;
+        }
+        double best = X;
+        for (int c = 0; c < taken.length; c++) {
+            if (taken[c] || Double.isInfinite(cost[row][c])) continue;
+            taken[c] = true;
+            best = Math.min(best, cost[row][c] + bruteForce(cost, row + 1, taken));
+            taken[c] = false;
+        }
+        return best;
+    }
+}
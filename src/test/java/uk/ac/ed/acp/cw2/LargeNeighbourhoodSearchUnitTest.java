@@ -0,0 +1,118 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.service.impl.LargeNeighbourhoodSearch;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the improvement search over which drone flies which dispatch
+ */
+class LargeNeighbourhoodSearchUnitTest {
+
+    private static final long FOREVER = Long.MAX_VALUE;
+
+    // Two drones, 0.01 degrees apart on the same latitude
+    private static final double[] BASE_LNG = {-3.19, -3.18};
+    private static final double[] BASE_LAT = {55.94, 55.94};
+    private static final double[] NO_CAPACITY = {Double.NaN, Double.NaN};
+    private static final int[] NO_MOVE_LIMIT = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+
+    @Test
+    void search_DispatchFlownFromFarDrone_MovesToNearDrone() {
+        // Given - dispatch 1 sits next to drone 1 but drone 0 flies it
+        List<MedDispatchRec> dispatches = List.of(
+                dispatch(1, -3.1901, false, false),
+                dispatch(2, -3.1801, false, false));
+        LargeNeighbourhoodSearch search = new LargeNeighbourhoodSearch(dispatches, BASE_LNG, BASE_LAT,
+                NO_CAPACITY, NO_MOVE_LIMIT, allAllowed(2, 2), List.of(List.of(0, 1), List.of()));
+
+        // When
+        LargeNeighbourhoodSearch.Result result = search.search(LargeNeighbourhoodSearch.DEFAULT_SEED, 200, FOREVER);
+
+        // Then
+        assertThat(result.getMoves()).isLessThan(search.getInitialMoves());
+        assertThat(result.getVehicleOf()).containsExactly(0, 1);
+    }
+
+    @Test
+    void search_NotAllowedOrConflictingRequirements_KeepsAssignment() {
+        // Given - each drone may fly only its own dispatches, apart from cooled dispatch 0, which
+        // cannot join drone 1's heated flight
+        List<MedDispatchRec> dispatches = List.of(
+                dispatch(1, -3.1801, true, false),
+                dispatch(2, -3.1801, false, false),
+                dispatch(3, -3.1802, false, true));
+        boolean[][] allowed = allAllowed(2, 3);
+        allowed[1][1] = false;
+        allowed[0][2] = false;
+        LargeNeighbourhoodSearch search = new LargeNeighbourhoodSearch(dispatches, BASE_LNG, BASE_LAT,
+                NO_CAPACITY, NO_MOVE_LIMIT, allowed, List.of(List.of(0, 1), List.of(2)));
+
+        // When
+        LargeNeighbourhoodSearch.Result result = search.search(LargeNeighbourhoodSearch.DEFAULT_SEED, 500, FOREVER);
+
+        // Then
+        assertThat(result.getMoves()).isEqualTo(search.getInitialMoves());
+        assertThat(result.getVehicleOf()).containsExactly(0, 0, 1);
+    }
+
+    @Test
+    void search_CapacityFull_NeverOverloads() {
+        // Given - drone 1 is near both dispatches but can carry only one of them
+        List<MedDispatchRec> dispatches = List.of(
+                dispatch(1, -3.1801, false, false),
+                dispatch(2, -3.1802, false, false));
+        double[] capacity = {Double.NaN, 1.5};
+        LargeNeighbourhoodSearch search = new LargeNeighbourhoodSearch(dispatches, BASE_LNG, BASE_LAT,
+                capacity, NO_MOVE_LIMIT, allAllowed(2, 2), List.of(List.of(0), List.of(1)));
+
+        // When
+        LargeNeighbourhoodSearch.Result result = search.search(LargeNeighbourhoodSearch.DEFAULT_SEED, 500, FOREVER);
+
+        // Then
+        assertThat(Arrays.stream(result.getVehicleOf()).filter(v -> v == 1).count()).isEqualTo(1L);
+        assertThat(result.getMoves()).isLessThanOrEqualTo(search.getInitialMoves());
+    }
+
+    @Test
+    void search_SameSeed_SameResult() {
+        // Given
+        List<MedDispatchRec> dispatches = List.of(
+                dispatch(1, -3.1850, false, false),
+                dispatch(2, -3.1830, false, false),
+                dispatch(3, -3.1870, false, false),
+                dispatch(4, -3.1810, false, false));
+        LargeNeighbourhoodSearch search = new LargeNeighbourhoodSearch(dispatches, BASE_LNG, BASE_LAT,
+                NO_CAPACITY, NO_MOVE_LIMIT, allAllowed(2, 4), List.of(List.of(3, 2), List.of(1, 0)));
+
+        // When
+        LargeNeighbourhoodSearch.Result first = search.search(7, 300, FOREVER);
+        LargeNeighbourhoodSearch.Result second = search.search(7, 300, FOREVER);
+
+        // Then
+        assertThat(second.getMoves()).isEqualTo(first.getMoves());
+        assertThat(second.getVehicleOf()).containsExactly(first.getVehicleOf());
+        assertThat(first.getMoves()).isLessThanOrEqualTo(search.getInitialMoves());
+    }
+
+    private static boolean[][] allAllowed(int vehicles, int dispatches) {
+        boolean[][] allowed = new boolean[vehicles][dispatches];
+        for (boolean[] row : allowed) {
+            Arrays.fill(row, true);
+        }
+        return allowed;
+    }
+
+    private static MedDispatchRec dispatch(int id, double lng, boolean cooling, boolean heating) {
+        return new MedDispatchRec(id, LocalDate.parse("2025-01-20"), LocalTime.parse("10:00"),
+                new MedDispatchRec.Requirements(1.0, cooling, heating, null),
+                new MedDispatchRec.Delivery(lng, 55.94));
+    }
+}
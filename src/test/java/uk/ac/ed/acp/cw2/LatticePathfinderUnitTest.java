@@ -0,0 +1,150 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.planner.MoveValidator;
+import uk.ac.ed.acp.cw2.planner.PathSearchResult;
+import uk.ac.ed.acp.cw2.planner.PathSearchStrategy;
+import uk.ac.ed.acp.cw2.planner.PlanningDeadline;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the lattice search strategies (A*, bidirectional, jump point, hierarchical)
+ */
+class LatticePathfinderUnitTest {
+
+    // A vertical wall at lng 0.0009 - 0.0012 between lat -0.0006 and 0.0006
+    private final MoveValidator wall = wall(0.0006);
+
+    private final DeliveryPathResponse.LngLat from = new DeliveryPathResponse.LngLat(0.0, 0.0);
+    private final DeliveryPathResponse.LngLat to = new DeliveryPathResponse.LngLat(0.002, 0.0);
+
+    @ParameterizedTest
+    @EnumSource(PathSearchStrategy.class)
+    void search_AroundWall_UsesValidStepsAndReachesGoal(PathSearchStrategy strategy) {
+        // When
+        PathSearchResult result = strategy.newPathfinder().search(from, to, wall);
+
+        // Then
+        assertThat(result.isFound()).isTrue();
+        List<DeliveryPathResponse.LngLat> path = result.getPath();
+        assertThat(path.get(0)).isEqualTo(from);
+        for (int i = 1; i < path.size(); i++) {
+            DeliveryPathResponse.LngLat p1 = path.get(i - 1);
+            DeliveryPathResponse.LngLat p2 = path.get(i);
+            assertThat(Math.hypot(p2.getLng() - p1.getLng(), p2.getLat() - p1.getLat()))
+                    .isCloseTo(0.00015, within(1e-9));
+            assertThat(wall.isValidMove(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat())).isTrue();
+        }
+        DeliveryPathResponse.LngLat last = path.get(path.size() - 1);
+        assertThat(Math.hypot(last.getLng() - to.getLng(), last.getLat() - to.getLat())).isLessThan(0.00015);
+    }
+
+    @Test
+    void jumpPoint_TallWall_FindsPathWhereStepwiseSearchGivesUp() {
+        // Given - a wall tall enough that the one-move-at-a-time searches hit the iteration cap
+        MoveValidator tallWall = wall(0.002);
+
+        // When
+        PathSearchResult aStar = PathSearchStrategy.A_STAR.newPathfinder().search(from, to, tallWall);
+        PathSearchResult jumpPoint = PathSearchStrategy.JUMP_POINT.newPathfinder().search(from, to, tallWall);
+
+        // Then
+        assertThat(aStar.isFound()).isFalse();
+        assertThat(jumpPoint.isFound()).isTrue();
+        assertThat(jumpPoint.getExpandedNodes()).isLessThan(aStar.getExpandedNodes());
+    }
+
+    @Test
+    void hierarchical_LongWall_FindsCorridorWhereStepwiseSearchGivesUp() {
+        // Given - a 0.01 degree wall across the middle of a 0.03 degree leg
+        MoveValidator longWall = (lng1, lat1, lng2, lat2) -> {
+            boolean inWallBand = lat2 > -0.004 && lat2 < 0.006;
+            boolean endsInWall = lng2 > 0.0149 && lng2 < 0.0152 && inWallBand;
+            boolean crossesWall = (lng1 <= 0.0149) != (lng2 <= 0.0149) && inWallBand;
+            return !endsInWall && !crossesWall;
+        };
+        DeliveryPathResponse.LngLat start = new DeliveryPathResponse.LngLat(0.0005, 0.0015);
+        DeliveryPathResponse.LngLat goal = new DeliveryPathResponse.LngLat(0.0305, 0.0015);
+
+        // When
+        PathSearchResult aStar = PathSearchStrategy.A_STAR.newPathfinder().search(start, goal, longWall);
+        PathSearchResult hierarchical = PathSearchStrategy.HIERARCHICAL.newPathfinder().search(start, goal, longWall);
+
+        // Then
+        assertThat(aStar.isFound()).isFalse();
+        assertThat(hierarchical.isFound()).isTrue();
+        List<DeliveryPathResponse.LngLat> path = hierarchical.getPath();
+        for (int i = 1; i < path.size(); i++) {
+            DeliveryPathResponse.LngLat p1 = path.get(i - 1);
+            DeliveryPathResponse.LngLat p2 = path.get(i);
+            assertThat(longWall.isValidMove(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat())).isTrue();
+        }
+        DeliveryPathResponse.LngLat last = path.get(path.size() - 1);
+        assertThat(Math.hypot(last.getLng() - goal.getLng(), last.getLat() - goal.getLat())).isLessThan(0.00015);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PathSearchStrategy.class)
+    void search_GoalUnreachable_GivesUpAtIterationCap(PathSearchStrategy strategy) {
+        // Given - a box the start cannot leave
+        MoveValidator box = (lng1, lat1, lng2, lat2) -> Math.abs(lng2) < 0.0005 && Math.abs(lat2) < 0.0005;
+
+        // When
+        PathSearchResult result = strategy.newPathfinder().search(from, to, box);
+
+        // Then
+        assertThat(result.isFound()).isFalse();
+        assertThat(result.getPath()).isNull();
+        assertThat(result.getExpandedNodes()).isPositive();
+    }
+
+    @Test
+    void aStar_DeadlineExpired_StopsBeforeIterationCap() throws InterruptedException {
+        // Given - a search that would otherwise run to the 10000 iteration cap
+        PlanningDeadline deadline = PlanningDeadline.after(1);
+        Thread.sleep(5);
+
+        // When
+        PathSearchResult result = PathSearchStrategy.A_STAR.newPathfinder().search(from, to, wall(0.002), deadline);
+
+        // Then
+        assertThat(result.isFound()).isFalse();
+        assertThat(result.getExpandedNodes()).isLessThan(1000);
+        assertThat(deadline.wasHit()).isTrue();
+    }
+
+    @Test
+    void planningDeadline_NoBudget_NeverExpires() {
+        PlanningDeadline deadline = PlanningDeadline.after(0);
+
+        assertThat(deadline).isSameAs(PlanningDeadline.NONE);
+        assertThat(deadline.isExpired()).isFalse();
+        assertThat(deadline.wasHit()).isFalse();
+        assertThat(deadline.remainingMillis()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PathSearchStrategy.class)
+    void search_StartAlreadyCloseToGoal_ReturnsStartOnly(PathSearchStrategy strategy) {
+        DeliveryPathResponse.LngLat near = new DeliveryPathResponse.LngLat(0.0001, 0.0);
+
+        PathSearchResult result = strategy.newPathfinder().search(from, near, wall);
+
+        assertThat(result.getPath()).containsExactly(from);
+    }
+
+    private static MoveValidator wall(double halfHeight) {
+        return (lng1, lat1, lng2, lat2) -> {
+            boolean endsInWall = lng2 > 0.0009 && lng2 < 0.0012 && lat2 > -halfHeight && lat2 < halfHeight;
+            boolean crossesWall = (lng1 <= 0.0009) != (lng2 <= 0.0009) && Math.abs(lat2) < halfHeight;
+            return !endsInWall && !crossesWall;
+        };
+    }
+}
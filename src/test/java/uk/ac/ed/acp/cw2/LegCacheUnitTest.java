@@ -0,0 +1,86 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.planner.LegCache;
+import uk.ac.ed.acp.cw2.planner.MoveValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the cache of single-leg flight paths
+ */
+class LegCacheUnitTest {
+
+    private final DeliveryPathResponse.LngLat a = new DeliveryPathResponse.LngLat(0.0, 0.0);
+    private final DeliveryPathResponse.LngLat b = new DeliveryPathResponse.LngLat(0.0003, 0.0);
+    private final DeliveryPathResponse.LngLat c = new DeliveryPathResponse.LngLat(0.0, 0.0003);
+
+    @Test
+    void get_CachedLeg_ReturnsCopyAndCountsHits() {
+        // Given
+        LegCache cache = new LegCache(10);
+        cache.put(a, b, List.of(a, new DeliveryPathResponse.LngLat(0.00015, 0.0)));
+
+        // When
+        List<DeliveryPathResponse.LngLat> first = cache.get(a, b);
+        first.add(b);
+        List<DeliveryPathResponse.LngLat> second = cache.get(a, b);
+
+        // Then
+        assertThat(second).hasSize(2);
+        assertThat(cache.get(b, a)).isNull();
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void copyWithout_BlockedLeg_RemovedAndReturned() {
+        // Given - a wall across lng 0.0001 blocks the leg to b but not the one to c
+        MoveValidator wall = (lng1, lat1, lng2, lat2) -> (lng1 <= 0.0001) == (lng2 <= 0.0001);
+        LegCache cache = new LegCache(10);
+        cache.put(a, b, List.of(a, new DeliveryPathResponse.LngLat(0.00015, 0.0)));
+        cache.put(a, c, List.of(a, new DeliveryPathResponse.LngLat(0.0, 0.00015)));
+
+        // When
+        List<LegCache.Leg> removed = new ArrayList<>();
+        LegCache copy = cache.copyWithout(leg -> leg.isBlockedBy(wall), removed);
+
+        // Then
+        assertThat(removed).extracting(LegCache.Leg::getTo).containsExactly(b);
+        assertThat(copy.get(a, b)).isNull();
+        assertThat(copy.get(a, c)).hasSize(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void put_OverCapacity_EvictsLeastRecentlyUsed() {
+        // Given
+        LegCache cache = new LegCache(2);
+        cache.put(a, b, List.of(a));
+        cache.put(a, c, List.of(a));
+        cache.get(a, b);
+
+        // When
+        cache.put(b, c, List.of(b));
+
+        // Then
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(a, c)).isNull();
+        assertThat(cache.get(a, b)).isNotNull();
+        assertThat(cache.get(b, c)).isNotNull();
+    }
+
+    @Test
+    void put_NoCapacity_KeepsNothing() {
+        LegCache cache = new LegCache(0);
+
+        cache.put(a, b, List.of(a));
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(a, b)).isNull();
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.planner.LpaStarPathfinder;
+import uk.ac.ed.acp.cw2.planner.MoveValidator;
+import uk.ac.ed.acp.cw2.planner.PathSearchResult;
+import uk.ac.ed.acp.cw2.planner.PathSearchStrategy;
+import uk.ac.ed.acp.cw2.planner.PlanningDeadline;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the incremental (LPA*) leg search
+ */
+class LpaStarPathfinderUnitTest {
+
+    private static final MoveValidator OPEN = (lng1, lat1, lng2, lat2) -> true;
+
+    // A vertical wall at lng 0.0009 - 0.0012 between lat -0.0006 and 0.0006
+    private final MoveValidator wall = wall(0.0006);
+
+    private final DeliveryPathResponse.LngLat from = new DeliveryPathResponse.LngLat(0.0, 0.0);
+    private final DeliveryPathResponse.LngLat to = new DeliveryPathResponse.LngLat(0.002, 0.0);
+
+    @Test
+    void computePath_OpenSpace_SameLengthAsAStar() {
+        // When
+        PathSearchResult lpa = new LpaStarPathfinder(from, to, OPEN).computePath(PlanningDeadline.NONE);
+        PathSearchResult aStar = PathSearchStrategy.A_STAR.newPathfinder().search(from, to, OPEN);
+
+        // Then
+        assertThat(lpa.isFound()).isTrue();
+        assertThat(lpa.getPath()).hasSameSizeAs(aStar.getPath());
+        assertValidPath(lpa.getPath(), OPEN);
+    }
+
+    @Test
+    void computePath_AroundWall_SameLengthAsAStar() {
+        // When
+        PathSearchResult lpa = new LpaStarPathfinder(from, to, wall).computePath(PlanningDeadline.NONE);
+        PathSearchResult aStar = PathSearchStrategy.A_STAR.newPathfinder().search(from, to, wall);
+
+        // Then
+        assertThat(lpa.isFound()).isTrue();
+        assertThat(lpa.getPath()).hasSameSizeAs(aStar.getPath());
+        assertValidPath(lpa.getPath(), wall);
+    }
+
+    @Test
+    void areaChanged_WallAppears_RepairsToFreshSearchLength() {
+        // Given - a search over open space, then the wall goes up across its path
+        LpaStarPathfinder search = new LpaStarPathfinder(from, to, OPEN);
+        int openLength = search.computePath(PlanningDeadline.NONE).getPath().size();
+
+        // When
+        search.areaChanged(wall, 0.0009, -0.0006, 0.0012, 0.0006);
+        PathSearchResult repaired = search.computePath(PlanningDeadline.NONE);
+        PathSearchResult fresh = new LpaStarPathfinder(from, to, wall).computePath(PlanningDeadline.NONE);
+
+        // Then
+        assertThat(repaired.isFound()).isTrue();
+        assertThat(repaired.getPath()).hasSameSizeAs(fresh.getPath());
+        assertThat(repaired.getPath().size()).isGreaterThan(openLength);
+        assertValidPath(repaired.getPath(), wall);
+    }
+
+    @Test
+    void computePath_GoalUnreachable_GivesUpAtExpansionCap() {
+        // Given - a box the start cannot leave
+        MoveValidator box = (lng1, lat1, lng2, lat2) -> Math.abs(lng2) < 0.0005 && Math.abs(lat2) < 0.0005;
+
+        // When
+        PathSearchResult result = new LpaStarPathfinder(from, to, box, 500).computePath(PlanningDeadline.NONE);
+
+        // Then
+        assertThat(result.isFound()).isFalse();
+        assertThat(result.getPath()).isNull();
+        assertThat(result.getExpandedNodes()).isPositive();
+    }
+
+    private void assertValidPath(List<DeliveryPathResponse.LngLat> path, MoveValidator validator) {
+        assertThat(path.get(0)).isEqualTo(from);
+        for (int i = 1; i < path.size(); i++) {
+            DeliveryPathResponse.LngLat p1 = path.get(i - 1);
+            DeliveryPathResponse.LngLat p2 = path.get(i);
+            assertThat(Math.hypot(p2.getLng() - p1.getLng(), p2.getLat() - p1.getLat()))
+                    .isCloseTo(0.00015, within(1e-9));
+            assertThat(validator.isValidMove(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat())).isTrue();
+        }
+        DeliveryPathResponse.LngLat last = path.get(path.size() - 1);
+        assertThat(Math.hypot(last.getLng() - to.getLng(), last.getLat() - to.getLat())).isLessThan(0.00015);
+    }
+
+    private static MoveValidator wall(double halfHeight) {
+        return (lng1, lat1, lng2, lat2) -> {
+            boolean endsInWall = lng2 > 0.0009 && lng2 < 0.0012 && lat2 > -halfHeight && lat2 < halfHeight;
+            boolean crossesWall = (lng1 <= 0.0009) != (lng2 <= 0.0009) && Math.abs(lat2) < halfHeight;
+            return !endsInWall && !crossesWall;
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.service.impl.PlanCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the weighted, expiring plan cache
+ */
+class PlanCacheUnitTest {
+
+    @Test
+    void put_OverWeight_EvictsLeastRecentlyUsed() {
+        // Given
+        PlanCache cache = new PlanCache(10, 60000);
+        cache.put("a", 1, "plan a", 4);
+        cache.put("b", 1, "plan b", 4);
+        cache.get("a", 1);
+
+        // When - "b" is now the least recently used entry
+        cache.put("c", 1, "plan c", 4);
+
+        // Then
+        assertThat(cache.get("b", 1)).isNull();
+        assertThat(cache.get("a", 1).<String>getValue()).isEqualTo("plan a");
+        assertThat(cache.get("c", 1).<String>getValue()).isEqualTo("plan c");
+        assertThat(cache.getSizeEvictions()).isEqualTo(1);
+        assertThat(cache.getTotalWeight()).isEqualTo(8);
+    }
+
+    @Test
+    void put_HeavierThanWholeCache_NotStored() {
+        PlanCache cache = new PlanCache(10, 60000);
+
+        cache.put("huge", 1, "week-long plan", 11);
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void get_AfterTtl_Misses() {
+        // Given - a zero TTL expires entries immediately
+        PlanCache cache = new PlanCache(10, 0);
+        cache.put("a", 1, "plan a", 1);
+
+        // When / Then
+        assertThat(cache.get("a", 1)).isNull();
+        assertThat(cache.getExpirations()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void get_NullResultCached_HitWithNullValue() {
+        PlanCache cache = new PlanCache(10, 60000);
+        cache.put("infeasible", 1, null, 1);
+
+        PlanCache.Entry entry = cache.get("infeasible", 1);
+
+        assertThat(entry).isNotNull();
+        assertThat(entry.<Object>getValue()).isNull();
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,72 @@
+package uk.ac.ed.acp.cw2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.planner.PathSearchResult;
+import uk.ac.ed.acp.cw2.planner.PathSearchStrategy;
+import uk.ac.ed.acp.cw2.service.impl.PlannerMetrics;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Unit tests for the Micrometer meters of the planning pipeline
+ */
+class PlannerMetricsUnitTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PlannerMetrics metrics = new PlannerMetrics(registry);
+
+    @Test
+    void search_TimedAndExpandedNodesByStrategyAndOutcome() {
+        // When
+        metrics.search(metrics.start(), PathSearchStrategy.A_STAR, new PathSearchResult(List.of(), 120));
+        metrics.search(metrics.start(), PathSearchStrategy.A_STAR, new PathSearchResult(null, 10000));
+
+        // Then
+        assertThat(registry.get("planner.search").tag("search", "A_STAR").tag("outcome", "found").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("planner.search.expanded").tag("outcome", "found").summary().totalAmount())
+                .isEqualTo(120.0);
+        assertThat(registry.get("planner.search.expanded").tag("outcome", "not-found").summary().totalAmount())
+                .isEqualTo(10000.0);
+    }
+
+    @Test
+    void plan_TaggedWithPlanStatus() {
+        // When
+        metrics.plan(metrics.start(), DeliveryPathResponse.PlanStatus.BUDGET_TRUNCATED);
+        metrics.plan(metrics.start(), null);
+
+        // Then
+        assertThat(registry.get("planner.plan").tag("outcome", "budget-truncated").timer().count()).isEqualTo(1);
+        assertThat(registry.get("planner.plan").tag("outcome", "none").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void pruned_AddsCountAndSkipsZero() {
+        // When
+        metrics.pruned("service-points", 0);
+        metrics.pruned("drones", 5);
+        metrics.pruned("drones", 3);
+
+        // Then
+        assertThat(registry.find("planner.candidates.pruned").tag("stage", "service-points").counter()).isNull();
+        assertThat(registry.get("planner.candidates.pruned").tag("stage", "drones").counter().count()).isEqualTo(8.0);
+    }
+
+    @Test
+    void withoutRegistry_MetersAreNoOps() {
+        PlannerMetrics noRegistry = new PlannerMetrics(null);
+
+        assertThatCode(() -> {
+            noRegistry.fetch(noRegistry.start(), "drones", true);
+            noRegistry.strategy(noRegistry.start(), "single-drone", false);
+            noRegistry.order("dp");
+            noRegistry.rrtFallback(true);
+        }).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,133 @@
+package uk.ac.ed.acp.cw2;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.planner.PlannerTrace;
+import uk.ac.ed.acp.cw2.service.impl.DroneQueryServiceImpl;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for planning the independent parts of a request (dates, requirement partitions)
+ * concurrently: the plan must not depend on the planner's parallelism
+ */
+class PlannerParallelismUnitTest {
+
+    private static final LocalDate MONDAY = LocalDate.parse("2025-12-22");
+    private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+
+    private static final ServicePoint BASE = new ServicePoint("Base", 1, new ServicePoint.Location(0.0, 0.0, null));
+
+    private final Logger traceLogger = (Logger) LoggerFactory.getLogger(PlannerTrace.class);
+    private final ListAppender<ILoggingEvent> traces = new ListAppender<>();
+    private final List<DroneQueryServiceImpl> planners = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        traces.start();
+        traceLogger.addAppender(traces);
+    }
+
+    @AfterEach
+    void tearDown() {
+        traceLogger.detachAppender(traces);
+        planners.forEach(DroneQueryServiceImpl::shutdown);
+    }
+
+    @Test
+    void calcDeliveryPath_DatesAndPartitions_SamePlanWithOneOrFourThreads() {
+        // Given - cooling and heating on both days, so no one drone can fly everything. The cheap
+        // cooler and heater are the best pick for their partition on both days, so with four threads
+        // each Tuesday part first takes a drone its Monday part has reserved and is planned again
+        List<MedDispatchRec> dispatches = List.of(
+                dispatch(1, MONDAY, true, false, 0.003, 0.001),
+                dispatch(2, MONDAY, false, true, -0.002, 0.003),
+                dispatch(3, MONDAY, false, false, 0.001, -0.003),
+                dispatch(4, TUESDAY, true, false, 0.004, 0.002),
+                dispatch(5, TUESDAY, false, true, -0.003, -0.002),
+                dispatch(6, TUESDAY, false, false, -0.001, 0.004));
+
+        // When
+        DeliveryPathResponse sequential = planner(1).calcDeliveryPath(dispatches);
+        DeliveryPathResponse parallel = planner(4).calcDeliveryPath(dispatches);
+
+        // Then
+        assertThat(sequential.getDronePaths()).isNotEmpty();
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(traces.list).anyMatch(event -> event.getFormattedMessage().contains("reservation.replan="));
+    }
+
+    private DroneQueryServiceImpl planner(int parallelism) {
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        Drone[] drones = {
+                drone(1, true, false, 0.01), drone(2, true, false, 0.03),
+                drone(3, false, true, 0.01), drone(4, false, true, 0.03),
+                drone(5, false, false, 0.005), drone(6, false, false, 0.007)};
+        List<DroneServicePointAvailability.DroneAvailability> available = new ArrayList<>();
+        for (Drone drone : drones) {
+            available.add(new DroneServicePointAvailability.DroneAvailability(String.valueOf(drone.getId()), week()));
+        }
+        when(restTemplate.getForObject(anyString(), eq(Drone[].class))).thenReturn(drones);
+        when(restTemplate.getForObject(anyString(), eq(ServicePoint[].class))).thenReturn(new ServicePoint[]{BASE});
+        when(restTemplate.getForObject(anyString(), eq(DroneServicePointAvailability[].class)))
+                .thenReturn(new DroneServicePointAvailability[]{new DroneServicePointAvailability(BASE.getId(), available)});
+        when(restTemplate.getForObject(anyString(), eq(RestrictedArea[].class))).thenReturn(new RestrictedArea[0]);
+
+        DroneQueryServiceImpl planner = new DroneQueryServiceImpl();
+        setField(planner, "restTemplate", restTemplate);
+        setField(planner, "ilpEndpoint", "http://dummy-ilp-endpoint");
+        setField(planner, "parallelism", parallelism);
+        planners.add(planner);
+        return planner;
+    }
+
+    private static Drone drone(int id, boolean cooling, boolean heating, double costPerMove) {
+        return new Drone("Drone " + id, id, new Drone.Capability(cooling, heating, 10.0, 2000, costPerMove, 1.0, 1.0));
+    }
+
+    private static List<DroneServicePointAvailability.TimeSlot> week() {
+        List<DroneServicePointAvailability.TimeSlot> week = new ArrayList<>();
+        for (String day : List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY")) {
+            week.add(new DroneServicePointAvailability.TimeSlot(day, LocalTime.MIN, LocalTime.of(23, 59, 59)));
+        }
+        return week;
+    }
+
+    private static MedDispatchRec dispatch(int id, LocalDate date, boolean cooling, boolean heating, double lng, double lat) {
+        return new MedDispatchRec(id, date, LocalTime.of(10, 0),
+                new MedDispatchRec.Requirements(1.0, cooling, heating, null),
+                new MedDispatchRec.Delivery(lng, lat));
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name, e);
+        }
+    }
+}
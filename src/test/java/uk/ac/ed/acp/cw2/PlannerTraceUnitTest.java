@@ -0,0 +1,71 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.planner.PlannerTrace;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the per-request planner trace
+ */
+class PlannerTraceUnitTest {
+
+    @Test
+    void event_CountedPerName() {
+        // Given
+        PlannerTrace trace = PlannerTrace.begin();
+
+        // When
+        trace.event("leg.direct");
+        trace.event("leg.direct", "Direct path from {}", 1);
+        trace.event("leg.search", "{} search expanded {} nodes", "A_STAR", 40);
+
+        // Then
+        assertThat(trace.getCount("leg.direct")).isEqualTo(2);
+        assertThat(trace.getCount("leg.search")).isEqualTo(1);
+        assertThat(trace.getCount("leg.rrt-fallback")).isZero();
+    }
+
+    @Test
+    void requestVerbose_OnlyInsideScope() {
+        // When
+        PlannerTrace inside;
+        try (PlannerTrace.Scope ignored = PlannerTrace.requestVerbose()) {
+            inside = PlannerTrace.begin();
+        }
+        PlannerTrace after = PlannerTrace.begin();
+
+        // Then
+        assertThat(inside.isVerbose()).isTrue();
+        assertThat(after.isVerbose()).isFalse();
+        assertThat(PlannerTrace.isVerboseRequested()).isFalse();
+        assertThat(inside.getId()).isNotEqualTo(after.getId());
+    }
+
+    @Test
+    void off_DropsEvents() {
+        // When
+        PlannerTrace.OFF.event("leg.direct", "Direct path from {}", 1);
+        PlannerTrace.OFF.finish("complete");
+
+        // Then
+        assertThat(PlannerTrace.OFF.getCount("leg.direct")).isZero();
+    }
+
+    @Test
+    void lazy_ComputedOnlyWhenPrinted() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        Object distance = PlannerTrace.lazy(() -> calls.incrementAndGet() * 0.5);
+
+        // When - a non-verbose trace with DEBUG off never formats its arguments
+        PlannerTrace.begin().event("order.greedy", "Total distance = {}", distance);
+
+        // Then
+        assertThat(calls.get()).isZero();
+        assertThat(distance.toString()).isEqualTo("0.5");
+        assertThat(PlannerTrace.decimals(3.14159, 2).toString()).isEqualTo("3.14");
+    }
+}
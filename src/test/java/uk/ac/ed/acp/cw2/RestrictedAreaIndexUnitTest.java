@@ -0,0 +1,62 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the compiled restricted area index
+ */
+class RestrictedAreaIndexUnitTest {
+
+    private static RestrictedArea.Vertex v(Double lng, Double lat) {
+        return new RestrictedArea.Vertex(lng, lat, null);
+    }
+
+    // Square from (0, 0) to (0.001, 0.001)
+    private final RestrictedAreaIndex index = new RestrictedAreaIndex(List.of(
+            new RestrictedArea("Square", 1, null, List.of(
+                    v(0.0, 0.0), v(0.001, 0.0), v(0.001, 0.001), v(0.0, 0.001), v(0.0, 0.0)))));
+
+    @Test
+    void areaContaining_InsideAndOutside() {
+        assertThat(index.areaContaining(0.0005, 0.0005)).isEqualTo(0);
+        assertThat(index.name(0)).isEqualTo("Square");
+        assertThat(index.areaContaining(0.002, 0.0005)).isEqualTo(-1);
+    }
+
+    @Test
+    void isValidMove_EndWithinBuffer_IsRejected() {
+        // Ends 0.0001 from the left edge, inside the 0.00015 buffer
+        assertThat(index.isValidMove(-0.0003, 0.0005, -0.0001, 0.0005)).isFalse();
+        // Ends 0.0002 from the left edge
+        assertThat(index.isValidMove(-0.0004, 0.0005, -0.0002, 0.0005)).isTrue();
+    }
+
+    @Test
+    void isValidMove_CrossingCorner_IsRejected() {
+        // Both ends clear of the buffer but the segment cuts through the square
+        assertThat(index.isValidMove(-0.0002, 0.0005, 0.0012, 0.0005)).isFalse();
+    }
+
+    @Test
+    void isPathClear_ChecksBothEnds() {
+        assertThat(index.isPathClear(-0.0001, 0.0005, -0.0001, 0.002)).isFalse();
+        assertThat(index.isPathClear(-0.0005, -0.0005, -0.0005, 0.002)).isTrue();
+    }
+
+    @Test
+    void missingVertices_AreSkippedAndDegenerateAreasIgnored() {
+        RestrictedAreaIndex partial = new RestrictedAreaIndex(List.of(
+                new RestrictedArea("Line", 2, null, List.of(v(0.0, 0.0), v(0.001, 0.0))),
+                new RestrictedArea("Gap", 3, null, Arrays.asList(v(0.0, 0.0), v(null, 0.0), v(0.001, 0.001)))));
+
+        assertThat(partial.isPointInOrNearAny(0.0005, 0.0)).isFalse();
+        assertThat(partial.isValidPosition(0.002, 0.002)).isTrue();
+    }
+}
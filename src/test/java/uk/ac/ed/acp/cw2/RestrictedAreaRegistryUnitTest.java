@@ -0,0 +1,140 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.TemporaryRestrictedArea;
+import uk.ac.ed.acp.cw2.service.impl.RestrictedAreaRegistryImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the registry of temporary restricted areas
+ */
+class RestrictedAreaRegistryUnitTest {
+
+    private final RestrictedAreaRegistryImpl registry = new RestrictedAreaRegistryImpl();
+    private final List<RestrictedArea[]> changes = new ArrayList<>();
+
+    RestrictedAreaRegistryUnitTest() {
+        registry.addListener((before, after, snapshot) -> changes.add(new RestrictedArea[]{before, after}));
+    }
+
+    @Test
+    void register_NewThenUpdated_NotifiesBeforeAndAfter() {
+        // Given
+        RestrictedArea first = square(1, 0.0);
+        RestrictedArea moved = square(1, 0.001);
+
+        // When
+        TemporaryRestrictedArea previous = registry.register(new TemporaryRestrictedArea(first, null));
+        TemporaryRestrictedArea replaced = registry.register(new TemporaryRestrictedArea(moved, null));
+
+        // Then
+        assertThat(previous).isNull();
+        assertThat(replaced.getArea()).isEqualTo(first);
+        assertThat(changes).hasSize(2);
+        assertThat(changes.get(0)).containsExactly(null, first);
+        assertThat(changes.get(1)).containsExactly(first, moved);
+        assertThat(registry.snapshot().getAreas()).containsExactly(moved);
+        assertThat(registry.snapshot().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void expire_RegisteredArea_RemovedOnce() {
+        // Given
+        RestrictedArea area = square(7, 0.0);
+        registry.register(new TemporaryRestrictedArea(area, null));
+
+        // When
+        TemporaryRestrictedArea removed = registry.expire(7);
+        TemporaryRestrictedArea again = registry.expire(7);
+
+        // Then
+        assertThat(removed.getArea()).isEqualTo(area);
+        assertThat(again).isNull();
+        assertThat(changes.get(1)).containsExactly(area, null);
+        assertThat(registry.list()).isEmpty();
+    }
+
+    @Test
+    void expireDue_PastExpiry_DropsOnlyDueAreas() {
+        // Given
+        RestrictedArea shortLived = square(1, 0.0);
+        RestrictedArea lasting = square(2, 0.001);
+        registry.register(new TemporaryRestrictedArea(shortLived, Long.MAX_VALUE - 1));
+        registry.register(new TemporaryRestrictedArea(lasting, null));
+
+        // When
+        registry.expireDue(Long.MAX_VALUE);
+
+        // Then
+        assertThat(registry.snapshot().getAreas()).containsExactly(lasting);
+        assertThat(changes.get(2)).containsExactly(shortLived, null);
+        assertThat(registry.snapshot().getVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void register_Started_PublishesOnceListenersReturn() throws Exception {
+        // Given: a started registry whose listener is held up, as by a slow repair
+        RestrictedAreaRegistryImpl started = new RestrictedAreaRegistryImpl();
+        CountDownLatch listening = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        started.addListener((before, after, snapshot) -> {
+            listening.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.start();
+        try {
+            RestrictedArea area = square(4, 0.0);
+
+            // When
+            started.register(new TemporaryRestrictedArea(area, null));
+            assertThat(listening.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Then: readers get the previous version without waiting, and the new one once the listener is done
+            assertThat(started.snapshot().getVersion()).isZero();
+            assertThat(started.list()).hasSize(1);
+            release.countDown();
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (started.snapshot().getVersion() == 0 && System.nanoTime() < end) {
+                Thread.sleep(10);
+            }
+            assertThat(started.snapshot().getVersion()).isEqualTo(1);
+            assertThat(started.snapshot().getAreas()).containsExactly(area);
+        } finally {
+            release.countDown();
+            started.shutdown();
+        }
+    }
+
+    @Test
+    void register_NoIdOrVertices_Rejected() {
+        RestrictedArea noId = square(null, 0.0);
+        RestrictedArea line = new RestrictedArea("line", 3, null, square(3, 0.0).getVertices().subList(0, 2));
+
+        assertThatThrownBy(() -> registry.register(new TemporaryRestrictedArea(noId, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registry.register(new TemporaryRestrictedArea(line, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(changes).isEmpty();
+    }
+
+    private static RestrictedArea square(Integer id, double lng) {
+        return new RestrictedArea("temporary " + id, id, new RestrictedArea.Limits(0, -1), List.of(
+                new RestrictedArea.Vertex(lng, 0.0, null),
+                new RestrictedArea.Vertex(lng + 0.0005, 0.0, null),
+                new RestrictedArea.Vertex(lng + 0.0005, 0.0005, null),
+                new RestrictedArea.Vertex(lng, 0.0005, null),
+                new RestrictedArea.Vertex(lng, 0.0, null)));
+    }
+}
@@ -0,0 +1,270 @@
+package uk.ac.ed.acp.cw2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.dto.TemporaryRestrictedArea;
+import uk.ac.ed.acp.cw2.planner.LegCache;
+import uk.ac.ed.acp.cw2.service.ReferenceDataService;
+import uk.ac.ed.acp.cw2.service.impl.CoalescingDroneQueryService;
+import uk.ac.ed.acp.cw2.service.impl.DroneQueryServiceImpl;
+import uk.ac.ed.acp.cw2.service.impl.RestrictedAreaRegistryImpl;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for carrying cached plans, legs and distance fields over temporary restricted area
+ * changes, through the plan cache, the planner and an unstarted registry (listeners run inline)
+ */
+class RestrictedAreaRepairUnitTest {
+
+    private static final LocalDate MONDAY = LocalDate.parse("2025-12-22");
+
+    // Base at the origin; Far is out of range of Base's drone and the other way round
+    private static final ServicePoint BASE = new ServicePoint("Base", 1, new ServicePoint.Location(0.0, 0.0, null));
+    private static final ServicePoint FAR = new ServicePoint("Far", 2, new ServicePoint.Location(0.1, 0.0, null));
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final RestrictedAreaRegistryImpl registry = new RestrictedAreaRegistryImpl();
+    private final List<RestrictedArea> ilpAreas = new ArrayList<>();
+    private DroneQueryServiceImpl planner;
+    private CoalescingDroneQueryService service;
+
+    // 40 moves east and north of Base
+    private final MedDispatchRec east = dispatch(1, 0.006, 0.0);
+    private final MedDispatchRec north = dispatch(2, 0.0, 0.006);
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        when(restTemplate.getForObject(anyString(), eq(Drone[].class))).thenReturn(new Drone[]{drone(1), drone(2)});
+        when(restTemplate.getForObject(anyString(), eq(ServicePoint[].class))).thenReturn(new ServicePoint[]{BASE, FAR});
+        when(restTemplate.getForObject(anyString(), eq(DroneServicePointAvailability[].class)))
+                .thenReturn(new DroneServicePointAvailability[]{availability(BASE, "1"), availability(FAR, "2")});
+        when(restTemplate.getForObject(anyString(), eq(RestrictedArea[].class)))
+                .thenAnswer(invocation -> ilpAreas.toArray(new RestrictedArea[0]));
+
+        DroneQueryServiceImpl impl = new DroneQueryServiceImpl();
+        setField(impl, "restTemplate", restTemplate);
+        setField(impl, "ilpEndpoint", "http://dummy-ilp-endpoint");
+        setField(impl, "restrictedAreaRegistry", registry);
+        setField(impl, "meterRegistry", meters);
+        // Reaches past the deliveries here, and is quicker to build than the default
+        setField(impl, "distanceFieldRadiusMoves", 60);
+        planner = spy(impl);
+
+        ReferenceDataService referenceData = mock(ReferenceDataService.class);
+        when(referenceData.snapshotVersion()).thenReturn(1L);
+        service = new CoalescingDroneQueryService();
+        setField(service, "droneQueryService", planner);
+        setField(service, "referenceDataService", referenceData);
+        setField(service, "restrictedAreaRegistry", registry);
+        service.listenForAreaChanges();
+    }
+
+    @Test
+    void register_AreaAcrossCachedPlan_PlanRepairedAroundIt() {
+        // Given
+        DeliveryPathResponse before = service.calcDeliveryPath(List.of(east));
+
+        // When - a wall across the way out and back, clear of Base and the delivery
+        registry.register(new TemporaryRestrictedArea(square(10, 0.003, 0.0, 0.0005), null));
+        DeliveryPathResponse after = service.calcDeliveryPath(List.of(east));
+
+        // Then - flown again around the wall, without planning from scratch
+        verify(planner, times(1)).calcDeliveryPath(anyList());
+        assertThat(count("planner.cache.repairs", "repaired")).isEqualTo(1.0);
+        assertThat(after.getDronePaths().get(0).getDroneId()).isEqualTo(before.getDronePaths().get(0).getDroneId());
+        assertThat(after.getTotalMoves()).isGreaterThan(before.getTotalMoves());
+        assertThat(planner.verifyDeliveryPath(before).getValid()).isFalse();
+        assertThat(planner.verifyDeliveryPath(after).getValid()).isTrue();
+    }
+
+    @Test
+    void expire_AreaCachedPlanDetoursAround_PlanRepairedStraight() {
+        // Given - planned around the wall
+        registry.register(new TemporaryRestrictedArea(square(10, 0.003, 0.0, 0.0005), null));
+        DeliveryPathResponse before = service.calcDeliveryPath(List.of(east));
+
+        // When
+        registry.expire(10);
+        DeliveryPathResponse after = service.calcDeliveryPath(List.of(east));
+
+        // Then - the detour is gone: 40 moves out and 40 back
+        verify(planner, times(1)).calcDeliveryPath(anyList());
+        assertThat(count("planner.cache.repairs", "repaired")).isEqualTo(1.0);
+        assertThat(after.getTotalMoves()).isLessThan(before.getTotalMoves()).isEqualTo(80);
+        assertThat(planner.verifyDeliveryPath(after).getValid()).isTrue();
+    }
+
+    @Test
+    void register_AreaOverDelivery_CachedPlanDroppedWithoutSearching() {
+        // Given
+        service.calcDeliveryPath(List.of(east));
+
+        // When - the delivery point is now inside an area
+        long start = System.nanoTime();
+        registry.register(new TemporaryRestrictedArea(square(10, 0.006, 0.0, 0.0005), null));
+
+        // Then - given up at once rather than after the repair budget
+        assertThat(count("planner.cache.repairs", "dropped")).isEqualTo(1.0);
+        assertThat(service.cache().size()).isZero();
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void register_AreaAwayFromCachedPlan_PlanStillServed() {
+        // Given
+        DeliveryPathResponse before = service.calcDeliveryPath(List.of(north));
+
+        // When
+        registry.register(new TemporaryRestrictedArea(square(10, 0.003, 0.0, 0.0005), null));
+        DeliveryPathResponse after = service.calcDeliveryPath(List.of(north));
+
+        // Then
+        assertThat(after).isSameAs(before);
+        verify(planner, times(1)).calcDeliveryPath(anyList());
+        assertThat(meters.find("planner.cache.repairs").counter()).isNull();
+    }
+
+    @Test
+    void register_PlanCachedWhileChangeApplied_NotServedOnceChangePublished() {
+        // Given - a request planned and cached against the old areas after the cache was repaired,
+        // but before the registry published the change
+        List<DeliveryPathResponse> during = new ArrayList<>();
+        registry.addListener((before, after, snapshot) -> during.add(service.calcDeliveryPath(List.of(east))));
+
+        // When
+        registry.register(new TemporaryRestrictedArea(square(10, 0.003, 0.0, 0.0005), null));
+        DeliveryPathResponse after = service.calcDeliveryPath(List.of(east));
+
+        // Then - planned again for the published areas
+        verify(planner, times(2)).calcDeliveryPath(anyList());
+        assertThat(planner.verifyDeliveryPath(during.get(0)).getValid()).isFalse();
+        assertThat(planner.verifyDeliveryPath(after).getValid()).isTrue();
+    }
+
+    @Test
+    void register_AreaAcrossSomeLegs_OtherLegsKept() throws Exception {
+        // Given
+        service.calcDeliveryPath(List.of(east));
+        service.calcDeliveryPath(List.of(north));
+        int legs = legCache().size();
+
+        // When
+        registry.register(new TemporaryRestrictedArea(square(10, 0.003, 0.0, 0.0005), null));
+
+        // Then - the eastern legs are repaired in place, none dropped
+        assertThat(count("planner.leg-cache.repairs", "repaired")).isGreaterThan(0.0);
+        assertThat(meters.find("planner.leg-cache.repairs").tag("outcome", "dropped").counter()).isNull();
+        LegCache carried = legCache();
+        assertThat(carried.size()).isEqualTo(legs);
+
+        // and the northern ones come back from the cache when planned again
+        long misses = carried.getMisses();
+        planner.calcDeliveryPath(List.of(north));
+        assertThat(carried.getHits()).isGreaterThan(0);
+        assertThat(carried.getMisses()).isEqualTo(misses);
+    }
+
+    @Test
+    void register_AreaNearOneServicePoint_OnlyItsDistanceFieldRebuilt() {
+        // Given - walls across the way back to each service point, so both returns descend a distance field
+        ilpAreas.add(square(1, 0.003, 0.0, 0.0005));
+        ilpAreas.add(square(2, 0.103, 0.0, 0.0005));
+        MedDispatchRec nearFar = dispatch(3, 0.106, 0.0);
+        planner.calcDeliveryPath(List.of(east));
+        planner.calcDeliveryPath(List.of(nearFar));
+        long built = meters.get("planner.distance-field.build").timer().count();
+
+        // When - an area within Base's field, far from Far's
+        registry.register(new TemporaryRestrictedArea(square(10, -0.005, 0.005, 0.0005), null));
+        planner.calcDeliveryPath(List.of(east));
+        planner.calcDeliveryPath(List.of(nearFar));
+
+        // Then
+        assertThat(built).isEqualTo(2L);
+        assertThat(meters.get("planner.distance-field.build").timer().count()).isEqualTo(3L);
+    }
+
+    private double count(String name, String outcome) {
+        Counter counter = meters.find(name).tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0.0;
+    }
+
+    /**
+     * The leg cache for the current restricted areas
+     */
+    private LegCache legCache() throws ReflectiveOperationException {
+        Field snapshotField = DroneQueryServiceImpl.class.getDeclaredField("areaSnapshot");
+        snapshotField.setAccessible(true);
+        Object snapshot = snapshotField.get(planner);
+        Field legsField = snapshot.getClass().getDeclaredField("legs");
+        legsField.setAccessible(true);
+        return (LegCache) legsField.get(snapshot);
+    }
+
+    private static Drone drone(int id) {
+        return new Drone("Drone " + id, id, new Drone.Capability(false, false, 10.0, 300, 0.01, 1.0, 1.0));
+    }
+
+    private static DroneServicePointAvailability availability(ServicePoint servicePoint, String droneId) {
+        List<DroneServicePointAvailability.TimeSlot> week = new ArrayList<>();
+        for (String day : List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY")) {
+            week.add(new DroneServicePointAvailability.TimeSlot(day, LocalTime.MIN, LocalTime.of(23, 59, 59)));
+        }
+        return new DroneServicePointAvailability(servicePoint.getId(),
+                List.of(new DroneServicePointAvailability.DroneAvailability(droneId, week)));
+    }
+
+    private static MedDispatchRec dispatch(int id, double lng, double lat) {
+        return new MedDispatchRec(id, MONDAY, LocalTime.of(10, 0),
+                new MedDispatchRec.Requirements(1.0, false, false, null),
+                new MedDispatchRec.Delivery(lng, lat));
+    }
+
+    /**
+     * Square of the given half side around (lng, lat)
+     */
+    private static RestrictedArea square(int id, double lng, double lat, double halfSide) {
+        return new RestrictedArea("Area " + id, id, null, List.of(
+                new RestrictedArea.Vertex(lng - halfSide, lat - halfSide, null),
+                new RestrictedArea.Vertex(lng + halfSide, lat - halfSide, null),
+                new RestrictedArea.Vertex(lng + halfSide, lat + halfSide, null),
+                new RestrictedArea.Vertex(lng - halfSide, lat + halfSide, null),
+                new RestrictedArea.Vertex(lng - halfSide, lat - halfSide, null)));
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name, e);
+        }
+    }
+}
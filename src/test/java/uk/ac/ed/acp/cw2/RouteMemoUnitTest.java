@@ -0,0 +1,114 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.planner.RouteMemo;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the per-request route memo
+ */
+class RouteMemoUnitTest {
+
+    private final RouteMemo memo = new RouteMemo();
+    private final AtomicInteger routerCalls = new AtomicInteger();
+
+    @Test
+    void route_SameDroneServicePointAndStops_RoutedOnce() {
+        // Given
+        List<MedDispatchRec> stops = List.of(dispatch(1, 0.5), dispatch(2, 1.0));
+
+        // When
+        DeliveryPathResponse first = memo.route(4, 1, stops, this::router);
+        DeliveryPathResponse second = memo.route(4, 1, new ArrayList<>(stops), this::router);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(routerCalls.get()).isEqualTo(1);
+        assertThat(memo.getRouted()).isEqualTo(1);
+        assertThat(memo.getReused()).isEqualTo(1);
+    }
+
+    @Test
+    void route_InfeasibleResultRemembered() {
+        // Given
+        List<MedDispatchRec> stops = List.of(dispatch(1, 0.5));
+
+        // When
+        memo.route(4, 1, stops, () -> {
+            routerCalls.incrementAndGet();
+            return null;
+        });
+        DeliveryPathResponse again = memo.route(4, 1, stops, this::router);
+
+        // Then
+        assertThat(again).isNull();
+        assertThat(routerCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void route_DifferentDroneServicePointOrStops_RoutedSeparately() {
+        // Given
+        List<MedDispatchRec> stops = List.of(dispatch(1, 0.5), dispatch(2, 1.0));
+
+        // When
+        memo.route(4, 1, stops, this::router);
+        memo.route(5, 1, stops, this::router);
+        memo.route(4, 2, stops, this::router);
+        memo.route(4, 1, stops.subList(0, 1), this::router);
+        memo.route(4, 1, List.of(dispatch(1, 0.75), dispatch(2, 1.0)), this::router);
+
+        // Then
+        assertThat(routerCalls.get()).isEqualTo(5);
+        assertThat(memo.getReused()).isZero();
+    }
+
+    @Test
+    void route_SameStopsFromTwoThreads_RoutedOnce() throws Exception {
+        // Given - the first router call waits until the second thread has asked for the same route
+        List<MedDispatchRec> stops = List.of(dispatch(1, 0.5));
+        CountDownLatch secondAsked = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            secondAsked.countDown();
+            memo.route(4, 1, stops, this::router);
+        });
+
+        // When
+        DeliveryPathResponse first = memo.route(4, 1, stops, () -> {
+            other.start();
+            try {
+                secondAsked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return router();
+        });
+        other.join();
+
+        // Then
+        assertThat(first).isNotNull();
+        assertThat(routerCalls.get()).isEqualTo(1);
+        assertThat(memo.getRouted()).isEqualTo(1);
+        assertThat(memo.getReused()).isEqualTo(1);
+    }
+
+    private DeliveryPathResponse router() {
+        routerCalls.incrementAndGet();
+        return new DeliveryPathResponse(1.0, 10, new ArrayList<>());
+    }
+
+    private static MedDispatchRec dispatch(int id, double capacity) {
+        return new MedDispatchRec(id, LocalDate.parse("2025-12-22"), LocalTime.of(10, 0),
+                new MedDispatchRec.Requirements(capacity, false, false, null),
+                new MedDispatchRec.Delivery(-3.186, 55.944));
+    }
+}
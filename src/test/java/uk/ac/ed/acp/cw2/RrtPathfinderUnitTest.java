@@ -0,0 +1,60 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.planner.MoveValidator;
+import uk.ac.ed.acp.cw2.planner.RrtPathfinder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the seeded RRT fallback pathfinder
+ */
+class RrtPathfinderUnitTest {
+
+    // A vertical wall at lng 0.0009 - 0.0012 between lat -0.002 and 0.002
+    private final MoveValidator wall = (lng1, lat1, lng2, lat2) -> {
+        boolean endsInWall = lng2 > 0.0009 && lng2 < 0.0012 && lat2 > -0.002 && lat2 < 0.002;
+        boolean crossesWall = (lng1 <= 0.0009) != (lng2 <= 0.0009) && Math.abs(lat2) < 0.002;
+        return !endsInWall && !crossesWall;
+    };
+
+    private final DeliveryPathResponse.LngLat from = new DeliveryPathResponse.LngLat(0.0, 0.0);
+    private final DeliveryPathResponse.LngLat to = new DeliveryPathResponse.LngLat(0.002, 0.0);
+
+    @Test
+    void findPath_SameSeed_ReturnsIdenticalPath() {
+        List<DeliveryPathResponse.LngLat> first = new RrtPathfinder(42).findPath(from, to, wall);
+        List<DeliveryPathResponse.LngLat> second = new RrtPathfinder(42).findPath(from, to, wall);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void findPath_AroundWall_UsesValidStepsAndReachesGoal() {
+        List<DeliveryPathResponse.LngLat> path = new RrtPathfinder(7).findPath(from, to, wall);
+
+        assertThat(path).isNotNull();
+        assertThat(path.get(0)).isEqualTo(from);
+        for (int i = 1; i < path.size(); i++) {
+            DeliveryPathResponse.LngLat p1 = path.get(i - 1);
+            DeliveryPathResponse.LngLat p2 = path.get(i);
+            assertThat(Math.hypot(p2.getLng() - p1.getLng(), p2.getLat() - p1.getLat()))
+                    .isCloseTo(0.00015, within(1e-9));
+            assertThat(wall.isValidMove(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat())).isTrue();
+        }
+        DeliveryPathResponse.LngLat last = path.get(path.size() - 1);
+        assertThat(Math.hypot(last.getLng() - to.getLng(), last.getLat() - to.getLat())).isLessThan(0.00015);
+    }
+
+    @Test
+    void findPath_GoalUnreachable_ReturnsNull() {
+        MoveValidator blocked = (lng1, lat1, lng2, lat2) -> false;
+
+        assertThat(new RrtPathfinder(42).findPath(from, to, blocked)).isNull();
+    }
+}
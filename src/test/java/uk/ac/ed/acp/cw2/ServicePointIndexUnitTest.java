@@ -0,0 +1,105 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.geometry.GeoMath;
+import uk.ac.ed.acp.cw2.planner.ServicePointIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the service point k-d tree, checked against a scan of the list
+ */
+class ServicePointIndexUnitTest {
+
+    private final List<ServicePoint> servicePoints = randomServicePoints(300);
+    private final ServicePointIndex index = new ServicePointIndex(servicePoints);
+
+    @Test
+    void nearest_MatchesLinearScan() {
+        Random random = new Random(7);
+        for (int q = 0; q < 500; q++) {
+            double lng = -3.25 + random.nextDouble() * 0.15;
+            double lat = 55.90 + random.nextDouble() * 0.10;
+
+            assertThat(index.nearest(lng, lat)).isSameAs(byDistance(lng, lat).get(0));
+        }
+    }
+
+    @Test
+    void within_ClosestFirstAndMatchesLinearScan() {
+        // Given
+        double lng = -3.19;
+        double lat = 55.944;
+        double radius = 0.02;
+
+        // When
+        List<ServicePoint> found = index.within(lng, lat, radius);
+
+        // Then
+        List<ServicePoint> expected = byDistance(lng, lat).stream()
+                .filter(sp -> distance(sp, lng, lat) <= radius)
+                .collect(Collectors.toList());
+        assertThat(found).isNotEmpty().containsExactlyElementsOf(expected);
+        assertThat(index.nearest(lng, lat, 5)).containsExactlyElementsOf(byDistance(lng, lat).subList(0, 5));
+    }
+
+    @Test
+    void nearest_WithPredicate_SkipsRejectedAndRespectsMaxDistance() {
+        // Given
+        double lng = -3.19;
+        double lat = 55.944;
+        List<ServicePoint> sorted = byDistance(lng, lat);
+
+        // When
+        ServicePoint evenId = index.nearest(lng, lat, Double.POSITIVE_INFINITY, sp -> sp.getId() % 2 == 0);
+        ServicePoint none = index.nearest(lng, lat, distance(sorted.get(0), lng, lat) / 2, sp -> true);
+
+        // Then
+        assertThat(evenId).isSameAs(sorted.stream().filter(sp -> sp.getId() % 2 == 0).findFirst().orElseThrow());
+        assertThat(none).isNull();
+    }
+
+    @Test
+    void nearest_EqualDistances_FirstInList() {
+        // Given
+        List<ServicePoint> twins = List.of(
+                servicePoint(1, -3.19, 55.944), servicePoint(2, -3.18, 55.944),
+                servicePoint(3, -3.18, 55.944), servicePoint(4, -3.20, 55.944));
+        ServicePointIndex twinIndex = new ServicePointIndex(twins);
+
+        // Then
+        assertThat(twinIndex.nearest(-3.18, 55.944)).isSameAs(twins.get(1));
+        assertThat(twinIndex.nearest(-3.19, 55.944, 3)).containsExactly(twins.get(0), twins.get(1), twins.get(2));
+    }
+
+    private List<ServicePoint> byDistance(double lng, double lat) {
+        // Stable sort: equal distances keep list order
+        List<ServicePoint> sorted = new ArrayList<>(servicePoints);
+        sorted.sort(Comparator.comparingDouble(sp -> distance(sp, lng, lat)));
+        return sorted;
+    }
+
+    private static double distance(ServicePoint sp, double lng, double lat) {
+        return GeoMath.distance(sp.getLocation().getLng(), sp.getLocation().getLat(), lng, lat);
+    }
+
+    private static List<ServicePoint> randomServicePoints(int count) {
+        Random random = new Random(42);
+        List<ServicePoint> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(servicePoint(i + 1, -3.25 + random.nextDouble() * 0.15, 55.90 + random.nextDouble() * 0.10));
+        }
+        return result;
+    }
+
+    private static ServicePoint servicePoint(int id, double lng, double lat) {
+        return new ServicePoint("SP" + id, id, new ServicePoint.Location(lng, lat, null));
+    }
+}
@@ -0,0 +1,64 @@
+package uk.ac.ed.acp.cw2;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.configuration.SyntheticDataset;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the seeded synthetic ILP dataset behind the synthetic profile
+ */
+class SyntheticDatasetUnitTest {
+
+    private final SyntheticDataset dataset = SyntheticDataset.generate(42, 500, 8, 25, 6);
+
+    @Test
+    void generate_SameSeed_SameData() {
+        SyntheticDataset again = SyntheticDataset.generate(42, 500, 8, 25, 6);
+        SyntheticDataset otherSeed = SyntheticDataset.generate(43, 500, 8, 25, 6);
+
+        assertThat(Arrays.equals(again.getDrones(), dataset.getDrones())).isTrue();
+        assertThat(Arrays.equals(again.getRestrictedAreas(), dataset.getRestrictedAreas())).isTrue();
+        assertThat(Arrays.equals(again.getDroneAvailability(), dataset.getDroneAvailability())).isTrue();
+        assertThat(Arrays.equals(otherSeed.getDrones(), dataset.getDrones())).isFalse();
+    }
+
+    @Test
+    void generate_RequestedSizesAndClosedPolygons() {
+        assertThat(dataset.getDrones()).hasSize(500);
+        assertThat(dataset.getServicePoints()).hasSize(8);
+        assertThat(dataset.getRestrictedAreas()).hasSize(25);
+        for (RestrictedArea area : dataset.getRestrictedAreas()) {
+            // Six corners plus the repeated first vertex
+            assertThat(area.getVertices()).hasSize(7);
+            assertThat(area.getVertices().get(6)).isEqualTo(area.getVertices().get(0));
+        }
+    }
+
+    @Test
+    void generate_ServicePointsClearOfRestrictedAreas() {
+        RestrictedAreaIndex index = new RestrictedAreaIndex(Arrays.asList(dataset.getRestrictedAreas()));
+
+        for (ServicePoint sp : dataset.getServicePoints()) {
+            assertThat(index.isPointInOrNearAny(sp.getLocation().getLng(), sp.getLocation().getLat())).isFalse();
+        }
+    }
+
+    @Test
+    void generate_EveryDroneBasedSomewhere() {
+        Set<String> based = new HashSet<>();
+        for (DroneServicePointAvailability sp : dataset.getDroneAvailability()) {
+            sp.getDrones().forEach(drone -> based.add(drone.getId()));
+        }
+
+        assertThat(based).hasSize(500);
+    }
+}
@@ -0,0 +1,108 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.configuration.MockDataConfig;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneServicePointAvailability;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+import uk.ac.ed.acp.cw2.service.impl.DispatchTable;
+import uk.ac.ed.acp.cw2.service.impl.FleetColumns;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the queryAvailableDrones filter on a large seeded fleet.
+ * <p>
+ * Drones get random capabilities and one to three weekly time slots at one of the mock service
+ * points. The dispatches are four deliveries around George Square on one Monday, two of them
+ * with a maxCost. buildAndFilter is the whole per-request cost after the data is fetched
+ * (dispatch table, fleet columns, both filter stages); bulkStage is only the bitset stage on
+ * prebuilt columns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AvailableDronesBenchmark {
+
+    @Param({"10000", "100000"})
+    public int fleetSize;
+
+    private List<Drone> drones;
+    private List<DroneServicePointAvailability> availability;
+    private List<ServicePoint> servicePoints;
+    private RestrictedAreaIndex restrictedAreas;
+    private List<MedDispatchRec> dispatches;
+    private FleetColumns fleet;
+    private DispatchTable table;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        servicePoints = Arrays.asList(MockDataConfig.getMockServicePoints());
+        restrictedAreas = new RestrictedAreaIndex(Arrays.asList(MockDataConfig.getMockRestrictedAreas()));
+
+        drones = new ArrayList<>(fleetSize);
+        List<List<DroneServicePointAvailability.DroneAvailability>> byServicePoint = new ArrayList<>();
+        for (int s = 0; s < servicePoints.size(); s++) {
+            byServicePoint.add(new ArrayList<>());
+        }
+        for (int id = 1; id <= fleetSize; id++) {
+            drones.add(new Drone("Drone " + id, id, new Drone.Capability(
+                    random.nextBoolean(), random.nextBoolean(),
+                    1.0 + random.nextInt(20), 500 + random.nextInt(3500),
+                    0.01 + random.nextDouble() * 0.06, 1.0 + random.nextDouble() * 8, 1.0 + random.nextDouble() * 12)));
+
+            List<DroneServicePointAvailability.TimeSlot> slots = new ArrayList<>();
+            for (int k = 1 + random.nextInt(3); k > 0; k--) {
+                int from = random.nextInt(16);
+                slots.add(new DroneServicePointAvailability.TimeSlot(
+                        DayOfWeek.of(1 + random.nextInt(7)).name(), LocalTime.of(from, 0), LocalTime.of(from + 8, 0)));
+            }
+            byServicePoint.get(random.nextInt(servicePoints.size()))
+                    .add(new DroneServicePointAvailability.DroneAvailability(String.valueOf(id), slots));
+        }
+        availability = new ArrayList<>();
+        for (int s = 0; s < servicePoints.size(); s++) {
+            availability.add(new DroneServicePointAvailability(servicePoints.get(s).getId(), byServicePoint.get(s)));
+        }
+
+        dispatches = List.of(
+                dispatch(1, 2.0, false, 12.0, -3.1890, 55.9460),
+                dispatch(2, 1.0, false, null, -3.1850, 55.9430),
+                dispatch(3, 3.0, true, 15.0, -3.1925, 55.9445),
+                dispatch(4, 0.5, false, null, -3.1860, 55.9470));
+
+        fleet = FleetColumns.build(drones, availability);
+        table = DispatchTable.build(dispatches, servicePoints, availability, restrictedAreas);
+    }
+
+    @Benchmark
+    public List<Integer> buildAndFilter() {
+        DispatchTable dispatchTable = DispatchTable.build(dispatches, servicePoints, availability, restrictedAreas);
+        return FleetColumns.build(drones, availability).availableFor(dispatchTable);
+    }
+
+    @Benchmark
+    public BitSet bulkStage() {
+        return fleet.candidatesFor(table);
+    }
+
+    private static MedDispatchRec dispatch(int id, double capacity, boolean cooling, Double maxCost, double lng, double lat) {
+        return new MedDispatchRec(id, LocalDate.parse("2025-12-22"), LocalTime.parse("10:00"),
+                new MedDispatchRec.Requirements(capacity, cooling, false, maxCost),
+                new MedDispatchRec.Delivery(lng, lat));
+    }
+}
@@ -0,0 +1,101 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.acp.cw2.configuration.SyntheticDataset;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+import uk.ac.ed.acp.cw2.service.impl.DroneQueryServiceImpl;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixed seeded inputs shared by the service-level benchmarks, so results from different
+ * commits are measured on exactly the same data.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 42;
+
+    // Logback config for forked benchmark JVMs: the planner logs every request at INFO
+    static final String QUIET_LOGGING = "-Dlogback.configurationFile=logback-benchmark.xml";
+
+    // A Monday, when most synthetic drones have a slot
+    private static final LocalDate DATE = LocalDate.parse("2025-12-22");
+
+    private BenchmarkData() {
+    }
+
+    static SyntheticDataset dataset(int drones, int restrictedAreas) {
+        return SyntheticDataset.generate(SEED, drones, 20, restrictedAreas, 8);
+    }
+
+    /**
+     * A DroneQueryServiceImpl answering the ILP endpoints straight from the dataset arrays,
+     * so the measurement is the planning and not JSON decoding. The cross-request leg cache is
+     * off, since the same areas and dispatches every invocation would make each leg a hit.
+     */
+    static DroneQueryServiceImpl service(SyntheticDataset dataset) {
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+                Object body;
+                if (url.endsWith("/drones-for-service-points")) {
+                    body = dataset.getDroneAvailability();
+                } else if (url.endsWith("/service-points")) {
+                    body = dataset.getServicePoints();
+                } else if (url.endsWith("/restricted-areas")) {
+                    body = dataset.getRestrictedAreas();
+                } else {
+                    body = dataset.getDrones();
+                }
+                return responseType.cast(body);
+            }
+        };
+
+        DroneQueryServiceImpl service = new DroneQueryServiceImpl();
+        setField(service, "restTemplate", restTemplate);
+        setField(service, "ilpEndpoint", "http://synthetic");
+        setField(service, "maxCachedLegs", 0);
+        return service;
+    }
+
+    /**
+     * Morning deliveries of 1.0 without cooling or heating, within 0.004 degrees of the first
+     * service point and clear of the restricted areas
+     */
+    static List<MedDispatchRec> dispatches(SyntheticDataset dataset, int count) {
+        Random random = new Random(SEED + count);
+        RestrictedAreaIndex restrictedAreas = new RestrictedAreaIndex(Arrays.asList(dataset.getRestrictedAreas()));
+        ServicePoint.Location base = dataset.getServicePoints()[0].getLocation();
+
+        List<MedDispatchRec> dispatches = new ArrayList<>(count);
+        while (dispatches.size() < count) {
+            double lng = base.getLng() + (random.nextDouble() - 0.5) * 0.008;
+            double lat = base.getLat() + (random.nextDouble() - 0.5) * 0.008;
+            if (restrictedAreas.isPointInOrNearAny(lng, lat)) {
+                continue;
+            }
+            dispatches.add(new MedDispatchRec(dispatches.size() + 1, DATE, LocalTime.of(9 + random.nextInt(3), 0),
+                    new MedDispatchRec.Requirements(1.0, false, false, null),
+                    new MedDispatchRec.Delivery(lng, lat)));
+        }
+        return dispatches;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name, e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.configuration.SyntheticDataset;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.dto.ServicePoint;
+import uk.ac.ed.acp.cw2.service.impl.DroneQueryServiceImpl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the two delivery ordering algorithms of DroneQueryServiceImpl on the same
+ * seeded dispatches: the exact DP (used up to 12 dispatches) against the nearest-neighbour Greedy.
+ * <p>
+ * Both are private, so they are called through method handles looked up once in setUp.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkData.QUIET_LOGGING)
+@State(Scope.Thread)
+public class DeliveryOrderBenchmark {
+
+    @Param({"6", "9", "12"})
+    public int dispatchCount;
+
+    private DroneQueryServiceImpl service;
+    private ServicePoint start;
+    private List<MedDispatchRec> dispatches;
+    private MethodHandle dp;
+    private MethodHandle greedy;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        SyntheticDataset dataset = BenchmarkData.dataset(0, 50);
+        service = BenchmarkData.service(dataset);
+        start = dataset.getServicePoints()[0];
+        dispatches = BenchmarkData.dispatches(dataset, dispatchCount);
+
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(DroneQueryServiceImpl.class, MethodHandles.lookup());
+        MethodType type = MethodType.methodType(List.class, ServicePoint.class, List.class);
+        dp = lookup.findVirtual(DroneQueryServiceImpl.class, "optimizeDeliveryOrder_DP", type);
+        greedy = lookup.findVirtual(DroneQueryServiceImpl.class, "optimizeDeliveryOrder_Greedy", type);
+    }
+
+    @Benchmark
+    public Object dynamicProgramming() throws Throwable {
+        return dp.invoke(service, start, dispatches);
+    }
+
+    @Benchmark
+    public Object greedy() throws Throwable {
+        return greedy.invoke(service, start, dispatches);
+    }
+}
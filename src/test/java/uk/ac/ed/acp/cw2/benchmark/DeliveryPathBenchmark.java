@@ -0,0 +1,48 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.configuration.SyntheticDataset;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.dto.MedDispatchRec;
+import uk.ac.ed.acp.cw2.service.impl.DroneQueryServiceImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the full calcDeliveryPath on a seeded synthetic dataset (1000 drones,
+ * 20 service points, 50 restricted areas) with 1 to 12 deliveries around one service point:
+ * availability query, strategy selection, ordering and pathfinding around the restricted areas.
+ * <p>
+ * The service is called directly, without the plan cache in front of it, and with its leg cache
+ * off, so every invocation routes every leg again. As in production, the compiled restricted areas
+ * and the service point distance fields are built on the first invocation and reused after it.
+ * The planning budget is the default 10 s; a plan cut short by the budget would show up as a time
+ * close to it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkData.QUIET_LOGGING)
+@State(Scope.Thread)
+public class DeliveryPathBenchmark {
+
+    @Param({"1", "4", "12"})
+    public int dispatchCount;
+
+    private DroneQueryServiceImpl service;
+    private List<MedDispatchRec> dispatches;
+
+    @Setup
+    public void setUp() {
+        SyntheticDataset dataset = BenchmarkData.dataset(1000, 50);
+        service = BenchmarkData.service(dataset);
+        dispatches = BenchmarkData.dispatches(dataset, dispatchCount);
+    }
+
+    @Benchmark
+    public DeliveryPathResponse calcDeliveryPath() {
+        return service.calcDeliveryPath(dispatches);
+    }
+}
@@ -0,0 +1,110 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.acp.cw2.configuration.MockDataConfig;
+import uk.ac.ed.acp.cw2.dto.LngLat;
+import uk.ac.ed.acp.cw2.dto.RestrictedArea;
+import uk.ac.ed.acp.cw2.service.GeoService;
+import uk.ac.ed.acp.cw2.service.impl.GeoServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the LngLat object API of GeoService with the
+ * primitive / output-parameter overloads on the same seeded positions, plus
+ * isInRegion against the George Square restricted area of the mock data.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeoServiceBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    private final GeoService geoService = new GeoServiceImpl();
+
+    private LngLat[] positions;
+    private double[] lngs;
+    private double[] lats;
+    private double[] angles;
+    private List<LngLat> region;
+    private final double[] out = new double[2];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        positions = new LngLat[POSITIONS];
+        lngs = new double[POSITIONS];
+        lats = new double[POSITIONS];
+        angles = new double[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            lngs[i] = -3.20 + random.nextDouble() * 0.04;
+            lats[i] = 55.93 + random.nextDouble() * 0.06;
+            angles[i] = (random.nextInt(16)) * 22.5;
+            positions[i] = new LngLat(lngs[i], lats[i]);
+        }
+
+        region = new ArrayList<>();
+        for (RestrictedArea.Vertex vertex : MockDataConfig.getMockRestrictedAreas()[0].getVertices()) {
+            region.add(new LngLat(vertex.getLng(), vertex.getLat()));
+        }
+    }
+
+    @Benchmark
+    public void distanceObject(Blackhole bh) {
+        for (int i = 1; i < POSITIONS; i++) {
+            bh.consume(geoService.calculateDistance(positions[i - 1], positions[i]));
+        }
+    }
+
+    @Benchmark
+    public void distancePrimitive(Blackhole bh) {
+        for (int i = 1; i < POSITIONS; i++) {
+            bh.consume(geoService.calculateDistance(lngs[i - 1], lats[i - 1], lngs[i], lats[i]));
+        }
+    }
+
+    @Benchmark
+    public void isCloseToObject(Blackhole bh) {
+        for (int i = 1; i < POSITIONS; i++) {
+            bh.consume(geoService.isCloseTo(positions[i - 1], positions[i]));
+        }
+    }
+
+    @Benchmark
+    public void isCloseToPrimitive(Blackhole bh) {
+        for (int i = 1; i < POSITIONS; i++) {
+            bh.consume(geoService.isCloseTo(lngs[i - 1], lats[i - 1], lngs[i], lats[i]));
+        }
+    }
+
+    @Benchmark
+    public void nextPositionObject(Blackhole bh) {
+        for (int i = 0; i < POSITIONS; i++) {
+            bh.consume(geoService.nextPosition(positions[i], angles[i]));
+        }
+    }
+
+    @Benchmark
+    public void nextPositionOutParam(Blackhole bh) {
+        for (int i = 0; i < POSITIONS; i++) {
+            geoService.nextPosition(lngs[i], lats[i], angles[i], out);
+            bh.consume(out[0]);
+            bh.consume(out[1]);
+        }
+    }
+
+    @Benchmark
+    public void isInRegion(Blackhole bh) {
+        for (int i = 0; i < POSITIONS; i++) {
+            bh.consume(geoService.isInRegion(positions[i], region));
+        }
+    }
+}
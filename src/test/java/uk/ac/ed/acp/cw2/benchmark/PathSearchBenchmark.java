@@ -0,0 +1,90 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.configuration.MockDataConfig;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathResponse;
+import uk.ac.ed.acp.cw2.planner.LatticePathfinder;
+import uk.ac.ed.acp.cw2.planner.PathSearchResult;
+import uk.ac.ed.acp.cw2.planner.PathSearchStrategy;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the lattice search strategies on the mock restricted areas.
+ * <p>
+ * Each leg starts west of George Square and ends legLength degrees further east, at three
+ * latitudes that hit the square's west edge low, in the middle and near its north corner.
+ * Besides the time per leg, the expandedNodes / found / searches counters report how many
+ * nodes each strategy expands and how often it succeeds (success rate = found / searches).
+ * The pathfinder is reused across invocations as in the service, so the hierarchical strategy's
+ * cluster graph is built during warmup and the measurements show the abstract search + refinement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathSearchBenchmark {
+
+    private static final double START_LNG = -3.1915;
+    private static final double[] START_LATS = {55.9432, 55.9437, 55.9441};
+
+    @Param({"A_STAR", "BIDIRECTIONAL", "JUMP_POINT", "HIERARCHICAL"})
+    public PathSearchStrategy strategy;
+
+    @Param({"0.006", "0.01", "0.02", "0.04", "0.08"})
+    public double legLength;
+
+    private RestrictedAreaIndex restrictedAreas;
+    private LatticePathfinder pathfinder;
+    private DeliveryPathResponse.LngLat[] starts;
+    private DeliveryPathResponse.LngLat[] goals;
+    private int leg;
+
+    /**
+     * Per-iteration counters reported next to the timing results
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SearchCounters {
+        public long searches;
+        public long found;
+        public long expandedNodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            searches = 0;
+            found = 0;
+            expandedNodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        restrictedAreas = new RestrictedAreaIndex(Arrays.asList(MockDataConfig.getMockRestrictedAreas()));
+        pathfinder = strategy.newPathfinder();
+        starts = new DeliveryPathResponse.LngLat[START_LATS.length];
+        goals = new DeliveryPathResponse.LngLat[START_LATS.length];
+        for (int i = 0; i < START_LATS.length; i++) {
+            starts[i] = new DeliveryPathResponse.LngLat(START_LNG, START_LATS[i]);
+            goals[i] = new DeliveryPathResponse.LngLat(START_LNG + legLength, START_LATS[i] + 0.0003);
+        }
+    }
+
+    @Benchmark
+    public PathSearchResult search(SearchCounters counters) {
+        int i = leg;
+        leg = (leg + 1) % starts.length;
+
+        PathSearchResult result = pathfinder.search(starts[i], goals[i], restrictedAreas);
+        counters.searches++;
+        counters.expandedNodes += result.getExpandedNodes();
+        if (result.isFound()) {
+            counters.found++;
+        }
+        return result;
+    }
+}
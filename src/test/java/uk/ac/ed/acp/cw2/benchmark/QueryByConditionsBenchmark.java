@@ -0,0 +1,41 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dto.QueryCondition;
+import uk.ac.ed.acp.cw2.service.impl.DroneQueryServiceImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of queryByConditions on a seeded synthetic fleet: the README's capacity and
+ * cooling query plus a cost per move bound.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkData.QUIET_LOGGING)
+@State(Scope.Thread)
+public class QueryByConditionsBenchmark {
+
+    @Param({"1000", "10000"})
+    public int fleetSize;
+
+    private DroneQueryServiceImpl service;
+    private List<QueryCondition> conditions;
+
+    @Setup
+    public void setUp() {
+        service = BenchmarkData.service(BenchmarkData.dataset(fleetSize, 0));
+        conditions = List.of(
+                new QueryCondition("capacity", ">", "8"),
+                new QueryCondition("cooling", "=", "true"),
+                new QueryCondition("costPerMove", "<", "0.05"));
+    }
+
+    @Benchmark
+    public List<Integer> queryByConditions() {
+        return service.queryByConditions(conditions);
+    }
+}
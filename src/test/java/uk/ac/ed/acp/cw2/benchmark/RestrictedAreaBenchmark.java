@@ -0,0 +1,81 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.acp.cw2.configuration.SyntheticDataset;
+import uk.ac.ed.acp.cw2.geometry.CompassDirections;
+import uk.ac.ed.acp.cw2.planner.RestrictedAreaIndex;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the RestrictedAreaIndex queries the planner makes for every expanded node,
+ * on seeded synthetic restricted areas (8-corner polygons) at two densities.
+ * <p>
+ * areaContaining is the plain point-in-polygon test, isPointInOrNearAny adds the buffer check and
+ * isValidMove is one compass step: buffered end point plus edge crossings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RestrictedAreaBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    @Param({"50", "500"})
+    public int restrictedAreas;
+
+    private RestrictedAreaIndex index;
+    private double[] lngs;
+    private double[] lats;
+    private double[] nextLngs;
+    private double[] nextLats;
+
+    @Setup
+    public void setUp() {
+        SyntheticDataset dataset = BenchmarkData.dataset(0, restrictedAreas);
+        index = new RestrictedAreaIndex(Arrays.asList(dataset.getRestrictedAreas()));
+
+        Random random = new Random(BenchmarkData.SEED);
+        lngs = new double[POSITIONS];
+        lats = new double[POSITIONS];
+        nextLngs = new double[POSITIONS];
+        nextLats = new double[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            int direction = random.nextInt(CompassDirections.COUNT);
+            lngs[i] = SyntheticDataset.CENTRE_LNG + (random.nextDouble() - 0.5) * SyntheticDataset.SPAN;
+            lats[i] = SyntheticDataset.CENTRE_LAT + (random.nextDouble() - 0.5) * SyntheticDataset.SPAN;
+            nextLngs[i] = lngs[i] + CompassDirections.dx(direction);
+            nextLats[i] = lats[i] + CompassDirections.dy(direction);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void areaContaining(Blackhole bh) {
+        for (int i = 0; i < POSITIONS; i++) {
+            bh.consume(index.areaContaining(lngs[i], lats[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void isPointInOrNearAny(Blackhole bh) {
+        for (int i = 0; i < POSITIONS; i++) {
+            bh.consume(index.isPointInOrNearAny(lngs[i], lats[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void isValidMove(Blackhole bh) {
+        for (int i = 0; i < POSITIONS; i++) {
+            bh.consume(index.isValidMove(lngs[i], lats[i], nextLngs[i], nextLats[i]));
+        }
+    }
+}